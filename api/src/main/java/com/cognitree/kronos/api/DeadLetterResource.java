@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.api;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.scheduler.DeadLetterService;
+import com.cognitree.kronos.scheduler.ServiceException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+@Path("/deadletters")
+@Api(value = "dead letters", description = "inspect and replay the messages which could not be consumed")
+public class DeadLetterResource {
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterResource.class);
+
+    @GET
+    @ApiOperation(value = "Get all dead letters", response = DeadLetter.class, responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 503, message = "Dead letters not available")})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAllDeadLetters(@ApiParam(value = "topic the messages were consumed from")
+                                      @QueryParam("topic") String topic) throws ServiceException {
+        logger.info("Received request to get all dead letters with param topic {}", topic);
+        final DeadLetterService deadLetterService = DeadLetterService.getService();
+        if (deadLetterService == null) {
+            return Response.status(SERVICE_UNAVAILABLE).entity("dead letters are not available on this node").build();
+        }
+        return Response.status(OK).entity(deadLetterService.get(topic)).build();
+    }
+
+    @GET
+    @Path("/counts")
+    @ApiOperation(value = "Get number of dead letters received by topic", response = Map.class,
+            notes = "counts cover all the dead letters received since the scheduler started, including the ones " +
+                    "replayed or discarded")
+    @ApiResponses(value = {
+            @ApiResponse(code = 503, message = "Dead letters not available")})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDeadLetterCounts() {
+        logger.info("Received request to get dead letter counts");
+        final DeadLetterService deadLetterService = DeadLetterService.getService();
+        if (deadLetterService == null) {
+            return Response.status(SERVICE_UNAVAILABLE).entity("dead letters are not available on this node").build();
+        }
+        return Response.status(OK).entity(deadLetterService.getCounts()).build();
+    }
+
+    @POST
+    @Path("/replay")
+    @ApiOperation(value = "Replay all dead letters", response = DeadLetter.class, responseContainer = "List",
+            notes = "the payload of each dead letter is sent back to the topic it was consumed from. Dead letters " +
+                    "replayed are discarded and returned, the ones which could not be replayed are kept")
+    @ApiResponses(value = {
+            @ApiResponse(code = 503, message = "Dead letters not available")})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response replayAllDeadLetters(@ApiParam(value = "topic the messages were consumed from")
+                                         @QueryParam("topic") String topic) throws ServiceException {
+        logger.info("Received request to replay all dead letters with param topic {}", topic);
+        final DeadLetterService deadLetterService = DeadLetterService.getService();
+        if (deadLetterService == null) {
+            return Response.status(SERVICE_UNAVAILABLE).entity("dead letters are not available on this node").build();
+        }
+        final List<DeadLetter> replayed = deadLetterService.replayAll(topic);
+        return Response.status(OK).entity(replayed).build();
+    }
+
+    @POST
+    @Path("{id}/replay")
+    @ApiOperation(value = "Replay dead letter", response = DeadLetter.class,
+            notes = "the payload of the dead letter is sent back to the topic it was consumed from")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Dead letter not found or could not be replayed"),
+            @ApiResponse(code = 503, message = "Dead letters not available")})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response replayDeadLetter(@ApiParam(value = "dead letter id", required = true)
+                                     @PathParam("id") String id) throws ServiceException {
+        logger.info("Received request to replay dead letter with id {}", id);
+        final DeadLetterService deadLetterService = DeadLetterService.getService();
+        if (deadLetterService == null) {
+            return Response.status(SERVICE_UNAVAILABLE).entity("dead letters are not available on this node").build();
+        }
+        final DeadLetter deadLetter = deadLetterService.replay(id);
+        if (deadLetter == null) {
+            logger.error("No dead letter exists with id {} or it could not be replayed", id);
+            return Response.status(NOT_FOUND).build();
+        }
+        return Response.status(OK).entity(deadLetter).build();
+    }
+
+    @DELETE
+    @Path("{id}")
+    @ApiOperation(value = "Discard dead letter", response = DeadLetter.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Dead letter not found"),
+            @ApiResponse(code = 503, message = "Dead letters not available")})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response deleteDeadLetter(@ApiParam(value = "dead letter id", required = true)
+                                     @PathParam("id") String id) throws ServiceException {
+        logger.info("Received request to delete dead letter with id {}", id);
+        final DeadLetterService deadLetterService = DeadLetterService.getService();
+        if (deadLetterService == null) {
+            return Response.status(SERVICE_UNAVAILABLE).entity("dead letters are not available on this node").build();
+        }
+        final DeadLetter deadLetter = deadLetterService.delete(id);
+        if (deadLetter == null) {
+            logger.error("No dead letter exists with id {}", id);
+            return Response.status(NOT_FOUND).build();
+        }
+        return Response.status(OK).entity(deadLetter).build();
+    }
+}
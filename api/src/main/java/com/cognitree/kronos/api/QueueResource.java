@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.api;
+
+import com.cognitree.kronos.queue.QueueMetrics;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import static javax.ws.rs.core.Response.Status.OK;
+
+@Path("/queues")
+@Api(value = "queues", description = "monitor the queues used to exchange messages between scheduler and executors")
+public class QueueResource {
+    private static final Logger logger = LoggerFactory.getLogger(QueueResource.class);
+
+    @GET
+    @Path("/metrics")
+    @ApiOperation(value = "Get metrics of the topics consumed on this node", response = QueueMetrics.class,
+            responseContainer = "Map",
+            notes = "metrics are keyed by topic and cover the dequeue latency in milliseconds, the number of " +
+                    "messages handed over per poll and the depth (lag) of the topic as last observed")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getQueueMetrics() {
+        logger.info("Received request to get queue metrics");
+        return Response.status(OK).entity(QueueMetrics.getAll()).build();
+    }
+}
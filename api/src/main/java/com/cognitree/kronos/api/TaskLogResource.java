@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.api;
+
+import com.cognitree.kronos.executor.TaskLogService;
+import com.cognitree.kronos.executor.model.TaskLogFile;
+import com.cognitree.kronos.model.TaskId;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.util.List;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+@Path("/workflows/{workflow}/jobs/{job}/tasks/{task}/logs")
+@Api(value = "task logs", description = "read the output logs of the tasks")
+public class TaskLogResource {
+    private static final Logger logger = LoggerFactory.getLogger(TaskLogResource.class);
+    // header set on a log read response to the size of the log content, used to follow a log with offset reads
+    private static final String LOG_SIZE_HEADER = "X-Log-Size";
+
+    @GET
+    @ApiOperation(value = "Get all the log files of a task", response = TaskLogFile.class, responseContainer = "List",
+            notes = "logs of each attempt of the task are listed separately")
+    @ApiResponses(value = {
+            @ApiResponse(code = 503, message = "Task logs not available")})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAllLogFiles(@ApiParam(value = "workflow name", required = true)
+                                   @PathParam("workflow") String workflowName,
+                                   @ApiParam(value = "job id", required = true)
+                                   @PathParam("job") String jobId,
+                                   @ApiParam(value = "task name", required = true)
+                                   @PathParam("task") String taskName,
+                                   @HeaderParam("namespace") String namespace) throws IOException {
+        logger.info("Received request to get all log files of task {} of job {} for workflow {} under namespace {}",
+                taskName, jobId, workflowName, namespace);
+        if (namespace == null || namespace.isEmpty()) {
+            return Response.status(BAD_REQUEST).entity("missing namespace header").build();
+        }
+        final TaskLogService taskLogService = TaskLogService.getService();
+        if (taskLogService == null) {
+            return Response.status(SERVICE_UNAVAILABLE).entity("task logs are not available on this node").build();
+        }
+        try {
+            final List<TaskLogFile> taskLogFiles =
+                    taskLogService.list(TaskId.build(namespace, taskName, jobId, workflowName));
+            return Response.status(OK).entity(taskLogFiles).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    @GET
+    @Path("{attempt}/{file}")
+    @ApiOperation(value = "Read a log file of a task attempt",
+            notes = "query param 'tail' takes precedence over 'offset'. A compressed log file can be referred by its " +
+                    "name before compression. The size of the log content is returned in the header " + LOG_SIZE_HEADER)
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Log file not found"),
+            @ApiResponse(code = 503, message = "Task logs not available")})
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response readLogFile(@ApiParam(value = "workflow name", required = true)
+                                @PathParam("workflow") String workflowName,
+                                @ApiParam(value = "job id", required = true)
+                                @PathParam("job") String jobId,
+                                @ApiParam(value = "task name", required = true)
+                                @PathParam("task") String taskName,
+                                @ApiParam(value = "task attempt", required = true)
+                                @PathParam("attempt") int attempt,
+                                @ApiParam(value = "log file name", required = true)
+                                @PathParam("file") String fileName,
+                                @ApiParam(value = "offset in bytes to read the log from", defaultValue = "0")
+                                @DefaultValue("0") @QueryParam("offset") long offset,
+                                @ApiParam(value = "max number of bytes to read, reads till the end if not set")
+                                @DefaultValue("-1") @QueryParam("length") long length,
+                                @ApiParam(value = "number of bytes to read from the end of the log")
+                                @DefaultValue("-1") @QueryParam("tail") long tail,
+                                @HeaderParam("namespace") String namespace) throws IOException {
+        logger.info("Received request to read log file {} of attempt {} of task {} of job {} for workflow {} " +
+                        "under namespace {} with param offset {}, length {}, tail {}",
+                fileName, attempt, taskName, jobId, workflowName, namespace, offset, length, tail);
+        if (namespace == null || namespace.isEmpty()) {
+            return Response.status(BAD_REQUEST).entity("missing namespace header").build();
+        }
+        if (offset < 0) {
+            return Response.status(BAD_REQUEST).entity("offset can not be negative").build();
+        }
+        final TaskLogService taskLogService = TaskLogService.getService();
+        if (taskLogService == null) {
+            return Response.status(SERVICE_UNAVAILABLE).entity("task logs are not available on this node").build();
+        }
+        final java.nio.file.Path file;
+        try {
+            file = taskLogService.getFile(TaskId.build(namespace, taskName, jobId, workflowName), attempt, fileName);
+        } catch (IllegalArgumentException e) {
+            return Response.status(BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        if (file == null) {
+            logger.error("No log file {} exists for attempt {} of task {} of job {}", fileName, attempt, taskName, jobId);
+            return Response.status(NOT_FOUND).build();
+        }
+        final long size = taskLogService.getSize(file);
+        final long readOffset = tail >= 0 ? Math.max(0, size - tail) : offset;
+        final long readLength = tail >= 0 ? size - readOffset : length;
+        final StreamingOutput streamingOutput = out -> taskLogService.transfer(file, readOffset, readLength, out);
+        return Response.status(OK).entity(streamingOutput).header(LOG_SIZE_HEADER, size).build();
+    }
+}
@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -135,6 +136,25 @@ public class WorkflowJobResource {
         return Response.status(OK).entity(JobResponse.create(job, tasks)).build();
     }
 
+    @POST
+    @Path("{id}/abort")
+    @ApiOperation(value = "Abort a running job for a workflow",
+            notes = "all the tasks of the job yet to complete are marked as failed and the running tasks are cancelled")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Job not found")})
+    public Response abortJob(@ApiParam(value = "workflow name", required = true)
+                             @PathParam("workflow") String workflowName,
+                             @ApiParam(value = "job id", required = true)
+                             @PathParam("id") String id,
+                             @HeaderParam("namespace") String namespace) throws ServiceException, ValidationException {
+        logger.info("Received request to abort job with id {} under namespace {}", id, namespace);
+        if (namespace == null || namespace.isEmpty()) {
+            return Response.status(BAD_REQUEST).entity("missing namespace header").build();
+        }
+        JobService.getService().abort(JobId.build(namespace, id, workflowName));
+        return Response.status(OK).build();
+    }
+
     private long timeInMillisBeforeDays(int numberOfDays) {
         final long currentTimeMillis = System.currentTimeMillis();
         return numberOfDays == -1 ? 0 : currentTimeMillis - (currentTimeMillis % TimeUnit.DAYS.toMillis(1))
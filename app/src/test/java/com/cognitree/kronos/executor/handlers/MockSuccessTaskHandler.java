@@ -44,6 +44,10 @@ public class MockSuccessTaskHandler implements TaskHandler {
     @Override
     public TaskResult handle(Task task) {
         tasks.add(getTaskId(task.getName(), task.getJob(), task.getNamespace()));
+        // echo the output property in the task context
+        if (task.getProperties().containsKey("output")) {
+            return new TaskResult(true, null, Collections.singletonMap("output", task.getProperties().get("output")));
+        }
         return TaskResult.SUCCESS;
     }
 }
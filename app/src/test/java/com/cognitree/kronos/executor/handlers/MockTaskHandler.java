@@ -19,6 +19,7 @@ package com.cognitree.kronos.executor.handlers;
 
 import com.cognitree.kronos.executor.model.TaskResult;
 import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,11 +32,16 @@ public class MockTaskHandler implements TaskHandler {
     private static final Logger logger = LoggerFactory.getLogger(MockTaskHandler.class);
 
     private static final List<String> tasks = Collections.synchronizedList(new ArrayList<>());
+    private static final List<String> cancelledTasks = Collections.synchronizedList(new ArrayList<>());
 
     public static boolean finishExecution(String name, String job, String namespace) {
         return tasks.add(getTaskId(name, job, namespace));
     }
 
+    public static boolean isCancelled(String name, String job, String namespace) {
+        return cancelledTasks.contains(getTaskId(name, job, namespace));
+    }
+
     private static String getTaskId(String name, String job, String namespace) {
         return name + job + namespace;
     }
@@ -58,4 +64,11 @@ public class MockTaskHandler implements TaskHandler {
         tasks.remove(task.getName());
         return TaskResult.SUCCESS;
     }
+
+    @Override
+    public void cancel(TaskId taskId) {
+        logger.info("Received request to cancel task {}", taskId);
+        cancelledTasks.add(getTaskId(taskId.getName(), taskId.getJob(), taskId.getNamespace()));
+        finishExecution(taskId.getName(), taskId.getJob(), taskId.getNamespace());
+    }
 }
@@ -210,9 +210,75 @@ public class JobServiceTest {
             }
         }
         Assert.assertNotNull(taskThree);
-        // Right now timed out tasks are not cleaned up on the executor side
-        // thus finishing the task execution manually
-        MockTaskHandler.finishExecution(taskThree.getName(), taskThree.getJob(), taskThree.getNamespace());
+        // timed out task is cancelled on the executor side
+        Assert.assertTrue(MockTaskHandler.isCancelled(taskThree.getName(), taskThree.getJob(), taskThree.getNamespace()));
+    }
+
+    @Test
+    public void testGetJobTasksFailedDueToNoExecutor() throws Exception {
+        final WorkflowTrigger workflowTrigger = scheduleWorkflow("workflows/workflow-template-unserved-tasks.yaml");
+
+        final Scheduler scheduler = WorkflowSchedulerService.getService().getScheduler();
+        // wait for the job to be triggered
+        waitForTriggerToComplete(workflowTrigger, scheduler);
+
+        JobService jobService = JobService.getService();
+        final List<Job> workflowOneJobs = jobService.get(workflowTrigger.getNamespace(), workflowTrigger.getWorkflow(),
+                workflowTrigger.getName(), 0, System.currentTimeMillis());
+        Assert.assertEquals(1, workflowOneJobs.size());
+        final Job job = workflowOneJobs.get(0);
+        // no executor advertises the task type, wait for the executor wait timeout to elapse
+        final long deadline = System.currentTimeMillis() + 10000;
+        Task taskTwo = null;
+        while (System.currentTimeMillis() < deadline) {
+            taskTwo = jobService.getTasks(job).stream()
+                    .filter(task -> task.getName().equals("taskTwo")).findFirst().orElse(null);
+            if (taskTwo != null && taskTwo.getStatus() == Task.Status.FAILED) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        Assert.assertNotNull(taskTwo);
+        Assert.assertEquals(Task.Status.FAILED, taskTwo.getStatus());
+        Assert.assertEquals(Messages.NO_EXECUTOR_AVAILABLE, taskTwo.getStatusMessage());
+    }
+
+    @Test
+    public void testAbortJob() throws Exception {
+        final WorkflowTrigger workflowTrigger = scheduleWorkflow("workflows/workflow-template-abort-tasks.yaml");
+
+        final Scheduler scheduler = WorkflowSchedulerService.getService().getScheduler();
+        // wait for the job to be triggered
+        waitForTriggerToComplete(workflowTrigger, scheduler);
+        // wait for tasks status to be consumed from queue
+        Thread.sleep(100);
+
+        JobService jobService = JobService.getService();
+        final List<Job> workflowOneJobs = jobService.get(workflowTrigger.getNamespace(), workflowTrigger.getWorkflow(),
+                workflowTrigger.getName(), 0, System.currentTimeMillis());
+        Assert.assertEquals(1, workflowOneJobs.size());
+        final Job job = workflowOneJobs.get(0);
+        jobService.abort(job);
+        // wait for the cancel request to be consumed by the executor
+        Thread.sleep(200);
+
+        final List<Task> tasks = jobService.getTasks(job);
+        Assert.assertEquals(2, tasks.size());
+        for (Task task : tasks) {
+            switch (task.getName()) {
+                case "taskOne":
+                    Assert.assertEquals(Task.Status.FAILED, task.getStatus());
+                    Assert.assertEquals(Messages.ABORTED, task.getStatusMessage());
+                    Assert.assertTrue(MockTaskHandler.isCancelled(task.getName(), task.getJob(), task.getNamespace()));
+                    break;
+                case "taskTwo":
+                    Assert.assertEquals(Task.Status.FAILED, task.getStatus());
+                    break;
+                default:
+                    Assert.fail();
+            }
+        }
+        Assert.assertEquals(Job.Status.FAILED, jobService.get(job).getStatus());
     }
 
     @Test
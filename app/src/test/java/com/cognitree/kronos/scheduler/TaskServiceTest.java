@@ -18,22 +18,30 @@
 package com.cognitree.kronos.scheduler;
 
 import com.cognitree.kronos.executor.ExecutorApp;
+import com.cognitree.kronos.executor.handlers.MockTaskHandler;
 import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.queue.QueueConfig;
 import com.cognitree.kronos.scheduler.model.Job;
 import com.cognitree.kronos.scheduler.model.WorkflowTrigger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.quartz.Scheduler;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.cognitree.kronos.TestUtil.scheduleWorkflow;
 import static com.cognitree.kronos.TestUtil.waitForTriggerToComplete;
 
 public class TaskServiceTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper(new YAMLFactory());
     private static final SchedulerApp SCHEDULER_APP = new SchedulerApp();
     private static final ExecutorApp EXECUTOR_APP = new ExecutorApp();
 
@@ -134,4 +142,113 @@ public class TaskServiceTest {
         Assert.assertEquals(2, workflowOneTasksPostDelete.size());
         Assert.assertFalse(workflowOneTasksPostDelete.contains(taskToDelete));
     }
+
+    @Test
+    public void testShardedTasks() throws Exception {
+        final WorkflowTrigger workflowTrigger = scheduleWorkflow("workflows/workflow-template-sharded-tasks.yaml");
+
+        final Scheduler scheduler = WorkflowSchedulerService.getService().getScheduler();
+        waitForTriggerToComplete(workflowTrigger, scheduler);
+        // wait for tasks status to be consumed from queue
+        Thread.sleep(100);
+
+        TaskService taskService = TaskService.getService();
+        final List<Task> tasks = taskService.get(workflowTrigger.getNamespace());
+        Assert.assertEquals(6, tasks.size());
+        final Map<String, Task> tasksByName = new HashMap<>();
+        tasks.forEach(task -> tasksByName.put(task.getName(), task));
+        final Task taskThree = tasksByName.get("taskThree");
+        Assert.assertNotNull(taskThree);
+        Assert.assertEquals(Task.Status.SUCCESSFUL, taskThree.getStatus());
+        for (int shardIndex = 0; shardIndex < 3; shardIndex++) {
+            final Task shard = tasksByName.get("taskOne-" + shardIndex);
+            Assert.assertNotNull(shard);
+            Assert.assertEquals(Task.Status.SUCCESSFUL, shard.getStatus());
+            Assert.assertEquals("part-" + shardIndex, shard.getProperties().get("input"));
+            Assert.assertEquals(String.valueOf(shardIndex), shard.getProperties().get("shard"));
+            // task depending on the sharded task waits for all of its shards to complete
+            Assert.assertTrue(taskThree.getSubmittedAt() >= shard.getCompletedAt());
+        }
+        Assert.assertEquals("us", tasksByName.get("taskTwo-0").getProperties().get("region"));
+        Assert.assertEquals("eu", tasksByName.get("taskTwo-1").getProperties().get("region"));
+        Assert.assertTrue(taskThree.getSubmittedAt() >= tasksByName.get("taskTwo-0").getCompletedAt());
+        Assert.assertTrue(taskThree.getSubmittedAt() >= tasksByName.get("taskTwo-1").getCompletedAt());
+    }
+
+    @Test
+    public void testMapTask() throws Exception {
+        final WorkflowTrigger workflowTrigger = scheduleWorkflow("workflows/workflow-template-map-tasks.yaml");
+
+        final Scheduler scheduler = WorkflowSchedulerService.getService().getScheduler();
+        waitForTriggerToComplete(workflowTrigger, scheduler);
+        TaskService taskService = TaskService.getService();
+        // wait for the shards created at runtime to complete
+        List<Task> tasks = taskService.get(workflowTrigger.getNamespace());
+        for (int i = 0; i < 50 && !tasks.stream().allMatch(task -> task.getStatus().isFinal()); i++) {
+            Thread.sleep(100);
+            tasks = taskService.get(workflowTrigger.getNamespace());
+        }
+
+        // one shard per element of the list in the context of the task the map task depends on
+        Assert.assertEquals(6, tasks.size());
+        final Map<String, Task> tasksByName = new HashMap<>();
+        tasks.forEach(task -> tasksByName.put(task.getName(), task));
+        tasks.forEach(task -> Assert.assertEquals(Task.Status.SUCCESSFUL, task.getStatus()));
+        Assert.assertEquals("processed-b", tasksByName.get("taskTwo-1").getProperties().get("output"));
+        // map task exposes the context of its shards as a list of values
+        final Task mapTask = tasksByName.get("taskTwo");
+        Assert.assertEquals(Arrays.asList("processed-a", "processed-b", "processed-c"),
+                mapTask.getContext().get("output"));
+        final Task taskThree = tasksByName.get("taskThree");
+        for (int shardIndex = 0; shardIndex < 3; shardIndex++) {
+            Assert.assertTrue(taskThree.getSubmittedAt() >= tasksByName.get("taskTwo-" + shardIndex).getCompletedAt());
+        }
+        // map task is timed from its expansion
+        Assert.assertNotNull(mapTask.getSubmittedAt());
+        Assert.assertTrue(mapTask.getSubmittedAt() <= tasksByName.get("taskTwo-0").getCreatedAt());
+        // expanding the map task again reuses the shards already created
+        final List<Task> shards = taskService.createShards(mapTask, Arrays.asList("a", "b", "c"));
+        Assert.assertEquals(3, shards.size());
+        Assert.assertEquals(tasksByName.get("taskTwo-2"), shards.get(2));
+        Assert.assertEquals(6, taskService.get(workflowTrigger.getNamespace()).size());
+    }
+
+    @Test
+    public void testShardedTasksAfterRestart() throws Exception {
+        final WorkflowTrigger workflowTrigger = scheduleWorkflow("workflows/workflow-template-sharded-mock-tasks.yaml");
+
+        final Scheduler scheduler = WorkflowSchedulerService.getService().getScheduler();
+        waitForTriggerToComplete(workflowTrigger, scheduler);
+        TaskService taskService = TaskService.getService();
+        // wait for the shards to be picked by the executor
+        List<Task> tasks = taskService.get(workflowTrigger.getNamespace());
+        for (int i = 0; i < 50 && tasks.stream().filter(task -> task.getStatus() == Task.Status.RUNNING).count() < 2;
+             i++) {
+            Thread.sleep(100);
+            tasks = taskService.get(workflowTrigger.getNamespace());
+        }
+        Assert.assertEquals(3, tasks.size());
+
+        // task scheduler restarted with the shards running rebuilds the shards of the task from the task store
+        TaskSchedulerService.getService().stop();
+        final TaskSchedulerService taskSchedulerService = new TaskSchedulerService(
+                MAPPER.readValue(getClass().getClassLoader().getResourceAsStream("scheduler.yaml"),
+                        SchedulerConfig.class),
+                MAPPER.readValue(getClass().getClassLoader().getResourceAsStream("queue.yaml"), QueueConfig.class));
+        taskSchedulerService.init();
+        taskSchedulerService.start();
+
+        for (Task task : tasks) {
+            if (task.getShardOf() != null) {
+                Assert.assertEquals(Task.Status.RUNNING, task.getStatus());
+                MockTaskHandler.finishExecution(task.getName(), task.getJob(), task.getNamespace());
+            }
+        }
+        for (int i = 0; i < 50 && !tasks.stream().allMatch(task -> task.getStatus().isFinal()); i++) {
+            Thread.sleep(100);
+            tasks = taskService.get(workflowTrigger.getNamespace());
+        }
+        // task depending on the sharded task is resolved against the shards completed after the restart
+        tasks.forEach(task -> Assert.assertEquals(Task.Status.SUCCESSFUL, task.getStatus()));
+    }
 }
@@ -74,6 +74,22 @@ public class WorkflowServiceTest {
         Assert.fail();
     }
 
+    @Test(expected = ValidationException.class)
+    public void testAddInValidWorkflowShards() throws Exception {
+        Workflow invalidWorkflow = createWorkflow("workflows/invalid-workflow-shards-template.yaml",
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        WorkflowService.getService().add(invalidWorkflow);
+        Assert.fail();
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testAddInValidWorkflowShardsFrom() throws Exception {
+        Workflow invalidWorkflow = createWorkflow("workflows/invalid-workflow-shards-from-template.yaml",
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        WorkflowService.getService().add(invalidWorkflow);
+        Assert.fail();
+    }
+
     @Test
     public void testAddWorkflow() throws ServiceException, ValidationException, IOException {
         Namespace namespaceOne = createNamespace(UUID.randomUUID().toString());
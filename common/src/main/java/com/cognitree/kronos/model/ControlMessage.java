@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Objects;
+
+/**
+ * A control message sent by the scheduler to the executors to act upon a task submitted for execution.
+ */
+public class ControlMessage {
+    @JsonSerialize(as = TaskId.class)
+    @JsonDeserialize(as = TaskId.class)
+    private TaskId taskId;
+    private Action action;
+
+    public static ControlMessage build(TaskId taskId, Action action) {
+        final ControlMessage controlMessage = new ControlMessage();
+        controlMessage.setTaskId(taskId);
+        controlMessage.setAction(action);
+        return controlMessage;
+    }
+
+    public TaskId getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(TaskId taskId) {
+        this.taskId = taskId;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ControlMessage)) return false;
+        ControlMessage that = (ControlMessage) o;
+        return Objects.equals(taskId, that.taskId) &&
+                action == that.action;
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(taskId, action);
+    }
+
+    @Override
+    public String toString() {
+        return "ControlMessage{" +
+                "taskId=" + taskId +
+                ", action=" + action +
+                '}';
+    }
+
+    public enum Action {
+        /**
+         * cancel the task, stopping its execution if already running
+         */
+        CANCEL
+    }
+}
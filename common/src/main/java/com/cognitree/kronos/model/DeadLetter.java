@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.model;
+
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A message which could not be consumed from a queue, kept along with the error and the topic it was consumed from
+ * to be able to inspect and replay it later.
+ * <p>
+ * The payload of a record encoded with a textual codec (JSON) is kept as is, the payload of a record encoded with
+ * a binary codec is kept Base64 encoded.
+ * </p>
+ */
+public class DeadLetter {
+    private String id;
+    private String topic;
+    private String codec;
+    private String payload;
+    private String error;
+    private long createdAt;
+
+    public static DeadLetter build(String topic, String record, Throwable error) {
+        return build(topic, MessageCodecs.JSON, record, error);
+    }
+
+    public static DeadLetter build(String topic, String codec, byte[] record, Throwable error) {
+        final String payload = MessageCodecs.JSON.equals(codec) ?
+                new String(record, UTF_8) : Base64.getEncoder().encodeToString(record);
+        return build(topic, codec, payload, error);
+    }
+
+    private static DeadLetter build(String topic, String codec, String payload, Throwable error) {
+        final DeadLetter deadLetter = new DeadLetter();
+        deadLetter.setId(UUID.randomUUID().toString());
+        deadLetter.setTopic(topic);
+        deadLetter.setCodec(codec);
+        deadLetter.setPayload(payload);
+        deadLetter.setError(String.valueOf(error));
+        deadLetter.setCreatedAt(System.currentTimeMillis());
+        return deadLetter;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return topic the message was consumed from
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DeadLetter)) return false;
+        DeadLetter that = (DeadLetter) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetter{" +
+                "id='" + id + '\'' +
+                ", topic='" + topic + '\'' +
+                ", codec='" + codec + '\'' +
+                ", payload='" + payload + '\'' +
+                ", error='" + error + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A heartbeat periodically published by each executor listing the tasks it is currently holding.
+ * <p>
+ * The scheduler treats each heartbeat as a renewal of the lease an executor holds over its in-flight tasks
+ * and uses the advertised capacity to limit the number of tasks dispatched for execution.
+ * </p>
+ */
+public class ExecutorHeartbeat {
+    private String executorId;
+    /**
+     * id of the executor process, changes on each restart of the executor. Tasks held by a previous incarnation of
+     * the executor are released by the scheduler on receiving a heartbeat from a new incarnation.
+     */
+    private String incarnationId;
+    private long timestamp;
+    private List<TaskId> tasks = new ArrayList<>();
+    /**
+     * maximum number of tasks of each type the executor can execute in parallel, keyed by task type. For each of
+     * its labels the executor also advertises the capacity keyed by the task type qualified by the label, this
+     * capacity is not in addition to the capacity of the task type but shared with it.
+     */
+    private Map<String, Integer> capacity = new HashMap<>();
+
+    public String getExecutorId() {
+        return executorId;
+    }
+
+    public void setExecutorId(String executorId) {
+        this.executorId = executorId;
+    }
+
+    public String getIncarnationId() {
+        return incarnationId;
+    }
+
+    public void setIncarnationId(String incarnationId) {
+        this.incarnationId = incarnationId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<TaskId> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskId> tasks) {
+        this.tasks = tasks;
+    }
+
+    public Map<String, Integer> getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Map<String, Integer> capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ExecutorHeartbeat)) return false;
+        ExecutorHeartbeat that = (ExecutorHeartbeat) o;
+        return timestamp == that.timestamp &&
+                Objects.equals(executorId, that.executorId) &&
+                Objects.equals(incarnationId, that.incarnationId) &&
+                Objects.equals(tasks, that.tasks) &&
+                Objects.equals(capacity, that.capacity);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(executorId, incarnationId, timestamp, tasks, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorHeartbeat{" +
+                "executorId='" + executorId + '\'' +
+                ", incarnationId='" + incarnationId + '\'' +
+                ", timestamp=" + timestamp +
+                ", tasks=" + tasks +
+                ", capacity=" + capacity +
+                '}';
+    }
+}
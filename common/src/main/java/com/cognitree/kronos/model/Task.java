@@ -33,6 +33,28 @@ import static com.cognitree.kronos.model.Task.Status.CREATED;
 @JsonDeserialize(as = Task.class)
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Task extends TaskId {
+    /**
+     * task property holding the label of the executor group the task is pinned to. A task with an affinity is
+     * submitted to the queue {@code <type>.<affinity>} consumed only by the executors configured with the label.
+     */
+    public static final String PROP_AFFINITY = "affinity";
+    /**
+     * task property holding the shard value of a task expanded from a sharded workflow task.
+     */
+    public static final String PROP_SHARD = "shard";
+    /**
+     * task property holding the name of the sharded workflow task a shard task is expanded from.
+     */
+    public static final String PROP_SHARD_OF = "shardOf";
+    /**
+     * task property holding the reference to the list in the context of a dependent task, of the form
+     * {@code ${task.key}}, a map task is expanded into one shard per element of at runtime.
+     */
+    public static final String PROP_SHARDS_FROM = "shardsFrom";
+    /**
+     * task property holding the max number of shards of a sharded task to execute in parallel.
+     */
+    public static final String PROP_MAX_PARALLEL_SHARDS = "maxParallelShards";
 
     private String type;
     private long maxExecutionTimeInMs;
@@ -45,6 +67,7 @@ public class Task extends TaskId {
     private Long createdAt;
     private Long submittedAt;
     private Long completedAt;
+    private int attempt;
 
     public String getType() {
         return type;
@@ -126,6 +149,37 @@ public class Task extends TaskId {
         this.completedAt = completedAt;
     }
 
+    /**
+     * @return number of times the task is dispatched to the executors, assigned by the scheduler on each dispatch and
+     * carried by the updates of the task. It is held in memory only and is 0 if the task is yet to be dispatched or
+     * was dispatched before the scheduler restarted.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(int attempt) {
+        this.attempt = attempt;
+    }
+
+    /**
+     * @return label of the executor group the task is pinned to or null if the task can be executed by any executor
+     */
+    @JsonIgnore
+    public String getAffinity() {
+        final Object affinity = properties == null ? null : properties.get(PROP_AFFINITY);
+        return affinity == null || String.valueOf(affinity).trim().isEmpty() ? null : String.valueOf(affinity);
+    }
+
+    /**
+     * @return name of the sharded workflow task the task is expanded from or null if the task is not a shard
+     */
+    @JsonIgnore
+    public String getShardOf() {
+        final Object shardOf = properties == null ? null : properties.get(PROP_SHARD_OF);
+        return shardOf == null ? null : String.valueOf(shardOf);
+    }
+
     @JsonIgnore
     public TaskId getIdentity() {
         return this;
@@ -154,6 +208,7 @@ public class Task extends TaskId {
                 ", createdAt=" + createdAt +
                 ", submittedAt=" + submittedAt +
                 ", completedAt=" + completedAt +
+                ", attempt=" + attempt +
                 "} " + super.toString();
     }
 
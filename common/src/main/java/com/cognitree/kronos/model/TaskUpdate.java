@@ -24,6 +24,16 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.util.Map;
 import java.util.Objects;
 
+/**
+ * A status update of a task sent by the executor to the scheduler.
+ * <p>
+ * Each dispatch of a task by the scheduler is an attempt numbered by the scheduler, see {@link Task#getAttempt()}.
+ * The updates sent by the executor for an attempt carry the attempt number and the id of the executor and are
+ * numbered with an increasing sequence number starting at 1. The scheduler uses them to discard updates of a
+ * superseded attempt or of another execution of the same attempt along with duplicate and out of order updates,
+ * e.g. ones redelivered by an at-least-once queue.
+ * </p>
+ */
 public class TaskUpdate {
     @JsonSerialize(as = TaskId.class)
     @JsonDeserialize(as = TaskId.class)
@@ -31,6 +41,22 @@ public class TaskUpdate {
     private Status status;
     private String statusMessage;
     private Map<String, Object> context;
+    private int attempt;
+    private String executorId;
+    private long sequence;
+
+    public static TaskUpdate build(TaskId taskId, Status status, String statusMessage, Map<String, Object> context,
+                                   int attempt, String executorId, long sequence) {
+        final TaskUpdate taskUpdate = new TaskUpdate();
+        taskUpdate.setTaskId(taskId);
+        taskUpdate.setStatus(status);
+        taskUpdate.setStatusMessage(statusMessage);
+        taskUpdate.setContext(context);
+        taskUpdate.setAttempt(attempt);
+        taskUpdate.setExecutorId(executorId);
+        taskUpdate.setSequence(sequence);
+        return taskUpdate;
+    }
 
     public TaskId getTaskId() {
         return taskId;
@@ -64,6 +90,39 @@ public class TaskUpdate {
         this.context = context;
     }
 
+    /**
+     * @return attempt of the task the update is sent for, 0 if sent by an executor not numbering its updates
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(int attempt) {
+        this.attempt = attempt;
+    }
+
+    /**
+     * @return id of the executor sending the update
+     */
+    public String getExecutorId() {
+        return executorId;
+    }
+
+    public void setExecutorId(String executorId) {
+        this.executorId = executorId;
+    }
+
+    /**
+     * @return sequence number of the update within the attempt
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -72,13 +131,16 @@ public class TaskUpdate {
         return Objects.equals(taskId, that.taskId) &&
                 status == that.status &&
                 Objects.equals(statusMessage, that.statusMessage) &&
-                Objects.equals(context, that.context);
+                Objects.equals(context, that.context) &&
+                attempt == that.attempt &&
+                Objects.equals(executorId, that.executorId) &&
+                sequence == that.sequence;
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(taskId, status, statusMessage, context);
+        return Objects.hash(taskId, status, statusMessage, context, attempt, executorId, sequence);
     }
 
     @Override
@@ -88,6 +150,9 @@ public class TaskUpdate {
                 ", status=" + status +
                 ", statusMessage='" + statusMessage + '\'' +
                 ", context=" + context +
+                ", attempt=" + attempt +
+                ", executorId='" + executorId + '\'' +
+                ", sequence=" + sequence +
                 '}';
     }
 }
\ No newline at end of file
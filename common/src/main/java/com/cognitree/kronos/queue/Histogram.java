@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.queue;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * a histogram of non negative values with power of two buckets, bucket {@code i} counts the values in the range
+ * {@code (2^(i-1), 2^i]}. Recording a value is lock free and can be done from multiple threads.
+ * <p>
+ * Percentiles are approximated by the upper bound of the bucket they fall in, capped at the max value recorded.
+ * </p>
+ */
+public class Histogram {
+    // the last bucket is unbounded
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        value = Math.max(value, 0);
+        buckets.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            // retry as max was updated concurrently
+        }
+    }
+
+    private static int getBucket(long value) {
+        return value <= 1 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(value - 1), BUCKETS - 1);
+    }
+
+    private static long getUpperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long count = this.count.get();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * @param percentile percentile in the range (0, 100]
+     * @return approximate value below which the given percentile of the values recorded fall, 0 if none recorded
+     */
+    public long getPercentile(double percentile) {
+        final long count = this.count.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(getUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    public long getP95() {
+        return getPercentile(95);
+    }
+
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * @return count of values recorded keyed by the upper bound of the bucket, only the non empty buckets are listed
+     */
+    public Map<Long, Long> getBuckets() {
+        final Map<Long, Long> result = new TreeMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            final long bucketCount = buckets.get(i);
+            if (bucketCount > 0) {
+                result.put(getUpperBound(i), bucketCount);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{" +
+                "count=" + getCount() +
+                ", mean=" + getMean() +
+                ", p50=" + getP50() +
+                ", p95=" + getP95() +
+                ", p99=" + getP99() +
+                ", max=" + getMax() +
+                '}';
+    }
+}
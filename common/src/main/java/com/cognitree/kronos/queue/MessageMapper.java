@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * maps the messages exchanged over a queue to and from their serialized form, used by the producers and consumers
+ * of queues shared across processes.
+ */
+public final class MessageMapper {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private MessageMapper() {
+    }
+
+    public static String encode(Object message) throws IOException {
+        return MAPPER.writeValueAsString(message);
+    }
+
+    public static <T> T decode(String record, Class<T> type) throws IOException {
+        return MAPPER.readValue(record, type);
+    }
+}
@@ -30,6 +30,22 @@ public class QueueConfig {
     private ProducerConfig producerConfig;
     private ConsumerConfig consumerConfig;
     private String taskStatusQueue;
+    /**
+     * queue used by executors to publish heartbeats, executor heartbeats and lease tracking are disabled if not set.
+     */
+    private String executorHeartbeatQueue;
+    /**
+     * queue used by scheduler to send control messages (e.g. cancel a task) to executors, messages for a task held
+     * by a known executor are sent to the queue suffixed with the executor id ({@code <queue>.<executorId>}).
+     * Task cancellation is disabled if not set.
+     */
+    private String taskControlQueue;
+    /**
+     * queue to which the scheduler and executors send the messages they could not consume, along with the error and
+     * the topic they were consumed from, see {@link com.cognitree.kronos.model.DeadLetter}. Such messages are only
+     * logged and dropped if not set.
+     */
+    private String deadLetterQueue;
 
     public ProducerConfig getProducerConfig() {
         return producerConfig;
@@ -55,6 +71,30 @@ public class QueueConfig {
         this.taskStatusQueue = taskStatusQueue;
     }
 
+    public String getExecutorHeartbeatQueue() {
+        return executorHeartbeatQueue;
+    }
+
+    public void setExecutorHeartbeatQueue(String executorHeartbeatQueue) {
+        this.executorHeartbeatQueue = executorHeartbeatQueue;
+    }
+
+    public String getTaskControlQueue() {
+        return taskControlQueue;
+    }
+
+    public void setTaskControlQueue(String taskControlQueue) {
+        this.taskControlQueue = taskControlQueue;
+    }
+
+    public String getDeadLetterQueue() {
+        return deadLetterQueue;
+    }
+
+    public void setDeadLetterQueue(String deadLetterQueue) {
+        this.deadLetterQueue = deadLetterQueue;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -62,13 +102,17 @@ public class QueueConfig {
         QueueConfig that = (QueueConfig) o;
         return Objects.equals(producerConfig, that.producerConfig) &&
                 Objects.equals(consumerConfig, that.consumerConfig) &&
-                Objects.equals(taskStatusQueue, that.taskStatusQueue);
+                Objects.equals(taskStatusQueue, that.taskStatusQueue) &&
+                Objects.equals(executorHeartbeatQueue, that.executorHeartbeatQueue) &&
+                Objects.equals(taskControlQueue, that.taskControlQueue) &&
+                Objects.equals(deadLetterQueue, that.deadLetterQueue);
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(producerConfig, consumerConfig, taskStatusQueue);
+        return Objects.hash(producerConfig, consumerConfig, taskStatusQueue, executorHeartbeatQueue, taskControlQueue,
+                deadLetterQueue);
     }
 
     @Override
@@ -77,6 +121,9 @@ public class QueueConfig {
                 "producerConfig=" + producerConfig +
                 ", consumerConfig=" + consumerConfig +
                 ", taskStatusQueue='" + taskStatusQueue + '\'' +
+                ", executorHeartbeatQueue='" + executorHeartbeatQueue + '\'' +
+                ", taskControlQueue='" + taskControlQueue + '\'' +
+                ", deadLetterQueue='" + deadLetterQueue + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.queue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * metrics of the messages consumed from a topic by the consumers in this process, keyed by topic. Metrics are
+ * recorded by the consumers of the queues carrying the time a message was enqueued along with it.
+ * <ul>
+ * <li>dequeue latency: time in milliseconds from a message being sent to it being handed over to the caller of poll,
+ * e.g. for a task type topic the time a task waits to be picked by an executor once scheduled</li>
+ * <li>batch size: number of messages handed over by each poll returning messages</li>
+ * <li>depth: number of messages in the topic yet to be handed over, i.e. the lag of the consumer, as last observed
+ * by the consumer</li>
+ * <li>discarded: number of messages consumed and discarded by the caller keyed by the reason, e.g. duplicate task
+ * updates</li>
+ * </ul>
+ */
+public class QueueMetrics {
+    private static final Map<String, QueueMetrics> TOPIC_METRICS = new ConcurrentHashMap<>();
+
+    private final Histogram dequeueLatencyInMs = new Histogram();
+    private final Histogram batchSize = new Histogram();
+    private final Map<String, AtomicLong> discarded = new ConcurrentHashMap<>();
+    private volatile long depth;
+
+    public static QueueMetrics get(String topic) {
+        final QueueMetrics queueMetrics = TOPIC_METRICS.get(topic);
+        return queueMetrics != null ? queueMetrics : TOPIC_METRICS.computeIfAbsent(topic, t -> new QueueMetrics());
+    }
+
+    /**
+     * @return metrics of all the topics consumed in this process keyed by topic
+     */
+    public static Map<String, QueueMetrics> getAll() {
+        return Collections.unmodifiableMap(new TreeMap<>(TOPIC_METRICS));
+    }
+
+    /**
+     * records a message handed over to the caller
+     *
+     * @param enqueuedAt time in milliseconds the message was sent at
+     */
+    public void recordDequeue(long enqueuedAt) {
+        dequeueLatencyInMs.record(System.currentTimeMillis() - enqueuedAt);
+    }
+
+    /**
+     * records the number of messages handed over by a poll, polls returning no message are not recorded
+     */
+    public void recordBatch(int size) {
+        if (size > 0) {
+            batchSize.record(size);
+        }
+    }
+
+    /**
+     * records a message consumed and discarded by the caller
+     *
+     * @param reason reason the message is discarded for
+     */
+    public void recordDiscard(String reason) {
+        discarded.computeIfAbsent(reason, r -> new AtomicLong()).incrementAndGet();
+    }
+
+    public Histogram getDequeueLatencyInMs() {
+        return dequeueLatencyInMs;
+    }
+
+    public Histogram getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return number of messages discarded keyed by the reason
+     */
+    public Map<String, Long> getDiscarded() {
+        final Map<String, Long> discardedCount = new TreeMap<>();
+        discarded.forEach((reason, count) -> discardedCount.put(reason, count.get()));
+        return discardedCount;
+    }
+
+    public long getDepth() {
+        return depth;
+    }
+
+    public void setDepth(long depth) {
+        this.depth = depth;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueMetrics{" +
+                "dequeueLatencyInMs=" + dequeueLatencyInMs +
+                ", batchSize=" + batchSize +
+                ", depth=" + depth +
+                ", discarded=" + getDiscarded() +
+                '}';
+    }
+}
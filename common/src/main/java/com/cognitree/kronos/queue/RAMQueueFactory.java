@@ -17,27 +17,92 @@
 
 package com.cognitree.kronos.queue;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * A factory class providing RAM(in-memory) queue for a given type of data
+ * in-process queues keyed by topic. A queue holds the messages as sent, either records or message objects handed
+ * over without serialization, along with the time they were enqueued at.
+ * <p>
+ * Queues are unbounded unless created with a capacity using {@link #createQueue(String, int)} before first use, in
+ * which case a producer sending to a full queue blocks until the consumer catches up. The capacity of a queue is fixed
+ * once created.
+ * </p>
  */
 public class RAMQueueFactory {
 
-    private static final Map<Object, LinkedBlockingQueue<String>> RAM_QUEUE_MAP = new HashMap<>();
+    private static final Map<String, LinkedBlockingQueue<QueuedMessage>> RAM_QUEUE_MAP = new ConcurrentHashMap<>();
 
-    public static LinkedBlockingQueue<String> getQueue(String topic) {
-        if (!RAM_QUEUE_MAP.containsKey(topic)) {
-            createQueue(topic);
+    /**
+     * @param topic topic name
+     * @return queue for the topic, an unbounded queue is created if the queue for the topic is yet to be created
+     */
+    public static LinkedBlockingQueue<QueuedMessage> getQueue(String topic) {
+        final LinkedBlockingQueue<QueuedMessage> queue = RAM_QUEUE_MAP.get(topic);
+        return queue != null ? queue : RAM_QUEUE_MAP.computeIfAbsent(topic, t -> new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * creates the queue for the topic holding at most the given number of messages. The queue is left as is if
+     * already created with the same capacity.
+     *
+     * @param topic    topic name
+     * @param capacity max number of messages the queue can hold
+     * @throws IllegalStateException if the queue for the topic is already created with a different capacity
+     */
+    public static void createQueue(String topic, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity of queue for topic " + topic + " must be positive, found "
+                    + capacity);
+        }
+        final LinkedBlockingQueue<QueuedMessage> queue =
+                RAM_QUEUE_MAP.computeIfAbsent(topic, t -> new LinkedBlockingQueue<>(capacity));
+        final int queueCapacity = queue.size() + queue.remainingCapacity();
+        if (queueCapacity != capacity) {
+            throw new IllegalStateException("queue for topic " + topic + " is already created with capacity "
+                    + queueCapacity);
         }
-        return RAM_QUEUE_MAP.get(topic);
     }
 
-    private synchronized static void createQueue(String topic) {
-        if (!RAM_QUEUE_MAP.containsKey(topic)) {
-            RAM_QUEUE_MAP.put(topic, new LinkedBlockingQueue<>());
+    /**
+     * @param topic topic name
+     * @return number of messages waiting to be consumed from the topic
+     */
+    public static int getDepth(String topic) {
+        final LinkedBlockingQueue<QueuedMessage> queue = RAM_QUEUE_MAP.get(topic);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * @return number of messages waiting to be consumed keyed by topic
+     */
+    public static Map<String, Integer> getDepths() {
+        final Map<String, Integer> depths = new HashMap<>();
+        RAM_QUEUE_MAP.forEach((topic, queue) -> depths.put(topic, queue.size()));
+        return Collections.unmodifiableMap(depths);
+    }
+
+    /**
+     * a message held by a queue along with the time it was enqueued at
+     */
+    public static final class QueuedMessage {
+        private final Object message;
+        private final long enqueuedAt;
+
+        public QueuedMessage(Object message) {
+            this.message = message;
+            this.enqueuedAt = System.currentTimeMillis();
+        }
+
+        public Object getMessage() {
+            return message;
+        }
+
+        public long getEnqueuedAt() {
+            return enqueuedAt;
         }
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * a {@link MessageCodec} compressing the records of another codec using GZIP.
+ */
+class GzipMessageCodec implements MessageCodec {
+    static final String SUFFIX = "+gzip";
+
+    private final MessageCodec codec;
+
+    GzipMessageCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public String getName() {
+        return codec.getName() + SUFFIX;
+    }
+
+    @Override
+    public byte[] encode(Object message) throws IOException {
+        final byte[] record = codec.encode(message);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(record.length / 2 + 32);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(record);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(byte[] record, Class<T> type) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(record.length * 4);
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(record))) {
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+        return codec.decode(outputStream.toByteArray(), type);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * a {@link MessageCodec} backed by a Jackson {@link ObjectMapper} of a given data format.
+ */
+class JacksonMessageCodec implements MessageCodec {
+    private final String name;
+    private final ObjectMapper mapper;
+
+    JacksonMessageCodec(String name, ObjectMapper mapper) {
+        this.name = name;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(Object message) throws IOException {
+        return mapper.writeValueAsBytes(message);
+    }
+
+    @Override
+    public <T> T decode(byte[] record, Class<T> type) throws IOException {
+        return mapper.readValue(record, type);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.codec;
+
+import java.io.IOException;
+
+/**
+ * encodes messages exchanged over a queue to bytes and back.
+ * <p>
+ * The name of the codec is sent along with every record to let the consumer pick the codec to decode it with, see
+ * {@link MessageCodecs#get(String)}.
+ * </p>
+ */
+public interface MessageCodec {
+
+    /**
+     * @return name used to look up the codec using {@link MessageCodecs#get(String)}
+     */
+    String getName();
+
+    byte[] encode(Object message) throws IOException;
+
+    <T> T decode(byte[] record, Class<T> type) throws IOException;
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * looks up {@link MessageCodec} by name.
+ * <p>
+ * Built in codecs are {@value #JSON} and {@value #SMILE} (binary JSON), either of which can be compressed by suffixing
+ * the name with {@code +gzip}, e.g. {@code smile+gzip}. Any other name is treated as the fully qualified class name of
+ * a {@link MessageCodec} implementation with a no-arg constructor whose {@link MessageCodec#getName()} returns the
+ * same class name.
+ * </p>
+ */
+public final class MessageCodecs {
+    public static final String JSON = "json";
+    public static final String SMILE = "smile";
+
+    private static final Map<String, MessageCodec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        CODECS.put(JSON, new JacksonMessageCodec(JSON, new ObjectMapper()));
+        CODECS.put(SMILE, new JacksonMessageCodec(SMILE, new ObjectMapper(new SmileFactory())));
+    }
+
+    private MessageCodecs() {
+    }
+
+    /**
+     * @param name name of the codec
+     * @return codec with the given name
+     * @throws IllegalArgumentException if there is no codec with the given name
+     */
+    public static MessageCodec get(String name) {
+        final MessageCodec codec = CODECS.get(name);
+        if (codec != null) {
+            return codec;
+        }
+        final MessageCodec newCodec = create(name);
+        final MessageCodec existingCodec = CODECS.putIfAbsent(name, newCodec);
+        return existingCodec != null ? existingCodec : newCodec;
+    }
+
+    private static MessageCodec create(String name) {
+        if (name.endsWith(GzipMessageCodec.SUFFIX)) {
+            return new GzipMessageCodec(get(name.substring(0, name.length() - GzipMessageCodec.SUFFIX.length())));
+        }
+        try {
+            return (MessageCodec) Class.forName(name).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("unknown message codec " + name, e);
+        }
+    }
+}
@@ -17,9 +17,13 @@
 
 package com.cognitree.kronos.queue.consumer;
 
-
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.queue.MessageMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface Consumer {
@@ -41,7 +45,11 @@ public interface Consumer {
     List<String> poll(String topic);
 
     /**
-     * polls data from the underlying queue
+     * polls data from the underlying queue. A max size of 0 tells the consumer the caller has no capacity to take
+     * records, a consumer may use it to pause fetching from the topic.
+     * <p>
+     * Records returned are considered handed over once the caller polls the topic again.
+     * </p>
      *
      * @param topic   topic to poll from
      * @param maxSize maximum number of records to poll
@@ -49,5 +57,44 @@ public interface Consumer {
      */
     List<String> poll(String topic, int maxSize);
 
+    /**
+     * polls messages of the given type from the underlying queue, records which could not be decoded are logged and
+     * skipped.
+     *
+     * @param topic   topic to poll from
+     * @param maxSize maximum number of messages to poll
+     * @param type    type of the messages
+     * @return messages polled
+     * @see #poll(String, int, Class, DeadLetterHandler)
+     */
+    default <T> List<T> poll(String topic, int maxSize, Class<T> type) {
+        return poll(topic, maxSize, type, deadLetter -> LoggerFactory.getLogger(getClass())
+                .error("Error parsing message {} from topic {}: {}",
+                        deadLetter.getPayload(), topic, deadLetter.getError()));
+    }
+
+    /**
+     * polls messages of the given type from the underlying queue. By default the records polled are deserialized from
+     * JSON, records which could not be deserialized are handed to the dead letter handler along with the error and
+     * skipped. A consumer of an in-process queue returns the messages as sent.
+     *
+     * @param topic             topic to poll from
+     * @param maxSize           maximum number of messages to poll
+     * @param type              type of the messages
+     * @param deadLetterHandler handler for the records which could not be decoded
+     * @return messages polled
+     */
+    default <T> List<T> poll(String topic, int maxSize, Class<T> type, DeadLetterHandler deadLetterHandler) {
+        final List<T> messages = new ArrayList<>();
+        for (String record : poll(topic, maxSize)) {
+            try {
+                messages.add(MessageMapper.decode(record, type));
+            } catch (IOException e) {
+                deadLetterHandler.handle(DeadLetter.build(topic, record, e));
+            }
+        }
+        return messages;
+    }
+
     void close();
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.queue.consumer;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.queue.MessageMapper;
+import com.cognitree.kronos.queue.QueueConfig;
+import com.cognitree.kronos.queue.producer.Producer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * A {@link DeadLetterHandler} sending the messages which could not be consumed to the dead letter queue
+ * ({@link QueueConfig#getDeadLetterQueue()}), keyed by the topic they were consumed from. The messages are only
+ * logged if no dead letter queue is configured.
+ */
+public class QueueDeadLetterHandler implements DeadLetterHandler {
+    private static final Logger logger = LoggerFactory.getLogger(QueueDeadLetterHandler.class);
+
+    private final Producer producer;
+    private final String deadLetterQueue;
+
+    /**
+     * @param producer        producer to send the dead letters with
+     * @param deadLetterQueue dead letter queue, null if not configured
+     */
+    public QueueDeadLetterHandler(Producer producer, String deadLetterQueue) {
+        this.producer = producer;
+        this.deadLetterQueue = deadLetterQueue;
+    }
+
+    @Override
+    public void handle(DeadLetter deadLetter) {
+        logger.error("Error consuming message {} from topic {}: {}",
+                deadLetter.getPayload(), deadLetter.getTopic(), deadLetter.getError());
+        if (deadLetterQueue == null) {
+            return;
+        }
+        try {
+            producer.send(deadLetterQueue, deadLetter.getTopic(), deadLetter);
+        } catch (Exception e) {
+            logger.error("Error adding dead letter {} to queue", deadLetter.getId(), e);
+        }
+    }
+
+    /**
+     * handles a message decoded from the topic which could not be applied
+     *
+     * @param topic   topic the message was consumed from
+     * @param message message consumed
+     * @param error   error applying the message
+     */
+    public void handle(String topic, Object message, Throwable error) {
+        try {
+            handle(DeadLetter.build(topic, MessageMapper.encode(message), error));
+        } catch (IOException e) {
+            logger.error("Error serializing message {} from topic {}", message, topic, e);
+        }
+    }
+}
@@ -17,21 +17,45 @@
 
 package com.cognitree.kronos.queue.consumer;
 
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.queue.MessageMapper;
+import com.cognitree.kronos.queue.QueueMetrics;
 import com.cognitree.kronos.queue.RAMQueueFactory;
+import com.cognitree.kronos.queue.RAMQueueFactory.QueuedMessage;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * a consumer for the in-process queues of {@link RAMQueueFactory}.
+ * <p>
+ * Optional configuration
+ * <ul>
+ * <li>pollTimeoutInMs: max time a poll waits for a message to arrive on an empty queue, defaults to 0 (no wait)</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Metrics of the topics consumed are recorded in {@link QueueMetrics}.
+ * </p>
+ */
 public class RAMConsumer implements Consumer {
     private static final Logger logger = LoggerFactory.getLogger(RAMConsumer.class);
 
+    private long pollTimeoutInMs = 0;
+
     @Override
     public void init(ObjectNode config) {
         logger.info("Initializing consumer for RAM(in-memory) queue with config {}", config);
+        if (config != null && config.hasNonNull("pollTimeoutInMs")) {
+            pollTimeoutInMs = config.get("pollTimeoutInMs").asLong();
+        }
     }
 
     @Override
@@ -42,13 +66,78 @@ public class RAMConsumer implements Consumer {
     @Override
     public List<String> poll(String topic, int size) {
         logger.trace("Received request to poll messages from topic {} with max size {}", topic, size);
-        final LinkedBlockingQueue<String> blockingQueue = RAMQueueFactory.getQueue(topic);
         List<String> records = new ArrayList<>();
-        while (!blockingQueue.isEmpty() && records.size() < size)
-            records.add(blockingQueue.poll());
+        for (Object message : drain(topic, size)) {
+            if (message instanceof String) {
+                records.add((String) message);
+            } else {
+                try {
+                    records.add(MessageMapper.encode(message));
+                } catch (IOException e) {
+                    logger.error("Error serializing message {} from topic {}", message, topic, e);
+                }
+            }
+        }
         return records;
     }
 
+    /**
+     * returns the messages as sent by the producer, only the messages sent as records are deserialized.
+     */
+    @Override
+    public <T> List<T> poll(String topic, int size, Class<T> type, DeadLetterHandler deadLetterHandler) {
+        logger.trace("Received request to poll messages of type {} from topic {} with max size {}",
+                type.getSimpleName(), topic, size);
+        List<T> messages = new ArrayList<>();
+        for (Object message : drain(topic, size)) {
+            if (type.isInstance(message)) {
+                messages.add(type.cast(message));
+            } else {
+                try {
+                    messages.add(MessageMapper.decode(String.valueOf(message), type));
+                } catch (IOException e) {
+                    deadLetterHandler.handle(DeadLetter.build(topic, String.valueOf(message), e));
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * drains up to size messages from the topic in one go, waiting up to {@link #pollTimeoutInMs} for the first
+     * message if the queue is empty. The dequeue latency, batch size and depth of the topic are recorded in its
+     * {@link QueueMetrics}.
+     */
+    private List<Object> drain(String topic, int size) {
+        final LinkedBlockingQueue<QueuedMessage> blockingQueue = RAMQueueFactory.getQueue(topic);
+        final List<QueuedMessage> queuedMessages = new ArrayList<>();
+        final List<Object> messages = new ArrayList<>();
+        if (size <= 0) {
+            return messages;
+        }
+        if (pollTimeoutInMs > 0 && blockingQueue.isEmpty()) {
+            try {
+                final QueuedMessage queuedMessage = blockingQueue.poll(pollTimeoutInMs, MILLISECONDS);
+                if (queuedMessage == null) {
+                    return messages;
+                }
+                queuedMessages.add(queuedMessage);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return messages;
+            }
+        }
+        blockingQueue.drainTo(queuedMessages, size - queuedMessages.size());
+        final QueueMetrics queueMetrics = QueueMetrics.get(topic);
+        for (QueuedMessage queuedMessage : queuedMessages) {
+            queueMetrics.recordDequeue(queuedMessage.getEnqueuedAt());
+            messages.add(queuedMessage.getMessage());
+        }
+        queueMetrics.recordBatch(messages.size());
+        queueMetrics.setDepth(blockingQueue.size());
+        return messages;
+    }
+
     @Override
     public void close() {
 
@@ -17,8 +17,15 @@
 
 package com.cognitree.kronos.queue.producer;
 
+import com.cognitree.kronos.queue.MessageMapper;
+import com.cognitree.kronos.queue.codec.MessageCodec;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public interface Producer {
 
     /**
@@ -37,5 +44,49 @@ public interface Producer {
      */
     void send(String topic, String record);
 
+    /**
+     * sends the message to the underlying queue. By default the message is serialized as JSON and sent as a record,
+     * a producer of an in-process queue hands over the message as is.
+     * <p>
+     * The message is not to be modified once sent as it might be shared with the consumer.
+     * </p>
+     *
+     * @param topic   topic name to send data
+     * @param message message to send
+     * @throws IOException if the message could not be serialized or sent
+     */
+    default void send(String topic, Object message) throws IOException {
+        send(topic, MessageMapper.encode(message));
+    }
+
+    /**
+     * sends the message to the underlying queue. Messages sent with the same key are delivered in the order sent,
+     * by default the key is ignored as the underlying queue preserves the order of all messages of a topic.
+     *
+     * @param topic   topic name to send data
+     * @param key     key of the message, e.g. the job the message belongs to
+     * @param message message to send
+     * @throws IOException if the message could not be serialized or sent
+     */
+    default void send(String topic, String key, Object message) throws IOException {
+        send(topic, message);
+    }
+
+    /**
+     * sends the record encoded with the given codec to the underlying queue as is, e.g. to replay a record which could
+     * not be consumed. By default only records encoded as {@link MessageCodecs#JSON} are sent.
+     *
+     * @param topic  topic name to send data
+     * @param codec  name of the {@link MessageCodec} the record is encoded with
+     * @param record record to send
+     * @throws IOException if the record could not be sent or the producer does not support the codec
+     */
+    default void send(String topic, String codec, byte[] record) throws IOException {
+        if (!MessageCodecs.JSON.equals(codec)) {
+            throw new IOException("producer does not support sending records encoded with codec " + codec);
+        }
+        send(topic, new String(record, UTF_8));
+    }
+
     void close();
 }
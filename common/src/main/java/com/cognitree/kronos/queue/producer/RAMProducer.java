@@ -18,21 +18,78 @@
 package com.cognitree.kronos.queue.producer;
 
 import com.cognitree.kronos.queue.RAMQueueFactory;
+import com.cognitree.kronos.queue.RAMQueueFactory.QueuedMessage;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * a producer for the in-process queues of {@link RAMQueueFactory}.
+ * <p>
+ * Optional configuration
+ * <ul>
+ * <li>capacities: max number of messages the queue of each topic can hold keyed by topic, queues of other topics are
+ * unbounded. The queues are created with their capacity on initializing the producer, before the queues are used</li>
+ * <li>sendTimeoutInMs: max time to wait for a full queue to free up before failing the send, defaults to 60000ms</li>
+ * </ul>
+ * </p>
+ */
 public class RAMProducer implements Producer {
     private static final Logger logger = LoggerFactory.getLogger(RAMProducer.class);
 
+    private long sendTimeoutInMs = TimeUnit.MINUTES.toMillis(1);
+
     public void init(ObjectNode config) {
         logger.info("Initializing producer for RAM(in-memory) queue with config {}", config);
+        if (config == null) {
+            return;
+        }
+        if (config.hasNonNull("capacities")) {
+            config.get("capacities").fields().forEachRemaining(capacity ->
+                    RAMQueueFactory.createQueue(capacity.getKey(), capacity.getValue().asInt()));
+        }
+        if (config.hasNonNull("sendTimeoutInMs")) {
+            sendTimeoutInMs = config.get("sendTimeoutInMs").asLong();
+        }
     }
 
     @Override
     public void send(String topic, String record) {
         logger.trace("Received request to send message {} on topic {}", record, topic);
-        RAMQueueFactory.getQueue(topic).add(record);
+        try {
+            offer(topic, record);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * hands over the message to the consumer as is, without serializing it.
+     *
+     * @throws IOException if the queue stays full for longer than the send timeout
+     */
+    @Override
+    public void send(String topic, Object message) throws IOException {
+        logger.trace("Received request to send message {} on topic {}", message, topic);
+        offer(topic, message);
+    }
+
+    private void offer(String topic, Object message) throws IOException {
+        try {
+            if (!RAMQueueFactory.getQueue(topic).offer(new QueuedMessage(message), sendTimeoutInMs, MILLISECONDS)) {
+                throw new IOException("queue for topic " + topic + " is full, timed out after " +
+                        sendTimeoutInMs + "ms sending message " + message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted sending message to topic " + topic);
+        }
     }
 
     @Override
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue;
+
+import com.cognitree.kronos.model.ControlMessage;
+import com.cognitree.kronos.queue.consumer.RAMConsumer;
+import com.cognitree.kronos.queue.producer.RAMProducer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.Thread.sleep;
+
+public class RAMQueueTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testBatchPoll() throws IOException {
+        final String topic = UUID.randomUUID().toString();
+        final RAMProducer producer = new RAMProducer();
+        producer.init(null);
+        final RAMConsumer consumer = new RAMConsumer();
+        consumer.init(null);
+
+        for (int i = 0; i < 10; i++) {
+            producer.send(topic, new ControlMessage());
+        }
+        producer.send(topic, "{}");
+        Assert.assertEquals(11, RAMQueueFactory.getDepth(topic));
+        Assert.assertEquals(Integer.valueOf(11), RAMQueueFactory.getDepths().get(topic));
+
+        Assert.assertEquals(4, consumer.poll(topic, 4, ControlMessage.class).size());
+        Assert.assertEquals(7, RAMQueueFactory.getDepth(topic));
+        // messages sent as records are deserialized, messages sent as objects are handed over as is
+        final List<ControlMessage> controlMessages = consumer.poll(topic, Integer.MAX_VALUE, ControlMessage.class);
+        Assert.assertEquals(7, controlMessages.size());
+        Assert.assertEquals(0, RAMQueueFactory.getDepth(topic));
+        Assert.assertTrue(consumer.poll(topic, Integer.MAX_VALUE, ControlMessage.class).isEmpty());
+    }
+
+    @Test
+    public void testQueueMetrics() throws IOException, InterruptedException {
+        final String topic = UUID.randomUUID().toString();
+        final RAMProducer producer = new RAMProducer();
+        producer.init(null);
+        final RAMConsumer consumer = new RAMConsumer();
+        consumer.init(null);
+
+        for (int i = 0; i < 5; i++) {
+            producer.send(topic, new ControlMessage());
+        }
+        sleep(50);
+        Assert.assertEquals(2, consumer.poll(topic, 2, ControlMessage.class).size());
+        Assert.assertEquals(3, consumer.poll(topic, Integer.MAX_VALUE, ControlMessage.class).size());
+        Assert.assertTrue(consumer.poll(topic, Integer.MAX_VALUE, ControlMessage.class).isEmpty());
+
+        final QueueMetrics queueMetrics = QueueMetrics.getAll().get(topic);
+        final Histogram dequeueLatency = queueMetrics.getDequeueLatencyInMs();
+        Assert.assertEquals(5, dequeueLatency.getCount());
+        Assert.assertTrue(dequeueLatency.getP50() >= 50);
+        Assert.assertTrue(dequeueLatency.getP99() <= dequeueLatency.getMax());
+        // empty polls are not recorded
+        Assert.assertEquals(2, queueMetrics.getBatchSize().getCount());
+        Assert.assertEquals(5, queueMetrics.getBatchSize().getSum());
+        Assert.assertEquals(3, queueMetrics.getBatchSize().getMax());
+        Assert.assertEquals(0, queueMetrics.getDepth());
+        // batch sizes 2 and 3 fall in the buckets with upper bound 2 and 4
+        Assert.assertEquals(Long.valueOf(1), queueMetrics.getBatchSize().getBuckets().get(2L));
+        Assert.assertEquals(Long.valueOf(1), queueMetrics.getBatchSize().getBuckets().get(4L));
+        Assert.assertEquals(3, queueMetrics.getBatchSize().getP99());
+    }
+
+    @Test
+    public void testBoundedQueue() throws IOException {
+        final String topic = UUID.randomUUID().toString();
+        final ObjectNode producerConfig = MAPPER.createObjectNode();
+        producerConfig.putObject("capacities").put(topic, 2);
+        producerConfig.put("sendTimeoutInMs", 100);
+        final RAMProducer producer = new RAMProducer();
+        producer.init(producerConfig);
+        // capacity applies to the queue of the topic alone
+        final String otherTopic = UUID.randomUUID().toString();
+        for (int i = 0; i < 3; i++) {
+            producer.send(otherTopic, new ControlMessage());
+        }
+        Assert.assertEquals(3, RAMQueueFactory.getDepth(otherTopic));
+        // capacity of a queue is fixed once created
+        try {
+            RAMQueueFactory.createQueue(topic, 3);
+            Assert.fail("capacity of a queue should not change once created");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        producer.send(topic, new ControlMessage());
+        producer.send(topic, new ControlMessage());
+        try {
+            producer.send(topic, new ControlMessage());
+            Assert.fail("send to a full queue should fail after the send timeout");
+        } catch (IOException e) {
+            // expected
+        }
+        Assert.assertEquals(2, RAMQueueFactory.getDepth(topic));
+
+        // a blocked producer resumes once the consumer catches up
+        final RAMConsumer consumer = new RAMConsumer();
+        consumer.init(null);
+        final CompletableFuture<Void> drain = CompletableFuture.runAsync(() -> {
+            try {
+                sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumer.poll(topic, 1, ControlMessage.class);
+        });
+        producer.send(topic, new ControlMessage());
+        drain.join();
+        Assert.assertEquals(2, RAMQueueFactory.getDepth(topic));
+    }
+
+    @Test
+    public void testBlockingPoll() throws IOException {
+        final String topic = UUID.randomUUID().toString();
+        final ObjectNode consumerConfig = MAPPER.createObjectNode();
+        consumerConfig.put("pollTimeoutInMs", 5000);
+        final RAMConsumer consumer = new RAMConsumer();
+        consumer.init(consumerConfig);
+        final RAMProducer producer = new RAMProducer();
+        producer.init(null);
+
+        final CompletableFuture<Void> send = CompletableFuture.runAsync(() -> {
+            try {
+                sleep(100);
+                producer.send(topic, new ControlMessage());
+            } catch (InterruptedException | IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        final long startTime = System.currentTimeMillis();
+        Assert.assertEquals(1, consumer.poll(topic, Integer.MAX_VALUE, ControlMessage.class).size());
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+        send.join();
+    }
+}
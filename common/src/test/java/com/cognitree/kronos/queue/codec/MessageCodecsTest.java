@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.codec;
+
+import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
+import com.cognitree.kronos.model.TaskUpdate;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.cognitree.kronos.model.Task.Status.SCHEDULED;
+import static com.cognitree.kronos.model.Task.Status.SUCCESSFUL;
+
+/**
+ * verifies the built in codecs and compares their record size and throughput against JSON.
+ * <p>
+ * The benchmark is skipped unless the system property {@code benchmark} is set to true. The number of iterations
+ * of the benchmark can be tuned using the system property {@code codec.benchmark.iterations},
+ * e.g. {@code mvn test -pl common -Dbenchmark=true -Dcodec.benchmark.iterations=100000}.
+ * </p>
+ */
+public class MessageCodecsTest {
+    private static final Logger logger = LoggerFactory.getLogger(MessageCodecsTest.class);
+
+    private static final int ITERATIONS = Integer.getInteger("codec.benchmark.iterations", 20000);
+    private static final List<String> CODECS = Arrays.asList(MessageCodecs.JSON, MessageCodecs.JSON + "+gzip",
+            MessageCodecs.SMILE, MessageCodecs.SMILE + "+gzip");
+
+    @Test
+    public void testEncodeDecode() throws IOException {
+        final Task task = createTask();
+        final TaskUpdate taskUpdate = createTaskUpdate(task);
+        for (String name : CODECS) {
+            final MessageCodec codec = MessageCodecs.get(name);
+            Assert.assertEquals(name, codec.getName());
+            Assert.assertSame(codec, MessageCodecs.get(name));
+
+            final Task decodedTask = codec.decode(codec.encode(task), Task.class);
+            Assert.assertEquals(task, decodedTask);
+            Assert.assertEquals(task.getType(), decodedTask.getType());
+            Assert.assertEquals(task.getStatus(), decodedTask.getStatus());
+            Assert.assertEquals(task.getDependsOn(), decodedTask.getDependsOn());
+            Assert.assertEquals(task.getProperties(), decodedTask.getProperties());
+            Assert.assertEquals(task.getContext(), decodedTask.getContext());
+
+            final TaskUpdate decodedTaskUpdate = codec.decode(codec.encode(taskUpdate), TaskUpdate.class);
+            Assert.assertEquals(taskUpdate, decodedTaskUpdate);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCodec() {
+        MessageCodecs.get("unknown");
+    }
+
+    @Test
+    public void testEncodedSize() throws IOException {
+        final Task task = createTask();
+        final Map<String, Integer> taskSizes = new HashMap<>();
+        for (String name : CODECS) {
+            taskSizes.put(name, MessageCodecs.get(name).encode(task).length);
+        }
+        Assert.assertTrue(taskSizes.get(MessageCodecs.SMILE) < taskSizes.get(MessageCodecs.JSON));
+        Assert.assertTrue(taskSizes.get(MessageCodecs.SMILE + "+gzip") < taskSizes.get(MessageCodecs.SMILE));
+    }
+
+    @Test
+    public void testBenchmark() throws IOException {
+        Assume.assumeTrue("benchmark is run only if the system property benchmark is set to true",
+                Boolean.getBoolean("benchmark"));
+        final Task task = createTask();
+        final TaskUpdate taskUpdate = createTaskUpdate(task);
+        for (String name : CODECS) {
+            final MessageCodec codec = MessageCodecs.get(name);
+            final int taskSize = codec.encode(task).length;
+            final int taskUpdateSize = codec.encode(taskUpdate).length;
+
+            // warm up before measuring
+            run(codec, task, ITERATIONS / 10);
+            final long startTime = System.nanoTime();
+            run(codec, task, ITERATIONS);
+            final long elapsedTime = System.nanoTime() - startTime;
+            logger.info(String.format("%-12s task %5d bytes, task update %5d bytes, %8.0f task round trips/s",
+                    name, taskSize, taskUpdateSize, ITERATIONS * 1e9 / elapsedTime));
+        }
+    }
+
+    private void run(MessageCodec codec, Task task, int iterations) throws IOException {
+        for (int i = 0; i < iterations; i++) {
+            codec.decode(codec.encode(task), Task.class);
+        }
+    }
+
+    private Task createTask() {
+        final Task task = new Task();
+        task.setNamespace("default");
+        task.setName("transform");
+        task.setJob(UUID.randomUUID().toString());
+        task.setWorkflow("etl");
+        task.setType("spark");
+        task.setStatus(SCHEDULED);
+        task.setMaxExecutionTimeInMs(3600000);
+        task.setDependsOn(Arrays.asList("extract", "validate"));
+        task.setCreatedAt(System.currentTimeMillis());
+        task.setSubmittedAt(System.currentTimeMillis());
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("mainClass", "com.example.etl.TransformJob");
+        properties.put("appResource", "hdfs:///apps/etl/transform-job.jar");
+        properties.put("sparkProperties", createSparkProperties());
+        properties.put("appArgs", Arrays.asList("--date", "2018-01-01", "--input", "/data/raw", "--output", "/data/out"));
+        task.setProperties(properties);
+        final Map<String, Object> context = new HashMap<>();
+        final List<String> partitions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            partitions.add("/data/raw/partition=" + i);
+        }
+        context.put("partitions", partitions);
+        context.put("rowCount", 1234567);
+        task.setContext(context);
+        return task;
+    }
+
+    private Map<String, Object> createSparkProperties() {
+        final Map<String, Object> sparkProperties = new HashMap<>();
+        sparkProperties.put("spark.master", "spark://spark-master:7077");
+        sparkProperties.put("spark.submit.deployMode", "cluster");
+        sparkProperties.put("spark.executor.memory", "4g");
+        sparkProperties.put("spark.executor.cores", "2");
+        sparkProperties.put("spark.driver.memory", "2g");
+        sparkProperties.put("spark.app.name", "transform");
+        return sparkProperties;
+    }
+
+    private TaskUpdate createTaskUpdate(Task task) {
+        final TaskUpdate taskUpdate = new TaskUpdate();
+        taskUpdate.setTaskId(TaskId.build(task.getNamespace(), task.getName(), task.getJob(), task.getWorkflow()));
+        taskUpdate.setStatus(SUCCESSFUL);
+        taskUpdate.setStatusMessage("completed");
+        final Map<String, Object> context = new HashMap<>();
+        context.put("rowCount", 1234567);
+        context.put("outputPath", "/data/out/2018-01-01");
+        taskUpdate.setContext(context);
+        return taskUpdate;
+    }
+}
@@ -23,7 +23,9 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.InputStream;
+import java.net.URL;
 
 /**
  * starts the executor app by reading configurations from classpath.
@@ -34,6 +36,8 @@ public class ExecutorApp {
 
     private static final ObjectMapper MAPPER = new ObjectMapper(new YAMLFactory());
 
+    private ExecutorConfigWatcher executorConfigWatcher;
+
     public static void main(String[] args) {
         try {
             final ExecutorApp executorApp = new ExecutorApp();
@@ -52,18 +56,40 @@ public class ExecutorApp {
         final InputStream queueConfigAsStream =
                 getClass().getClassLoader().getResourceAsStream("queue.yaml");
         QueueConfig queueConfig = MAPPER.readValue(queueConfigAsStream, QueueConfig.class);
+        TaskLogService taskLogService = new TaskLogService(executorConfig.getTaskLogConfig());
+        taskLogService.init();
+        taskLogService.start();
         TaskExecutionService taskExecutionService = new TaskExecutionService(executorConfig, queueConfig);
         logger.info("Initializing executor app");
         taskExecutionService.init();
         logger.info("Starting executor app");
         taskExecutionService.start();
+        startExecutorConfigWatcher(executorConfig);
+    }
+
+    private void startExecutorConfigWatcher(ExecutorConfig executorConfig) throws Exception {
+        final URL executorConfigURL = getClass().getClassLoader().getResource("executor.yaml");
+        if (executorConfig.getConfigReloadIntervalInMs() <= 0 || executorConfigURL == null
+                || !"file".equals(executorConfigURL.getProtocol())) {
+            logger.info("Executor configuration will not be reloaded at runtime");
+            return;
+        }
+        executorConfigWatcher = new ExecutorConfigWatcher(new File(executorConfigURL.toURI()),
+                executorConfig.getConfigReloadIntervalInMs());
+        executorConfigWatcher.start();
     }
 
     public void stop() {
         logger.info("Stopping executor app");
+        if (executorConfigWatcher != null) {
+            executorConfigWatcher.stop();
+        }
         if (TaskExecutionService.getService() != null) {
             TaskExecutionService.getService().stop();
         }
+        if (TaskLogService.getService() != null) {
+            TaskLogService.getService().stop();
+        }
     }
 }
 
@@ -20,9 +20,12 @@ package com.cognitree.kronos.executor;
 import com.cognitree.kronos.executor.handlers.TaskHandler;
 import com.cognitree.kronos.executor.handlers.TaskHandlerConfig;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * defines configurations for executor.
@@ -35,6 +38,65 @@ public class ExecutorConfig {
      */
     private Map<String, TaskHandlerConfig> taskHandlerConfig = new HashMap<>();
 
+    /**
+     * unique id of the executor used to identify it in the heartbeats and to name its control queue, defaults to the
+     * host name suffixed with a random id generated on each start. An executor is to be configured with an id for it
+     * to be stable across restarts, the id must not be shared with any other executor.
+     */
+    private String executorId;
+
+    /**
+     * labels of the executor group(s) the executor belongs to.
+     * <p>
+     * In addition to the tasks of each configured task type, the executor consumes the tasks pinned to any of its
+     * labels using the workflow task attribute {@code affinity}. Tasks pinned to a label are executed only by the
+     * executors configured with the label.
+     */
+    private List<String> labels = new ArrayList<>();
+
+    /**
+     * time duration between successive heartbeats published by the executor in millisecond, defaults to 5000ms.
+     */
+    private long heartbeatIntervalInMs = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * resource budget of the executor keyed by resource name (cpu, memory or any custom unit).
+     * <p>
+     * A task declares the resources it requires using the task property {@code resources} and is executed only when
+     * the requested resources fit in the remaining budget. Resources not part of the budget are not accounted.
+     */
+    private Map<String, Double> resources = new HashMap<>();
+
+    /**
+     * maximum time in millisecond to wait for the tasks being executed to complete while stopping the executor,
+     * defaults to 5 minutes.
+     * <p>
+     * On stop, the executor stops consuming new tasks, hands back the tasks received but not yet started to the queue
+     * and waits for the running tasks to complete. Tasks still running after the drain timeout are cancelled and
+     * marked as failed.
+     */
+    private long drainTimeoutInMs = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * time duration between successive checks of the executor configuration file for changes in millisecond,
+     * defaults to 10000ms. Set to 0 to disable reloading the configuration at runtime.
+     * <p>
+     * On change, the max parallel tasks of each configured task type is applied without restarting the executor.
+     * Adding or removing a task type requires a restart.
+     */
+    private long configReloadIntervalInMs = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * configuration of the {@link TaskLogService} storing the output of the tasks.
+     */
+    private TaskLogConfig taskLogConfig = new TaskLogConfig();
+
+    /**
+     * configuration of the cache of task results used by the tasks opting in for memoization by setting the task
+     * property {@code cacheTtlInMs}.
+     */
+    private TaskResultCacheConfig taskResultCacheConfig = new TaskResultCacheConfig();
+
     public Map<String, TaskHandlerConfig> getTaskHandlerConfig() {
         return taskHandlerConfig;
     }
@@ -43,24 +105,105 @@ public class ExecutorConfig {
         this.taskHandlerConfig = taskHandlerConfig;
     }
 
+    public String getExecutorId() {
+        return executorId;
+    }
+
+    public void setExecutorId(String executorId) {
+        this.executorId = executorId;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(List<String> labels) {
+        this.labels = labels;
+    }
+
+    public long getHeartbeatIntervalInMs() {
+        return heartbeatIntervalInMs;
+    }
+
+    public void setHeartbeatIntervalInMs(long heartbeatIntervalInMs) {
+        this.heartbeatIntervalInMs = heartbeatIntervalInMs;
+    }
+
+    public Map<String, Double> getResources() {
+        return resources;
+    }
+
+    public void setResources(Map<String, Double> resources) {
+        this.resources = resources;
+    }
+
+    public long getDrainTimeoutInMs() {
+        return drainTimeoutInMs;
+    }
+
+    public void setDrainTimeoutInMs(long drainTimeoutInMs) {
+        this.drainTimeoutInMs = drainTimeoutInMs;
+    }
+
+    public long getConfigReloadIntervalInMs() {
+        return configReloadIntervalInMs;
+    }
+
+    public void setConfigReloadIntervalInMs(long configReloadIntervalInMs) {
+        this.configReloadIntervalInMs = configReloadIntervalInMs;
+    }
+
+    public TaskLogConfig getTaskLogConfig() {
+        return taskLogConfig;
+    }
+
+    public void setTaskLogConfig(TaskLogConfig taskLogConfig) {
+        this.taskLogConfig = taskLogConfig;
+    }
+
+    public TaskResultCacheConfig getTaskResultCacheConfig() {
+        return taskResultCacheConfig;
+    }
+
+    public void setTaskResultCacheConfig(TaskResultCacheConfig taskResultCacheConfig) {
+        this.taskResultCacheConfig = taskResultCacheConfig;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof ExecutorConfig)) return false;
         ExecutorConfig that = (ExecutorConfig) o;
-        return Objects.equals(taskHandlerConfig, that.taskHandlerConfig);
+        return heartbeatIntervalInMs == that.heartbeatIntervalInMs &&
+                drainTimeoutInMs == that.drainTimeoutInMs &&
+                configReloadIntervalInMs == that.configReloadIntervalInMs &&
+                Objects.equals(taskHandlerConfig, that.taskHandlerConfig) &&
+                Objects.equals(executorId, that.executorId) &&
+                Objects.equals(labels, that.labels) &&
+                Objects.equals(resources, that.resources) &&
+                Objects.equals(taskLogConfig, that.taskLogConfig) &&
+                Objects.equals(taskResultCacheConfig, that.taskResultCacheConfig);
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(taskHandlerConfig);
+        return Objects.hash(taskHandlerConfig, executorId, labels, heartbeatIntervalInMs, resources, drainTimeoutInMs,
+                configReloadIntervalInMs, taskLogConfig, taskResultCacheConfig);
     }
 
     @Override
     public String toString() {
         return "ExecutorConfig{" +
                 "taskHandlerConfig=" + taskHandlerConfig +
+                ", executorId='" + executorId + '\'' +
+                ", labels=" + labels +
+                ", heartbeatIntervalInMs=" + heartbeatIntervalInMs +
+                ", resources=" + resources +
+                ", drainTimeoutInMs=" + drainTimeoutInMs +
+                ", configReloadIntervalInMs=" + configReloadIntervalInMs +
+                ", taskLogConfig=" + taskLogConfig +
+                ", taskResultCacheConfig=" + taskResultCacheConfig +
                 '}';
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.executor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Periodically checks the executor configuration file for changes and applies the updated configuration to the
+ * running {@link TaskExecutionService} via {@link TaskExecutionService#reconfigure(ExecutorConfig)}.
+ */
+final class ExecutorConfigWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorConfigWatcher.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(new YAMLFactory());
+
+    private final File configFile;
+    private final long reloadIntervalInMs;
+    private final ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+    private long lastModified;
+    private long length;
+
+    ExecutorConfigWatcher(File configFile, long reloadIntervalInMs) {
+        this.configFile = configFile;
+        this.reloadIntervalInMs = reloadIntervalInMs;
+    }
+
+    void start() {
+        logger.info("Watching executor configuration file {} for changes every {} ms", configFile, reloadIntervalInMs);
+        lastModified = configFile.lastModified();
+        length = configFile.length();
+        scheduledExecutorService.scheduleAtFixedRate(this::reload, reloadIntervalInMs, reloadIntervalInMs, MILLISECONDS);
+    }
+
+    private void reload() {
+        final long currentLastModified = configFile.lastModified();
+        final long currentLength = configFile.length();
+        if (currentLastModified == lastModified && currentLength == length) {
+            return;
+        }
+        lastModified = currentLastModified;
+        length = currentLength;
+        logger.info("Executor configuration file {} has changed, reloading configuration", configFile);
+        try {
+            final ExecutorConfig executorConfig = MAPPER.readValue(configFile, ExecutorConfig.class);
+            TaskExecutionService.getService().reconfigure(executorConfig);
+        } catch (Exception e) {
+            logger.error("Error reloading executor configuration from file {}", configFile, e);
+        }
+    }
+
+    void stop() {
+        try {
+            scheduledExecutorService.shutdown();
+            scheduledExecutorService.awaitTermination(10, SECONDS);
+        } catch (InterruptedException e) {
+            logger.error("Error stopping executor configuration watcher", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resource budget tracks the resources (cpu, memory or any custom unit) available with the executor to execute tasks.
+ * <p>
+ * Only the resources part of the budget are accounted, a task requesting a resource not part of the budget
+ * is assumed to have it available.
+ * </p>
+ */
+final class ResourceBudget {
+
+    private final Map<String, Double> capacity;
+    private final Map<String, Double> available;
+
+    ResourceBudget(Map<String, Double> capacity) {
+        this.capacity = capacity == null ? new HashMap<>() : new HashMap<>(capacity);
+        this.available = new HashMap<>(this.capacity);
+    }
+
+    /**
+     * @param resourceRequest resources requested by the task
+     * @return true if the requested resources are within the total capacity of the executor, false otherwise
+     */
+    synchronized boolean canFit(Map<String, Double> resourceRequest) {
+        for (Map.Entry<String, Double> requestEntry : resourceRequest.entrySet()) {
+            final Double resourceCapacity = capacity.get(requestEntry.getKey());
+            if (resourceCapacity != null && requestEntry.getValue() > resourceCapacity) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * acquires the requested resources from the budget if all of them are available.
+     *
+     * @param resourceRequest resources requested by the task
+     * @return true if the resources are acquired, false otherwise
+     */
+    synchronized boolean tryAcquire(Map<String, Double> resourceRequest) {
+        for (Map.Entry<String, Double> requestEntry : resourceRequest.entrySet()) {
+            final Double availableResource = available.get(requestEntry.getKey());
+            if (availableResource != null && requestEntry.getValue() > availableResource) {
+                return false;
+            }
+        }
+        resourceRequest.forEach((resource, value) -> available.computeIfPresent(resource, (key, old) -> old - value));
+        return true;
+    }
+
+    /**
+     * returns the resources acquired by the task back to the budget.
+     *
+     * @param resourceRequest resources acquired by the task
+     */
+    synchronized void release(Map<String, Double> resourceRequest) {
+        resourceRequest.forEach((resource, value) -> available.computeIfPresent(resource, (key, old) -> old + value));
+    }
+
+    // used in junit
+    synchronized Map<String, Double> getAvailable() {
+        return new HashMap<>(available);
+    }
+}
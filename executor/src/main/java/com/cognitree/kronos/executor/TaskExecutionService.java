@@ -22,32 +22,48 @@ import com.cognitree.kronos.ServiceProvider;
 import com.cognitree.kronos.executor.handlers.TaskHandler;
 import com.cognitree.kronos.executor.handlers.TaskHandlerConfig;
 import com.cognitree.kronos.executor.model.TaskResult;
+import com.cognitree.kronos.model.ControlMessage;
+import com.cognitree.kronos.model.ExecutorHeartbeat;
 import com.cognitree.kronos.model.Task;
 import com.cognitree.kronos.model.Task.Status;
 import com.cognitree.kronos.model.TaskId;
 import com.cognitree.kronos.model.TaskUpdate;
 import com.cognitree.kronos.queue.QueueConfig;
+import com.cognitree.kronos.queue.QueueMetrics;
 import com.cognitree.kronos.queue.consumer.Consumer;
 import com.cognitree.kronos.queue.consumer.ConsumerConfig;
+import com.cognitree.kronos.queue.consumer.QueueDeadLetterHandler;
 import com.cognitree.kronos.queue.producer.Producer;
 import com.cognitree.kronos.queue.producer.ProducerConfig;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.cognitree.kronos.model.Task.Status.FAILED;
 import static com.cognitree.kronos.model.Task.Status.RUNNING;
 import static com.cognitree.kronos.model.Task.Status.SUBMITTED;
 import static com.cognitree.kronos.model.Task.Status.SUCCESSFUL;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -56,33 +72,99 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * <p>
  * A task execution service acts as an consumer of tasks from queue and producer of task result to the queue.
  * </p>
+ * <p>
+ * A task setting the property {@link #PROP_CACHE_TTL} opts in for memoization, its successful result is cached
+ * keyed by the task type and the task properties and is reused by the tasks with the same type and properties
+ * without calling the handler till the result expires.
+ * </p>
+ * <p>
+ * An executor configured with labels also consumes the tasks pinned to any of its labels from the queue
+ * {@code <type>.<label>}, the labelled queues are polled ahead of the task type queue within the same max parallel
+ * tasks limit.
+ * </p>
  */
 public final class TaskExecutionService implements Service {
     private static final Logger logger = LoggerFactory.getLogger(TaskExecutionService.class);
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // task property used by the task to declare the resources it requires
+    private static final String PROP_RESOURCES = "resources";
+    // task property used by the task to opt in for memoization of its result for the given time in millisecond
+    private static final String PROP_CACHE_TTL = "cacheTtlInMs";
+    private static final String CACHED_RESULT_MESSAGE = "task result reused from cache";
+    // interval in millisecond at which drain progress is reported
+    private static final long DRAIN_PROGRESS_REPORT_INTERVAL = SECONDS.toMillis(5);
+    // interval in millisecond at which the metrics of the task queues are logged
+    private static final long QUEUE_METRICS_LOG_INTERVAL = MINUTES.toMillis(1);
+    private static final String EXECUTOR_STOPPED = "executor stopped before the task could complete";
 
     // Task consumer and provider info
     private final ConsumerConfig consumerConfig;
     private final ProducerConfig producerConfig;
     private final String statusQueue;
+    private final String heartbeatQueue;
+    private final String controlQueue;
+    private final String deadLetterQueue;
+    // Executor heartbeat info
+    private final String executorId;
+    // id of this run of the executor, lets the scheduler release the tasks held before a restart
+    private final String incarnationId = UUID.randomUUID().toString();
+    private final List<String> labels;
+    private final long heartbeatIntervalInMs;
+    private final Set<TaskId> activeTasks = ConcurrentHashMap.newKeySet();
+    // tasks submitted to the handler for execution, used to cancel the task
+    private final Map<TaskId, TaskExecution> taskIdToTaskExecutionMap = new ConcurrentHashMap<>();
     // Task type mapping Info
     private final Map<String, TaskHandlerConfig> taskTypeToHandlerConfig;
     private final Map<String, TaskHandler> taskTypeToHandlerMap = new HashMap<>();
-    private final Map<String, Integer> taskTypeToMaxParallelTasksCount = new HashMap<>();
+    // can be updated at runtime via reconfigure
+    private final Map<String, Integer> taskTypeToMaxParallelTasksCount = new ConcurrentHashMap<>();
     private final Map<String, Integer> taskTypeToRunningTasksCount = new HashMap<>();
+    // tasks received from the queue and waiting for resources to be available
+    private final Map<String, LinkedList<Task>> taskTypeToPendingTasks = new HashMap<>();
+    private final ResourceBudget resourceBudget;
+    private final long drainTimeoutInMs;
+    private final TaskResultCache taskResultCache;
+    // set on stop, executor stops consuming new tasks once draining
+    private volatile boolean draining = false;
     // used by internal tasks like polling new tasks from queue
     private final ScheduledExecutorService taskConsumerThreadPool = Executors.newSingleThreadScheduledExecutor();
-    // used to execute tasks
-    private final ExecutorService taskExecutorThreadPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    // used to publish heartbeats, kept apart from the task consumer for a slow poll not to delay the heartbeats
+    private final ScheduledExecutorService heartbeatThreadPool = Executors.newSingleThreadScheduledExecutor();
+    // used to execute tasks, sized to the sum of max parallel tasks across task types
+    private ThreadPoolExecutor taskExecutorThreadPool;
     private Consumer consumer;
     private Producer producer;
+    private QueueDeadLetterHandler deadLetterHandler;
 
     public TaskExecutionService(ExecutorConfig executorConfig, QueueConfig queueConfig) {
         this.consumerConfig = queueConfig.getConsumerConfig();
         this.producerConfig = queueConfig.getProducerConfig();
         this.statusQueue = queueConfig.getTaskStatusQueue();
+        this.heartbeatQueue = queueConfig.getExecutorHeartbeatQueue();
+        this.controlQueue = queueConfig.getTaskControlQueue();
+        this.deadLetterQueue = queueConfig.getDeadLetterQueue();
         this.taskTypeToHandlerConfig = executorConfig.getTaskHandlerConfig();
+        this.executorId = executorConfig.getExecutorId() != null ?
+                executorConfig.getExecutorId() : getDefaultExecutorId();
+        this.labels = executorConfig.getLabels() != null ? executorConfig.getLabels() : new ArrayList<>();
+        this.heartbeatIntervalInMs = executorConfig.getHeartbeatIntervalInMs();
+        this.resourceBudget = new ResourceBudget(executorConfig.getResources());
+        this.drainTimeoutInMs = executorConfig.getDrainTimeoutInMs();
+        this.taskResultCache = new TaskResultCache(executorConfig.getTaskResultCacheConfig());
+    }
+
+    /**
+     * @return host name of the executor suffixed with a random id, unique across the executors sharing a host and
+     * across restarts of the executor, or a random id if the host name can not be resolved
+     */
+    private static String getDefaultExecutorId() {
+        final String randomId = UUID.randomUUID().toString();
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + randomId.substring(0, 8);
+        } catch (UnknownHostException e) {
+            logger.warn("Unable to resolve host name, using random executor id {}", randomId, e);
+            return randomId;
+        }
     }
 
     public static TaskExecutionService getService() {
@@ -94,6 +176,7 @@ public final class TaskExecutionService implements Service {
         initConsumer();
         initProducer();
         initTaskHandlersAndExecutors();
+        taskResultCache.init();
     }
 
     private void initConsumer() throws Exception {
@@ -110,6 +193,7 @@ public final class TaskExecutionService implements Service {
                 .getConstructor()
                 .newInstance();
         producer.init(producerConfig.getConfig());
+        deadLetterHandler = new QueueDeadLetterHandler(producer, deadLetterQueue);
     }
 
     private void initTaskHandlersAndExecutors() throws Exception {
@@ -122,10 +206,73 @@ public final class TaskExecutionService implements Service {
             taskHandler.init(taskHandlerConfig.getConfig());
             taskTypeToHandlerMap.put(taskType, taskHandler);
 
-            int maxParallelTasks = taskHandlerConfig.getMaxParallelTasks();
-            maxParallelTasks = maxParallelTasks > 0 ? maxParallelTasks : Runtime.getRuntime().availableProcessors();
-            taskTypeToMaxParallelTasksCount.put(taskType, maxParallelTasks);
+            taskTypeToMaxParallelTasksCount.put(taskType, getMaxParallelTasks(taskHandlerConfig));
             taskTypeToRunningTasksCount.put(taskType, 0);
+            taskTypeToPendingTasks.put(taskType, new LinkedList<>());
+        }
+        final int poolSize = computeTaskExecutorPoolSize();
+        taskExecutorThreadPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    private int getMaxParallelTasks(TaskHandlerConfig taskHandlerConfig) {
+        final int maxParallelTasks = taskHandlerConfig.getMaxParallelTasks();
+        return maxParallelTasks > 0 ? maxParallelTasks : Runtime.getRuntime().availableProcessors();
+    }
+
+    private int computeTaskExecutorPoolSize() {
+        return Math.max(1, taskTypeToMaxParallelTasksCount.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * applies the max parallel tasks configured for each task type at runtime and resizes the pool used to execute
+     * tasks accordingly.
+     * <p>
+     * Lowering the max parallel tasks for a task type does not interrupt the running tasks, new tasks are picked
+     * for execution once the number of running tasks drops below the new limit. Task types not known to the executor
+     * are ignored as adding or removing a task type requires a restart.
+     * </p>
+     *
+     * @param executorConfig updated executor configuration
+     */
+    public void reconfigure(ExecutorConfig executorConfig) {
+        logger.info("Received request to reconfigure executor with config {}", executorConfig);
+        final Map<String, TaskHandlerConfig> taskHandlerConfigs = executorConfig.getTaskHandlerConfig();
+        taskHandlerConfigs.keySet().stream().filter(taskType -> !taskTypeToHandlerMap.containsKey(taskType))
+                .forEach(taskType -> logger.warn("Ignoring configuration for unknown task type {}, " +
+                        "adding a task type requires a restart", taskType));
+        synchronized (taskTypeToRunningTasksCount) {
+            for (String taskType : taskTypeToHandlerMap.keySet()) {
+                final TaskHandlerConfig taskHandlerConfig = taskHandlerConfigs.get(taskType);
+                if (taskHandlerConfig == null) {
+                    logger.warn("No configuration found for task type {}, removing a task type requires a restart",
+                            taskType);
+                    continue;
+                }
+                final int maxParallelTasks = getMaxParallelTasks(taskHandlerConfig);
+                final int currentMaxParallelTasks = taskTypeToMaxParallelTasksCount.put(taskType, maxParallelTasks);
+                if (currentMaxParallelTasks != maxParallelTasks) {
+                    logger.info("Updated max parallel tasks for task type {} from {} to {}",
+                            taskType, currentMaxParallelTasks, maxParallelTasks);
+                }
+            }
+            resizeTaskExecutorPool(computeTaskExecutorPoolSize());
+        }
+    }
+
+    private void resizeTaskExecutorPool(int poolSize) {
+        final int currentPoolSize = taskExecutorThreadPool.getMaximumPoolSize();
+        if (poolSize == currentPoolSize) {
+            return;
+        }
+        logger.info("Resizing task executor pool from {} to {}", currentPoolSize, poolSize);
+        // maintain core pool size <= maximum pool size at all times
+        if (poolSize > currentPoolSize) {
+            taskExecutorThreadPool.setMaximumPoolSize(poolSize);
+            taskExecutorThreadPool.setCorePoolSize(poolSize);
+        } else {
+            // surplus threads are terminated once idle
+            taskExecutorThreadPool.setCorePoolSize(poolSize);
+            taskExecutorThreadPool.setMaximumPoolSize(poolSize);
         }
     }
 
@@ -133,78 +280,277 @@ public final class TaskExecutionService implements Service {
     public void start() {
         final long pollInterval = consumerConfig.getPollIntervalInMs();
         taskConsumerThreadPool.scheduleAtFixedRate(this::consumeTasks, 0, pollInterval, MILLISECONDS);
+        if (heartbeatQueue != null && heartbeatIntervalInMs > 0) {
+            logger.info("Publishing heartbeats for executor {} every {} ms", executorId, heartbeatIntervalInMs);
+            heartbeatThreadPool.scheduleAtFixedRate(this::sendHeartbeat, 0, heartbeatIntervalInMs, MILLISECONDS);
+        }
+        if (controlQueue != null) {
+            taskConsumerThreadPool.scheduleAtFixedRate(this::consumeControlMessages, 0, pollInterval, MILLISECONDS);
+        }
+        taskConsumerThreadPool.scheduleAtFixedRate(this::logQueueMetrics, QUEUE_METRICS_LOG_INTERVAL,
+                QUEUE_METRICS_LOG_INTERVAL, MILLISECONDS);
         ServiceProvider.registerService(this);
     }
 
     private void consumeTasks() {
         taskTypeToMaxParallelTasksCount.forEach((taskType, maxParallelTasks) -> {
             synchronized (taskTypeToRunningTasksCount) {
-                final int tasksToPoll = maxParallelTasks - taskTypeToRunningTasksCount.get(taskType);
-                if (tasksToPoll > 0) {
-                    final List<String> tasks = consumer.poll(taskType, tasksToPoll);
-                    for (String taskAsString : tasks) {
-                        try {
-                            submit(MAPPER.readValue(taskAsString, Task.class));
-                        } catch (IOException e) {
-                            logger.error("Error parsing task message {}", taskAsString, e);
-                        }
-                    }
+                if (draining) {
+                    return;
+                }
+                final LinkedList<Task> pendingTasks = taskTypeToPendingTasks.get(taskType);
+                int tasksToPoll = maxParallelTasks - taskTypeToRunningTasksCount.get(taskType) - pendingTasks.size();
+                // tasks pinned to the executor labels can not be picked by other executors, poll them first.
+                // queues are polled even without free slots to let the consumer pause fetching from them
+                for (String label : labels) {
+                    tasksToPoll -= pollTasks(taskType + "." + label, Math.max(tasksToPoll, 0), pendingTasks);
                 }
+                pollTasks(taskType, Math.max(tasksToPoll, 0), pendingTasks);
+                submitPendingTasks(pendingTasks);
             }
         });
     }
 
+    /**
+     * polls tasks from the given queue and adds them to the pending tasks.
+     *
+     * @return number of tasks polled from the queue
+     */
+    private int pollTasks(String taskQueue, int tasksToPoll, LinkedList<Task> pendingTasks) {
+        final List<Task> tasks = consumer.poll(taskQueue, tasksToPoll, Task.class, deadLetterHandler);
+        for (Task task : tasks) {
+            logger.trace("Received task {} for execution from task queue {}", task, taskQueue);
+            activeTasks.add(task.getIdentity());
+            pendingTasks.add(task);
+        }
+        return tasks.size();
+    }
+
+    /**
+     * submits the pending tasks for execution in the order they were received from the queue as long as the
+     * resources requested by the task fit in the remaining resource budget of the executor.
+     *
+     * @param pendingTasks tasks received from queue and waiting for resources
+     */
+    private void submitPendingTasks(LinkedList<Task> pendingTasks) {
+        while (!pendingTasks.isEmpty()) {
+            final Task task = pendingTasks.peek();
+            // max parallel tasks might have been lowered after the task was received
+            if (taskTypeToRunningTasksCount.get(task.getType()) >= taskTypeToMaxParallelTasksCount.get(task.getType())) {
+                break;
+            }
+            final Map<String, Double> resourceRequest = getResourceRequest(task);
+            if (!resourceBudget.canFit(resourceRequest)) {
+                logger.error("Resources {} requested by task {} exceed the resource capacity of the executor",
+                        resourceRequest, task);
+                pendingTasks.poll();
+                activeTasks.remove(task.getIdentity());
+                sendTaskUpdate(task, FAILED, "requested resources exceed the resource capacity of the executor");
+                continue;
+            }
+            if (!resourceBudget.tryAcquire(resourceRequest)) {
+                logger.debug("Insufficient resources to execute task {}, requested resources {}",
+                        task.getName(), resourceRequest);
+                break;
+            }
+            pendingTasks.poll();
+            submit(task, resourceRequest);
+        }
+    }
+
+    /**
+     * reads the resources requested by the task from the task property {@link #PROP_RESOURCES}.
+     *
+     * @param task task to read the resource request from
+     * @return requested resources keyed by resource name
+     */
+    private Map<String, Double> getResourceRequest(Task task) {
+        final Map<String, Double> resourceRequest = new HashMap<>();
+        final Object resources = task.getProperties() == null ? null : task.getProperties().get(PROP_RESOURCES);
+        if (resources instanceof Map) {
+            ((Map<?, ?>) resources).forEach((resource, value) -> {
+                try {
+                    resourceRequest.put(String.valueOf(resource), Double.parseDouble(String.valueOf(value)));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid value {} for resource {} requested by task {}",
+                            value, resource, task.getName());
+                }
+            });
+        }
+        return resourceRequest;
+    }
+
+    /**
+     * reads the time for which the result of the task is to be cached from the task property {@link #PROP_CACHE_TTL}.
+     *
+     * @param task task to read the cache ttl from
+     * @return cache ttl in millisecond, 0 if the task has not opted in for memoization
+     */
+    private long getCacheTtl(Task task) {
+        final Object cacheTtl = task.getProperties() == null ? null : task.getProperties().get(PROP_CACHE_TTL);
+        if (cacheTtl == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(String.valueOf(cacheTtl));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid value {} for property {} of task {}", cacheTtl, PROP_CACHE_TTL, task.getName());
+            return 0;
+        }
+    }
+
+    /**
+     * computes the key of the task in the task result cache. The properties used by the executor and not passed on
+     * to the handler do not contribute to the result and are excluded from the key.
+     */
+    private String getCacheKey(Task task) {
+        final Map<String, Object> properties = new HashMap<>(task.getProperties());
+        properties.remove(PROP_RESOURCES);
+        properties.remove(PROP_CACHE_TTL);
+        properties.remove(Task.PROP_AFFINITY);
+        return taskResultCache.getKey(task.getType(), properties);
+    }
+
     /**
      * submit the task for execution to appropriate handler based on task type.
      *
-     * @param task task to submit for execution
+     * @param task            task to submit for execution
+     * @param resourceRequest resources acquired for the task to be released on completion
      */
-    private void submit(Task task) {
-        logger.trace("Received task {} for execution from task queue", task);
-        sendTaskUpdate(task, SUBMITTED);
+    private void submit(Task task, Map<String, Double> resourceRequest) {
+        final TaskExecution taskExecution = new TaskExecution(task, resourceRequest);
+        taskExecution.sendTaskUpdate(SUBMITTED, null, null);
         taskTypeToRunningTasksCount.put(task.getType(), taskTypeToRunningTasksCount.get(task.getType()) + 1);
-        taskExecutorThreadPool.submit(() -> {
-            try {
-                sendTaskUpdate(task, RUNNING);
-                final TaskHandler handler = taskTypeToHandlerMap.get(task.getType());
-                final TaskResult taskResult = handler.handle(task);
-                if (taskResult.isSuccess()) {
-                    sendTaskUpdate(task, SUCCESSFUL, taskResult.getMessage(), taskResult.getContext());
-                } else {
-                    sendTaskUpdate(task, FAILED, taskResult.getMessage(), taskResult.getContext());
-                }
-            } catch (Exception e) {
-                logger.error("Error executing task {}", task, e);
-                sendTaskUpdate(task, FAILED, e.getMessage());
-            } finally {
-                synchronized (taskTypeToRunningTasksCount) {
-                    taskTypeToRunningTasksCount.put(task.getType(), taskTypeToRunningTasksCount.get(task.getType()) - 1);
-                }
+        taskIdToTaskExecutionMap.put(task.getIdentity(), taskExecution);
+        taskExecutorThreadPool.execute(taskExecution.future);
+    }
+
+    private void consumeControlMessages() {
+        final List<ControlMessage> controlMessages = new ArrayList<>(
+                consumer.poll(controlQueue + "." + executorId, Integer.MAX_VALUE, ControlMessage.class,
+                        deadLetterHandler));
+        controlMessages.addAll(consumer.poll(controlQueue, Integer.MAX_VALUE, ControlMessage.class,
+                deadLetterHandler));
+        for (ControlMessage controlMessage : controlMessages) {
+            logger.info("Received control message {}", controlMessage);
+            switch (controlMessage.getAction()) {
+                case CANCEL:
+                    cancel(controlMessage.getTaskId());
+                    break;
             }
-        });
+        }
     }
 
-    private void sendTaskUpdate(TaskId taskId, Status status) {
-        sendTaskUpdate(taskId, status, null);
+    /**
+     * cancels the task if held by the executor. A task waiting for resources is discarded while a running task is
+     * cancelled via {@link TaskHandler#cancel(TaskId)} and the thread executing it is interrupted.
+     * <p>
+     * No status update is sent for a cancelled task as the scheduler marks the task as failed before cancelling it.
+     * </p>
+     *
+     * @param taskId task to cancel
+     */
+    private void cancel(TaskId taskId) {
+        synchronized (taskTypeToRunningTasksCount) {
+            for (LinkedList<Task> pendingTasks : taskTypeToPendingTasks.values()) {
+                if (pendingTasks.remove(taskId)) {
+                    logger.info("Discarding task {} waiting for resources on cancellation", taskId);
+                    activeTasks.remove(taskId);
+                    return;
+                }
+            }
+        }
+        final TaskExecution taskExecution = taskIdToTaskExecutionMap.get(taskId);
+        if (taskExecution == null) {
+            logger.info("Task {} to cancel is not being executed by executor {}", taskId, executorId);
+            return;
+        }
+        taskExecution.cancel();
     }
 
-    private void sendTaskUpdate(TaskId taskId, Status status, String statusMessage) {
-        sendTaskUpdate(taskId, status, statusMessage, null);
+    /**
+     * sends an update for a task outside of its execution, e.g. a task failed before it could be executed. The update
+     * is the first and only update sent for the attempt.
+     */
+    private void sendTaskUpdate(Task task, Status status, String statusMessage) {
+        sendTaskUpdate(TaskUpdate.build(task.getIdentity(), status, statusMessage, null, task.getAttempt(),
+                executorId, 1));
     }
 
-    private void sendTaskUpdate(TaskId taskId, Status status, String statusMessage, Map<String, Object> context) {
+    private void sendTaskUpdate(TaskUpdate taskUpdate) {
         try {
-            TaskUpdate taskUpdate = new TaskUpdate();
-            taskUpdate.setTaskId(taskId);
-            taskUpdate.setStatus(status);
-            taskUpdate.setStatusMessage(statusMessage);
-            taskUpdate.setContext(context);
-            producer.send(statusQueue, MAPPER.writeValueAsString(taskUpdate));
+            producer.send(statusQueue, taskUpdate.getTaskId().getJob(), taskUpdate);
         } catch (IOException e) {
-            logger.error("Error adding task status {} to queue", status, e);
+            logger.error("Error adding task status {} to queue", taskUpdate.getStatus(), e);
         }
     }
 
+    /**
+     * publishes a heartbeat listing all the tasks submitted to this executor and yet to complete along with
+     * the number of tasks of each type the executor can execute in parallel. The capacity is advertised for each
+     * queue of the task type, the queues of a task type share its capacity. A draining executor advertises
+     * no capacity.
+     */
+    private void sendHeartbeat() {
+        try {
+            final ExecutorHeartbeat heartbeat = new ExecutorHeartbeat();
+            heartbeat.setExecutorId(executorId);
+            heartbeat.setIncarnationId(incarnationId);
+            heartbeat.setTimestamp(System.currentTimeMillis());
+            final List<TaskId> tasks = new ArrayList<>();
+            activeTasks.forEach(taskId -> tasks.add(TaskId.build(taskId.getNamespace(), taskId.getName(),
+                    taskId.getJob(), taskId.getWorkflow())));
+            heartbeat.setTasks(tasks);
+            final Map<String, Integer> capacity = new HashMap<>();
+            if (!draining) {
+                taskTypeToMaxParallelTasksCount.forEach((taskType, maxParallelTasks) -> {
+                    capacity.put(taskType, maxParallelTasks);
+                    labels.forEach(label -> capacity.put(taskType + "." + label, maxParallelTasks));
+                });
+            }
+            heartbeat.setCapacity(capacity);
+            producer.send(heartbeatQueue, executorId, heartbeat);
+        } catch (Exception e) {
+            logger.error("Error adding heartbeat for executor {} to queue", executorId, e);
+        }
+    }
+
+    /**
+     * logs the metrics of the task queues consumed by this executor, the metrics cover the tasks received since start
+     */
+    private void logQueueMetrics() {
+        QueueMetrics.getAll().forEach((topic, queueMetrics) -> {
+            if (taskTypeToHandlerConfig.containsKey(topic.split("\\.")[0])) {
+                logger.info("Metrics of task queue {}: {}", topic, queueMetrics);
+            }
+        });
+    }
+
+    // used in junit
+    int getTaskExecutorPoolSize() {
+        return taskExecutorThreadPool.getMaximumPoolSize();
+    }
+
+    // used in junit
+    int getMaxParallelTasks(String taskType) {
+        return taskTypeToMaxParallelTasksCount.get(taskType);
+    }
+
+    // used in junit
+    boolean isExecuting(TaskId taskId) {
+        return taskIdToTaskExecutionMap.containsKey(taskId);
+    }
+
+    // used in junit
+    ResourceBudget getResourceBudget() {
+        return resourceBudget;
+    }
+
+    // used in junit
+    String getExecutorId() {
+        return executorId;
+    }
+
     // used in junit
     Consumer getConsumer() {
         return consumer;
@@ -215,17 +561,35 @@ public final class TaskExecutionService implements Service {
         return producer;
     }
 
+    /**
+     * Task execution service is stopped gracefully by draining the executor before stopping it
+     * <pre>
+     * 1) Stop consuming new tasks from queue
+     * 2) Hand back the tasks received from queue but not yet started to the queue
+     * 3) Wait for the running tasks to complete till the drain timeout
+     * 4) Cancel and mark the tasks still running as failed
+     * </pre>
+     * Executor keeps publishing heartbeats and consuming control messages while draining.
+     */
     @Override
     public void stop() {
         logger.info("Stopping task execution service");
+        if (producer != null) {
+            drain();
+        }
+        logQueueMetrics();
         if (consumer != null) {
             consumer.close();
         }
         try {
             taskConsumerThreadPool.shutdown();
             taskConsumerThreadPool.awaitTermination(10, SECONDS);
-            taskExecutorThreadPool.shutdown();
-            taskExecutorThreadPool.awaitTermination(10, SECONDS);
+            heartbeatThreadPool.shutdown();
+            heartbeatThreadPool.awaitTermination(10, SECONDS);
+            if (taskExecutorThreadPool != null) {
+                taskExecutorThreadPool.shutdown();
+                taskExecutorThreadPool.awaitTermination(10, SECONDS);
+            }
         } catch (InterruptedException e) {
             logger.error("Error stopping executor pool", e);
         }
@@ -233,4 +597,180 @@ public final class TaskExecutionService implements Service {
             producer.close();
         }
     }
+
+    private void drain() {
+        logger.info("Draining executor {}, waiting up to {} ms for running tasks to complete",
+                executorId, drainTimeoutInMs);
+        draining = true;
+        handBackPendingTasks();
+        final long drainDeadline = System.currentTimeMillis() + drainTimeoutInMs;
+        long lastReportedAt = 0;
+        while (!taskIdToTaskExecutionMap.isEmpty() && System.currentTimeMillis() < drainDeadline) {
+            final long currentTimeMillis = System.currentTimeMillis();
+            if (currentTimeMillis - lastReportedAt >= DRAIN_PROGRESS_REPORT_INTERVAL) {
+                logger.info("Waiting for {} running task(s) {} to complete, {} ms left to drain",
+                        taskIdToTaskExecutionMap.size(), taskIdToTaskExecutionMap.keySet(),
+                        drainDeadline - currentTimeMillis);
+                lastReportedAt = currentTimeMillis;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                logger.warn("Interrupted while draining executor {}", executorId);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (taskIdToTaskExecutionMap.isEmpty()) {
+            logger.info("Executor {} drained, all running tasks completed", executorId);
+            return;
+        }
+        logger.warn("Drain timeout elapsed, cancelling {} running task(s) {}",
+                taskIdToTaskExecutionMap.size(), taskIdToTaskExecutionMap.keySet());
+        for (TaskExecution taskExecution : new ArrayList<>(taskIdToTaskExecutionMap.values())) {
+            taskExecution.sendTaskUpdate(FAILED, EXECUTOR_STOPPED, null);
+            taskExecution.cancel();
+        }
+    }
+
+    /**
+     * sends the tasks received from the queue but not yet started back to the queue to be picked by other executors.
+     */
+    private void handBackPendingTasks() {
+        synchronized (taskTypeToRunningTasksCount) {
+            for (LinkedList<Task> pendingTasks : taskTypeToPendingTasks.values()) {
+                for (Task task : pendingTasks) {
+                    logger.info("Handing back task {} not yet started to queue", task.getName());
+                    try {
+                        producer.send(getTaskQueue(task), task);
+                    } catch (Exception e) {
+                        logger.error("Error handing back task {} to queue", task, e);
+                        sendTaskUpdate(task, FAILED, EXECUTOR_STOPPED);
+                    }
+                    activeTasks.remove(task.getIdentity());
+                }
+                pendingTasks.clear();
+            }
+        }
+    }
+
+    /**
+     * @return queue the task was submitted to, the task type qualified by the affinity label if the task has one
+     */
+    private String getTaskQueue(Task task) {
+        final String affinity = task.getAffinity();
+        return affinity == null ? task.getType() : task.getType() + "." + affinity;
+    }
+
+    /**
+     * execution of a task by its handler which can be cancelled at any point in time.
+     */
+    private final class TaskExecution implements Runnable {
+        private final Task task;
+        private final Map<String, Double> resourceRequest;
+        private final FutureTask<Void> future = new FutureTask<>(this, null);
+        private final AtomicLong sequence = new AtomicLong();
+        // guards against the task being started after it is cancelled and vice versa
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private volatile boolean cancelled = false;
+        // key of the task in the task result cache, null if the task has not opted in for memoization
+        private String cacheKey;
+        private long cacheTtl;
+
+        TaskExecution(Task task, Map<String, Double> resourceRequest) {
+            this.task = task;
+            this.resourceRequest = resourceRequest;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                // task was cancelled before it was started
+                return;
+            }
+            final TaskHandler handler = taskTypeToHandlerMap.get(task.getType());
+            CompletableFuture<TaskResult> taskResultFuture;
+            try {
+                sendTaskUpdate(RUNNING, null, null);
+                final TaskResult cachedTaskResult = getCachedTaskResult();
+                taskResultFuture = cachedTaskResult != null ?
+                        CompletableFuture.completedFuture(cachedTaskResult) : handler.handleAsync(task);
+            } catch (Exception e) {
+                taskResultFuture = new CompletableFuture<>();
+                taskResultFuture.completeExceptionally(e);
+            }
+            // for handlers executing the task asynchronously the task is completed on the thread completing the future
+            taskResultFuture.whenComplete(this::complete);
+        }
+
+        private TaskResult getCachedTaskResult() {
+            cacheTtl = getCacheTtl(task);
+            if (cacheTtl <= 0) {
+                return null;
+            }
+            cacheKey = getCacheKey(task);
+            final TaskResult cachedTaskResult = taskResultCache.get(cacheKey);
+            if (cachedTaskResult == null) {
+                return null;
+            }
+            logger.info("Reusing cached result of task {} with cache key {}", task.getName(), cacheKey);
+            // no need to cache the result again
+            cacheKey = null;
+            return new TaskResult(true, CACHED_RESULT_MESSAGE, cachedTaskResult.getContext());
+        }
+
+        private void complete(TaskResult taskResult, Throwable throwable) {
+            try {
+                if (cancelled) {
+                    logger.info("Task {} is cancelled, task result {} is discarded", task.getName(), taskResult);
+                } else if (throwable != null) {
+                    logger.error("Error executing task {}", task, throwable);
+                    sendTaskUpdate(FAILED, throwable.getMessage(), null);
+                } else if (taskResult.isSuccess()) {
+                    if (cacheKey != null) {
+                        taskResultCache.put(cacheKey, taskResult, cacheTtl);
+                    }
+                    sendTaskUpdate(SUCCESSFUL, taskResult.getMessage(), taskResult.getContext());
+                } else {
+                    sendTaskUpdate(FAILED, taskResult.getMessage(), taskResult.getContext());
+                }
+            } finally {
+                release();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (started.compareAndSet(false, true)) {
+                logger.info("Cancelling task {} before it is started", task.getName());
+                future.cancel(false);
+                release();
+                return;
+            }
+            logger.info("Cancelling running task {}", task.getName());
+            try {
+                taskTypeToHandlerMap.get(task.getType()).cancel(task.getIdentity());
+            } catch (Exception e) {
+                logger.error("Error cancelling task {}", task, e);
+            }
+            future.cancel(true);
+        }
+
+        /**
+         * sends an update of the attempt of the task assigned by the scheduler, numbered in the order sent
+         */
+        void sendTaskUpdate(Status status, String statusMessage, Map<String, Object> context) {
+            TaskExecutionService.this.sendTaskUpdate(TaskUpdate.build(task.getIdentity(), status, statusMessage,
+                    context, task.getAttempt(), executorId, sequence.incrementAndGet()));
+        }
+
+        private void release() {
+            taskIdToTaskExecutionMap.remove(task.getIdentity());
+            activeTasks.remove(task.getIdentity());
+            resourceBudget.release(resourceRequest);
+            synchronized (taskTypeToRunningTasksCount) {
+                taskTypeToRunningTasksCount.put(task.getType(), taskTypeToRunningTasksCount.get(task.getType()) - 1);
+            }
+        }
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor;
+
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * defines configuration for the {@link TaskLogService} storing the output of the tasks executed by the executor.
+ */
+public class TaskLogConfig {
+    /**
+     * root directory to store the task logs under, defaults to {@code kronos/task-logs} under {@code java.io.tmpdir}.
+     * <p>
+     * Logs of each task attempt are stored in a separate directory
+     * {@code <logDir>/<namespace>/<workflow>/<job>/<task>/<attempt>}.
+     */
+    private String logDir = Paths.get(System.getProperty("java.io.tmpdir"), "kronos", "task-logs").toString();
+
+    /**
+     * max size of a log file in bytes after which it is rotated, defaults to 100MB.
+     */
+    private long maxFileSizeInBytes = 100 * 1024 * 1024;
+
+    /**
+     * max number of rotated files to keep per log file of a task attempt, defaults to 5.
+     * The oldest rotated file is deleted on rotation once the limit is reached.
+     */
+    private int maxRotatedFiles = 5;
+
+    /**
+     * compress the log files of a task attempt with gzip once the task completes, defaults to true.
+     */
+    private boolean compressOnCompletion = true;
+
+    /**
+     * time duration in millisecond after which the log files of completed tasks are deleted, defaults to 7 days.
+     */
+    private long retentionInMs = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * max total size of the log directory in bytes, defaults to 10GB.
+     * The oldest log files of completed tasks are deleted once the total size exceeds the limit.
+     */
+    private long maxTotalSizeInBytes = 10L * 1024 * 1024 * 1024;
+
+    public String getLogDir() {
+        return logDir;
+    }
+
+    public void setLogDir(String logDir) {
+        this.logDir = logDir;
+    }
+
+    public long getMaxFileSizeInBytes() {
+        return maxFileSizeInBytes;
+    }
+
+    public void setMaxFileSizeInBytes(long maxFileSizeInBytes) {
+        this.maxFileSizeInBytes = maxFileSizeInBytes;
+    }
+
+    public int getMaxRotatedFiles() {
+        return maxRotatedFiles;
+    }
+
+    public void setMaxRotatedFiles(int maxRotatedFiles) {
+        this.maxRotatedFiles = maxRotatedFiles;
+    }
+
+    public boolean isCompressOnCompletion() {
+        return compressOnCompletion;
+    }
+
+    public void setCompressOnCompletion(boolean compressOnCompletion) {
+        this.compressOnCompletion = compressOnCompletion;
+    }
+
+    public long getRetentionInMs() {
+        return retentionInMs;
+    }
+
+    public void setRetentionInMs(long retentionInMs) {
+        this.retentionInMs = retentionInMs;
+    }
+
+    public long getMaxTotalSizeInBytes() {
+        return maxTotalSizeInBytes;
+    }
+
+    public void setMaxTotalSizeInBytes(long maxTotalSizeInBytes) {
+        this.maxTotalSizeInBytes = maxTotalSizeInBytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaskLogConfig)) return false;
+        TaskLogConfig that = (TaskLogConfig) o;
+        return maxFileSizeInBytes == that.maxFileSizeInBytes &&
+                maxRotatedFiles == that.maxRotatedFiles &&
+                compressOnCompletion == that.compressOnCompletion &&
+                retentionInMs == that.retentionInMs &&
+                maxTotalSizeInBytes == that.maxTotalSizeInBytes &&
+                Objects.equals(logDir, that.logDir);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(logDir, maxFileSizeInBytes, maxRotatedFiles, compressOnCompletion, retentionInMs,
+                maxTotalSizeInBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskLogConfig{" +
+                "logDir='" + logDir + '\'' +
+                ", maxFileSizeInBytes=" + maxFileSizeInBytes +
+                ", maxRotatedFiles=" + maxRotatedFiles +
+                ", compressOnCompletion=" + compressOnCompletion +
+                ", retentionInMs=" + retentionInMs +
+                ", maxTotalSizeInBytes=" + maxTotalSizeInBytes +
+                '}';
+    }
+}
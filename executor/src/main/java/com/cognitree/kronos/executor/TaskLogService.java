@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor;
+
+import com.cognitree.kronos.Service;
+import com.cognitree.kronos.ServiceProvider;
+import com.cognitree.kronos.executor.model.TaskLog;
+import com.cognitree.kronos.executor.model.TaskLogFile;
+import com.cognitree.kronos.model.TaskId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A task log service stores the output of the tasks executed by the executor.
+ * <p>
+ * Each attempt of a task is allocated a separate directory {@code <logDir>/<namespace>/<workflow>/<job>/<task>/<attempt>}
+ * and hence re-running a task does not overwrite the logs of the previous attempts. While a task is running, its log
+ * files are rotated once they exceed the max file size by copying the file to {@code <name>.1} and truncating it.
+ * On completion, the log files of the attempt are compressed with gzip. Log files of completed attempts are deleted
+ * once they are older than the retention time or the total size of the log directory exceeds the configured limit.
+ * </p>
+ * <p>
+ * All the maintenance (rotation, compression and retention) is done by a single background thread.
+ * </p>
+ */
+public class TaskLogService implements Service {
+    private static final Logger logger = LoggerFactory.getLogger(TaskLogService.class);
+
+    public static final String STDOUT_FILE_NAME = "stdout.log";
+    public static final String STDERR_FILE_NAME = "stderr.log";
+    private static final String GZIP_EXTENSION = ".gz";
+    // interval in millisecond at which the log files of the running tasks are checked for rotation
+    private static final long ROTATION_CHECK_INTERVAL = SECONDS.toMillis(1);
+    // interval in millisecond at which the log directory is checked for files to delete as per the retention
+    private static final long RETENTION_CHECK_INTERVAL = MINUTES.toMillis(10);
+
+    private final TaskLogConfig taskLogConfig;
+    private final Path logDir;
+    private final Set<TaskLog> activeTaskLogs = ConcurrentHashMap.newKeySet();
+    // used to rotate, compress and delete the log files
+    private final ScheduledExecutorService maintenanceThreadPool = Executors.newSingleThreadScheduledExecutor();
+
+    public TaskLogService(TaskLogConfig taskLogConfig) {
+        this.taskLogConfig = taskLogConfig;
+        this.logDir = Paths.get(taskLogConfig.getLogDir()).toAbsolutePath().normalize();
+    }
+
+    public static TaskLogService getService() {
+        return (TaskLogService) ServiceProvider.getService(TaskLogService.class.getSimpleName());
+    }
+
+    @Override
+    public void init() throws Exception {
+        logger.info("Initializing task log service with config {}", taskLogConfig);
+        Files.createDirectories(logDir);
+    }
+
+    @Override
+    public void start() {
+        maintenanceThreadPool.scheduleWithFixedDelay(this::rotate, ROTATION_CHECK_INTERVAL,
+                ROTATION_CHECK_INTERVAL, MILLISECONDS);
+        maintenanceThreadPool.scheduleWithFixedDelay(this::deleteExpiredLogs, 0,
+                RETENTION_CHECK_INTERVAL, MILLISECONDS);
+        ServiceProvider.registerService(this);
+    }
+
+    /**
+     * allocates the log files for a new attempt of the task. The attempt number is one more than the last attempt
+     * of the task stored in the log directory.
+     *
+     * @param taskId task to allocate the log files for
+     * @return log files allocated to the attempt
+     * @throws IOException if the log directory of the attempt can not be created
+     */
+    public TaskLog create(TaskId taskId) throws IOException {
+        final Path taskLogDir = resolve(taskId);
+        synchronized (this) {
+            Files.createDirectories(taskLogDir);
+            int attempt = getAttempts(taskLogDir).stream().max(Integer::compare).orElse(0) + 1;
+            final Path attemptDir = taskLogDir.resolve(String.valueOf(attempt));
+            Files.createDirectory(attemptDir);
+            final TaskLog taskLog = new TaskLog(taskId, attempt, attemptDir.toFile(),
+                    attemptDir.resolve(STDOUT_FILE_NAME).toFile(), attemptDir.resolve(STDERR_FILE_NAME).toFile());
+            activeTaskLogs.add(taskLog);
+            logger.debug("Allocated log files {} for task {}", taskLog, taskId);
+            return taskLog;
+        }
+    }
+
+    /**
+     * marks the attempt as complete, the log files of the attempt are no longer rotated and are compressed if
+     * configured.
+     *
+     * @param taskLog log files allocated to the attempt
+     */
+    public void close(TaskLog taskLog) {
+        if (!activeTaskLogs.remove(taskLog) || !taskLogConfig.isCompressOnCompletion()) {
+            return;
+        }
+        try {
+            maintenanceThreadPool.execute(() -> compress(taskLog.getAttemptDir().toPath()));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Task log service is stopped, log files of {} will not be compressed", taskLog);
+        }
+    }
+
+    /**
+     * lists the log files of all the attempts of the task.
+     *
+     * @param taskId task to list the log files for
+     * @return log files of the task sorted by attempt and name
+     * @throws IOException if the log directory can not be read
+     */
+    public List<TaskLogFile> list(TaskId taskId) throws IOException {
+        final Path taskLogDir = resolve(taskId);
+        final List<TaskLogFile> taskLogFiles = new ArrayList<>();
+        for (Integer attempt : getAttempts(taskLogDir)) {
+            try (Stream<Path> files = Files.list(taskLogDir.resolve(String.valueOf(attempt)))) {
+                for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    try {
+                        taskLogFiles.add(new TaskLogFile(attempt, file.getFileName().toString(), getSize(file),
+                                isCompressed(file), Files.getLastModifiedTime(file).toMillis()));
+                    } catch (NoSuchFileException e) {
+                        // file was rotated, compressed or deleted while listing
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // attempt was deleted while listing
+            }
+        }
+        taskLogFiles.sort(Comparator.comparing(TaskLogFile::getAttempt).thenComparing(TaskLogFile::getName));
+        return taskLogFiles;
+    }
+
+    /**
+     * resolves a log file of an attempt of the task. If the file is not found, its compressed version is looked up
+     * so that a file once compressed on task completion can still be referred by its original name.
+     *
+     * @param taskId   task to resolve the log file for
+     * @param attempt  attempt of the task
+     * @param fileName name of the log file
+     * @return path of the log file or null if not found
+     */
+    public Path getFile(TaskId taskId, int attempt, String fileName) {
+        validate(fileName);
+        final Path attemptDir = resolve(taskId).resolve(String.valueOf(attempt));
+        final Path file = attemptDir.resolve(fileName);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        final Path compressedFile = attemptDir.resolve(fileName + GZIP_EXTENSION);
+        return Files.isRegularFile(compressedFile) ? compressedFile : null;
+    }
+
+    /**
+     * returns the size of the log content of the file, for a compressed file it is the size after decompression
+     * as recorded in the gzip trailer (modulo 2^32).
+     *
+     * @param file log file
+     * @return size of the log content in bytes
+     * @throws IOException if the file can not be read
+     */
+    public long getSize(Path file) throws IOException {
+        if (!isCompressed(file)) {
+            return Files.size(file);
+        }
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = fileChannel.size();
+            if (size < 4) {
+                return 0;
+            }
+            final ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (trailer.hasRemaining()) {
+                if (fileChannel.read(trailer, size - trailer.remaining()) < 0) {
+                    return 0;
+                }
+            }
+            trailer.flip();
+            return trailer.getInt() & 0xFFFFFFFFL;
+        }
+    }
+
+    /**
+     * writes a byte range of the log content of the file to the output stream. Uncompressed files are transferred
+     * directly from the file channel, compressed files are decompressed while skipping to the offset.
+     *
+     * @param file   log file
+     * @param offset offset of the range in the log content
+     * @param length max number of bytes to write, the range ends at the end of the file if negative
+     * @param out    stream to write the range to
+     * @throws IOException if the file can not be read or the stream can not be written to
+     */
+    public void transfer(Path file, long offset, long length, OutputStream out) throws IOException {
+        final long limit = length < 0 ? Long.MAX_VALUE : length;
+        if (!isCompressed(file)) {
+            final WritableByteChannel target = Channels.newChannel(out);
+            try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = offset;
+                final long end = limit == Long.MAX_VALUE ? fileChannel.size() : Math.min(fileChannel.size(), offset + limit);
+                while (position < end) {
+                    final long transferred = fileChannel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+            }
+            return;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            long toSkip = offset;
+            while (toSkip > 0) {
+                final long skipped = in.skip(toSkip);
+                if (skipped <= 0) {
+                    return;
+                }
+                toSkip -= skipped;
+            }
+            final byte[] buffer = new byte[8192];
+            long remaining = limit;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private void rotate() {
+        for (TaskLog taskLog : activeTaskLogs) {
+            rotate(taskLog.getStdoutFile().toPath());
+            rotate(taskLog.getStderrFile().toPath());
+        }
+    }
+
+    /**
+     * rotates the file by copying it to {@code <name>.1} and truncating it, the process writing to the file keeps
+     * writing to the same file descriptor. Output written between the copy and the truncation is lost.
+     */
+    private void rotate(Path file) {
+        try {
+            if (!Files.exists(file) || Files.size(file) <= taskLogConfig.getMaxFileSizeInBytes()) {
+                return;
+            }
+            logger.debug("Rotating log file {}", file);
+            final int maxRotatedFiles = taskLogConfig.getMaxRotatedFiles();
+            if (maxRotatedFiles > 0) {
+                final String fileName = file.getFileName().toString();
+                Files.deleteIfExists(file.resolveSibling(fileName + "." + maxRotatedFiles));
+                for (int index = maxRotatedFiles - 1; index >= 1; index--) {
+                    final Path rotatedFile = file.resolveSibling(fileName + "." + index);
+                    if (Files.exists(rotatedFile)) {
+                        Files.move(rotatedFile, file.resolveSibling(fileName + "." + (index + 1)));
+                    }
+                }
+                Files.copy(file, file.resolveSibling(fileName + ".1"));
+            }
+            try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                fileChannel.truncate(0);
+            }
+        } catch (Exception e) {
+            logger.error("Error rotating log file {}", file, e);
+        }
+    }
+
+    private void compress(Path attemptDir) {
+        try (Stream<Path> files = Files.list(attemptDir)) {
+            for (Path file : files.filter(file -> Files.isRegularFile(file) && !isCompressed(file))
+                    .collect(Collectors.toList())) {
+                final Path tmpFile = file.resolveSibling(file.getFileName() + GZIP_EXTENSION + ".tmp");
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmpFile))) {
+                    Files.copy(file, out);
+                }
+                Files.move(tmpFile, file.resolveSibling(file.getFileName() + GZIP_EXTENSION),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.delete(file);
+            }
+        } catch (Exception e) {
+            logger.error("Error compressing log files in directory {}", attemptDir, e);
+        }
+    }
+
+    /**
+     * deletes the log files of the completed attempts older than the retention time, followed by the oldest
+     * log files till the total size of the log directory is within the limit.
+     */
+    // used in junit
+    void deleteExpiredLogs() {
+        try {
+            final Set<Path> activeAttemptDirs = activeTaskLogs.stream()
+                    .map(taskLog -> taskLog.getAttemptDir().toPath()).collect(Collectors.toSet());
+            final List<Path> files;
+            try (Stream<Path> paths = Files.walk(logDir)) {
+                files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            final List<LogFile> completedLogFiles = new ArrayList<>();
+            long totalSize = 0;
+            for (Path file : files) {
+                try {
+                    final long size = Files.size(file);
+                    totalSize += size;
+                    if (!activeAttemptDirs.contains(file.getParent())) {
+                        completedLogFiles.add(new LogFile(file, size, Files.getLastModifiedTime(file).toMillis()));
+                    }
+                } catch (NoSuchFileException e) {
+                    // file was rotated or compressed while listing
+                }
+            }
+            completedLogFiles.sort(Comparator.comparingLong(logFile -> logFile.lastModified));
+            final long expireBefore = System.currentTimeMillis() - taskLogConfig.getRetentionInMs();
+            for (LogFile logFile : completedLogFiles) {
+                if (logFile.lastModified >= expireBefore && totalSize <= taskLogConfig.getMaxTotalSizeInBytes()) {
+                    break;
+                }
+                logger.debug("Deleting log file {}", logFile.path);
+                Files.deleteIfExists(logFile.path);
+                totalSize -= logFile.size;
+            }
+            deleteEmptyDirs();
+        } catch (Exception e) {
+            logger.error("Error deleting expired log files from directory {}", logDir, e);
+        }
+    }
+
+    private synchronized void deleteEmptyDirs() throws IOException {
+        // directories allocated to the running attempts are empty till the task writes its output
+        final Set<Path> activeAttemptDirs = activeTaskLogs.stream()
+                .map(taskLog -> taskLog.getAttemptDir().toPath()).collect(Collectors.toSet());
+        final List<Path> dirs;
+        try (Stream<Path> paths = Files.walk(logDir)) {
+            // children before parents
+            dirs = paths.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path dir : dirs) {
+            if (dir.equals(logDir) || activeAttemptDirs.contains(dir)) {
+                continue;
+            }
+            try (Stream<Path> children = Files.list(dir)) {
+                if (children.findAny().isPresent()) {
+                    continue;
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private List<Integer> getAttempts(Path taskLogDir) throws IOException {
+        if (!Files.isDirectory(taskLogDir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> dirs = Files.list(taskLogDir)) {
+            return dirs.map(dir -> dir.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .map(Integer::parseInt)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private boolean isCompressed(Path file) {
+        return file.getFileName().toString().endsWith(GZIP_EXTENSION);
+    }
+
+    private Path resolve(TaskId taskId) {
+        validate(taskId.getNamespace());
+        validate(taskId.getWorkflow());
+        validate(taskId.getJob());
+        validate(taskId.getName());
+        return logDir.resolve(taskId.getNamespace()).resolve(taskId.getWorkflow())
+                .resolve(taskId.getJob()).resolve(taskId.getName());
+    }
+
+    // path components are part of the api and must not escape the log directory
+    private void validate(String pathComponent) {
+        if (pathComponent == null || pathComponent.isEmpty() || pathComponent.equals(".") || pathComponent.equals("..")
+                || pathComponent.contains("/") || pathComponent.contains("\\")) {
+            throw new IllegalArgumentException("invalid log path component " + pathComponent);
+        }
+    }
+
+    @Override
+    public void stop() {
+        logger.info("Stopping task log service");
+        try {
+            maintenanceThreadPool.shutdown();
+            maintenanceThreadPool.awaitTermination(10, SECONDS);
+        } catch (InterruptedException e) {
+            logger.error("Error stopping task log service", e);
+        }
+    }
+
+    private static final class LogFile {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        LogFile(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
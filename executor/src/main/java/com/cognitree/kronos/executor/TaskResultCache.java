@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor;
+
+import com.cognitree.kronos.executor.model.TaskResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A file backed cache of the successful task results keyed by a hash of the task type and the task properties.
+ * <p>
+ * Each result is stored in a separate file {@code <cacheDir>/<key>.json} along with its expiry time and hence the
+ * cache survives executor restarts. The number of cached results is bounded, the least recently used result is
+ * evicted once the limit is reached.
+ * </p>
+ */
+final class TaskResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(TaskResultCache.class);
+
+    // canonical json used to compute the cache key, independent of the order of the properties
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private static final TypeReference<Map<String, Object>> CONTEXT_TYPE_REF =
+            new TypeReference<Map<String, Object>>() {
+            };
+    private static final String ENTRY_FILE_EXTENSION = ".json";
+
+    private final Path cacheDir;
+    private final int maxEntries;
+    // cache keys in the order of access, least recently used first
+    private final LinkedHashMap<String, Boolean> keys = new LinkedHashMap<>(16, 0.75f, true);
+
+    TaskResultCache(TaskResultCacheConfig taskResultCacheConfig) {
+        this.cacheDir = Paths.get(taskResultCacheConfig.getCacheDir());
+        this.maxEntries = taskResultCacheConfig.getMaxEntries();
+    }
+
+    /**
+     * creates the cache directory and loads the keys of the results cached before a restart in the order they were
+     * last written.
+     */
+    synchronized void init() throws IOException {
+        Files.createDirectories(cacheDir);
+        final List<Path> entryFiles;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            entryFiles = files.filter(file -> file.getFileName().toString().endsWith(ENTRY_FILE_EXTENSION))
+                    .sorted(Comparator.comparingLong(file -> file.toFile().lastModified()))
+                    .collect(Collectors.toList());
+        }
+        for (Path entryFile : entryFiles) {
+            final String fileName = entryFile.getFileName().toString();
+            keys.put(fileName.substring(0, fileName.length() - ENTRY_FILE_EXTENSION.length()), Boolean.TRUE);
+        }
+        evict();
+        logger.info("Initialized task result cache at {} with {} entries", cacheDir, keys.size());
+    }
+
+    /**
+     * computes the cache key of a task as a SHA-256 hash of the task type and the task properties.
+     *
+     * @param type       task type
+     * @param properties task properties contributing to the task result
+     * @return cache key
+     */
+    String getKey(String type, Map<String, Object> properties) {
+        final Map<String, Object> keyAttributes = new HashMap<>();
+        keyAttributes.put("type", type);
+        keyAttributes.put("properties", properties);
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(MAPPER.writeValueAsBytes(keyAttributes));
+            final StringBuilder key = new StringBuilder();
+            for (byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("unable to compute cache key for task type " + type, e);
+        }
+    }
+
+    /**
+     * @param key cache key
+     * @return cached task result or null if not found or expired
+     */
+    synchronized TaskResult get(String key) {
+        // lookup marks the key as most recently used
+        if (keys.get(key) == null) {
+            return null;
+        }
+        final Path entryFile = cacheDir.resolve(key + ENTRY_FILE_EXTENSION);
+        try {
+            final JsonNode entry = MAPPER.readTree(entryFile.toFile());
+            if (entry.get("expiresAt").asLong() <= System.currentTimeMillis()) {
+                logger.debug("Cached task result with key {} has expired", key);
+                remove(key);
+                return null;
+            }
+            final Map<String, Object> context = entry.hasNonNull("context") ?
+                    MAPPER.convertValue(entry.get("context"), CONTEXT_TYPE_REF) : null;
+            return new TaskResult(true, entry.hasNonNull("message") ? entry.get("message").asText() : null, context);
+        } catch (NoSuchFileException e) {
+            keys.remove(key);
+            return null;
+        } catch (Exception e) {
+            logger.error("Error reading cached task result with key {}, removing it from cache", key, e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * caches the task result.
+     *
+     * @param key        cache key
+     * @param taskResult successful task result to cache
+     * @param ttlInMs    time duration in millisecond for which the result is valid
+     */
+    synchronized void put(String key, TaskResult taskResult, long ttlInMs) {
+        final ObjectNode entry = MAPPER.createObjectNode();
+        entry.put("expiresAt", System.currentTimeMillis() + ttlInMs);
+        entry.put("message", taskResult.getMessage());
+        entry.set("context", MAPPER.valueToTree(taskResult.getContext()));
+        final Path entryFile = cacheDir.resolve(key + ENTRY_FILE_EXTENSION);
+        final Path tmpFile = cacheDir.resolve(key + ENTRY_FILE_EXTENSION + ".tmp");
+        try {
+            Files.write(tmpFile, MAPPER.writeValueAsString(entry).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            keys.put(key, Boolean.TRUE);
+            evict();
+        } catch (Exception e) {
+            logger.error("Error caching task result with key {}", key, e);
+        }
+    }
+
+    private void evict() {
+        final Iterator<String> iterator = keys.keySet().iterator();
+        while (keys.size() > maxEntries && iterator.hasNext()) {
+            final String key = iterator.next();
+            iterator.remove();
+            delete(key);
+        }
+    }
+
+    private void remove(String key) {
+        keys.remove(key);
+        delete(key);
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(cacheDir.resolve(key + ENTRY_FILE_EXTENSION));
+        } catch (IOException e) {
+            logger.error("Error deleting cached task result with key {}", key, e);
+        }
+    }
+
+    // used in junit
+    synchronized int size() {
+        return keys.size();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor;
+
+import java.nio.file.Paths;
+import java.util.Objects;
+
+/**
+ * defines configuration for the cache of task results maintained by the executor for the tasks opting in for
+ * memoization.
+ */
+public class TaskResultCacheConfig {
+    /**
+     * directory to store the cached task results in, defaults to {@code kronos/task-result-cache} under
+     * {@code java.io.tmpdir}.
+     */
+    private String cacheDir = Paths.get(System.getProperty("java.io.tmpdir"), "kronos", "task-result-cache").toString();
+
+    /**
+     * max number of task results to cache, defaults to 10000. The least recently used result is evicted once the
+     * limit is reached.
+     */
+    private int maxEntries = 10000;
+
+    public String getCacheDir() {
+        return cacheDir;
+    }
+
+    public void setCacheDir(String cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaskResultCacheConfig)) return false;
+        TaskResultCacheConfig that = (TaskResultCacheConfig) o;
+        return maxEntries == that.maxEntries &&
+                Objects.equals(cacheDir, that.cacheDir);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(cacheDir, maxEntries);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskResultCacheConfig{" +
+                "cacheDir='" + cacheDir + '\'' +
+                ", maxEntries=" + maxEntries +
+                '}';
+    }
+}
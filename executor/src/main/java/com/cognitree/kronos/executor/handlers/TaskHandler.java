@@ -19,8 +19,11 @@ package com.cognitree.kronos.executor.handlers;
 
 import com.cognitree.kronos.executor.model.TaskResult;
 import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * A handler defines how a task of given type is handled/ executed and is to be implemented and configured for each task type.
  */
@@ -41,4 +44,35 @@ public interface TaskHandler {
      * @param task task to handle.
      */
     TaskResult handle(Task task);
+
+    /**
+     * defines how to handle/ execute the task asynchronously. The executor calls this method to execute the task
+     * and the task is considered complete once the returned future is completed.
+     * <p>
+     * Handlers supervising external work (e.g. a spawned process) can override this method to release the calling
+     * thread while the work is in progress. The default implementation calls {@link #handle(Task)} on the calling
+     * thread.
+     * </p>
+     *
+     * @param task task to handle.
+     * @return future completed with the result of the task.
+     */
+    default CompletableFuture<TaskResult> handleAsync(Task task) {
+        return CompletableFuture.completedFuture(handle(task));
+    }
+
+    /**
+     * cancels the task currently being handled by the handler. A call to cancel is made when the task times out or
+     * the job it belongs to is aborted and is expected to release all the resources held by the task
+     * (e.g. kill the spawned process or the submitted remote job).
+     * <p>
+     * The thread executing {@link #handle(Task)} is interrupted after the call to cancel returns. Handlers overriding
+     * {@link #handleAsync(Task)} are expected to complete the returned future once the task is cancelled.
+     * The default implementation does nothing and relies on the interrupt to stop the task.
+     * </p>
+     *
+     * @param taskId id of the task to cancel.
+     */
+    default void cancel(TaskId taskId) {
+    }
 }
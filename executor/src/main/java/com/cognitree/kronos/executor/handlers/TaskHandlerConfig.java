@@ -39,6 +39,7 @@ public class TaskHandlerConfig {
 
     /**
      * maximum number of tasks to be scheduled in parallel for execution at any point of time.
+     * Can be changed at runtime by updating the executor configuration file.
      */
     private int maxParallelTasks;
 
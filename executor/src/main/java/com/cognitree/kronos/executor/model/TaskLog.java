@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor.model;
+
+import com.cognitree.kronos.model.TaskId;
+
+import java.io.File;
+
+/**
+ * log files allocated to an attempt of a task by the {@link com.cognitree.kronos.executor.TaskLogService}.
+ */
+public class TaskLog {
+    private final TaskId taskId;
+    private final int attempt;
+    private final File attemptDir;
+    private final File stdoutFile;
+    private final File stderrFile;
+
+    public TaskLog(TaskId taskId, int attempt, File attemptDir, File stdoutFile, File stderrFile) {
+        this.taskId = taskId;
+        this.attempt = attempt;
+        this.attemptDir = attemptDir;
+        this.stdoutFile = stdoutFile;
+        this.stderrFile = stderrFile;
+    }
+
+    public TaskId getTaskId() {
+        return taskId;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public File getAttemptDir() {
+        return attemptDir;
+    }
+
+    /**
+     * file to write the stdout of the task to, the file is rotated by copying and truncating it and hence
+     * it must be opened in append mode by the writer.
+     */
+    public File getStdoutFile() {
+        return stdoutFile;
+    }
+
+    /**
+     * file to write the stderr of the task to, the file is rotated by copying and truncating it and hence
+     * it must be opened in append mode by the writer.
+     */
+    public File getStderrFile() {
+        return stderrFile;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskLog{" +
+                "taskId=" + taskId +
+                ", attempt=" + attempt +
+                ", attemptDir=" + attemptDir +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor.model;
+
+import java.util.Objects;
+
+/**
+ * describes a log file stored for an attempt of a task.
+ */
+public class TaskLogFile {
+    private int attempt;
+    private String name;
+    private long size;
+    private boolean compressed;
+    private long lastModified;
+
+    public TaskLogFile() {
+    }
+
+    public TaskLogFile(int attempt, String name, long size, boolean compressed, long lastModified) {
+        this.attempt = attempt;
+        this.name = name;
+        this.size = size;
+        this.compressed = compressed;
+        this.lastModified = lastModified;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(int attempt) {
+        this.attempt = attempt;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return size of the log content in bytes, for a compressed file it is the size after decompression
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaskLogFile)) return false;
+        TaskLogFile that = (TaskLogFile) o;
+        return attempt == that.attempt &&
+                size == that.size &&
+                compressed == that.compressed &&
+                lastModified == that.lastModified &&
+                Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(attempt, name, size, compressed, lastModified);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskLogFile{" +
+                "attempt=" + attempt +
+                ", name='" + name + '\'' +
+                ", size=" + size +
+                ", compressed=" + compressed +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
@@ -77,6 +77,11 @@ public class MockTaskBuilder {
         return this;
     }
 
+    public MockTaskBuilder setProperties(Map<String, Object> properties) {
+        this.properties = properties;
+        return this;
+    }
+
     public MockTaskBuilder setStatus(Status status) {
         this.status = status;
         return this;
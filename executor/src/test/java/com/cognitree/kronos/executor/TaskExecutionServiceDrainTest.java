@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.executor;
+
+import com.cognitree.kronos.executor.handlers.TestTaskHandler;
+import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
+import com.cognitree.kronos.model.TaskUpdate;
+import com.cognitree.kronos.queue.consumer.RAMConsumer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import static com.cognitree.kronos.model.Task.Status.FAILED;
+import static com.cognitree.kronos.model.Task.Status.RUNNING;
+import static com.cognitree.kronos.model.Task.Status.SCHEDULED;
+import static com.cognitree.kronos.model.Task.Status.SUBMITTED;
+import static com.cognitree.kronos.model.Task.Status.SUCCESSFUL;
+import static java.lang.Thread.sleep;
+
+public class TaskExecutionServiceDrainTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String TASK_TYPE_TEST = "test";
+    private final RAMConsumer consumer = new RAMConsumer();
+    private ExecutorApp executorApp;
+
+    @Before
+    public void start() throws Exception {
+        executorApp = new ExecutorApp();
+        executorApp.start();
+    }
+
+    @After
+    public void stop() {
+        executorApp.stop();
+    }
+
+    @Test
+    public void testDrainOnStop() throws Exception {
+        final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+        final Task taskOne = createTask(4);
+        tasksMap.put(taskOne, taskOne);
+        TaskExecutionService.getService().getProducer().send(taskOne.getType(), MAPPER.writeValueAsString(taskOne));
+        final Task taskTwo = createTask(1);
+        tasksMap.put(taskTwo, taskTwo);
+        TaskExecutionService.getService().getProducer().send(taskTwo.getType(), MAPPER.writeValueAsString(taskTwo));
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertTrue(taskOne.getStatus().equals(RUNNING) || taskOne.getStatus().equals(SUBMITTED));
+        // task two is waiting for resources
+        Assert.assertEquals(SCHEDULED, taskTwo.getStatus());
+
+        final Thread stopThread = new Thread(executorApp::stop);
+        stopThread.start();
+        sleep(200);
+        // task not yet started is handed back to the queue
+        final List<String> tasks = consumer.poll(TASK_TYPE_TEST);
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(taskTwo.getIdentity(), MAPPER.readValue(tasks.get(0), Task.class).getIdentity());
+        Assert.assertTrue(stopThread.isAlive());
+
+        TestTaskHandler.finishExecution(taskOne.getName());
+        stopThread.join(1000);
+        Assert.assertFalse(stopThread.isAlive());
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(SUCCESSFUL, taskOne.getStatus());
+        Assert.assertEquals(SCHEDULED, taskTwo.getStatus());
+    }
+
+    @Test
+    public void testDrainTimeout() throws Exception {
+        final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+        final Task taskOne = createTask(1);
+        tasksMap.put(taskOne, taskOne);
+        TaskExecutionService.getService().getProducer().send(taskOne.getType(), MAPPER.writeValueAsString(taskOne));
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertTrue(taskOne.getStatus().equals(RUNNING) || taskOne.getStatus().equals(SUBMITTED));
+
+        // drain timeout is configured to 1 second in executor.yaml
+        executorApp.stop();
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(FAILED, taskOne.getStatus());
+        Assert.assertTrue(TestTaskHandler.isCancelled(taskOne.getName()));
+    }
+
+    private Task createTask(int cpu) {
+        final HashMap<String, Object> properties = new HashMap<>();
+        properties.put("resources", Collections.singletonMap("cpu", cpu));
+        return MockTaskBuilder.getTaskBuilder()
+                .setJob(UUID.randomUUID().toString())
+                .setNamespace(UUID.randomUUID().toString())
+                .setType(TASK_TYPE_TEST)
+                .setStatus(SCHEDULED)
+                .setProperties(properties)
+                .build();
+    }
+
+    private void consumeTaskStatus(HashMap<TaskId, Task> tasksMap) throws IOException {
+        for (String taskStatus : consumer.poll("taskstatus")) {
+            final TaskUpdate taskUpdate = MAPPER.readValue(taskStatus, TaskUpdate.class);
+            final Task task = tasksMap.get(taskUpdate.getTaskId());
+            if (task == null) {
+                // status update left behind by other tests
+                continue;
+            }
+            task.setStatus(taskUpdate.getStatus());
+            task.setStatusMessage(taskUpdate.getStatusMessage());
+        }
+    }
+}
@@ -20,20 +20,28 @@ package com.cognitree.kronos.executor;
 import com.cognitree.kronos.executor.handlers.TestTaskHandler;
 import com.cognitree.kronos.executor.handlers.TypeATaskHandler;
 import com.cognitree.kronos.executor.handlers.TypeBTaskHandler;
+import com.cognitree.kronos.model.ControlMessage;
+import com.cognitree.kronos.model.ExecutorHeartbeat;
 import com.cognitree.kronos.model.Task;
 import com.cognitree.kronos.model.TaskId;
 import com.cognitree.kronos.model.TaskUpdate;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 import static com.cognitree.kronos.model.Task.Status.FAILED;
 import static com.cognitree.kronos.model.Task.Status.RUNNING;
@@ -45,10 +53,13 @@ import static java.lang.Thread.sleep;
 public class TaskExecutorServiceTest {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectMapper MAPPER_YAML = new ObjectMapper(new YAMLFactory());
     private static final ExecutorApp EXECUTOR_APP = new ExecutorApp();
     private static final String TASK_TYPE_TEST = "test";
     private static final String TASK_TYPE_B = "typeB";
     private static final String TASK_TYPE_A = "typeA";
+    private static final long AWAIT_TIMEOUT_IN_MS = 5000;
+    private static final long AWAIT_POLL_INTERVAL_IN_MS = 20;
 
     @BeforeClass
     public static void start() throws Exception {
@@ -179,6 +190,319 @@ public class TaskExecutorServiceTest {
         Assert.assertEquals(SUCCESSFUL, taskFive.getStatus());
     }
 
+    @Test
+    public void testExecutorHeartbeat() throws InterruptedException, IOException {
+        final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+        String namespace = UUID.randomUUID().toString();
+        String jobId = UUID.randomUUID().toString();
+        Task taskOne = MockTaskBuilder.getTaskBuilder()
+                .setJob(jobId)
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setStatus(SCHEDULED)
+                .build();
+        tasksMap.put(taskOne, taskOne);
+        TaskExecutionService.getService().getProducer().send(taskOne.getType(), MAPPER.writeValueAsString(taskOne));
+        ExecutorHeartbeat heartbeat = awaitHeartbeat(hb -> hb.getTasks().contains(taskOne.getIdentity()));
+        Assert.assertNotNull(heartbeat);
+        Assert.assertEquals(TaskExecutionService.getService().getExecutorId(), heartbeat.getExecutorId());
+        TestTaskHandler.finishExecution(taskOne.getName());
+        awaitStatus(tasksMap, taskOne, SUCCESSFUL);
+        Assert.assertEquals(SUCCESSFUL, taskOne.getStatus());
+        heartbeat = awaitHeartbeat(hb -> !hb.getTasks().contains(taskOne.getIdentity()));
+        Assert.assertNotNull(heartbeat);
+    }
+
+    @Test
+    public void testResourceAwareExecution() throws InterruptedException, IOException {
+        final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+        String namespace = UUID.randomUUID().toString();
+        String jobId = UUID.randomUUID().toString();
+        Task taskOne = MockTaskBuilder.getTaskBuilder()
+                .setJob(jobId)
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setStatus(SCHEDULED)
+                .setProperties(createResourceRequest(3))
+                .build();
+        tasksMap.put(taskOne, taskOne);
+        TaskExecutionService.getService().getProducer().send(taskOne.getType(), MAPPER.writeValueAsString(taskOne));
+        Task taskTwo = MockTaskBuilder.getTaskBuilder()
+                .setJob(jobId)
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setStatus(SCHEDULED)
+                .setProperties(createResourceRequest(2))
+                .build();
+        tasksMap.put(taskTwo, taskTwo);
+        TaskExecutionService.getService().getProducer().send(taskTwo.getType(), MAPPER.writeValueAsString(taskTwo));
+        Task taskThree = MockTaskBuilder.getTaskBuilder()
+                .setJob(jobId)
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setStatus(SCHEDULED)
+                .setProperties(createResourceRequest(8))
+                .build();
+        tasksMap.put(taskThree, taskThree);
+        TaskExecutionService.getService().getProducer().send(taskThree.getType(), MAPPER.writeValueAsString(taskThree));
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertTrue(taskOne.getStatus().equals(RUNNING) || taskOne.getStatus().equals(SUBMITTED));
+        // task two does not fit in the remaining resource budget
+        Assert.assertEquals(SCHEDULED, taskTwo.getStatus());
+        Assert.assertEquals(Double.valueOf(1), TaskExecutionService.getService().getResourceBudget().getAvailable().get("cpu"));
+        TestTaskHandler.finishExecution(taskOne.getName());
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(SUCCESSFUL, taskOne.getStatus());
+        Assert.assertTrue(taskTwo.getStatus().equals(RUNNING) || taskTwo.getStatus().equals(SUBMITTED));
+        // task three can never fit in the resource capacity of the executor
+        Assert.assertEquals(FAILED, taskThree.getStatus());
+        TestTaskHandler.finishExecution(taskTwo.getName());
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(SUCCESSFUL, taskTwo.getStatus());
+        Assert.assertEquals(Double.valueOf(4), TaskExecutionService.getService().getResourceBudget().getAvailable().get("cpu"));
+    }
+
+    @Test
+    public void testTaskCancellation() throws InterruptedException, JsonProcessingException {
+        final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+        String namespace = UUID.randomUUID().toString();
+        String jobId = UUID.randomUUID().toString();
+        Task taskOne = MockTaskBuilder.getTaskBuilder()
+                .setJob(jobId)
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setStatus(SCHEDULED)
+                .build();
+        tasksMap.put(taskOne, taskOne);
+        TaskExecutionService.getService().getProducer().send(taskOne.getType(), MAPPER.writeValueAsString(taskOne));
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertTrue(taskOne.getStatus().equals(RUNNING) || taskOne.getStatus().equals(SUBMITTED));
+        Assert.assertTrue(TaskExecutionService.getService().isExecuting(taskOne));
+        final ControlMessage cancelMessage = ControlMessage.build(taskOne.getIdentity(), ControlMessage.Action.CANCEL);
+        TaskExecutionService.getService().getProducer().send("taskcontrol." +
+                TaskExecutionService.getService().getExecutorId(), MAPPER.writeValueAsString(cancelMessage));
+        sleep(200);
+        Assert.assertTrue(TestTaskHandler.isCancelled(taskOne.getName()));
+        Assert.assertFalse(TaskExecutionService.getService().isExecuting(taskOne));
+        consumeTaskStatus(tasksMap);
+        // no status update is sent for a cancelled task
+        Assert.assertTrue(taskOne.getStatus().equals(RUNNING) || taskOne.getStatus().equals(SUBMITTED));
+    }
+
+    @Test
+    public void testReconfigureMaxParallelTasks() throws Exception {
+        final File configFile = File.createTempFile("executor", ".yaml");
+        configFile.deleteOnExit();
+        writeExecutorConfig(configFile, 4);
+        final ExecutorConfigWatcher executorConfigWatcher = new ExecutorConfigWatcher(configFile, 50);
+        executorConfigWatcher.start();
+        try {
+            Assert.assertEquals(12, TaskExecutionService.getService().getTaskExecutorPoolSize());
+            writeExecutorConfig(configFile, 1);
+            sleep(200);
+            Assert.assertEquals(1, TaskExecutionService.getService().getMaxParallelTasks(TASK_TYPE_TEST));
+            Assert.assertEquals(9, TaskExecutionService.getService().getTaskExecutorPoolSize());
+
+            final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+            String namespace = UUID.randomUUID().toString();
+            String jobId = UUID.randomUUID().toString();
+            Task taskOne = MockTaskBuilder.getTaskBuilder()
+                    .setJob(jobId)
+                    .setNamespace(namespace)
+                    .setType(TASK_TYPE_TEST)
+                    .setStatus(SCHEDULED)
+                    .build();
+            tasksMap.put(taskOne, taskOne);
+            TaskExecutionService.getService().getProducer().send(taskOne.getType(), MAPPER.writeValueAsString(taskOne));
+            Task taskTwo = MockTaskBuilder.getTaskBuilder()
+                    .setJob(jobId)
+                    .setNamespace(namespace)
+                    .setType(TASK_TYPE_TEST)
+                    .setStatus(SCHEDULED)
+                    .build();
+            tasksMap.put(taskTwo, taskTwo);
+            TaskExecutionService.getService().getProducer().send(taskTwo.getType(), MAPPER.writeValueAsString(taskTwo));
+            sleep(100);
+            consumeTaskStatus(tasksMap);
+            Assert.assertTrue(taskOne.getStatus().equals(RUNNING) || taskOne.getStatus().equals(SUBMITTED));
+            Assert.assertEquals(SCHEDULED, taskTwo.getStatus());
+
+            writeExecutorConfig(configFile, 4);
+            sleep(200);
+            consumeTaskStatus(tasksMap);
+            Assert.assertEquals(4, TaskExecutionService.getService().getMaxParallelTasks(TASK_TYPE_TEST));
+            Assert.assertEquals(12, TaskExecutionService.getService().getTaskExecutorPoolSize());
+            Assert.assertTrue(taskTwo.getStatus().equals(RUNNING) || taskTwo.getStatus().equals(SUBMITTED));
+            TestTaskHandler.finishExecution(taskOne.getName());
+            TestTaskHandler.finishExecution(taskTwo.getName());
+            sleep(100);
+            consumeTaskStatus(tasksMap);
+            Assert.assertEquals(SUCCESSFUL, taskOne.getStatus());
+            Assert.assertEquals(SUCCESSFUL, taskTwo.getStatus());
+        } finally {
+            executorConfigWatcher.stop();
+            TaskExecutionService.getService().reconfigure(MAPPER_YAML.readValue(getClass().getClassLoader()
+                    .getResourceAsStream("executor.yaml"), ExecutorConfig.class));
+        }
+    }
+
+    @Test
+    public void testTaskResultCache() throws JsonProcessingException, InterruptedException {
+        final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+        final String namespace = UUID.randomUUID().toString();
+        final HashMap<String, Object> properties = new HashMap<>();
+        properties.put("cacheTtlInMs", 60000);
+        properties.put("input", UUID.randomUUID().toString());
+        Task taskOne = MockTaskBuilder.getTaskBuilder()
+                .setJob(UUID.randomUUID().toString())
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setProperties(properties)
+                .setStatus(SCHEDULED)
+                .build();
+        tasksMap.put(taskOne, taskOne);
+        TaskExecutionService.getService().getProducer().send(taskOne.getType(), MAPPER.writeValueAsString(taskOne));
+        sleep(100);
+        TestTaskHandler.finishExecution(taskOne.getName());
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(SUCCESSFUL, taskOne.getStatus());
+
+        // task with same type and properties reuses the cached result without being handled
+        Task taskTwo = MockTaskBuilder.getTaskBuilder()
+                .setJob(UUID.randomUUID().toString())
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setProperties(properties)
+                .setStatus(SCHEDULED)
+                .build();
+        tasksMap.put(taskTwo, taskTwo);
+        TaskExecutionService.getService().getProducer().send(taskTwo.getType(), MAPPER.writeValueAsString(taskTwo));
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(SUCCESSFUL, taskTwo.getStatus());
+        Assert.assertEquals("task result reused from cache", taskTwo.getStatusMessage());
+
+        // task with different properties is handled
+        final HashMap<String, Object> otherProperties = new HashMap<>(properties);
+        otherProperties.put("input", UUID.randomUUID().toString());
+        Task taskThree = MockTaskBuilder.getTaskBuilder()
+                .setJob(UUID.randomUUID().toString())
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setProperties(otherProperties)
+                .setStatus(SCHEDULED)
+                .build();
+        tasksMap.put(taskThree, taskThree);
+        TaskExecutionService.getService().getProducer().send(taskThree.getType(), MAPPER.writeValueAsString(taskThree));
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertTrue(taskThree.getStatus().equals(RUNNING) || taskThree.getStatus().equals(SUBMITTED));
+        TestTaskHandler.finishExecution(taskThree.getName());
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(SUCCESSFUL, taskThree.getStatus());
+    }
+
+    @Test
+    public void testTaskAffinity() throws InterruptedException, IOException {
+        final HashMap<TaskId, Task> tasksMap = new HashMap<>();
+        String namespace = UUID.randomUUID().toString();
+        String jobId = UUID.randomUUID().toString();
+        // task pinned to the label of the executor is consumed from the labelled queue
+        Task taskOne = MockTaskBuilder.getTaskBuilder()
+                .setJob(jobId)
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setProperties(createAffinity("gpu"))
+                .setStatus(SCHEDULED)
+                .build();
+        tasksMap.put(taskOne, taskOne);
+        TaskExecutionService.getService().getProducer().send(taskOne.getType() + ".gpu",
+                MAPPER.writeValueAsString(taskOne));
+        // task pinned to a label the executor does not belong to is not consumed
+        Task taskTwo = MockTaskBuilder.getTaskBuilder()
+                .setJob(jobId)
+                .setNamespace(namespace)
+                .setType(TASK_TYPE_TEST)
+                .setProperties(createAffinity("fpga"))
+                .setStatus(SCHEDULED)
+                .build();
+        tasksMap.put(taskTwo, taskTwo);
+        TaskExecutionService.getService().getProducer().send(taskTwo.getType() + ".fpga",
+                MAPPER.writeValueAsString(taskTwo));
+        sleep(200);
+        consumeTaskStatus(tasksMap);
+        Assert.assertTrue(taskOne.getStatus().equals(RUNNING) || taskOne.getStatus().equals(SUBMITTED));
+        Assert.assertEquals(SCHEDULED, taskTwo.getStatus());
+        final ExecutorHeartbeat heartbeat = awaitHeartbeat(hb -> true);
+        Assert.assertNotNull(heartbeat);
+        Assert.assertTrue(heartbeat.getCapacity().containsKey(TASK_TYPE_TEST + ".gpu"));
+        Assert.assertFalse(heartbeat.getCapacity().containsKey(TASK_TYPE_TEST + ".fpga"));
+        TestTaskHandler.finishExecution(taskOne.getName());
+        sleep(100);
+        consumeTaskStatus(tasksMap);
+        Assert.assertEquals(SUCCESSFUL, taskOne.getStatus());
+        Assert.assertEquals(SCHEDULED, taskTwo.getStatus());
+    }
+
+    private void writeExecutorConfig(File configFile, int maxParallelTasks) throws IOException {
+        final ExecutorConfig executorConfig = MAPPER_YAML.readValue(getClass().getClassLoader()
+                .getResourceAsStream("executor.yaml"), ExecutorConfig.class);
+        executorConfig.getTaskHandlerConfig().get(TASK_TYPE_TEST).setMaxParallelTasks(maxParallelTasks);
+        Files.write(configFile.toPath(), MAPPER_YAML.writeValueAsString(executorConfig).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HashMap<String, Object> createResourceRequest(int cpu) {
+        final HashMap<String, Object> properties = new HashMap<>();
+        properties.put("resources", Collections.singletonMap("cpu", cpu));
+        return properties;
+    }
+
+    private HashMap<String, Object> createAffinity(String label) {
+        final HashMap<String, Object> properties = new HashMap<>();
+        properties.put(Task.PROP_AFFINITY, label);
+        return properties;
+    }
+
+    /**
+     * polls the heartbeat queue until a heartbeat matching the given predicate is published
+     *
+     * @return the matching heartbeat or null if none is published within {@link #AWAIT_TIMEOUT_IN_MS}
+     */
+    private ExecutorHeartbeat awaitHeartbeat(Predicate<ExecutorHeartbeat> predicate)
+            throws IOException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_IN_MS;
+        while (System.currentTimeMillis() < deadline) {
+            final List<String> heartbeats = TaskExecutionService.getService().getConsumer().poll("executorheartbeat");
+            for (String heartbeat : heartbeats) {
+                final ExecutorHeartbeat executorHeartbeat = MAPPER.readValue(heartbeat, ExecutorHeartbeat.class);
+                if (predicate.test(executorHeartbeat)) {
+                    return executorHeartbeat;
+                }
+            }
+            sleep(AWAIT_POLL_INTERVAL_IN_MS);
+        }
+        return null;
+    }
+
+    /**
+     * consumes the task status updates until the task reaches the given status or {@link #AWAIT_TIMEOUT_IN_MS} elapses
+     */
+    private void awaitStatus(HashMap<TaskId, Task> tasksMap, Task task, Task.Status status)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_IN_MS;
+        consumeTaskStatus(tasksMap);
+        while (task.getStatus() != status && System.currentTimeMillis() < deadline) {
+            sleep(AWAIT_POLL_INTERVAL_IN_MS);
+            consumeTaskStatus(tasksMap);
+        }
+    }
+
     private void consumeTaskStatus(HashMap<TaskId, Task> tasksMap) {
         final List<String> tasksStatus = TaskExecutionService.getService().getConsumer().poll("taskstatus");
         tasksStatus.forEach(taskStatus -> {
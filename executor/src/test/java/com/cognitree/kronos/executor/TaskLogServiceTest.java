@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor;
+
+import com.cognitree.kronos.executor.model.TaskLog;
+import com.cognitree.kronos.executor.model.TaskLogFile;
+import com.cognitree.kronos.model.TaskId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.Thread.sleep;
+
+public class TaskLogServiceTest {
+
+    private Path logDir;
+    private TaskLogService taskLogService;
+
+    @Before
+    public void start() throws Exception {
+        logDir = Files.createTempDirectory("kronos-task-logs");
+        final TaskLogConfig taskLogConfig = new TaskLogConfig();
+        taskLogConfig.setLogDir(logDir.toString());
+        taskLogConfig.setMaxFileSizeInBytes(5);
+        taskLogConfig.setMaxRotatedFiles(2);
+        taskLogConfig.setMaxTotalSizeInBytes(20);
+        taskLogService = new TaskLogService(taskLogConfig);
+        taskLogService.init();
+        taskLogService.start();
+    }
+
+    @After
+    public void stop() throws IOException {
+        taskLogService.stop();
+        try (Stream<Path> paths = Files.walk(logDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testTaskLogAttempts() throws Exception {
+        final TaskId taskId = createTaskId();
+        final TaskLog attemptOne = taskLogService.create(taskId);
+        Assert.assertEquals(1, attemptOne.getAttempt());
+        write(attemptOne.getStdoutFile().toPath(), "attempt one");
+        taskLogService.close(attemptOne);
+        final TaskLog attemptTwo = taskLogService.create(taskId);
+        Assert.assertEquals(2, attemptTwo.getAttempt());
+        write(attemptTwo.getStdoutFile().toPath(), "attempt two");
+        taskLogService.close(attemptTwo);
+        sleep(100);
+
+        final List<TaskLogFile> taskLogFiles = taskLogService.list(taskId);
+        Assert.assertEquals(2, taskLogFiles.size());
+        Assert.assertEquals(1, taskLogFiles.get(0).getAttempt());
+        Assert.assertEquals(2, taskLogFiles.get(1).getAttempt());
+        for (TaskLogFile taskLogFile : taskLogFiles) {
+            Assert.assertTrue(taskLogFile.isCompressed());
+            Assert.assertEquals("stdout.log.gz", taskLogFile.getName());
+            Assert.assertEquals(11, taskLogFile.getSize());
+        }
+        // compressed file can be referred by its original name
+        final Path file = taskLogService.getFile(taskId, 1, TaskLogService.STDOUT_FILE_NAME);
+        Assert.assertNotNull(file);
+        Assert.assertEquals("attempt one", read(file, 0, -1));
+        Assert.assertEquals("one", read(file, 8, -1));
+        Assert.assertEquals("att", read(file, 0, 3));
+        Assert.assertNull(taskLogService.getFile(taskId, 3, TaskLogService.STDOUT_FILE_NAME));
+    }
+
+    @Test
+    public void testTaskLogRotation() throws Exception {
+        final TaskId taskId = createTaskId();
+        final TaskLog taskLog = taskLogService.create(taskId);
+        final Path stdoutFile = taskLog.getStdoutFile().toPath();
+        for (int i = 0; i < 3; i++) {
+            write(stdoutFile, "rotation-" + i);
+            sleep(1500);
+        }
+        write(stdoutFile, "cur");
+        Assert.assertEquals("cur", read(stdoutFile, 0, -1));
+        Assert.assertEquals("rotation-2", read(taskLogService.getFile(taskId, 1, "stdout.log.1"), 0, -1));
+        Assert.assertEquals("tio", read(taskLogService.getFile(taskId, 1, "stdout.log.1"), 4, 3));
+        Assert.assertEquals("rotation-1", read(taskLogService.getFile(taskId, 1, "stdout.log.2"), 0, -1));
+        // oldest rotated file is deleted
+        Assert.assertNull(taskLogService.getFile(taskId, 1, "stdout.log.3"));
+
+        taskLogService.close(taskLog);
+        sleep(100);
+        final List<TaskLogFile> taskLogFiles = taskLogService.list(taskId);
+        Assert.assertEquals(3, taskLogFiles.size());
+        Assert.assertTrue(taskLogFiles.stream().allMatch(TaskLogFile::isCompressed));
+    }
+
+    @Test
+    public void testTaskLogRetention() throws Exception {
+        final TaskId expiredTaskId = createTaskId();
+        final TaskLog expiredTaskLog = taskLogService.create(expiredTaskId);
+        write(expiredTaskLog.getStdoutFile().toPath(), "expired");
+        taskLogService.close(expiredTaskLog);
+        sleep(100);
+        final Path expiredFile = taskLogService.getFile(expiredTaskId, 1, TaskLogService.STDOUT_FILE_NAME);
+        Files.setLastModifiedTime(expiredFile, FileTime.fromMillis(System.currentTimeMillis() - 8 * 24 * 3600 * 1000L));
+
+        final TaskId oldTaskId = createTaskId();
+        final TaskLog oldTaskLog = taskLogService.create(oldTaskId);
+        write(oldTaskLog.getStderrFile().toPath(), "old task log exceeding total size");
+        taskLogService.close(oldTaskLog);
+        sleep(100);
+
+        final TaskId runningTaskId = createTaskId();
+        final TaskLog runningTaskLog = taskLogService.create(runningTaskId);
+        write(runningTaskLog.getStdoutFile().toPath(), "running");
+
+        taskLogService.deleteExpiredLogs();
+        Assert.assertTrue(taskLogService.list(expiredTaskId).isEmpty());
+        // total size exceeds the limit
+        Assert.assertTrue(taskLogService.list(oldTaskId).isEmpty());
+        Assert.assertEquals(1, taskLogService.list(runningTaskId).size());
+        taskLogService.close(runningTaskLog);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTaskLogPath() throws IOException {
+        taskLogService.list(TaskId.build("namespace", "..", UUID.randomUUID().toString(), "workflow"));
+    }
+
+    private TaskId createTaskId() {
+        return TaskId.build("namespace", "task", UUID.randomUUID().toString(), "workflow");
+    }
+
+    private void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private String read(Path file, long offset, long length) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        taskLogService.transfer(file, offset, length, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor;
+
+import com.cognitree.kronos.executor.model.TaskResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.Thread.sleep;
+
+public class TaskResultCacheTest {
+
+    private Path cacheDir;
+    private TaskResultCacheConfig taskResultCacheConfig;
+
+    @Before
+    public void setup() throws IOException {
+        cacheDir = Files.createTempDirectory("kronos-task-result-cache");
+        taskResultCacheConfig = new TaskResultCacheConfig();
+        taskResultCacheConfig.setCacheDir(cacheDir.toString());
+        taskResultCacheConfig.setMaxEntries(2);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(cacheDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testCacheKey() {
+        final TaskResultCache taskResultCache = new TaskResultCache(taskResultCacheConfig);
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("a", 1);
+        properties.put("b", "value");
+        final Map<String, Object> reorderedProperties = new LinkedHashMap<>();
+        reorderedProperties.put("b", "value");
+        reorderedProperties.put("a", 1);
+        Assert.assertEquals(taskResultCache.getKey("typeA", properties),
+                taskResultCache.getKey("typeA", reorderedProperties));
+        Assert.assertNotEquals(taskResultCache.getKey("typeA", properties),
+                taskResultCache.getKey("typeB", properties));
+        reorderedProperties.put("a", 2);
+        Assert.assertNotEquals(taskResultCache.getKey("typeA", properties),
+                taskResultCache.getKey("typeA", reorderedProperties));
+    }
+
+    @Test
+    public void testCacheExpiryAndEviction() throws Exception {
+        final TaskResultCache taskResultCache = new TaskResultCache(taskResultCacheConfig);
+        taskResultCache.init();
+        final Map<String, Object> context = new HashMap<>();
+        context.put("rowCount", 42);
+        taskResultCache.put("one", new TaskResult(true, null, context), 60000);
+        taskResultCache.put("expiring", new TaskResult(true), 100);
+        Assert.assertEquals(context, taskResultCache.get("one").getContext());
+        Assert.assertNotNull(taskResultCache.get("expiring"));
+        sleep(150);
+        Assert.assertNull(taskResultCache.get("expiring"));
+
+        taskResultCache.put("two", new TaskResult(true), 60000);
+        // access result one so that result two is the least recently used
+        Assert.assertNotNull(taskResultCache.get("one"));
+        taskResultCache.put("three", new TaskResult(true), 60000);
+        Assert.assertEquals(2, taskResultCache.size());
+        Assert.assertNull(taskResultCache.get("two"));
+
+        // cached results survive a restart
+        final TaskResultCache reloadedTaskResultCache = new TaskResultCache(taskResultCacheConfig);
+        reloadedTaskResultCache.init();
+        Assert.assertEquals(2, reloadedTaskResultCache.size());
+        Assert.assertEquals(context, reloadedTaskResultCache.get("one").getContext());
+        Assert.assertNotNull(reloadedTaskResultCache.get("three"));
+    }
+}
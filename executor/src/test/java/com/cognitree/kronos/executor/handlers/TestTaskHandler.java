@@ -19,6 +19,7 @@ package com.cognitree.kronos.executor.handlers;
 
 import com.cognitree.kronos.executor.model.TaskResult;
 import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,11 +32,16 @@ public class TestTaskHandler implements TaskHandler {
     private static final Logger logger = LoggerFactory.getLogger(TestTaskHandler.class);
 
     private static final List<String> tasks = Collections.synchronizedList(new ArrayList<>());
+    private static final List<String> cancelledTasks = Collections.synchronizedList(new ArrayList<>());
 
     public static void finishExecution(String taskId) {
         tasks.add(taskId);
     }
 
+    public static boolean isCancelled(String taskId) {
+        return cancelledTasks.contains(taskId);
+    }
+
     @Override
     public void init(ObjectNode handlerConfig) {
     }
@@ -54,4 +60,11 @@ public class TestTaskHandler implements TaskHandler {
         tasks.remove(task.getName());
         return TaskResult.SUCCESS;
     }
+
+    @Override
+    public void cancel(TaskId taskId) {
+        logger.info("Received request to cancel task {}", taskId);
+        cancelledTasks.add(taskId.getName());
+        finishExecution(taskId.getName());
+    }
 }
\ No newline at end of file
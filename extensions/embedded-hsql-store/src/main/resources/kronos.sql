@@ -207,4 +207,17 @@ PRIMARY KEY(NAME, JOB_ID, WORKFLOW_NAME, NAMESPACE)
 );
 
 CREATE INDEX IF NOT EXISTS TASKS_JOB_ID_NAMESPACE_IDX on TASKS (JOB_ID, NAMESPACE);
-CREATE INDEX IF NOT EXISTS TASKS_WORKFLOW_NAME_NAMESPACE_IDX on TASKS (WORKFLOW_NAME, NAMESPACE);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS TASKS_WORKFLOW_NAME_NAMESPACE_IDX on TASKS (WORKFLOW_NAME, NAMESPACE);
+
+CREATE TABLE IF NOT EXISTS DEAD_LETTERS
+(
+ID VARCHAR(120) NOT NULL,
+TOPIC VARCHAR(200) NOT NULL,
+CODEC VARCHAR(120) NOT NULL,
+PAYLOAD CLOB NOT NULL,
+ERROR VARCHAR(1000),
+CREATED_AT NUMERIC(13) NOT NULL,
+PRIMARY KEY(ID)
+);
+
+CREATE INDEX IF NOT EXISTS DEAD_LETTERS_TOPIC_IDX on DEAD_LETTERS (TOPIC);
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.consumer;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.queue.MessageMapper;
+import com.cognitree.kronos.queue.codec.MessageCodec;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+import com.cognitree.kronos.queue.file.FileQueue;
+import com.cognitree.kronos.queue.file.TopicCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * a consumer reading messages from the durable topic logs of {@link FileQueue}.
+ * <p>
+ * Besides the configuration of {@link FileQueue}, the consumer accepts
+ * <ul>
+ * <li>group: name of the consumer group to track the read position of, defaults to kronos</li>
+ * </ul>
+ * The read position is committed for the messages handed over by a poll when the topic is polled again, so a crash
+ * redelivers the messages of the last poll instead of losing them.
+ * </p>
+ */
+public class FileConsumer implements Consumer {
+    private static final Logger logger = LoggerFactory.getLogger(FileConsumer.class);
+
+    private final Map<String, TopicCursor> topicToCursorMap = new ConcurrentHashMap<>();
+    private File dir;
+    private String group;
+
+    @Override
+    public void init(ObjectNode config) {
+        logger.info("Initializing consumer for file queue with config {}", config);
+        dir = FileQueue.getDir(config);
+        group = config.hasNonNull("group") ? config.get("group").asText() : "kronos";
+    }
+
+    @Override
+    public List<String> poll(String topic) {
+        return poll(topic, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<String> poll(String topic, int size) {
+        final List<String> records = new ArrayList<>();
+        for (byte[] record : read(topic, size)) {
+            try {
+                final MessageCodec codec = MessageCodecs.get(FileQueue.getCodec(record));
+                final byte[] message = FileQueue.getMessage(record);
+                if (MessageCodecs.JSON.equals(codec.getName())) {
+                    records.add(new String(message, UTF_8));
+                } else {
+                    records.add(MessageMapper.encode(codec.decode(message, JsonNode.class)));
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Error decoding record from topic {}", topic, e);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public <T> List<T> poll(String topic, int size, Class<T> type, DeadLetterHandler deadLetterHandler) {
+        final List<T> messages = new ArrayList<>();
+        for (byte[] record : read(topic, size)) {
+            final String codec = FileQueue.getCodec(record);
+            final byte[] message = FileQueue.getMessage(record);
+            try {
+                messages.add(MessageCodecs.get(codec).decode(message, type));
+            } catch (IOException | IllegalArgumentException e) {
+                deadLetterHandler.handle(DeadLetter.build(topic, codec, message, e));
+            }
+        }
+        return messages;
+    }
+
+    private List<byte[]> read(String topic, int size) {
+        logger.trace("Received request to poll messages from topic {} with max size {}", topic, size);
+        final TopicCursor topicCursor =
+                topicToCursorMap.computeIfAbsent(topic, t -> new TopicCursor(new File(dir, t), group));
+        synchronized (topicCursor) {
+            try {
+                if (!topicCursor.tryAcquire()) {
+                    return Collections.emptyList();
+                }
+                topicCursor.commit();
+                return size > 0 ? topicCursor.read(size) : Collections.emptyList();
+            } catch (IOException e) {
+                logger.error("Error reading messages from topic {}", topic, e);
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        topicToCursorMap.values().forEach(topicCursor -> {
+            synchronized (topicCursor) {
+                try {
+                    topicCursor.close();
+                } catch (IOException e) {
+                    logger.error("Error closing topic cursor", e);
+                }
+            }
+        });
+        topicToCursorMap.clear();
+    }
+}
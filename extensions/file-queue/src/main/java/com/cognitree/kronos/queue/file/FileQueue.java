@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.file;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * durable queues kept as memory mapped, append only logs of segment files, one directory per topic.
+ * <p>
+ * Configuration shared by the file producer and consumer
+ * <ul>
+ * <li>dir: directory to keep the topic logs in, required</li>
+ * <li>segmentSizeInBytes: size of a segment file, defaults to 64MB</li>
+ * <li>retentionInMs: time to keep a segment after it is rolled, defaults to 7 days</li>
+ * </ul>
+ * </p>
+ */
+public final class FileQueue {
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    static final long DEFAULT_RETENTION = TimeUnit.DAYS.toMillis(7);
+
+    private static final Map<File, TopicLog> TOPIC_LOGS = new ConcurrentHashMap<>();
+
+    private FileQueue() {
+    }
+
+    public static File getDir(ObjectNode config) {
+        if (config == null || !config.hasNonNull("dir")) {
+            throw new IllegalArgumentException("missing dir in file queue configuration");
+        }
+        return new File(config.get("dir").asText());
+    }
+
+    /**
+     * @return the log of the topic shared by all the producers in the JVM, created using the given configuration if
+     * this is the first producer to use it
+     */
+    public static TopicLog getLog(ObjectNode config, String topic) throws IOException {
+        final File topicDir = new File(getDir(config), topic).getCanonicalFile();
+        final TopicLog topicLog = TOPIC_LOGS.get(topicDir);
+        if (topicLog != null) {
+            return topicLog;
+        }
+        synchronized (TOPIC_LOGS) {
+            if (!TOPIC_LOGS.containsKey(topicDir)) {
+                final int segmentSize = config.hasNonNull("segmentSizeInBytes") ?
+                        config.get("segmentSizeInBytes").asInt() : DEFAULT_SEGMENT_SIZE;
+                final long retention = config.hasNonNull("retentionInMs") ?
+                        config.get("retentionInMs").asLong() : DEFAULT_RETENTION;
+                TOPIC_LOGS.put(topicDir, new TopicLog(topicDir, segmentSize, retention));
+            }
+            return TOPIC_LOGS.get(topicDir);
+        }
+    }
+
+    /**
+     * wraps the encoded message into a record carrying the name of the codec it is encoded with.
+     */
+    public static byte[] toRecord(String codec, byte[] message) {
+        final byte[] codecName = codec.getBytes(UTF_8);
+        return ByteBuffer.allocate(2 + codecName.length + message.length)
+                .putShort((short) codecName.length).put(codecName).put(message).array();
+    }
+
+    /**
+     * @return name of the codec the message in the record is encoded with
+     */
+    public static String getCodec(byte[] record) {
+        final int length = ByteBuffer.wrap(record).getShort();
+        return new String(record, 2, length, UTF_8);
+    }
+
+    /**
+     * @return the encoded message in the record
+     */
+    public static byte[] getMessage(byte[] record) {
+        final int offset = 2 + ByteBuffer.wrap(record).getShort();
+        final byte[] message = new byte[record.length - offset];
+        System.arraycopy(record, offset, message, 0, message.length);
+        return message;
+    }
+}
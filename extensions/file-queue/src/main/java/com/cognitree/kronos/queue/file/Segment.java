@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * a memory mapped, pre-allocated segment file of a topic log named after the offset of its first byte in the log.
+ * <p>
+ * A segment is a sequence of records each laid out as {@code [int length][int crc32][payload]}. A length of
+ * {@value #END_OF_SEGMENT} marks the end of a rolled segment, a length of 0 the end of the records written so far.
+ * The length is written last to let readers detect a record only once it is complete.
+ * </p>
+ */
+class Segment {
+    static final String SUFFIX = ".log";
+    static final int HEADER_SIZE = 8;
+    static final int END_OF_SEGMENT = -1;
+
+    private final long baseOffset;
+    private final File file;
+    private final MappedByteBuffer buffer;
+
+    private Segment(long baseOffset, File file, MappedByteBuffer buffer) {
+        this.baseOffset = baseOffset;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /**
+     * creates a segment of the given size, the file is allocated under a temporary name to never expose a partially
+     * allocated segment to readers.
+     */
+    static Segment create(File topicDir, long baseOffset, int size) throws IOException {
+        final File file = new File(topicDir, getFileName(baseOffset));
+        final File tmpFile = new File(topicDir, getFileName(baseOffset) + ".tmp");
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(tmpFile, "rw")) {
+            randomAccessFile.setLength(size);
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return open(topicDir, baseOffset, true);
+    }
+
+    static Segment open(File topicDir, long baseOffset, boolean writable) throws IOException {
+        final File file = new File(topicDir, getFileName(baseOffset));
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, writable ? "rw" : "r")) {
+            final MappedByteBuffer buffer = randomAccessFile.getChannel().map(writable ? FileChannel.MapMode.READ_WRITE :
+                    FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+            return new Segment(baseOffset, file, buffer);
+        }
+    }
+
+    /**
+     * @return base offsets of the segments of the topic in ascending order
+     */
+    static List<Long> list(File topicDir) {
+        final List<Long> baseOffsets = new ArrayList<>();
+        final String[] fileNames = topicDir.list();
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                if (fileName.endsWith(SUFFIX)) {
+                    baseOffsets.add(Long.parseLong(fileName.substring(0, fileName.length() - SUFFIX.length())));
+                }
+            }
+        }
+        Collections.sort(baseOffsets);
+        return baseOffsets;
+    }
+
+    static String getFileName(long baseOffset) {
+        return String.format("%020d", baseOffset) + SUFFIX;
+    }
+
+    long getBaseOffset() {
+        return baseOffset;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return length of the record at the given position, 0 if none is written yet or {@link #END_OF_SEGMENT}
+     */
+    int getLength(int position) {
+        return buffer.getInt(position);
+    }
+
+    /**
+     * @return payload of the record at the given position or null if the record is torn or incomplete
+     */
+    byte[] read(int position) {
+        final int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() - position - HEADER_SIZE) {
+            return null;
+        }
+        final byte[] payload = new byte[length];
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position + HEADER_SIZE);
+        duplicate.get(payload);
+        return (int) checksum(payload) == buffer.getInt(position + 4) ? payload : null;
+    }
+
+    /**
+     * writes the record at the given position, the caller ensures the record fits in the segment.
+     */
+    void write(int position, byte[] payload) {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position + HEADER_SIZE);
+        duplicate.put(payload);
+        buffer.putInt(position + 4, (int) checksum(payload));
+        buffer.putInt(position, payload.length);
+    }
+
+    void markEnd(int position) {
+        buffer.putInt(position, END_OF_SEGMENT);
+    }
+
+    /**
+     * zeroes the segment from the given position onwards, used to discard a torn record.
+     */
+    void truncate(int position) {
+        for (int i = position; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    private static long checksum(byte[] payload) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+        return crc32.getValue();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.cognitree.kronos.queue.file.Segment.END_OF_SEGMENT;
+import static com.cognitree.kronos.queue.file.Segment.HEADER_SIZE;
+
+/**
+ * the read position of a consumer group in a {@link TopicLog}, committed to an offset file in the topic directory.
+ * <p>
+ * A topic is consumed by a single consumer of a group at a time, the one holding the lock on the offset file of the
+ * group. Other consumers of the group read nothing until the owner closes its cursor or its process dies.
+ * </p>
+ */
+public class TopicCursor implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TopicCursor.class);
+
+    private final File topicDir;
+    private final File offsetFile;
+
+    private RandomAccessFile offsetStore;
+    private FileLock offsetLock;
+    private long committedOffset;
+    private long offset;
+    private Segment segment;
+
+    public TopicCursor(File topicDir, String group) {
+        this.topicDir = topicDir;
+        this.offsetFile = new File(topicDir, group + ".offset");
+    }
+
+    /**
+     * @return true if this cursor owns the topic for the group, acquiring the ownership if available
+     */
+    public boolean tryAcquire() throws IOException {
+        if (offsetLock != null) {
+            return true;
+        }
+        if (!topicDir.isDirectory() && !topicDir.mkdirs()) {
+            throw new IOException("unable to create directory " + topicDir);
+        }
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(offsetFile, "rw");
+        FileLock fileLock;
+        try {
+            fileLock = randomAccessFile.getChannel().tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            randomAccessFile.close();
+            return false;
+        }
+        offsetStore = randomAccessFile;
+        offsetLock = fileLock;
+        committedOffset = randomAccessFile.length() >= 8 ? randomAccessFile.readLong() : 0;
+        offset = committedOffset;
+        logger.info("Acquired topic {} at offset {}", offsetFile, offset);
+        return true;
+    }
+
+    /**
+     * reads up to maxRecords records from the current position onwards, the position is committed by the next call
+     * to {@link #commit()}.
+     */
+    public List<byte[]> read(int maxRecords) throws IOException {
+        final List<byte[]> records = new ArrayList<>();
+        if (!seek()) {
+            return records;
+        }
+        while (records.size() < maxRecords) {
+            final int position = (int) (offset - segment.getBaseOffset());
+            final int length = segment.getLength(position);
+            if (length == END_OF_SEGMENT) {
+                final Long nextBaseOffset = getNextBaseOffset(segment.getBaseOffset());
+                if (nextBaseOffset == null) {
+                    break;
+                }
+                segment = Segment.open(topicDir, nextBaseOffset, false);
+                offset = nextBaseOffset;
+                continue;
+            }
+            // stop at the end of the records or at a record yet to be completed by the producer
+            final byte[] record = length == 0 ? null : segment.read(position);
+            if (record == null) {
+                break;
+            }
+            records.add(record);
+            offset += HEADER_SIZE + length;
+        }
+        return records;
+    }
+
+    /**
+     * commits the position past the records read so far.
+     */
+    public void commit() throws IOException {
+        if (offsetStore == null || offset == committedOffset) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(8).putLong(0, offset);
+        offsetStore.getChannel().write(buffer, 0);
+        committedOffset = offset;
+    }
+
+    /**
+     * maps the segment holding the current position, skipping to the oldest segment if the position was deleted
+     * past retention.
+     *
+     * @return false if the topic has no segments yet
+     */
+    private boolean seek() throws IOException {
+        if (segment != null && offset >= segment.getBaseOffset() &&
+                offset < segment.getBaseOffset() + segment.capacity()) {
+            return true;
+        }
+        final List<Long> baseOffsets = Segment.list(topicDir);
+        if (baseOffsets.isEmpty()) {
+            return false;
+        }
+        Long baseOffset = null;
+        for (Long segmentBaseOffset : baseOffsets) {
+            if (segmentBaseOffset <= offset) {
+                baseOffset = segmentBaseOffset;
+            }
+        }
+        if (baseOffset == null) {
+            logger.warn("Offset {} of {} is past retention, skipping to offset {}",
+                    offset, offsetFile, baseOffsets.get(0));
+            baseOffset = baseOffsets.get(0);
+            offset = baseOffset;
+        }
+        segment = Segment.open(topicDir, baseOffset, false);
+        return true;
+    }
+
+    private Long getNextBaseOffset(long baseOffset) {
+        for (Long segmentBaseOffset : Segment.list(topicDir)) {
+            if (segmentBaseOffset > baseOffset) {
+                return segmentBaseOffset;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * commits the position and releases the topic for other consumers of the group.
+     */
+    @Override
+    public void close() throws IOException {
+        if (offsetStore == null) {
+            return;
+        }
+        commit();
+        offsetLock.release();
+        offsetStore.close();
+        offsetStore = null;
+        offsetLock = null;
+        segment = null;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.List;
+
+import static com.cognitree.kronos.queue.file.Segment.END_OF_SEGMENT;
+import static com.cognitree.kronos.queue.file.Segment.HEADER_SIZE;
+
+/**
+ * the append only log of a topic, stored as a directory of memory mapped {@link Segment}s.
+ * <p>
+ * A single instance per topic directory is shared by all the producers in the JVM, see {@link FileQueue#getLog}.
+ * Appends are serialized across processes using a lock file, the write position is caught up with records appended
+ * by other processes before every append, which also recovers the log from torn records left behind by a crash.
+ * </p>
+ */
+public class TopicLog {
+    private static final Logger logger = LoggerFactory.getLogger(TopicLog.class);
+
+    private final File topicDir;
+    private final int segmentSizeInBytes;
+    private final long retentionInMs;
+    private final RandomAccessFile lockFile;
+
+    private Segment segment;
+    private int position;
+    private boolean dirty;
+
+    TopicLog(File topicDir, int segmentSizeInBytes, long retentionInMs) throws IOException {
+        this.topicDir = topicDir;
+        this.segmentSizeInBytes = segmentSizeInBytes;
+        this.retentionInMs = retentionInMs;
+        if (!topicDir.isDirectory() && !topicDir.mkdirs()) {
+            throw new IOException("unable to create directory " + topicDir);
+        }
+        this.lockFile = new RandomAccessFile(new File(topicDir, ".lock"), "rw");
+    }
+
+    /**
+     * appends the record to the log.
+     *
+     * @throws IOException if the record does not fit in a segment or the log could not be written
+     */
+    public synchronized void append(byte[] record) throws IOException {
+        if (HEADER_SIZE + record.length + 4 > segmentSizeInBytes) {
+            throw new IOException("record of " + record.length + " bytes exceeds segment size of " +
+                    segmentSizeInBytes + " bytes");
+        }
+        final FileChannel lockChannel = lockFile.getChannel();
+        try (FileLock ignored = lockChannel.lock()) {
+            catchUp();
+            if (position + HEADER_SIZE + record.length + 4 > segment.capacity()) {
+                roll();
+            }
+            segment.write(position, record);
+            position += HEADER_SIZE + record.length;
+            dirty = true;
+        }
+    }
+
+    /**
+     * flushes the records appended since the last call to disk.
+     */
+    public synchronized void force() {
+        if (dirty) {
+            segment.force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * moves the write position past the records appended so far, by this or any other process.
+     */
+    private void catchUp() throws IOException {
+        if (segment == null) {
+            final List<Long> baseOffsets = Segment.list(topicDir);
+            segment = baseOffsets.isEmpty() ? Segment.create(topicDir, 0, segmentSizeInBytes) :
+                    Segment.open(topicDir, baseOffsets.get(baseOffsets.size() - 1), true);
+            position = 0;
+        }
+        while (true) {
+            final int length = segment.getLength(position);
+            if (length == 0) {
+                return;
+            }
+            if (length == END_OF_SEGMENT) {
+                final Long nextBaseOffset = getNextBaseOffset();
+                if (nextBaseOffset == null) {
+                    // crashed after marking the end of the segment but before creating the next one
+                    createSegment(segment.getBaseOffset() + segment.capacity());
+                } else {
+                    segment = Segment.open(topicDir, nextBaseOffset, true);
+                    position = 0;
+                }
+                continue;
+            }
+            if (segment.read(position) == null) {
+                logger.warn("Discarding torn record at offset {} of topic log {}",
+                        segment.getBaseOffset() + position, topicDir);
+                segment.truncate(position);
+                segment.force();
+                return;
+            }
+            position += HEADER_SIZE + length;
+        }
+    }
+
+    private Long getNextBaseOffset() {
+        for (Long baseOffset : Segment.list(topicDir)) {
+            if (baseOffset > segment.getBaseOffset()) {
+                return baseOffset;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * creates the next segment before marking the end of the current one for readers to always find the next
+     * segment once they reach the end of the current one.
+     */
+    private void roll() throws IOException {
+        final Segment currentSegment = segment;
+        final int currentPosition = position;
+        createSegment(currentSegment.getBaseOffset() + currentSegment.capacity());
+        currentSegment.markEnd(currentPosition);
+        currentSegment.force();
+        // writes to a mapped file do not reliably update its modification time, retention counts from the roll
+        currentSegment.getFile().setLastModified(System.currentTimeMillis());
+        deleteExpiredSegments();
+    }
+
+    private void createSegment(long baseOffset) throws IOException {
+        logger.debug("Rolling topic log {} to a new segment at offset {}", topicDir, baseOffset);
+        segment = Segment.create(topicDir, baseOffset, segmentSizeInBytes);
+        position = 0;
+    }
+
+    private void deleteExpiredSegments() {
+        final long expiry = System.currentTimeMillis() - retentionInMs;
+        for (Long baseOffset : Segment.list(topicDir)) {
+            if (baseOffset >= segment.getBaseOffset()) {
+                break;
+            }
+            final File file = new File(topicDir, Segment.getFileName(baseOffset));
+            if (file.lastModified() < expiry && file.delete()) {
+                logger.info("Deleted segment {} past retention of {}ms", file, retentionInMs);
+            }
+        }
+    }
+}
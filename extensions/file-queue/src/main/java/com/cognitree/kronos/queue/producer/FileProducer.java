@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.producer;
+
+import com.cognitree.kronos.queue.codec.MessageCodec;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+import com.cognitree.kronos.queue.file.FileQueue;
+import com.cognitree.kronos.queue.file.TopicLog;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * a producer appending messages to the durable topic logs of {@link FileQueue}.
+ * <p>
+ * Besides the configuration of {@link FileQueue}, the producer accepts
+ * <ul>
+ * <li>codec: name of the {@link MessageCodec} to encode messages with, defaults to json</li>
+ * <li>fsyncIntervalInMs: interval to flush appended messages to disk in, grouping all the messages appended in the
+ * interval in a single flush. 0 flushes every message as it is sent, a negative value leaves flushing to the OS.
+ * Defaults to 1000ms. Messages survive a crash of the process irrespective of this setting as they are written to
+ * the page cache, flushing protects against a crash of the machine.</li>
+ * </ul>
+ * </p>
+ */
+public class FileProducer implements Producer {
+    private static final Logger logger = LoggerFactory.getLogger(FileProducer.class);
+
+    private final Map<String, TopicLog> topicToLogMap = new ConcurrentHashMap<>();
+    private ObjectNode config;
+    private MessageCodec codec;
+    private long fsyncIntervalInMs = 1000;
+    private ScheduledExecutorService fsyncExecutor;
+
+    @Override
+    public void init(ObjectNode config) {
+        logger.info("Initializing producer for file queue with config {}", config);
+        FileQueue.getDir(config);
+        this.config = config;
+        codec = MessageCodecs.get(config.hasNonNull("codec") ? config.get("codec").asText() : MessageCodecs.JSON);
+        if (config.hasNonNull("fsyncIntervalInMs")) {
+            fsyncIntervalInMs = config.get("fsyncIntervalInMs").asLong();
+        }
+        if (fsyncIntervalInMs > 0) {
+            fsyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "file-queue-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fsyncExecutor.scheduleAtFixedRate(this::force, fsyncIntervalInMs, fsyncIntervalInMs, MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void send(String topic, String record) {
+        logger.trace("Received request to send message {} on topic {}", record, topic);
+        try {
+            append(topic, FileQueue.toRecord(MessageCodecs.JSON, record.getBytes(UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void send(String topic, Object message) throws IOException {
+        logger.trace("Received request to send message {} on topic {}", message, topic);
+        append(topic, FileQueue.toRecord(codec.getName(), codec.encode(message)));
+    }
+
+    @Override
+    public void send(String topic, String codec, byte[] record) throws IOException {
+        logger.trace("Received request to send record encoded with codec {} on topic {}", codec, topic);
+        append(topic, FileQueue.toRecord(codec, record));
+    }
+
+    private void append(String topic, byte[] record) throws IOException {
+        TopicLog topicLog = topicToLogMap.get(topic);
+        if (topicLog == null) {
+            topicLog = FileQueue.getLog(config, topic);
+            topicToLogMap.put(topic, topicLog);
+        }
+        topicLog.append(record);
+        if (fsyncIntervalInMs == 0) {
+            topicLog.force();
+        }
+    }
+
+    private void force() {
+        topicToLogMap.values().forEach(topicLog -> {
+            try {
+                topicLog.force();
+            } catch (Exception e) {
+                logger.error("Error flushing topic log to disk", e);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdown();
+        }
+        force();
+    }
+}
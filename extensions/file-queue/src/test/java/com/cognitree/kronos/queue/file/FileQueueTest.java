@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.file;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.model.TaskId;
+import com.cognitree.kronos.model.TaskUpdate;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+import com.cognitree.kronos.queue.consumer.FileConsumer;
+import com.cognitree.kronos.queue.producer.FileProducer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static com.cognitree.kronos.model.Task.Status.RUNNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * verifies the durable file queue.
+ * <p>
+ * The throughput test is skipped unless the system property {@code benchmark} is set to true. The number of messages
+ * it sends can be tuned using the system property {@code file.queue.benchmark.messages},
+ * e.g. {@code mvn test -pl extensions/file-queue -Dbenchmark=true -Dfile.queue.benchmark.messages=1000000}.
+ * </p>
+ */
+public class FileQueueTest {
+    private static final Logger logger = LoggerFactory.getLogger(FileQueueTest.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MESSAGES = Integer.getInteger("file.queue.benchmark.messages", 50000);
+    private static final String TOPIC = "taskstatus";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSendAndPoll() throws IOException {
+        final ObjectNode config = createConfig();
+        final FileProducer producer = createProducer(config);
+        final FileConsumer consumer = createConsumer(config);
+
+        Assert.assertTrue(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).isEmpty());
+        for (int i = 0; i < 10; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+        producer.send(TOPIC, MAPPER.writeValueAsString(createTaskUpdate(10)));
+
+        Assert.assertEquals(0, consumer.poll(TOPIC, 0, TaskUpdate.class).size());
+        final List<TaskUpdate> taskUpdates = consumer.poll(TOPIC, 4, TaskUpdate.class);
+        taskUpdates.addAll(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class));
+        Assert.assertEquals(11, taskUpdates.size());
+        for (int i = 0; i < taskUpdates.size(); i++) {
+            Assert.assertEquals(createTaskUpdate(i), taskUpdates.get(i));
+        }
+        producer.close();
+        consumer.close();
+    }
+
+    @Test
+    public void testConsumerGroupOwnership() throws IOException {
+        final ObjectNode config = createConfig();
+        final FileProducer producer = createProducer(config);
+        for (int i = 0; i < 5; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+
+        final FileConsumer consumer = createConsumer(config);
+        Assert.assertEquals(3, consumer.poll(TOPIC, 3, TaskUpdate.class).size());
+        // the topic is owned by the first consumer of the group until it is closed
+        final FileConsumer standbyConsumer = createConsumer(config);
+        Assert.assertTrue(standbyConsumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).isEmpty());
+        consumer.close();
+
+        final List<TaskUpdate> taskUpdates = standbyConsumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class);
+        Assert.assertEquals(2, taskUpdates.size());
+        Assert.assertEquals(createTaskUpdate(3), taskUpdates.get(0));
+
+        // consumers of other groups read the topic from the start
+        config.put("group", "other");
+        final FileConsumer otherConsumer = createConsumer(config);
+        Assert.assertEquals(5, otherConsumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).size());
+        standbyConsumer.close();
+        otherConsumer.close();
+        producer.close();
+    }
+
+    @Test
+    public void testSendRecordWithCodec() throws IOException {
+        final ObjectNode config = createConfig();
+        final FileProducer producer = createProducer(config);
+        final FileConsumer consumer = createConsumer(config);
+        final byte[] record = "not smile".getBytes(UTF_8);
+        producer.send(TOPIC, MessageCodecs.SMILE, record);
+
+        final List<DeadLetter> deadLetters = new ArrayList<>();
+        Assert.assertTrue(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class, deadLetters::add).isEmpty());
+        Assert.assertEquals(1, deadLetters.size());
+        final DeadLetter deadLetter = deadLetters.get(0);
+        Assert.assertEquals(MessageCodecs.SMILE, deadLetter.getCodec());
+        // a record replayed from its dead letter is sent as is with the codec it was received with
+        producer.send(TOPIC, deadLetter.getCodec(), Base64.getDecoder().decode(deadLetter.getPayload()));
+        consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class, deadLetters::add);
+        Assert.assertEquals(2, deadLetters.size());
+        Assert.assertEquals(MessageCodecs.SMILE, deadLetters.get(1).getCodec());
+        Assert.assertEquals(deadLetter.getPayload(), deadLetters.get(1).getPayload());
+        producer.close();
+        consumer.close();
+    }
+
+    @Test
+    public void testSegmentRolling() throws IOException {
+        final ObjectNode config = createConfig();
+        config.put("segmentSizeInBytes", 1024);
+        final FileProducer producer = createProducer(config);
+        final FileConsumer consumer = createConsumer(config);
+        for (int i = 0; i < 100; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+        Assert.assertTrue(Segment.list(new File(folder.getRoot(), TOPIC)).size() > 1);
+
+        final List<TaskUpdate> taskUpdates = consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class);
+        Assert.assertEquals(100, taskUpdates.size());
+        for (int i = 0; i < taskUpdates.size(); i++) {
+            Assert.assertEquals(createTaskUpdate(i), taskUpdates.get(i));
+        }
+        producer.close();
+        consumer.close();
+    }
+
+    @Test
+    public void testRetention() throws IOException {
+        final ObjectNode config = createConfig();
+        config.put("segmentSizeInBytes", 1024);
+        config.put("retentionInMs", -1000);
+        final FileProducer producer = createProducer(config);
+        for (int i = 0; i < 100; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+        // segments past retention are deleted as the log rolls, consumers skip to the oldest segment
+        final List<Long> baseOffsets = Segment.list(new File(folder.getRoot(), TOPIC));
+        Assert.assertEquals(1, baseOffsets.size());
+        Assert.assertTrue(baseOffsets.get(0) > 0);
+        final FileConsumer consumer = createConsumer(config);
+        final List<TaskUpdate> taskUpdates = consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class);
+        Assert.assertFalse(taskUpdates.isEmpty());
+        Assert.assertEquals(createTaskUpdate(99), taskUpdates.get(taskUpdates.size() - 1));
+        producer.close();
+        consumer.close();
+    }
+
+    @Test
+    public void testTornRecord() throws IOException {
+        final ObjectNode config = createConfig();
+        final FileProducer producer = createProducer(config);
+        producer.send(TOPIC, createTaskUpdate(0));
+
+        // simulate a crash while writing a record, the length is written but the payload is not
+        final File segmentFile = new File(new File(folder.getRoot(), TOPIC), Segment.getFileName(0));
+        final FileConsumer consumer = createConsumer(config);
+        Assert.assertEquals(1, consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).size());
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw")) {
+            long position = 0;
+            int length;
+            while ((length = readInt(randomAccessFile, position)) > 0) {
+                position += Segment.HEADER_SIZE + length;
+            }
+            randomAccessFile.seek(position);
+            randomAccessFile.writeInt(100);
+            randomAccessFile.writeInt(42);
+        }
+        Assert.assertTrue(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).isEmpty());
+
+        // the producer discards the torn record before appending
+        producer.send(TOPIC, createTaskUpdate(1));
+        final List<TaskUpdate> taskUpdates = consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class);
+        Assert.assertEquals(1, taskUpdates.size());
+        Assert.assertEquals(createTaskUpdate(1), taskUpdates.get(0));
+        producer.close();
+        consumer.close();
+    }
+
+    @Test
+    public void testThroughput() throws IOException {
+        Assume.assumeTrue("benchmark is run only if the system property benchmark is set to true",
+                Boolean.getBoolean("benchmark"));
+        final ObjectNode config = createConfig();
+        final FileProducer producer = createProducer(config);
+        final FileConsumer consumer = createConsumer(config);
+        final TaskUpdate taskUpdate = createTaskUpdate(0);
+
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            producer.send(TOPIC, taskUpdate);
+        }
+        final long sendTime = System.nanoTime() - startTime;
+        int received = 0;
+        while (received < MESSAGES) {
+            received += consumer.poll(TOPIC, 1000, TaskUpdate.class).size();
+        }
+        final long pollTime = System.nanoTime() - startTime - sendTime;
+        logger.info(String.format("file queue sent %8.0f messages/s, polled %8.0f messages/s",
+                MESSAGES * 1e9 / sendTime, MESSAGES * 1e9 / pollTime));
+        producer.close();
+        consumer.close();
+    }
+
+    private int readInt(RandomAccessFile randomAccessFile, long position) throws IOException {
+        randomAccessFile.seek(position);
+        return randomAccessFile.readInt();
+    }
+
+    private ObjectNode createConfig() {
+        final ObjectNode config = MAPPER.createObjectNode();
+        config.put("dir", folder.getRoot().getAbsolutePath());
+        return config;
+    }
+
+    private FileProducer createProducer(ObjectNode config) {
+        final FileProducer producer = new FileProducer();
+        producer.init(config);
+        return producer;
+    }
+
+    private FileConsumer createConsumer(ObjectNode config) {
+        final FileConsumer consumer = new FileConsumer();
+        consumer.init(config);
+        return consumer;
+    }
+
+    private TaskUpdate createTaskUpdate(int i) {
+        final TaskUpdate taskUpdate = new TaskUpdate();
+        taskUpdate.setTaskId(TaskId.build("default", "task-" + i, "job", "workflow"));
+        taskUpdate.setStatus(RUNNING);
+        return taskUpdate;
+    }
+}
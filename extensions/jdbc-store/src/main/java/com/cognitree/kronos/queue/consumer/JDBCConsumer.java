@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.consumer;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.queue.MessageMapper;
+import com.cognitree.kronos.queue.codec.MessageCodec;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+import com.cognitree.kronos.queue.jdbc.JDBCQueue;
+import com.cognitree.kronos.queue.jdbc.JDBCQueue.Message;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * a consumer claiming messages from the queue table of {@link JDBCQueue}.
+ * <p>
+ * Besides the configuration of {@link JDBCQueue}, the consumer accepts
+ * <ul>
+ * <li>maxClaimSize: max number of messages claimed by a poll, defaults to 1000</li>
+ * <li>visibilityTimeoutInMs: time a claimed message is hidden from other consumers, defaults to 60000ms</li>
+ * <li>retentionInMs: time after which messages are deleted whether consumed or not, defaults to 7 days</li>
+ * <li>cleanupIntervalInMs: interval to delete messages past retention in, defaults to 60000ms</li>
+ * </ul>
+ * The messages handed over by a poll are acknowledged when the topic is polled again, so the messages of a consumer
+ * dying in between are claimed again by another consumer once their visibility timeout expires.
+ * </p>
+ */
+public class JDBCConsumer implements Consumer {
+    private static final Logger logger = LoggerFactory.getLogger(JDBCConsumer.class);
+
+    private final Map<String, List<Long>> topicToUnackedMessagesMap = new ConcurrentHashMap<>();
+    private JDBCQueue queue;
+    private int maxClaimSize = 1000;
+    private long visibilityTimeoutInMs = TimeUnit.MINUTES.toMillis(1);
+    private long retentionInMs = TimeUnit.DAYS.toMillis(7);
+    private ScheduledExecutorService cleanupExecutor;
+
+    @Override
+    public void init(ObjectNode config) {
+        logger.info("Initializing consumer for JDBC queue with config {}", config);
+        try {
+            queue = new JDBCQueue(config);
+        } catch (Exception e) {
+            throw new IllegalStateException("unable to initialize JDBC queue", e);
+        }
+        if (config.hasNonNull("maxClaimSize")) {
+            maxClaimSize = config.get("maxClaimSize").asInt();
+        }
+        if (config.hasNonNull("visibilityTimeoutInMs")) {
+            visibilityTimeoutInMs = config.get("visibilityTimeoutInMs").asLong();
+        }
+        if (config.hasNonNull("retentionInMs")) {
+            retentionInMs = config.get("retentionInMs").asLong();
+        }
+        final long cleanupIntervalInMs = config.hasNonNull("cleanupIntervalInMs") ?
+                config.get("cleanupIntervalInMs").asLong() : TimeUnit.MINUTES.toMillis(1);
+        cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "jdbc-queue-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleanupExecutor.scheduleAtFixedRate(this::deleteExpiredMessages, cleanupIntervalInMs, cleanupIntervalInMs,
+                MILLISECONDS);
+    }
+
+    @Override
+    public List<String> poll(String topic) {
+        return poll(topic, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<String> poll(String topic, int size) {
+        final List<String> records = new ArrayList<>();
+        for (Message message : claim(topic, size)) {
+            try {
+                final MessageCodec codec = MessageCodecs.get(message.getCodec());
+                if (MessageCodecs.JSON.equals(codec.getName())) {
+                    records.add(new String(message.getPayload(), UTF_8));
+                } else {
+                    records.add(MessageMapper.encode(codec.decode(message.getPayload(), JsonNode.class)));
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Error decoding message {} from topic {}", message.getId(), topic, e);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public <T> List<T> poll(String topic, int size, Class<T> type, DeadLetterHandler deadLetterHandler) {
+        final List<T> messages = new ArrayList<>();
+        for (Message message : claim(topic, size)) {
+            try {
+                messages.add(MessageCodecs.get(message.getCodec()).decode(message.getPayload(), type));
+            } catch (IOException | IllegalArgumentException e) {
+                deadLetterHandler.handle(DeadLetter.build(topic, message.getCodec(), message.getPayload(), e));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * acknowledges the messages handed over by the previous poll of the topic and claims the next batch.
+     */
+    private List<Message> claim(String topic, int size) {
+        logger.trace("Received request to poll messages from topic {} with max size {}", topic, size);
+        final List<Long> unackedMessages =
+                topicToUnackedMessagesMap.computeIfAbsent(topic, t -> new ArrayList<>());
+        synchronized (unackedMessages) {
+            try {
+                queue.ack(unackedMessages);
+                unackedMessages.clear();
+                if (size <= 0) {
+                    return Collections.emptyList();
+                }
+                final List<Message> messages = queue.claim(topic, Math.min(size, maxClaimSize), visibilityTimeoutInMs);
+                messages.forEach(message -> unackedMessages.add(message.getId()));
+                return messages;
+            } catch (SQLException e) {
+                logger.error("Error polling messages from topic {}", topic, e);
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    private void deleteExpiredMessages() {
+        try {
+            final int deleted = queue.deleteMessagesEnqueuedBefore(System.currentTimeMillis() - retentionInMs);
+            if (deleted > 0) {
+                logger.info("Deleted {} messages past retention of {}ms", deleted, retentionInMs);
+            }
+        } catch (Exception e) {
+            logger.error("Error deleting messages past retention", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (cleanupExecutor != null) {
+            cleanupExecutor.shutdown();
+        }
+        topicToUnackedMessagesMap.forEach((topic, unackedMessages) -> {
+            synchronized (unackedMessages) {
+                try {
+                    queue.ack(unackedMessages);
+                    unackedMessages.clear();
+                } catch (SQLException e) {
+                    logger.error("Error acknowledging messages of topic {}", topic, e);
+                }
+            }
+        });
+        if (queue != null) {
+            queue.close();
+        }
+    }
+}
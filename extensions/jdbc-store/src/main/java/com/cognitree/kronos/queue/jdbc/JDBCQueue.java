@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.jdbc;
+
+import com.cognitree.kronos.scheduler.store.jdbc.JDBCUtil;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a queue kept in a table of a database shared by the producers and consumers.
+ * <p>
+ * Consumers claim a batch of messages by hiding them from other consumers for a visibility timeout and acknowledge
+ * them by deleting them once handed over. A message not acknowledged within the visibility timeout, e.g. as its
+ * consumer died, is claimed again by the next consumer. Databases supporting {@code SELECT ... FOR UPDATE SKIP LOCKED}
+ * claim without contention between consumers, others fall back to claim each message with an optimistic update.
+ * </p>
+ * <p>
+ * Configuration
+ * <ul>
+ * <li>connectionUrl, driverClass, username, password: connection to the database, required</li>
+ * <li>dialect: one of postgresql, mysql, hsqldb or generic, detected from the driver class if not set</li>
+ * <li>maxIdleConnection: maximum number of idle connections in the pool, defaults to 8</li>
+ * </ul>
+ * </p>
+ */
+public class JDBCQueue {
+    private static final Logger logger = LoggerFactory.getLogger(JDBCQueue.class);
+
+    static final String TABLE_QUEUE_MESSAGES = "QUEUE_MESSAGES";
+    private static final String COL_ID = "ID";
+    private static final String COL_TOPIC = "TOPIC";
+    private static final String COL_CODEC = "CODEC";
+    private static final String COL_PAYLOAD = "PAYLOAD";
+    private static final String COL_ENQUEUED_AT = "ENQUEUED_AT";
+    private static final String COL_VISIBLE_AT = "VISIBLE_AT";
+    private static final String COL_ATTEMPTS = "ATTEMPTS";
+
+    private static final String INSERT_MESSAGE = "INSERT INTO " + TABLE_QUEUE_MESSAGES + " (" + COL_TOPIC + ", "
+            + COL_CODEC + ", " + COL_PAYLOAD + ", " + COL_ENQUEUED_AT + ", " + COL_VISIBLE_AT + ", " + COL_ATTEMPTS
+            + ") VALUES (?,?,?,?,?,0)";
+    private static final String SELECT_VISIBLE_MESSAGES = "SELECT " + COL_ID + ", " + COL_CODEC + ", " + COL_PAYLOAD
+            + ", " + COL_ATTEMPTS + ", " + COL_VISIBLE_AT + " FROM " + TABLE_QUEUE_MESSAGES + " WHERE " + COL_TOPIC
+            + " = ? AND " + COL_VISIBLE_AT + " <= ? ORDER BY " + COL_ID;
+    private static final String CLAIM_LOCKED_MESSAGE = "UPDATE " + TABLE_QUEUE_MESSAGES + " SET " + COL_VISIBLE_AT
+            + " = ?, " + COL_ATTEMPTS + " = " + COL_ATTEMPTS + " + 1 WHERE " + COL_ID + " = ?";
+    private static final String CLAIM_MESSAGE = CLAIM_LOCKED_MESSAGE + " AND " + COL_VISIBLE_AT + " = ?";
+    private static final String DELETE_MESSAGE = "DELETE FROM " + TABLE_QUEUE_MESSAGES + " WHERE " + COL_ID + " = ?";
+    private static final String DELETE_MESSAGES_ENQUEUED_BEFORE = "DELETE FROM " + TABLE_QUEUE_MESSAGES + " WHERE "
+            + COL_ENQUEUED_AT + " < ?";
+
+    private final BasicDataSource dataSource;
+    private final Dialect dialect;
+
+    public JDBCQueue(ObjectNode config) throws Exception {
+        if (config == null || !config.hasNonNull("connectionUrl") || !config.hasNonNull("driverClass")) {
+            throw new IllegalArgumentException("missing mandatory param: connectionUrl/ driverClass");
+        }
+        final String driverClass = config.get("driverClass").asText();
+        dialect = config.hasNonNull("dialect") ? Dialect.valueOf(config.get("dialect").asText().toUpperCase())
+                : Dialect.of(driverClass);
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName(driverClass);
+        dataSource.setUrl(config.get("connectionUrl").asText());
+        dataSource.setUsername(config.hasNonNull("username") ? config.get("username").asText() : "SA");
+        dataSource.setPassword(config.hasNonNull("password") ? config.get("password").asText() : "");
+        dataSource.setMaxIdle(config.hasNonNull("maxIdleConnection") ? config.get("maxIdleConnection").asInt() : 8);
+        createTable();
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public void send(String topic, String codec, byte[] payload) throws SQLException {
+        final long now = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(INSERT_MESSAGE)) {
+            preparedStatement.setString(1, topic);
+            preparedStatement.setString(2, codec);
+            preparedStatement.setBytes(3, payload);
+            preparedStatement.setLong(4, now);
+            preparedStatement.setLong(5, now);
+            preparedStatement.execute();
+        }
+    }
+
+    /**
+     * claims up to maxMessages visible messages of the topic in the order sent, hiding them from other consumers for
+     * the visibility timeout.
+     */
+    public List<Message> claim(String topic, int maxMessages, long visibilityTimeoutInMs) throws SQLException {
+        final long now = System.currentTimeMillis();
+        final List<Message> messages = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (dialect.skipLocked) {
+                    claimLocked(connection, topic, maxMessages, now, now + visibilityTimeoutInMs, messages);
+                } else {
+                    claimOptimistic(connection, topic, maxMessages, now, now + visibilityTimeoutInMs, messages);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return messages;
+    }
+
+    private void claimLocked(Connection connection, String topic, int maxMessages, long now, long visibleAt,
+                             List<Message> messages) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_VISIBLE_MESSAGES
+                + " LIMIT " + maxMessages + " FOR UPDATE SKIP LOCKED")) {
+            preparedStatement.setString(1, topic);
+            preparedStatement.setLong(2, now);
+            readMessages(preparedStatement, messages);
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(CLAIM_LOCKED_MESSAGE)) {
+            for (Message message : messages) {
+                preparedStatement.setLong(1, visibleAt);
+                preparedStatement.setLong(2, message.id);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    /**
+     * claims each message by updating it only if no other consumer updated it since it was read.
+     */
+    private void claimOptimistic(Connection connection, String topic, int maxMessages, long now, long visibleAt,
+                                 List<Message> messages) throws SQLException {
+        final List<Message> candidates = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_VISIBLE_MESSAGES)) {
+            preparedStatement.setMaxRows(maxMessages);
+            preparedStatement.setString(1, topic);
+            preparedStatement.setLong(2, now);
+            readMessages(preparedStatement, candidates);
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(CLAIM_MESSAGE)) {
+            for (Message candidate : candidates) {
+                preparedStatement.setLong(1, visibleAt);
+                preparedStatement.setLong(2, candidate.id);
+                preparedStatement.setLong(3, candidate.visibleAt);
+                if (preparedStatement.executeUpdate() == 1) {
+                    messages.add(candidate);
+                }
+            }
+        }
+    }
+
+    private void readMessages(PreparedStatement preparedStatement, List<Message> messages) throws SQLException {
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                messages.add(new Message(resultSet.getLong(1), resultSet.getString(2), resultSet.getBytes(3),
+                        resultSet.getInt(4) + 1, resultSet.getLong(5)));
+            }
+        }
+    }
+
+    /**
+     * acknowledges the messages by deleting them from the queue.
+     */
+    public void ack(List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(DELETE_MESSAGE)) {
+            for (Long id : ids) {
+                preparedStatement.setLong(1, id);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    /**
+     * deletes the messages sent before the given time irrespective of them being claimed, e.g. the messages of a
+     * topic nobody consumes any more.
+     *
+     * @return number of messages deleted
+     */
+    public int deleteMessagesEnqueuedBefore(long enqueuedBefore) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(DELETE_MESSAGES_ENQUEUED_BEFORE)) {
+            preparedStatement.setLong(1, enqueuedBefore);
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    private void createTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (tableExists(connection)) {
+                return;
+            }
+            logger.info("Creating table {} for queue with dialect {}", TABLE_QUEUE_MESSAGES, dialect);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE " + TABLE_QUEUE_MESSAGES + " (" + COL_ID + " " + dialect.idType
+                        + ", " + COL_TOPIC + " VARCHAR(255) NOT NULL, " + COL_CODEC + " VARCHAR(255) NOT NULL, "
+                        + COL_PAYLOAD + " " + dialect.payloadType + " NOT NULL, " + COL_ENQUEUED_AT
+                        + " BIGINT NOT NULL, " + COL_VISIBLE_AT + " BIGINT NOT NULL, " + COL_ATTEMPTS
+                        + " INTEGER NOT NULL)");
+                statement.execute("CREATE INDEX " + TABLE_QUEUE_MESSAGES + "_TOPIC_IDX ON " + TABLE_QUEUE_MESSAGES
+                        + " (" + COL_TOPIC + ", " + COL_VISIBLE_AT + ")");
+            } catch (SQLException e) {
+                // another producer or consumer might have created the table in the meantime
+                if (!tableExists(connection)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean tableExists(Connection connection) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        for (String tableName : new String[]{TABLE_QUEUE_MESSAGES, TABLE_QUEUE_MESSAGES.toLowerCase()}) {
+            try (ResultSet resultSet = metaData.getTables(null, null, tableName, null)) {
+                if (resultSet.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void close() {
+        try {
+            dataSource.close();
+        } catch (SQLException e) {
+            logger.error("Error closing data source", e);
+        }
+    }
+
+    /**
+     * SQL dialect of the database keeping the queue.
+     */
+    public enum Dialect {
+        POSTGRESQL(true, "BIGSERIAL PRIMARY KEY", "BYTEA"),
+        // SKIP LOCKED requires MySQL 8.0 or later, use the generic dialect for earlier versions
+        MYSQL(true, "BIGINT AUTO_INCREMENT PRIMARY KEY", "LONGBLOB"),
+        HSQLDB(false, "BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY", "VARBINARY(16777216)"),
+        GENERIC(false, "BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY", "BLOB");
+
+        private final boolean skipLocked;
+        private final String idType;
+        private final String payloadType;
+
+        Dialect(boolean skipLocked, String idType, String payloadType) {
+            this.skipLocked = skipLocked;
+            this.idType = idType;
+            this.payloadType = payloadType;
+        }
+
+        static Dialect of(String driverClass) {
+            switch (driverClass) {
+                case JDBCUtil.POSTGRESQL_DRIVER_CLASS:
+                    return POSTGRESQL;
+                case JDBCUtil.MYSQL_DRIVER_CLASS:
+                    return MYSQL;
+                case JDBCUtil.HSQLDB_DRIVER_CLASS:
+                    return HSQLDB;
+                default:
+                    return GENERIC;
+            }
+        }
+    }
+
+    /**
+     * a message claimed from the queue.
+     */
+    public static class Message {
+        private final long id;
+        private final String codec;
+        private final byte[] payload;
+        private final int attempts;
+        private final long visibleAt;
+
+        Message(long id, String codec, byte[] payload, int attempts, long visibleAt) {
+            this.id = id;
+            this.codec = codec;
+            this.payload = payload;
+            this.attempts = attempts;
+            this.visibleAt = visibleAt;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getCodec() {
+            return codec;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        /**
+         * @return number of times the message was claimed including this one
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.producer;
+
+import com.cognitree.kronos.queue.codec.MessageCodec;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+import com.cognitree.kronos.queue.jdbc.JDBCQueue;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * a producer inserting messages in the queue table of {@link JDBCQueue}.
+ * <p>
+ * Besides the configuration of {@link JDBCQueue}, the producer accepts
+ * <ul>
+ * <li>codec: name of the {@link MessageCodec} to encode messages with, defaults to json</li>
+ * </ul>
+ * </p>
+ */
+public class JDBCProducer implements Producer {
+    private static final Logger logger = LoggerFactory.getLogger(JDBCProducer.class);
+
+    private JDBCQueue queue;
+    private MessageCodec codec;
+
+    @Override
+    public void init(ObjectNode config) {
+        logger.info("Initializing producer for JDBC queue with config {}", config);
+        try {
+            queue = new JDBCQueue(config);
+        } catch (Exception e) {
+            throw new IllegalStateException("unable to initialize JDBC queue", e);
+        }
+        codec = MessageCodecs.get(config.hasNonNull("codec") ? config.get("codec").asText() : MessageCodecs.JSON);
+    }
+
+    @Override
+    public void send(String topic, String record) {
+        logger.trace("Received request to send message {} on topic {}", record, topic);
+        try {
+            queue.send(topic, MessageCodecs.JSON, record.getBytes(UTF_8));
+        } catch (SQLException e) {
+            throw new IllegalStateException("unable to send message to topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void send(String topic, Object message) throws IOException {
+        logger.trace("Received request to send message {} on topic {}", message, topic);
+        try {
+            queue.send(topic, codec.getName(), codec.encode(message));
+        } catch (SQLException e) {
+            throw new IOException("unable to send message to topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void send(String topic, String codec, byte[] record) throws IOException {
+        logger.trace("Received request to send record encoded with codec {} on topic {}", codec, topic);
+        try {
+            queue.send(topic, codec, record);
+        } catch (SQLException e) {
+            throw new IOException("unable to send record to topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+}
@@ -24,6 +24,7 @@ public interface StdJDBCConstants {
     String TABLE_TASKS = "TASKS";
     String TABLE_WORKFLOW_TRIGGERS = "WORKFLOW_TRIGGERS";
     String TABLE_JOBS = "JOBS";
+    String TABLE_DEAD_LETTERS = "DEAD_LETTERS";
 
     String COL_NAMESPACE = "NAMESPACE";
     String COL_WORKFLOW_NAME = "WORKFLOW_NAME";
@@ -43,4 +44,8 @@ public interface StdJDBCConstants {
     String COL_END_AT = "END_AT";
     String COL_ENABLED = "ENABLED";
     String COL_TRIGGER_NAME = "trigger_name";
+    String COL_TOPIC = "TOPIC";
+    String COL_CODEC = "CODEC";
+    String COL_PAYLOAD = "PAYLOAD";
+    String COL_ERROR = "ERROR";
 }
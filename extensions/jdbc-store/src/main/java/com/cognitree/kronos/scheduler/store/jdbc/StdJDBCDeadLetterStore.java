@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.scheduler.store.jdbc;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.scheduler.store.DeadLetterStore;
+import com.cognitree.kronos.scheduler.store.StoreException;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.cognitree.kronos.scheduler.store.jdbc.StdJDBCConstants.COL_CODEC;
+import static com.cognitree.kronos.scheduler.store.jdbc.StdJDBCConstants.COL_CREATED_AT;
+import static com.cognitree.kronos.scheduler.store.jdbc.StdJDBCConstants.COL_ERROR;
+import static com.cognitree.kronos.scheduler.store.jdbc.StdJDBCConstants.COL_ID;
+import static com.cognitree.kronos.scheduler.store.jdbc.StdJDBCConstants.COL_PAYLOAD;
+import static com.cognitree.kronos.scheduler.store.jdbc.StdJDBCConstants.COL_TOPIC;
+import static com.cognitree.kronos.scheduler.store.jdbc.StdJDBCConstants.TABLE_DEAD_LETTERS;
+
+/**
+ * A standard JDBC based implementation of {@link DeadLetterStore}.
+ */
+public class StdJDBCDeadLetterStore implements DeadLetterStore {
+    private static final Logger logger = LoggerFactory.getLogger(StdJDBCDeadLetterStore.class);
+
+    // error is truncated to the size of the column
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String INSERT_DEAD_LETTER = "INSERT INTO " + TABLE_DEAD_LETTERS + " VALUES (?,?,?,?,?,?)";
+
+    private static final String LOAD_ALL_DEAD_LETTERS = "SELECT * FROM " + TABLE_DEAD_LETTERS
+            + " ORDER BY " + COL_CREATED_AT;
+    private static final String LOAD_DEAD_LETTERS_BY_TOPIC = "SELECT * FROM " + TABLE_DEAD_LETTERS
+            + " WHERE " + COL_TOPIC + " = ? ORDER BY " + COL_CREATED_AT;
+    private static final String LOAD_DEAD_LETTER = "SELECT * FROM " + TABLE_DEAD_LETTERS + " WHERE " + COL_ID + " = ?";
+
+    private static final String UPDATE_DEAD_LETTER = "UPDATE " + TABLE_DEAD_LETTERS + " SET " + COL_TOPIC + " = ?, "
+            + COL_CODEC + " = ?, " + COL_PAYLOAD + " = ?, " + COL_ERROR + " = ?, " + COL_CREATED_AT + " = ? WHERE "
+            + COL_ID + " = ?";
+
+    private static final String DELETE_DEAD_LETTER = "DELETE FROM " + TABLE_DEAD_LETTERS + " WHERE " + COL_ID + " = ?";
+
+    private final BasicDataSource dataSource;
+
+    public StdJDBCDeadLetterStore(BasicDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void store(DeadLetter deadLetter) throws StoreException {
+        logger.debug("Received request to store dead letter {}", deadLetter);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(INSERT_DEAD_LETTER)) {
+            int paramIndex = 0;
+            preparedStatement.setString(++paramIndex, deadLetter.getId());
+            preparedStatement.setString(++paramIndex, deadLetter.getTopic());
+            preparedStatement.setString(++paramIndex, deadLetter.getCodec());
+            preparedStatement.setString(++paramIndex, deadLetter.getPayload());
+            preparedStatement.setString(++paramIndex, truncateError(deadLetter.getError()));
+            preparedStatement.setLong(++paramIndex, deadLetter.getCreatedAt());
+            preparedStatement.execute();
+        } catch (Exception e) {
+            logger.error("Error storing dead letter {}", deadLetter, e);
+            throw new StoreException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<DeadLetter> loadByTopic(String topic) throws StoreException {
+        logger.debug("Received request to get all dead letters of topic {}", topic);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(topic == null ?
+                     LOAD_ALL_DEAD_LETTERS : LOAD_DEAD_LETTERS_BY_TOPIC)) {
+            if (topic != null) {
+                preparedStatement.setString(1, topic);
+            }
+            final ResultSet resultSet = preparedStatement.executeQuery();
+            List<DeadLetter> deadLetters = new ArrayList<>();
+            while (resultSet.next()) {
+                deadLetters.add(getDeadLetter(resultSet));
+            }
+            return deadLetters;
+        } catch (Exception e) {
+            logger.error("Error fetching all dead letters of topic {}", topic, e);
+            throw new StoreException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public DeadLetter load(String id) throws StoreException {
+        logger.debug("Received request to load dead letter with id {}", id);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(LOAD_DEAD_LETTER)) {
+            int paramIndex = 0;
+            preparedStatement.setString(++paramIndex, id);
+            final ResultSet resultSet = preparedStatement.executeQuery();
+            if (resultSet.next()) {
+                return getDeadLetter(resultSet);
+            }
+        } catch (Exception e) {
+            logger.error("Error fetching dead letter with id {}", id, e);
+            throw new StoreException(e.getMessage(), e);
+        }
+        return null;
+    }
+
+    @Override
+    public void update(DeadLetter deadLetter) throws StoreException {
+        logger.debug("Received request to update dead letter to {}", deadLetter);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_DEAD_LETTER)) {
+            int paramIndex = 0;
+            preparedStatement.setString(++paramIndex, deadLetter.getTopic());
+            preparedStatement.setString(++paramIndex, deadLetter.getCodec());
+            preparedStatement.setString(++paramIndex, deadLetter.getPayload());
+            preparedStatement.setString(++paramIndex, truncateError(deadLetter.getError()));
+            preparedStatement.setLong(++paramIndex, deadLetter.getCreatedAt());
+            preparedStatement.setString(++paramIndex, deadLetter.getId());
+            preparedStatement.execute();
+        } catch (Exception e) {
+            logger.error("Error updating dead letter to {}", deadLetter, e);
+            throw new StoreException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String id) throws StoreException {
+        logger.debug("Received request to delete dead letter with id {}", id);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(DELETE_DEAD_LETTER)) {
+            int paramIndex = 0;
+            preparedStatement.setString(++paramIndex, id);
+            preparedStatement.executeUpdate();
+        } catch (Exception e) {
+            logger.error("Error deleting dead letter with id {}", id, e);
+            throw new StoreException(e.getMessage(), e);
+        }
+    }
+
+    private String truncateError(String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private DeadLetter getDeadLetter(ResultSet resultSet) throws Exception {
+        int paramIndex = 0;
+        DeadLetter deadLetter = new DeadLetter();
+        deadLetter.setId(resultSet.getString(++paramIndex));
+        deadLetter.setTopic(resultSet.getString(++paramIndex));
+        deadLetter.setCodec(resultSet.getString(++paramIndex));
+        deadLetter.setPayload(resultSet.getString(++paramIndex));
+        deadLetter.setError(resultSet.getString(++paramIndex));
+        deadLetter.setCreatedAt(resultSet.getLong(++paramIndex));
+        return deadLetter;
+    }
+}
@@ -18,6 +18,7 @@
 package com.cognitree.kronos.scheduler.store.jdbc;
 
 import com.cognitree.kronos.ServiceProvider;
+import com.cognitree.kronos.scheduler.store.DeadLetterStore;
 import com.cognitree.kronos.scheduler.store.JobStore;
 import com.cognitree.kronos.scheduler.store.NamespaceStore;
 import com.cognitree.kronos.scheduler.store.StoreService;
@@ -73,6 +74,7 @@ public class StdJDBCStoreService extends StoreService {
     private WorkflowTriggerStore workflowTriggerStore;
     private JobStore jobStore;
     private TaskStore taskStore;
+    private DeadLetterStore deadLetterStore;
     private org.quartz.spi.JobStore quartzJobStore;
     private BasicDataSource dataSource;
 
@@ -144,6 +146,7 @@ public class StdJDBCStoreService extends StoreService {
         workflowTriggerStore = new StdJDBCWorkflowTriggerStore(dataSource);
         jobStore = new StdJDBCJobStore(dataSource);
         taskStore = new StdJDBCTaskStore(dataSource);
+        deadLetterStore = new StdJDBCDeadLetterStore(dataSource);
         quartzJobStore = getQuartJobStore();
     }
 
@@ -191,6 +194,11 @@ public class StdJDBCStoreService extends StoreService {
         return taskStore;
     }
 
+    @Override
+    public DeadLetterStore getDeadLetterStore() {
+        return deadLetterStore;
+    }
+
     @Override
     public org.quartz.spi.JobStore getQuartzJobStore() {
         return quartzJobStore;
@@ -100,21 +100,7 @@ public class StdJDBCTaskStore implements TaskStore {
         logger.debug("Received request to store task {}", task);
         try (Connection connection = dataSource.getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(INSERT_TASK)) {
-            int paramIndex = 0;
-            preparedStatement.setString(++paramIndex, task.getName());
-            preparedStatement.setString(++paramIndex, task.getJob());
-            preparedStatement.setString(++paramIndex, task.getWorkflow());
-            preparedStatement.setString(++paramIndex, task.getNamespace());
-            preparedStatement.setString(++paramIndex, task.getType());
-            preparedStatement.setLong(++paramIndex, task.getMaxExecutionTimeInMs());
-            preparedStatement.setString(++paramIndex, MAPPER.writeValueAsString(task.getDependsOn()));
-            preparedStatement.setString(++paramIndex, MAPPER.writeValueAsString(task.getProperties()));
-            preparedStatement.setString(++paramIndex, MAPPER.writeValueAsString(task.getContext()));
-            preparedStatement.setString(++paramIndex, task.getStatus().name());
-            preparedStatement.setString(++paramIndex, task.getStatusMessage());
-            JDBCUtil.setLong(preparedStatement, ++paramIndex, task.getCreatedAt());
-            JDBCUtil.setLong(preparedStatement, ++paramIndex, task.getSubmittedAt());
-            JDBCUtil.setLong(preparedStatement, ++paramIndex, task.getCompletedAt());
+            setTask(preparedStatement, task);
             preparedStatement.execute();
         } catch (Exception e) {
             logger.error("Error storing task {}", task, e);
@@ -122,6 +108,48 @@ public class StdJDBCTaskStore implements TaskStore {
         }
     }
 
+    @Override
+    public void store(List<Task> tasks) throws StoreException {
+        logger.debug("Received request to store {} tasks", tasks.size());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_TASK)) {
+                for (Task task : tasks) {
+                    setTask(preparedStatement, task);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            logger.error("Error storing {} tasks", tasks.size(), e);
+            throw new StoreException(e.getMessage(), e);
+        }
+    }
+
+    private void setTask(PreparedStatement preparedStatement, Task task) throws Exception {
+        int paramIndex = 0;
+        preparedStatement.setString(++paramIndex, task.getName());
+        preparedStatement.setString(++paramIndex, task.getJob());
+        preparedStatement.setString(++paramIndex, task.getWorkflow());
+        preparedStatement.setString(++paramIndex, task.getNamespace());
+        preparedStatement.setString(++paramIndex, task.getType());
+        preparedStatement.setLong(++paramIndex, task.getMaxExecutionTimeInMs());
+        preparedStatement.setString(++paramIndex, MAPPER.writeValueAsString(task.getDependsOn()));
+        preparedStatement.setString(++paramIndex, MAPPER.writeValueAsString(task.getProperties()));
+        preparedStatement.setString(++paramIndex, MAPPER.writeValueAsString(task.getContext()));
+        preparedStatement.setString(++paramIndex, task.getStatus().name());
+        preparedStatement.setString(++paramIndex, task.getStatusMessage());
+        JDBCUtil.setLong(preparedStatement, ++paramIndex, task.getCreatedAt());
+        JDBCUtil.setLong(preparedStatement, ++paramIndex, task.getSubmittedAt());
+        JDBCUtil.setLong(preparedStatement, ++paramIndex, task.getCompletedAt());
+    }
+
     @Override
     public List<Task> load(String namespace) throws StoreException {
         logger.debug("Received request to get all tasks under namespace {}", namespace);
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.queue.jdbc;
+
+import com.cognitree.kronos.model.TaskId;
+import com.cognitree.kronos.model.TaskUpdate;
+import com.cognitree.kronos.queue.consumer.JDBCConsumer;
+import com.cognitree.kronos.queue.producer.JDBCProducer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.cognitree.kronos.model.Task.Status.RUNNING;
+import static java.lang.Thread.sleep;
+
+/**
+ * verifies the JDBC queue against an in-memory HSQLDB, which claims messages using the optimistic fallback.
+ * <p>
+ * The benchmark is skipped unless the system property {@code benchmark} is set to true. The number of messages it
+ * claims can be tuned using the system property {@code jdbc.queue.benchmark.messages},
+ * e.g. {@code mvn test -pl extensions/jdbc-store -Dbenchmark=true -Djdbc.queue.benchmark.messages=100000}.
+ * </p>
+ */
+public class JDBCQueueTest {
+    private static final Logger logger = LoggerFactory.getLogger(JDBCQueueTest.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MESSAGES = Integer.getInteger("jdbc.queue.benchmark.messages", 5000);
+    private static final String TOPIC = "taskstatus";
+
+    private final List<JDBCConsumer> consumers = new ArrayList<>();
+    private ObjectNode config;
+    private JDBCProducer producer;
+
+    @Before
+    public void setUp() {
+        config = MAPPER.createObjectNode();
+        config.put("connectionUrl", "jdbc:hsqldb:mem:" + UUID.randomUUID() + ";hsqldb.tx=mvcc");
+        config.put("driverClass", "org.hsqldb.jdbcDriver");
+        producer = new JDBCProducer();
+        producer.init(config);
+    }
+
+    @After
+    public void tearDown() {
+        consumers.forEach(JDBCConsumer::close);
+        producer.close();
+    }
+
+    @Test
+    public void testSendAndPoll() throws IOException {
+        final JDBCConsumer consumer = createConsumer();
+        Assert.assertTrue(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).isEmpty());
+        for (int i = 0; i < 10; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+        producer.send(TOPIC, MAPPER.writeValueAsString(createTaskUpdate(10)));
+
+        Assert.assertTrue(consumer.poll(TOPIC, 0, TaskUpdate.class).isEmpty());
+        final List<TaskUpdate> taskUpdates = consumer.poll(TOPIC, 4, TaskUpdate.class);
+        taskUpdates.addAll(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class));
+        Assert.assertEquals(11, taskUpdates.size());
+        for (int i = 0; i < taskUpdates.size(); i++) {
+            Assert.assertEquals(createTaskUpdate(i), taskUpdates.get(i));
+        }
+        // messages of other topics are not affected
+        producer.send("executorheartbeat", createTaskUpdate(0));
+        Assert.assertTrue(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).isEmpty());
+    }
+
+    @Test
+    public void testVisibilityTimeout() throws Exception {
+        config.put("visibilityTimeoutInMs", 200);
+        final JDBCConsumer consumer = createConsumer();
+        final JDBCConsumer otherConsumer = createConsumer();
+        for (int i = 0; i < 5; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+        // messages claimed by a consumer are hidden from others until acknowledged or the visibility timeout expires
+        Assert.assertEquals(3, consumer.poll(TOPIC, 3, TaskUpdate.class).size());
+        final List<TaskUpdate> taskUpdates = otherConsumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class);
+        Assert.assertEquals(2, taskUpdates.size());
+        Assert.assertEquals(createTaskUpdate(3), taskUpdates.get(0));
+        sleep(300);
+        // the consumer never came back to acknowledge the messages, they are claimed again
+        final List<TaskUpdate> redeliveredTaskUpdates = otherConsumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class);
+        Assert.assertEquals(3, redeliveredTaskUpdates.size());
+        Assert.assertEquals(createTaskUpdate(0), redeliveredTaskUpdates.get(0));
+    }
+
+    @Test
+    public void testCleanup() throws Exception {
+        config.put("retentionInMs", -1000);
+        config.put("cleanupIntervalInMs", 50);
+        final JDBCConsumer consumer = createConsumer();
+        for (int i = 0; i < 5; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+        sleep(300);
+        Assert.assertTrue(consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentClaims() throws Exception {
+        claimConcurrently(500, 4);
+    }
+
+    @Test
+    public void testBenchmark() throws Exception {
+        Assume.assumeTrue("benchmark is run only if the system property benchmark is set to true",
+                Boolean.getBoolean("benchmark"));
+        final int consumerCount = 4;
+        final long elapsedTime = claimConcurrently(MESSAGES, consumerCount);
+        logger.info(String.format("jdbc queue claimed %8.0f messages/s with %d consumers",
+                MESSAGES * 1e9 / elapsedTime, consumerCount));
+    }
+
+    /**
+     * claims the messages using concurrent consumers and verifies each message is claimed exactly once
+     *
+     * @return time taken in nanoseconds to claim all the messages
+     */
+    private long claimConcurrently(int messages, int consumerCount) throws Exception {
+        config.put("maxClaimSize", 100);
+        for (int i = 0; i < messages; i++) {
+            producer.send(TOPIC, createTaskUpdate(i));
+        }
+        final ExecutorService executorService = Executors.newFixedThreadPool(consumerCount);
+        final Set<String> received = ConcurrentHashMap.newKeySet();
+        final AtomicInteger duplicates = new AtomicInteger();
+        final List<Future<?>> futures = new ArrayList<>();
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < consumerCount; i++) {
+            final JDBCConsumer consumer = createConsumer();
+            futures.add(executorService.submit(() -> {
+                while (received.size() < messages) {
+                    for (TaskUpdate taskUpdate : consumer.poll(TOPIC, Integer.MAX_VALUE, TaskUpdate.class)) {
+                        if (!received.add(taskUpdate.getTaskId().getName())) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        final long elapsedTime = System.nanoTime() - startTime;
+        executorService.shutdown();
+        Assert.assertEquals(messages, received.size());
+        Assert.assertEquals(0, duplicates.get());
+        return elapsedTime;
+    }
+
+    private JDBCConsumer createConsumer() {
+        final JDBCConsumer consumer = new JDBCConsumer();
+        consumer.init(config);
+        consumers.add(consumer);
+        return consumer;
+    }
+
+    private TaskUpdate createTaskUpdate(int i) {
+        final TaskUpdate taskUpdate = new TaskUpdate();
+        taskUpdate.setTaskId(TaskId.build("default", "task-" + i, "job", "workflow"));
+        taskUpdate.setStatus(RUNNING);
+        return taskUpdate;
+    }
+}
@@ -17,20 +17,42 @@
 
 package com.cognitree.kronos.queue.consumer;
 
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.queue.MessageMapper;
+import com.cognitree.kronos.queue.QueueMetrics;
+import com.cognitree.kronos.queue.codec.MessageCodec;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.cognitree.kronos.queue.producer.KafkaProducerImpl.CODEC_HEADER;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * A {@link Consumer} implementation using Kafka as queue in backend.
@@ -39,18 +61,32 @@ public class KafkaConsumerImpl implements Consumer {
     private static final Logger logger = LoggerFactory.getLogger(KafkaConsumerImpl.class);
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final long DEFAULT_LAG_CHECK_INTERVAL = 5000;
+    private static final int DEFAULT_MAX_BUFFERED_RECORDS = 100;
 
-    private final Map<String, KafkaConsumer<String, String>> topicToKafkaConsumerMap = new HashMap<>();
+    private final Map<String, TopicConsumer> topicToConsumerMap = new ConcurrentHashMap<>();
     private Properties kafkaConsumerConfig;
     private long pollTimeoutInMs;
+    private long lagCheckIntervalInMs = DEFAULT_LAG_CHECK_INTERVAL;
+    private int maxBufferedRecords = DEFAULT_MAX_BUFFERED_RECORDS;
 
 
     public void init(ObjectNode config) {
         logger.info("Initializing consumer for kafka with config {}", config);
         kafkaConsumerConfig = OBJECT_MAPPER.convertValue(config.get("kafkaConsumerConfig"), Properties.class);
-        // force override consumer configuration for kafka to poll max 1 message at a time
-        kafkaConsumerConfig.put("max.poll.records", 1);
+        // force override consumer configuration for kafka to commit offsets once the records are handed over
+        kafkaConsumerConfig.put("enable.auto.commit", false);
+        // force override consumer configuration for kafka to decode records based on their codec header
+        kafkaConsumerConfig.put("value.deserializer", ByteArrayDeserializer.class.getName());
         pollTimeoutInMs = config.get("pollTimeoutInMs").asLong();
+        if (config.hasNonNull("lagCheckIntervalInMs")) {
+            lagCheckIntervalInMs = config.get("lagCheckIntervalInMs").asLong();
+        }
+        if (config.hasNonNull("maxBufferedRecords")) {
+            maxBufferedRecords = config.get("maxBufferedRecords").asInt();
+        }
+        // unless configured, a single fetch is not to return more records than a partition can buffer
+        kafkaConsumerConfig.putIfAbsent("max.poll.records", maxBufferedRecords);
     }
 
     @Override
@@ -60,35 +96,238 @@ public class KafkaConsumerImpl implements Consumer {
 
     @Override
     public List<String> poll(String topic, int size) {
-        logger.trace("Received request to poll messages from topic {} with max size {}", topic, size);
         List<String> tasks = new ArrayList<>();
-        if (!topicToKafkaConsumerMap.containsKey(topic)) {
-            createKafkaConsumer(topic);
+        for (ConsumerRecord<String, byte[]> consumerRecord : pollRecords(topic, size)) {
+            try {
+                final MessageCodec codec = MessageCodecs.get(getCodec(consumerRecord));
+                if (MessageCodecs.JSON.equals(codec.getName())) {
+                    tasks.add(new String(consumerRecord.value(), UTF_8));
+                } else {
+                    tasks.add(MessageMapper.encode(codec.decode(consumerRecord.value(), JsonNode.class)));
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Error decoding record {} from topic {}", consumerRecord, topic, e);
+            }
         }
+        return tasks;
+    }
 
-        while (tasks.size() < size) {
-            final ConsumerRecords<String, String> consumerRecords = topicToKafkaConsumerMap.get(topic).poll(pollTimeoutInMs);
-            if (consumerRecords.isEmpty()) {
-                break;
+    @Override
+    public <T> List<T> poll(String topic, int size, Class<T> type, DeadLetterHandler deadLetterHandler) {
+        List<T> messages = new ArrayList<>();
+        for (ConsumerRecord<String, byte[]> consumerRecord : pollRecords(topic, size)) {
+            final String codec = getCodec(consumerRecord);
+            try {
+                messages.add(MessageCodecs.get(codec).decode(consumerRecord.value(), type));
+            } catch (IOException | IllegalArgumentException e) {
+                deadLetterHandler.handle(DeadLetter.build(topic, codec, consumerRecord.value(), e));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * returns up to size records of the topic, handing over the records buffered by the previous polls first. Records
+     * fetched beyond the requested size are buffered for the next poll, a partition with {@link #maxBufferedRecords}
+     * records buffered is paused until the buffered records are handed over. Records buffered for a partition
+     * revoked from the consumer are dropped and fetched again by the new owner of the partition.
+     * <p>
+     * Offsets are committed manually for the records handed over by the previous poll, i.e. only once the caller
+     * came back for more after handling them. A crash in between redelivers the records instead of losing them.
+     * A poll with size 0 commits the offsets and pauses all the partitions of the topic until the next poll asking
+     * for records, while still polling Kafka to keep the consumer in the group within {@code max.poll.interval.ms}.
+     * </p>
+     * <p>
+     * The dequeue latency is recorded in the {@link QueueMetrics} of the topic using the record timestamp, along with
+     * the batch size and, at most once every {@link #lagCheckIntervalInMs}, the lag of the consumer.
+     * </p>
+     */
+    private List<ConsumerRecord<String, byte[]>> pollRecords(String topic, int size) {
+        logger.trace("Received request to poll messages from topic {} with max size {}", topic, size);
+        final TopicConsumer topicConsumer = getTopicConsumer(topic);
+        synchronized (topicConsumer) {
+            topicConsumer.commit();
+            final org.apache.kafka.clients.consumer.Consumer<String, byte[]> kafkaConsumer =
+                    topicConsumer.kafkaConsumer;
+            if (size <= 0) {
+                kafkaConsumer.pause(kafkaConsumer.assignment());
+                kafkaConsumer.poll(0);
+                return Collections.emptyList();
             }
-            for (ConsumerRecord<String, String> consumerRecord : consumerRecords) {
-                tasks.add(consumerRecord.value());
+            final QueueMetrics queueMetrics = QueueMetrics.get(topic);
+            final List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+            topicConsumer.handOver(records, size, queueMetrics);
+            topicConsumer.resume(maxBufferedRecords);
+            // Kafka is polled even if the buffered records suffice to keep the consumer in the group
+            ConsumerRecords<String, byte[]> consumerRecords =
+                    kafkaConsumer.poll(records.size() < size ? pollTimeoutInMs : 0);
+            // keep handing over the records already fetched by the consumer while the caller asks for more
+            while (!consumerRecords.isEmpty()) {
+                consumerRecords.forEach(topicConsumer::buffer);
+                topicConsumer.handOver(records, size, queueMetrics);
+                if (records.size() >= size) {
+                    break;
+                }
+                consumerRecords = kafkaConsumer.poll(0);
             }
+            topicConsumer.pause(maxBufferedRecords);
+            queueMetrics.recordBatch(records.size());
+            if (System.currentTimeMillis() - topicConsumer.lagCheckedAt >= lagCheckIntervalInMs) {
+                topicConsumer.checkLag(queueMetrics);
+            }
+            return records;
         }
+    }
 
-        return tasks;
+    /**
+     * records sent by producers predating codecs carry no codec header and are always JSON.
+     */
+    private String getCodec(ConsumerRecord<String, byte[]> consumerRecord) {
+        final Header header = consumerRecord.headers().lastHeader(CODEC_HEADER);
+        return header == null ? MessageCodecs.JSON : new String(header.value(), UTF_8);
     }
 
-    private synchronized void createKafkaConsumer(String topic) {
-        if (!topicToKafkaConsumerMap.containsKey(topic)) {
+    private TopicConsumer getTopicConsumer(String topic) {
+        final TopicConsumer topicConsumer = topicToConsumerMap.get(topic);
+        return topicConsumer != null ? topicConsumer : createTopicConsumer(topic);
+    }
+
+    private synchronized TopicConsumer createTopicConsumer(String topic) {
+        if (!topicToConsumerMap.containsKey(topic)) {
             logger.info("Creating kafka consumer on topic {} with consumer config {}", topic, kafkaConsumerConfig);
-            KafkaConsumer<String, String> kafkaConsumer = new KafkaConsumer<>(kafkaConsumerConfig);
-            kafkaConsumer.subscribe(Collections.singletonList(topic));
-            topicToKafkaConsumerMap.put(topic, kafkaConsumer);
+            topicToConsumerMap.put(topic, new TopicConsumer(topic, createKafkaConsumer()));
         }
+        return topicToConsumerMap.get(topic);
+    }
+
+    // used in junit
+    org.apache.kafka.clients.consumer.Consumer<String, byte[]> createKafkaConsumer() {
+        return new KafkaConsumer<>(kafkaConsumerConfig);
     }
 
     @Override
     public void close() {
+        topicToConsumerMap.values().forEach(topicConsumer -> {
+            synchronized (topicConsumer) {
+                topicConsumer.commit();
+                topicConsumer.kafkaConsumer.close();
+            }
+        });
+        topicToConsumerMap.clear();
+    }
+
+    /**
+     * a Kafka consumer subscribed to a topic along with the records fetched but yet to be handed over and the
+     * offsets of the records handed over but yet to be committed.
+     */
+    private static class TopicConsumer implements ConsumerRebalanceListener {
+        private final org.apache.kafka.clients.consumer.Consumer<String, byte[]> kafkaConsumer;
+        // records fetched but yet to be handed over, in the order fetched
+        private final Deque<ConsumerRecord<String, byte[]>> records = new ArrayDeque<>();
+        private final Map<TopicPartition, Integer> partitionToBufferedCount = new HashMap<>();
+        private final Map<TopicPartition, OffsetAndMetadata> offsetsToCommit = new HashMap<>();
+        private long lagCheckedAt;
+
+        private TopicConsumer(String topic, org.apache.kafka.clients.consumer.Consumer<String, byte[]> kafkaConsumer) {
+            this.kafkaConsumer = kafkaConsumer;
+            kafkaConsumer.subscribe(Collections.singletonList(topic), this);
+        }
+
+        private void buffer(ConsumerRecord<String, byte[]> record) {
+            records.add(record);
+            partitionToBufferedCount.merge(getPartition(record), 1, Integer::sum);
+        }
+
+        /**
+         * hands over the buffered records in the order fetched until the list holds size records.
+         */
+        private void handOver(List<ConsumerRecord<String, byte[]>> handedOver, int size, QueueMetrics queueMetrics) {
+            while (handedOver.size() < size && !records.isEmpty()) {
+                final ConsumerRecord<String, byte[]> record = records.poll();
+                final TopicPartition partition = getPartition(record);
+                partitionToBufferedCount.computeIfPresent(partition, (p, count) -> count > 1 ? count - 1 : null);
+                offsetsToCommit.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                if (record.timestampType() != TimestampType.NO_TIMESTAMP_TYPE) {
+                    queueMetrics.recordDequeue(record.timestamp());
+                }
+                handedOver.add(record);
+            }
+        }
+
+        /**
+         * pauses the partitions with max buffered records buffered.
+         */
+        private void pause(int maxBufferedRecords) {
+            final List<TopicPartition> partitions = new ArrayList<>();
+            partitionToBufferedCount.forEach((partition, count) -> {
+                if (count >= maxBufferedRecords) {
+                    partitions.add(partition);
+                }
+            });
+            if (!partitions.isEmpty()) {
+                kafkaConsumer.pause(partitions);
+            }
+        }
+
+        /**
+         * resumes the paused partitions with less than max buffered records buffered.
+         */
+        private void resume(int maxBufferedRecords) {
+            final List<TopicPartition> partitions = new ArrayList<>();
+            for (TopicPartition partition : kafkaConsumer.paused()) {
+                if (partitionToBufferedCount.getOrDefault(partition, 0) < maxBufferedRecords) {
+                    partitions.add(partition);
+                }
+            }
+            if (!partitions.isEmpty()) {
+                kafkaConsumer.resume(partitions);
+            }
+        }
+
+        private static TopicPartition getPartition(ConsumerRecord<String, byte[]> record) {
+            return new TopicPartition(record.topic(), record.partition());
+        }
+
+        private void commit() {
+            if (offsetsToCommit.isEmpty()) {
+                return;
+            }
+            try {
+                kafkaConsumer.commitSync(offsetsToCommit);
+            } catch (KafkaException e) {
+                logger.error("Error committing offsets {}, records might be redelivered", offsetsToCommit, e);
+            }
+            offsetsToCommit.clear();
+        }
+
+        /**
+         * the lag is the number of records in the assigned partitions yet to be handed over, including the records
+         * buffered.
+         */
+        private void checkLag(QueueMetrics queueMetrics) {
+            lagCheckedAt = System.currentTimeMillis();
+            try {
+                final Set<TopicPartition> partitions = kafkaConsumer.assignment();
+                long lag = records.size();
+                for (Map.Entry<TopicPartition, Long> endOffset : kafkaConsumer.endOffsets(partitions).entrySet()) {
+                    lag += Math.max(endOffset.getValue() - kafkaConsumer.position(endOffset.getKey()), 0);
+                }
+                queueMetrics.setDepth(lag);
+            } catch (KafkaException e) {
+                logger.warn("Error checking lag of consumer on partitions {}", kafkaConsumer.assignment(), e);
+            }
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // commit while the partitions are still owned and drop the records the new owner will fetch again
+            commit();
+            records.removeIf(record -> partitions.contains(getPartition(record)));
+            partitionToBufferedCount.keySet().removeAll(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
     }
 }
\ No newline at end of file
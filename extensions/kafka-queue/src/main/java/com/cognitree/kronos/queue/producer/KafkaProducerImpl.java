@@ -17,14 +17,27 @@
 
 package com.cognitree.kronos.queue.producer;
 
+import com.cognitree.kronos.queue.codec.MessageCodec;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * A {@link Producer} implementation using Kafka as queue in backend.
@@ -34,27 +47,97 @@ public class KafkaProducerImpl implements Producer {
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-    private KafkaProducer<String, String> kafkaProducer;
+    /**
+     * name of the record header carrying the name of the {@link MessageCodec} used to encode the record.
+     * Records without the header are encoded as {@link MessageCodecs#JSON}.
+     */
+    public static final String CODEC_HEADER = "codec";
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    private static final List<Header> JSON_HEADERS =
+            Collections.singletonList(new RecordHeader(CODEC_HEADER, MessageCodecs.JSON.getBytes(UTF_8)));
+
+    private KafkaProducer<String, byte[]> kafkaProducer;
+    private MessageCodec codec;
+    private List<Header> codecHeaders;
 
     public void init(ObjectNode config) {
         logger.info("Initializing producer for kafka with config {}", config);
         Properties kafkaProducerConfig = OBJECT_MAPPER.convertValue(config.get("kafkaProducerConfig"), Properties.class);
+        // force override producer configuration for kafka to send records keyed by job encoded by the codec
+        kafkaProducerConfig.put("key.serializer", StringSerializer.class.getName());
+        kafkaProducerConfig.put("value.serializer", ByteArraySerializer.class.getName());
+        // throughput oriented defaults, trading a few ms of latency for batched and compressed requests
+        kafkaProducerConfig.putIfAbsent("linger.ms", 5);
+        kafkaProducerConfig.putIfAbsent("batch.size", 64 * 1024);
+        kafkaProducerConfig.putIfAbsent("compression.type", "lz4");
+        codec = MessageCodecs.get(config.hasNonNull("codec") ? config.get("codec").asText() : MessageCodecs.JSON);
+        codecHeaders = Collections.singletonList(new RecordHeader(CODEC_HEADER, codec.getName().getBytes(UTF_8)));
         kafkaProducer = new KafkaProducer<>(kafkaProducerConfig);
     }
 
     @Override
     public void send(String topic, String record) {
         logger.trace("Received request to send message {} to topic {}.", record, topic);
-        ProducerRecord<String, String> producerRecord =
-                new ProducerRecord<>(topic, record);
+        send(topic, null, record.getBytes(UTF_8), JSON_HEADERS, record);
+    }
+
+    @Override
+    public void send(String topic, Object message) throws IOException {
+        send(topic, null, message);
+    }
+
+    /**
+     * sends the message keyed by the given key, records with the same key land on the same partition and are
+     * consumed in the order sent.
+     */
+    @Override
+    public void send(String topic, String key, Object message) throws IOException {
+        logger.trace("Received request to send message {} with key {} to topic {}.", message, key, topic);
+        send(topic, key, codec.encode(message), codecHeaders, message);
+    }
+
+    @Override
+    public void send(String topic, String codec, byte[] record) {
+        logger.trace("Received request to send record encoded with codec {} to topic {}.", codec, topic);
+        send(topic, null, record, Collections.singletonList(new RecordHeader(CODEC_HEADER, codec.getBytes(UTF_8))),
+                "encoded with codec " + codec);
+    }
+
+    private void send(String topic, String key, byte[] record, List<Header> headers, Object message) {
+        ProducerRecord<String, byte[]> producerRecord =
+                new ProducerRecord<>(topic, null, key, record, headers);
         kafkaProducer.send(producerRecord, (metadata, exception) -> {
             if (exception != null) {
-                logger.error("Error sending record {} over kafka to topic {}.", record, topic, exception);
+                logger.error("Error sending record {} over kafka to topic {}.", message, topic, exception);
+            }
+        });
+    }
+
+    /**
+     * @return metrics of the producer keyed by metric name, e.g. record-send-rate, record-error-rate,
+     * batch-size-avg, compression-rate-avg and request-latency-avg. The metrics are also exported over JMX by Kafka.
+     */
+    public Map<String, Double> getMetrics() {
+        final Map<String, Double> metrics = new TreeMap<>();
+        kafkaProducer.metrics().forEach((metricName, metric) -> {
+            final Object value = metric.metricValue();
+            if (PRODUCER_METRICS_GROUP.equals(metricName.group()) && value instanceof Number) {
+                metrics.put(metricName.name(), ((Number) value).doubleValue());
             }
         });
+        return metrics;
     }
 
+    /**
+     * flushes the records yet to be sent before closing the producer.
+     */
     @Override
     public void close() {
+        if (kafkaProducer != null) {
+            logger.info("Closing kafka producer, producer metrics {}", getMetrics());
+            kafkaProducer.flush();
+            kafkaProducer.close();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.queue.consumer;
+
+import com.cognitree.kronos.model.TaskId;
+import com.cognitree.kronos.queue.QueueMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class KafkaConsumerImplTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testPollBuffersRecordsFetchedBeyondSize() throws IOException {
+        final String topic = UUID.randomUUID().toString();
+        final TopicPartition partition = new TopicPartition(topic, 0);
+        final MockConsumer<String, byte[]> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        final KafkaConsumerImpl consumer = createConsumer(mockConsumer);
+
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(partition));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(partition, 0L));
+            mockConsumer.updateEndOffsets(Collections.singletonMap(partition, 5L));
+            addRecords(mockConsumer, partition, 0, 5);
+        });
+        final List<TaskId> taskIds = consumer.poll(topic, 2, TaskId.class);
+        Assert.assertEquals(2, taskIds.size());
+        Assert.assertEquals(createTaskId(1), taskIds.get(1));
+        Assert.assertEquals(3, QueueMetrics.get(topic).getDepth());
+        // the partition is paused once max buffered records are buffered
+        Assert.assertEquals(Collections.singleton(partition), mockConsumer.paused());
+
+        // records are handed over from the buffer without fetching them again
+        taskIds.addAll(consumer.poll(topic, 2, TaskId.class));
+        Assert.assertEquals(4, taskIds.size());
+        Assert.assertEquals(5, mockConsumer.position(partition));
+        Assert.assertTrue(mockConsumer.paused().isEmpty());
+        // offsets of the records handed over are committed on the next poll
+        Assert.assertEquals(2, mockConsumer.committed(partition).offset());
+
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.updateEndOffsets(Collections.singletonMap(partition, 7L));
+            addRecords(mockConsumer, partition, 5, 7);
+        });
+        taskIds.addAll(consumer.poll(topic, Integer.MAX_VALUE, TaskId.class));
+        Assert.assertEquals(7, taskIds.size());
+        for (int i = 0; i < taskIds.size(); i++) {
+            Assert.assertEquals(createTaskId(i), taskIds.get(i));
+        }
+        Assert.assertEquals(4, mockConsumer.committed(partition).offset());
+        consumer.close();
+    }
+
+    @Test
+    public void testPollWithoutCapacityPausesPartitions() throws IOException {
+        final String topic = UUID.randomUUID().toString();
+        final TopicPartition partition = new TopicPartition(topic, 0);
+        final MockConsumer<String, byte[]> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        final KafkaConsumerImpl consumer = createConsumer(mockConsumer);
+
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(partition));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(partition, 0L));
+            mockConsumer.updateEndOffsets(Collections.singletonMap(partition, 2L));
+            addRecords(mockConsumer, partition, 0, 2);
+        });
+        Assert.assertEquals(2, consumer.poll(topic, 2, TaskId.class).size());
+
+        // a poll with size 0 commits the offsets and keeps polling kafka with the partitions paused
+        final AtomicBoolean polled = new AtomicBoolean();
+        mockConsumer.schedulePollTask(() -> polled.set(true));
+        Assert.assertTrue(consumer.poll(topic, 0, TaskId.class).isEmpty());
+        Assert.assertTrue(polled.get());
+        Assert.assertEquals(2, mockConsumer.committed(partition).offset());
+        Assert.assertEquals(Collections.singleton(partition), mockConsumer.paused());
+
+        // partitions are resumed by the next poll asking for records
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.updateEndOffsets(Collections.singletonMap(partition, 3L));
+            addRecords(mockConsumer, partition, 2, 3);
+        });
+        Assert.assertEquals(Collections.singletonList(createTaskId(2)), consumer.poll(topic, 1, TaskId.class));
+        Assert.assertTrue(mockConsumer.paused().isEmpty());
+        consumer.close();
+    }
+
+    private KafkaConsumerImpl createConsumer(MockConsumer<String, byte[]> mockConsumer) {
+        final KafkaConsumerImpl consumer = new KafkaConsumerImpl() {
+            @Override
+            org.apache.kafka.clients.consumer.Consumer<String, byte[]> createKafkaConsumer() {
+                return mockConsumer;
+            }
+        };
+        final ObjectNode config = MAPPER.createObjectNode();
+        config.putObject("kafkaConsumerConfig");
+        config.put("pollTimeoutInMs", 0);
+        config.put("lagCheckIntervalInMs", 0);
+        config.put("maxBufferedRecords", 3);
+        consumer.init(config);
+        return consumer;
+    }
+
+    private void addRecords(MockConsumer<String, byte[]> mockConsumer, TopicPartition partition, int from, int to) {
+        for (int i = from; i < to; i++) {
+            try {
+                mockConsumer.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), i, null,
+                        MAPPER.writeValueAsString(createTaskId(i)).getBytes(UTF_8)));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private TaskId createTaskId(int i) {
+        return TaskId.build("namespace", "task-" + i, "job", "workflow");
+    }
+}
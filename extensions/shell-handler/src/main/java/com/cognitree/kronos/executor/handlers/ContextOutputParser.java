@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.executor.handlers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Incrementally parses the output of a process written to a file for lines of the form {@code <marker>key=value}
+ * and captures them as task context.
+ * <p>
+ * The file is read from the last read position on each call to {@link #parse(long)} while the process is running and
+ * hence each byte of the output is read only once. The bytes read by each call are bounded to keep a process writing
+ * output faster than it is parsed from holding up the caller, the rest is read by the following calls. The size of
+ * the captured context is bounded, lines exceeding {@link #MAX_LINE_LENGTH} and key value pairs exceeding the capture
+ * limit are ignored.
+ * </p>
+ * <p>
+ * The file can be rotated by the {@link com.cognitree.kronos.executor.TaskLogService} by copying it to
+ * {@code <name>.1} and truncating it. On finding the file truncated, the output written before the rotation and yet
+ * to be parsed is read from the rotated file before continuing from the start of the file. The output is lost if
+ * the rotated file is not found, e.g. the file is rotated more than once between two calls.
+ * </p>
+ */
+final class ContextOutputParser {
+    private static final Logger logger = LoggerFactory.getLogger(ContextOutputParser.class);
+
+    // lines longer than the max line length in bytes are not parsed
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final File outputFile;
+    private final byte[] marker;
+    private final long maxCaptureSizeInBytes;
+    private final Map<String, Object> context = new LinkedHashMap<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private FileChannel fileChannel;
+    // rotated copy of the file being read till its end before continuing from the start of the truncated file
+    private FileChannel rotatedFileChannel;
+    private long position = 0;
+    private long capturedSizeInBytes = 0;
+    private boolean skipLine = false;
+    private boolean captureLimitReached = false;
+
+    ContextOutputParser(File outputFile, String marker, long maxCaptureSizeInBytes) {
+        this.outputFile = outputFile;
+        this.marker = marker.getBytes(StandardCharsets.UTF_8);
+        this.maxCaptureSizeInBytes = maxCaptureSizeInBytes;
+    }
+
+    /**
+     * parses the output written to the file since the last call, up to the given number of bytes.
+     *
+     * @param maxBytes max number of bytes to read
+     * @return true if all the output written to the file is parsed
+     */
+    boolean parse(long maxBytes) {
+        long bytesRemaining = maxBytes;
+        try {
+            if (fileChannel == null) {
+                if (!outputFile.exists()) {
+                    return true;
+                }
+                fileChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.READ);
+            }
+            if (rotatedFileChannel == null && fileChannel.size() < position) {
+                // file was rotated by truncating it, read the rest of the output written before the rotation
+                rotatedFileChannel = openRotatedFile();
+                if (rotatedFileChannel == null) {
+                    position = 0;
+                }
+            }
+            int bytesRead;
+            while (bytesRemaining > 0) {
+                readBuffer.limit((int) Math.min(readBuffer.capacity(), bytesRemaining));
+                final FileChannel channel = rotatedFileChannel != null ? rotatedFileChannel : fileChannel;
+                if ((bytesRead = channel.read(readBuffer, position)) <= 0) {
+                    if (rotatedFileChannel == null) {
+                        return true;
+                    }
+                    // rotated file is read up to the end, continue from the start of the truncated file
+                    closeRotatedFile();
+                    position = 0;
+                    continue;
+                }
+                position += bytesRead;
+                bytesRemaining -= bytesRead;
+                readBuffer.flip();
+                while (readBuffer.hasRemaining()) {
+                    consume(readBuffer.get());
+                }
+                readBuffer.clear();
+            }
+            return rotatedFileChannel == null && position >= fileChannel.size();
+        } catch (IOException e) {
+            logger.error("Error parsing output file {}", outputFile, e);
+            return true;
+        }
+    }
+
+    /**
+     * @return rotated copy of the file or null if not found or shorter than the output already parsed
+     */
+    private FileChannel openRotatedFile() throws IOException {
+        final File rotatedFile = new File(outputFile.getPath() + ".1");
+        if (!rotatedFile.exists() || rotatedFile.length() < position) {
+            logger.warn("Output file {} is truncated and its rotated copy is not found, output written to the file " +
+                    "since the last parse is not parsed", outputFile);
+            return null;
+        }
+        return FileChannel.open(rotatedFile.toPath(), StandardOpenOption.READ);
+    }
+
+    private void closeRotatedFile() {
+        try {
+            rotatedFileChannel.close();
+        } catch (IOException e) {
+            logger.error("Error closing rotated output file of {}", outputFile, e);
+        }
+        rotatedFileChannel = null;
+    }
+
+    private void consume(byte b) {
+        if (b == '\n') {
+            if (!skipLine) {
+                parseLine(line.toByteArray());
+            }
+            line.reset();
+            skipLine = false;
+        } else if (!skipLine) {
+            // avoid buffering lines which can not be a context line
+            if (line.size() < marker.length && b != marker[line.size()]) {
+                skipLine = true;
+            } else if (line.size() >= MAX_LINE_LENGTH) {
+                logger.warn("Ignoring line longer than {} bytes in output file {}", MAX_LINE_LENGTH, outputFile);
+                skipLine = true;
+            } else {
+                line.write(b);
+            }
+        }
+    }
+
+    private void parseLine(byte[] lineBytes) {
+        if (lineBytes.length < marker.length) {
+            return;
+        }
+        String keyValue = new String(lineBytes, marker.length, lineBytes.length - marker.length,
+                StandardCharsets.UTF_8);
+        if (keyValue.endsWith("\r")) {
+            keyValue = keyValue.substring(0, keyValue.length() - 1);
+        }
+        final int separatorIndex = keyValue.indexOf('=');
+        if (separatorIndex <= 0) {
+            return;
+        }
+        final String key = keyValue.substring(0, separatorIndex).trim();
+        final String value = keyValue.substring(separatorIndex + 1);
+        if (capturedSizeInBytes + lineBytes.length > maxCaptureSizeInBytes) {
+            if (!captureLimitReached) {
+                logger.warn("Captured context exceeds {} bytes, ignoring further context in output file {}",
+                        maxCaptureSizeInBytes, outputFile);
+                captureLimitReached = true;
+            }
+            return;
+        }
+        capturedSizeInBytes += lineBytes.length;
+        context.put(key, value);
+    }
+
+    /**
+     * parses the remaining output, including the last line not terminated by a new line, and closes the file.
+     * The output is expected to be parsed up to the end of the file, see {@link #parse(long)}.
+     *
+     * @return context captured from the output
+     */
+    Map<String, Object> complete() {
+        parse(Long.MAX_VALUE);
+        if (line.size() > 0 && !skipLine) {
+            parseLine(line.toByteArray());
+        }
+        line.reset();
+        if (rotatedFileChannel != null) {
+            closeRotatedFile();
+        }
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                logger.error("Error closing output file {}", outputFile, e);
+            }
+        }
+        return context;
+    }
+}
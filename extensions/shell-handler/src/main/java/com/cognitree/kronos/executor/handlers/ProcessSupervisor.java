@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.executor.handlers;
+
+import com.cognitree.kronos.model.TaskId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A process supervisor watches all the processes spawned by the {@link ShellCommandHandler} from a single thread.
+ * <p>
+ * The supervisor periodically checks each process for exit, enforces the max execution time by terminating the
+ * process tree and samples the resource usage of the process from {@code /proc} (available only on linux) every
+ * {@link #RESOURCE_SAMPLING_INTERVAL} ms. The usage since the last sample is not counted as the entry of the process
+ * in {@code /proc} is gone by the time its exit is observed.
+ * A process tree being terminated is sent a {@code SIGTERM} first and is killed forcibly if still alive after
+ * the termination grace period.
+ * </p>
+ * <p>
+ * If configured, the output of the process is parsed for task context by a {@link ContextOutputParser}
+ * on each check while the process is running, up to {@link #MAX_PARSE_SIZE_PER_CHECK} bytes per check to keep a
+ * process writing large output from holding up the supervision of the other processes. A process which has exited
+ * is completed once its output is parsed up to the end.
+ * </p>
+ */
+final class ProcessSupervisor {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessSupervisor.class);
+
+    // interval in millisecond at which processes are checked for exit
+    private static final long SUPERVISION_INTERVAL = 100;
+    // interval in millisecond at which resource usage of a process is sampled
+    private static final long RESOURCE_SAMPLING_INTERVAL = 1000;
+    // clock ticks per second used by the kernel to report cpu time (USER_HZ), 100 on almost all linux systems
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    // max bytes of the output of a process parsed on each check
+    private static final long MAX_PARSE_SIZE_PER_CHECK = 1024 * 1024;
+
+    private final long terminationGracePeriodInMs;
+    private final Map<TaskId, SupervisedProcess> taskIdToSupervisedProcess = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "process-supervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ProcessSupervisor(long terminationGracePeriodInMs) {
+        this.terminationGracePeriodInMs = terminationGracePeriodInMs;
+        scheduledExecutorService.scheduleWithFixedDelay(this::supervise, SUPERVISION_INTERVAL,
+                SUPERVISION_INTERVAL, MILLISECONDS);
+    }
+
+    /**
+     * starts supervising the process.
+     *
+     * @param taskId               task the process is spawned for
+     * @param process              process to supervise
+     * @param maxExecutionTimeInMs time after which the process tree is terminated, no limit if less than or equal to 0
+     * @param outputParser         parser to capture task context from the process output, can be null
+     * @return future completed with the result of the process once it exits
+     */
+    CompletableFuture<ProcessResult> supervise(TaskId taskId, Process process, long maxExecutionTimeInMs,
+                                               ContextOutputParser outputParser) {
+        final SupervisedProcess supervisedProcess = new SupervisedProcess(process, maxExecutionTimeInMs, outputParser);
+        taskIdToSupervisedProcess.put(taskId, supervisedProcess);
+        return supervisedProcess.future;
+    }
+
+    /**
+     * terminates the process tree spawned for the task, the future returned by
+     * {@link #supervise(TaskId, Process, long, ContextOutputParser)} is completed once the process exits.
+     *
+     * @param taskId task to terminate the process for
+     * @return false if no process is being supervised for the task
+     */
+    boolean terminate(TaskId taskId) {
+        final SupervisedProcess supervisedProcess = taskIdToSupervisedProcess.get(taskId);
+        if (supervisedProcess == null) {
+            return false;
+        }
+        scheduledExecutorService.execute(() -> terminate(supervisedProcess));
+        return true;
+    }
+
+    private void supervise() {
+        final long currentTimeMillis = System.currentTimeMillis();
+        taskIdToSupervisedProcess.forEach((taskId, supervisedProcess) -> {
+            try {
+                final boolean outputParsed = supervisedProcess.outputParser == null
+                        || supervisedProcess.outputParser.parse(MAX_PARSE_SIZE_PER_CHECK);
+                if (!supervisedProcess.process.isAlive()) {
+                    if (supervisedProcess.exitedAt == 0) {
+                        supervisedProcess.exitedAt = currentTimeMillis;
+                    }
+                    if (outputParsed) {
+                        taskIdToSupervisedProcess.remove(taskId);
+                        complete(supervisedProcess);
+                    }
+                    return;
+                }
+                if (currentTimeMillis - supervisedProcess.lastSampledAt >= RESOURCE_SAMPLING_INTERVAL) {
+                    sample(supervisedProcess, currentTimeMillis);
+                }
+                if (supervisedProcess.terminationRequestedAt == 0 && supervisedProcess.maxExecutionTimeInMs > 0
+                        && currentTimeMillis - supervisedProcess.startedAt >= supervisedProcess.maxExecutionTimeInMs) {
+                    logger.info("Process {} for task {} exceeded max execution time of {} ms, terminating it",
+                            supervisedProcess.pid, taskId, supervisedProcess.maxExecutionTimeInMs);
+                    supervisedProcess.timedOut = true;
+                    terminate(supervisedProcess);
+                } else if (supervisedProcess.terminationRequestedAt > 0 &&
+                        currentTimeMillis - supervisedProcess.terminationRequestedAt >= terminationGracePeriodInMs) {
+                    logger.info("Process {} for task {} did not terminate in {} ms, killing it forcibly",
+                            supervisedProcess.pid, taskId, terminationGracePeriodInMs);
+                    ProcessTree.signal(supervisedProcess.descendants, "KILL");
+                    supervisedProcess.process.destroyForcibly();
+                }
+            } catch (Exception e) {
+                logger.error("Error supervising process {} for task {}", supervisedProcess.pid, taskId, e);
+            }
+        });
+    }
+
+    private void terminate(SupervisedProcess supervisedProcess) {
+        if (supervisedProcess.terminationRequestedAt > 0) {
+            return;
+        }
+        supervisedProcess.terminationRequestedAt = System.currentTimeMillis();
+        // collect the descendants before terminating the process as they are re-parented once it exits
+        if (supervisedProcess.pid > 0) {
+            supervisedProcess.descendants = ProcessTree.getDescendants(supervisedProcess.pid);
+        }
+        logger.info("Terminating process {} along with descendants {}",
+                supervisedProcess.pid, supervisedProcess.descendants);
+        ProcessTree.signal(supervisedProcess.descendants, "TERM");
+        supervisedProcess.process.destroy();
+    }
+
+    private void complete(SupervisedProcess supervisedProcess) {
+        if (supervisedProcess.terminationRequestedAt > 0) {
+            // descendants ignoring the termination signal are not to outlive the process
+            ProcessTree.signal(supervisedProcess.descendants, "KILL");
+        }
+        final Map<String, Object> context = supervisedProcess.outputParser != null ?
+                supervisedProcess.outputParser.complete() : Collections.emptyMap();
+        final ProcessResult processResult = new ProcessResult(supervisedProcess.process.exitValue(),
+                supervisedProcess.exitedAt - supervisedProcess.startedAt,
+                supervisedProcess.cpuTimeInTicks < 0 ? -1 : supervisedProcess.cpuTimeInTicks * 1000 / CLOCK_TICKS_PER_SECOND,
+                supervisedProcess.peakRssInKb, supervisedProcess.timedOut, context);
+        supervisedProcess.future.complete(processResult);
+    }
+
+    /**
+     * samples the cpu time (including the cpu time of the waited-for children) and the peak resident set size of
+     * the process from {@code /proc/<pid>/stat} and {@code /proc/<pid>/status}.
+     */
+    private void sample(SupervisedProcess supervisedProcess, long currentTimeMillis) {
+        supervisedProcess.lastSampledAt = currentTimeMillis;
+        if (supervisedProcess.pid <= 0) {
+            return;
+        }
+        final Path procDir = Paths.get("/proc", String.valueOf(supervisedProcess.pid));
+        try {
+            final String stat = new String(Files.readAllBytes(procDir.resolve("stat")), StandardCharsets.UTF_8);
+            // fields following the command name which is enclosed in parenthesis and can contain spaces,
+            // the first field after the command name is the process state (field 3 as per proc(5))
+            final String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            final long cpuTimeInTicks = Long.parseLong(fields[11]) + Long.parseLong(fields[12])
+                    + Long.parseLong(fields[13]) + Long.parseLong(fields[14]);
+            supervisedProcess.cpuTimeInTicks = Math.max(supervisedProcess.cpuTimeInTicks, cpuTimeInTicks);
+            for (String line : Files.readAllLines(procDir.resolve("status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmHWM:")) {
+                    final long peakRssInKb = Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").trim());
+                    supervisedProcess.peakRssInKb = Math.max(supervisedProcess.peakRssInKb, peakRssInKb);
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // process has exited or /proc is not available
+            logger.trace("Unable to sample resource usage of process {}", supervisedProcess.pid, e);
+        }
+    }
+
+    static final class ProcessResult {
+        private final int exitCode;
+        private final long wallTimeInMs;
+        private final long cpuTimeInMs;
+        private final long peakRssInKb;
+        private final boolean timedOut;
+        private final Map<String, Object> context;
+
+        ProcessResult(int exitCode, long wallTimeInMs, long cpuTimeInMs, long peakRssInKb, boolean timedOut,
+                      Map<String, Object> context) {
+            this.exitCode = exitCode;
+            this.wallTimeInMs = wallTimeInMs;
+            this.cpuTimeInMs = cpuTimeInMs;
+            this.peakRssInKb = peakRssInKb;
+            this.timedOut = timedOut;
+            this.context = context;
+        }
+
+        int getExitCode() {
+            return exitCode;
+        }
+
+        long getWallTimeInMs() {
+            return wallTimeInMs;
+        }
+
+        /**
+         * @return cpu time in millisecond or -1 if not available
+         */
+        long getCpuTimeInMs() {
+            return cpuTimeInMs;
+        }
+
+        /**
+         * @return peak resident set size in kilobytes or -1 if not available
+         */
+        long getPeakRssInKb() {
+            return peakRssInKb;
+        }
+
+        boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return task context captured from the process output
+         */
+        Map<String, Object> getContext() {
+            return context;
+        }
+    }
+
+    private static final class SupervisedProcess {
+        private final Process process;
+        private final long pid;
+        private final long startedAt = System.currentTimeMillis();
+        private final long maxExecutionTimeInMs;
+        private final ContextOutputParser outputParser;
+        private final CompletableFuture<ProcessResult> future = new CompletableFuture<>();
+        // accessed only by the supervisor thread
+        private long lastSampledAt;
+        private long cpuTimeInTicks = -1;
+        private long peakRssInKb = -1;
+        private long terminationRequestedAt;
+        private long exitedAt;
+        private List<Long> descendants = new ArrayList<>();
+        private boolean timedOut;
+
+        SupervisedProcess(Process process, long maxExecutionTimeInMs, ContextOutputParser outputParser) {
+            this.process = process;
+            this.pid = ProcessTree.getPid(process);
+            this.maxExecutionTimeInMs = maxExecutionTimeInMs;
+            this.outputParser = outputParser;
+        }
+    }
+}
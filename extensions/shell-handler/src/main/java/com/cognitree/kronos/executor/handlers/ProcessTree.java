@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.executor.handlers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility to operate on a process along with all the processes spawned by it.
+ * <p>
+ * Descendant processes are discovered using {@code pgrep -P} and signalled using {@code kill} and hence
+ * are supported only on unix like systems. On other systems only the process itself is destroyed.
+ * </p>
+ */
+final class ProcessTree {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessTree.class);
+
+    private ProcessTree() {
+    }
+
+    /**
+     * @param process process to get the id for
+     * @return native process id or -1 if the process id can not be determined
+     */
+    static long getPid(Process process) {
+        try {
+            // available from java 9 onwards
+            return (long) Process.class.getMethod("pid").invoke(process);
+        } catch (NoSuchMethodException e) {
+            try {
+                final Field pidField = process.getClass().getDeclaredField("pid");
+                pidField.setAccessible(true);
+                return pidField.getLong(process);
+            } catch (Exception ex) {
+                logger.debug("Unable to determine pid of process {}", process, ex);
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to determine pid of process {}", process, e);
+        }
+        return -1;
+    }
+
+    /**
+     * @param pid native process id
+     * @return ids of all the processes spawned by the process directly or indirectly
+     */
+    static List<Long> getDescendants(long pid) {
+        final List<Long> descendants = new ArrayList<>();
+        for (Long child : getChildren(pid)) {
+            descendants.add(child);
+            descendants.addAll(getDescendants(child));
+        }
+        return descendants;
+    }
+
+    private static List<Long> getChildren(long pid) {
+        final List<Long> children = new ArrayList<>();
+        try {
+            final Process pgrep = new ProcessBuilder("pgrep", "-P", String.valueOf(pid)).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(pgrep.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        children.add(Long.parseLong(line.trim()));
+                    }
+                }
+            }
+            pgrep.waitFor();
+        } catch (Exception e) {
+            logger.debug("Unable to list children of process {}", pid, e);
+        }
+        return children;
+    }
+
+    /**
+     * sends the signal to the processes ignoring the processes which have already exited.
+     *
+     * @param pids   native process ids
+     * @param signal signal name (e.g. TERM, KILL)
+     */
+    static void signal(List<Long> pids, String signal) {
+        if (pids.isEmpty()) {
+            return;
+        }
+        final List<String> cmd = new ArrayList<>();
+        cmd.add("kill");
+        cmd.add("-" + signal);
+        pids.forEach(pid -> cmd.add(String.valueOf(pid)));
+        try {
+            // processes might have already exited, ignore the exit status
+            new ProcessBuilder(cmd).start().waitFor();
+        } catch (Exception e) {
+            logger.debug("Unable to send signal {} to processes {}", signal, pids, e);
+        }
+    }
+}
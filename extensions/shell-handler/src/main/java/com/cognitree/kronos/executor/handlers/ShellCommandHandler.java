@@ -17,19 +17,41 @@
 
 package com.cognitree.kronos.executor.handlers;
 
+import com.cognitree.kronos.executor.TaskLogService;
+import com.cognitree.kronos.executor.handlers.ProcessSupervisor.ProcessResult;
+import com.cognitree.kronos.executor.model.TaskLog;
 import com.cognitree.kronos.executor.model.TaskResult;
 import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.lang.ProcessBuilder.Redirect;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A {@link TaskHandler} implementation to execute shell commands with given arguments.
+ * <p>
+ * The spawned processes are supervised asynchronously by a {@link ProcessSupervisor} and do not hold an executor
+ * thread while running. A process running longer than the max execution time of the task is terminated along with
+ * all the processes spawned by it. The exit code and the resource usage of the process are returned in the task
+ * context.
+ * </p>
+ * <p>
+ * The stdout and stderr of each attempt of a task are stored by the {@link TaskLogService} which rotates, compresses
+ * and expires them, unless a log dir is set in the task properties.
+ * </p>
+ * <p>
+ * Optionally, the stdout of the process is parsed for lines of the form {@code ##kronos:key=value} while the
+ * process is running and the parsed key value pairs are returned in the task context.
+ * </p>
  */
 public class ShellCommandHandler implements TaskHandler {
     private static final Logger logger = LoggerFactory.getLogger(ShellCommandHandler.class);
@@ -38,6 +60,21 @@ public class ShellCommandHandler implements TaskHandler {
     private static final String PROP_ARGS = "args";
     private static final String PROPERTY_WORKING_DIR = "workingDir";
     private static final String PROPERTY_LOG_DIR = "logDir";
+    private static final String PROPERTY_CAPTURE_CONTEXT = "captureContext";
+    private static final String PROPERTY_CONTEXT_MARKER = "contextMarker";
+    private static final String PROPERTY_MAX_CONTEXT_SIZE = "maxContextSizeInBytes";
+    private static final String DEFAULT_CONTEXT_MARKER = "##kronos:";
+    private static final long DEFAULT_MAX_CONTEXT_SIZE = 64 * 1024;
+    // time to wait for the process to terminate on cancellation or timeout before killing it forcibly
+    private static final long PROCESS_TERMINATION_GRACE_PERIOD = 5000;
+
+    // keys of the task context returned on process exit
+    private static final String CONTEXT_EXIT_CODE = "exitCode";
+    private static final String CONTEXT_WALL_TIME = "wallTimeInMs";
+    private static final String CONTEXT_CPU_TIME = "cpuTimeInMs";
+    private static final String CONTEXT_PEAK_RSS = "peakRssInKb";
+
+    private final ProcessSupervisor processSupervisor = new ProcessSupervisor(PROCESS_TERMINATION_GRACE_PERIOD);
 
     @Override
     public void init(ObjectNode handlerConfig) {
@@ -45,11 +82,16 @@ public class ShellCommandHandler implements TaskHandler {
 
     @Override
     public TaskResult handle(Task task) {
+        return handleAsync(task).join();
+    }
+
+    @Override
+    public CompletableFuture<TaskResult> handleAsync(Task task) {
         logger.info("received request to handle task {}", task);
 
         final Map<String, Object> taskProperties = task.getProperties();
         if (!taskProperties.containsKey(PROP_CMD)) {
-            return new TaskResult(false, "no command found to execute");
+            return CompletableFuture.completedFuture(new TaskResult(false, "no command found to execute"));
         }
 
         ArrayList<String> cmdWithArgs = new ArrayList<>();
@@ -64,32 +106,103 @@ public class ShellCommandHandler implements TaskHandler {
         if (taskProperties.containsKey(PROPERTY_WORKING_DIR)) {
             processBuilder.directory(new File(getProperty(taskProperties, PROPERTY_WORKING_DIR)));
         }
-        final String logDirPath;
-        if (taskProperties.containsKey(PROPERTY_LOG_DIR)) {
-            logDirPath = getProperty(taskProperties, PROPERTY_LOG_DIR);
+        final TaskLogService taskLogService = TaskLogService.getService();
+        final TaskLog taskLog;
+        if (taskProperties.containsKey(PROPERTY_LOG_DIR) || taskLogService == null) {
+            // logs written to the log dir set in task properties are not managed by the task log service
+            final String logDirPath;
+            if (taskProperties.containsKey(PROPERTY_LOG_DIR)) {
+                logDirPath = getProperty(taskProperties, PROPERTY_LOG_DIR);
+            } else {
+                logDirPath = System.getProperty("java.io.tmpdir");
+            }
+            File logDir = new File(logDirPath);
+            // create log directory is does not exist
+            if (!logDir.exists() && !logDir.mkdirs()) {
+                return CompletableFuture.completedFuture(new TaskResult(false, "unable to create directory to store logs"));
+            }
+            taskLog = null;
+            processBuilder.redirectError(new File(logDir, task.getName() + "_" + task.getJob() + "_stderr.log"));
+            processBuilder.redirectOutput(new File(logDir, task.getName() + "_" + task.getJob() + "_stdout.log"));
         } else {
-            logDirPath = System.getProperty("java.io.tmpdir");
-        }
-        File logDir = new File(logDirPath);
-        // create log directory is does not exist
-        if (!logDir.exists() && !logDir.mkdirs()) {
-            return new TaskResult(false, "unable to create directory to store logs");
+            try {
+                taskLog = taskLogService.create(task.getIdentity());
+            } catch (Exception e) {
+                logger.error("Error allocating log files for task {}", task.getIdentity(), e);
+                return CompletableFuture.completedFuture(new TaskResult(false, "unable to create directory to store logs"));
+            }
+            // log files are rotated by truncating them and hence must be written in append mode
+            processBuilder.redirectError(Redirect.appendTo(taskLog.getStderrFile()));
+            processBuilder.redirectOutput(Redirect.appendTo(taskLog.getStdoutFile()));
         }
 
-        processBuilder.redirectError(new File(logDir, task.getName() + "_" + task.getJob() + "_stderr.log"));
-        processBuilder.redirectOutput(new File(logDir, task.getName() + "_" + task.getJob() + "_stdout.log"));
+        final File stdoutFile = processBuilder.redirectOutput().file();
+        final ContextOutputParser outputParser;
         try {
-            Process process = processBuilder.start();
-            int exitValue = process.waitFor();
-            logger.info("Process exited with code {} for command {}", exitValue, cmdWithArgs);
-            if (exitValue != 0) {
-                return new TaskResult(false, "process exited with error code " + exitValue);
-            }
+            outputParser = getContextOutputParser(taskProperties, stdoutFile);
+        } catch (NumberFormatException e) {
+            closeTaskLog(taskLogService, taskLog);
+            return CompletableFuture.completedFuture(
+                    new TaskResult(false, "invalid value for property " + PROPERTY_MAX_CONTEXT_SIZE));
+        }
+        final Process process;
+        try {
+            process = processBuilder.start();
         } catch (Exception e) {
             logger.error("Error executing command {}", cmdWithArgs, e);
-            return new TaskResult(false, "process exited with exception: " + e.getMessage());
+            closeTaskLog(taskLogService, taskLog);
+            return CompletableFuture.completedFuture(
+                    new TaskResult(false, "process exited with exception: " + e.getMessage()));
+        }
+        return processSupervisor.supervise(task.getIdentity(), process, task.getMaxExecutionTimeInMs(), outputParser)
+                .thenApply(processResult -> getTaskResult(cmdWithArgs, processResult))
+                .whenComplete((taskResult, throwable) -> closeTaskLog(taskLogService, taskLog));
+    }
+
+    private void closeTaskLog(TaskLogService taskLogService, TaskLog taskLog) {
+        if (taskLog != null) {
+            taskLogService.close(taskLog);
+        }
+    }
+
+    private ContextOutputParser getContextOutputParser(Map<String, Object> taskProperties, File stdoutFile) {
+        if (!Boolean.parseBoolean(String.valueOf(taskProperties.get(PROPERTY_CAPTURE_CONTEXT)))) {
+            return null;
+        }
+        final String marker = taskProperties.containsKey(PROPERTY_CONTEXT_MARKER) ?
+                getProperty(taskProperties, PROPERTY_CONTEXT_MARKER) : DEFAULT_CONTEXT_MARKER;
+        final long maxContextSize = taskProperties.containsKey(PROPERTY_MAX_CONTEXT_SIZE) ?
+                Long.parseLong(getProperty(taskProperties, PROPERTY_MAX_CONTEXT_SIZE)) : DEFAULT_MAX_CONTEXT_SIZE;
+        return new ContextOutputParser(stdoutFile, marker, maxContextSize);
+    }
+
+    private TaskResult getTaskResult(List<String> cmdWithArgs, ProcessResult processResult) {
+        logger.info("Process exited with code {} for command {}", processResult.getExitCode(), cmdWithArgs);
+        // context captured from the process output can not override the process exit status and resource usage
+        final Map<String, Object> context = new HashMap<>(processResult.getContext());
+        context.put(CONTEXT_EXIT_CODE, processResult.getExitCode());
+        context.put(CONTEXT_WALL_TIME, processResult.getWallTimeInMs());
+        if (processResult.getCpuTimeInMs() >= 0) {
+            context.put(CONTEXT_CPU_TIME, processResult.getCpuTimeInMs());
+        }
+        if (processResult.getPeakRssInKb() >= 0) {
+            context.put(CONTEXT_PEAK_RSS, processResult.getPeakRssInKb());
+        }
+        if (processResult.isTimedOut()) {
+            return new TaskResult(false, "process exceeded max execution time and was terminated", context);
+        }
+        if (processResult.getExitCode() != 0) {
+            return new TaskResult(false, "process exited with error code " + processResult.getExitCode(), context);
+        }
+        return new TaskResult(true, null, context);
+    }
+
+    @Override
+    public void cancel(TaskId taskId) {
+        logger.info("Received request to cancel task {}, terminating process tree", taskId);
+        if (!processSupervisor.terminate(taskId)) {
+            logger.info("No process found to cancel for task {}", taskId);
         }
-        return TaskResult.SUCCESS;
     }
 
     private String getProperty(Map<String, Object> properties, String key) {
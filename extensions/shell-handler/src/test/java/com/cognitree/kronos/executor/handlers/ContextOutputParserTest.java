@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor.handlers;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ContextOutputParserTest {
+    private static final String MARKER = "##kronos:";
+    private static final long MAX_CAPTURE_SIZE = 64 * 1024;
+
+    private File outputFile;
+    private File rotatedFile;
+
+    @Before
+    public void setUp() throws IOException {
+        outputFile = File.createTempFile("stdout", ".log");
+        rotatedFile = new File(outputFile.getPath() + ".1");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(outputFile.toPath());
+        Files.deleteIfExists(rotatedFile.toPath());
+    }
+
+    @Test
+    public void testParseContextLines() throws IOException {
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        append("processing input\n" +
+                "##kronos:rowCount=42\n" +
+                "not a context line ##kronos:ignored=1\n" +
+                "##kronos:noSeparator\n" +
+                "##kronos:=noKey\n" +
+                "##kronos: spaced = value with = sign\r\n" +
+                "##kronos:partial=");
+        Assert.assertTrue(outputParser.parse(Long.MAX_VALUE));
+        append("line\n##kronos:last=unterminated");
+        final Map<String, Object> expectedContext = new HashMap<>();
+        expectedContext.put("rowCount", "42");
+        expectedContext.put("spaced", " value with = sign");
+        expectedContext.put("partial", "line");
+        expectedContext.put("last", "unterminated");
+        Assert.assertEquals(expectedContext, outputParser.complete());
+    }
+
+    @Test
+    public void testParseWithoutOutputFile() throws IOException {
+        Files.delete(outputFile.toPath());
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        Assert.assertTrue(outputParser.parse(Long.MAX_VALUE));
+        Assert.assertTrue(outputParser.complete().isEmpty());
+    }
+
+    @Test
+    public void testLongLinesIgnored() throws IOException {
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        // lines up to 8KB are parsed
+        append(MARKER + "long=" + repeat('x', 8192 - MARKER.length() - "long=".length()) + "\n");
+        append(MARKER + "tooLong=" + repeat('x', 8192) + "\n");
+        append(MARKER + "next=1\n");
+        final Map<String, Object> context = outputParser.complete();
+        Assert.assertEquals(8192 - MARKER.length() - "long=".length(), ((String) context.get("long")).length());
+        Assert.assertFalse(context.containsKey("tooLong"));
+        Assert.assertEquals("1", context.get("next"));
+    }
+
+    @Test
+    public void testCaptureSizeBounded() throws IOException {
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        // each line is a little over 1KB, only the first 63 lines fit in 64KB
+        final String value = repeat('x', 1024);
+        for (int i = 0; i < 100; i++) {
+            append(MARKER + "key" + i + "=" + value + "\n");
+        }
+        final Map<String, Object> context = outputParser.complete();
+        Assert.assertEquals(63, context.size());
+        Assert.assertTrue(context.containsKey("key62"));
+        Assert.assertFalse(context.containsKey("key63"));
+    }
+
+    @Test
+    public void testParseBoundedPerCall() throws IOException {
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        final long maxBytesPerCall = 1024 * 1024;
+        append(repeat('x', (int) (2.5 * maxBytesPerCall)) + "\n" + MARKER + "key=value\n");
+        Assert.assertFalse(outputParser.parse(maxBytesPerCall));
+        Assert.assertFalse(outputParser.parse(maxBytesPerCall));
+        Assert.assertTrue(outputParser.parse(maxBytesPerCall));
+        Assert.assertEquals("value", outputParser.complete().get("key"));
+    }
+
+    @Test
+    public void testRotationInMiddleOfLine() throws IOException {
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        append(MARKER + "a=1\n" + MARKER + "b=");
+        Assert.assertTrue(outputParser.parse(Long.MAX_VALUE));
+        // output written before the rotation and not parsed yet is read from the rotated file
+        append("2\n" + MARKER + "c=3\n" + MARKER + "d=");
+        rotate();
+        append("4\n" + MARKER + "e=5\n");
+        Assert.assertTrue(outputParser.parse(Long.MAX_VALUE));
+        final Map<String, Object> expectedContext = new HashMap<>();
+        expectedContext.put("a", "1");
+        expectedContext.put("b", "2");
+        expectedContext.put("c", "3");
+        expectedContext.put("d", "4");
+        expectedContext.put("e", "5");
+        Assert.assertEquals(expectedContext, outputParser.complete());
+    }
+
+    @Test
+    public void testRotationBoundedPerCall() throws IOException {
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        append(MARKER + "a=1\n");
+        Assert.assertTrue(outputParser.parse(Long.MAX_VALUE));
+        append(MARKER + "b=2\n");
+        rotate();
+        // truncation is detected as long as the file is shorter than the output parsed
+        append(MARKER + "c=3");
+        Assert.assertFalse(outputParser.parse(4));
+        Assert.assertTrue(outputParser.parse(Long.MAX_VALUE));
+        final Map<String, Object> context = outputParser.complete();
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(context.keySet().toArray()));
+    }
+
+    @Test
+    public void testTruncationWithoutRotatedFile() throws IOException {
+        final ContextOutputParser outputParser = new ContextOutputParser(outputFile, MARKER, MAX_CAPTURE_SIZE);
+        append(MARKER + "a=1\n" + MARKER + "b=2\n");
+        Assert.assertTrue(outputParser.parse(Long.MAX_VALUE));
+        truncate();
+        append(MARKER + "c=3\n");
+        final Map<String, Object> context = outputParser.complete();
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(context.keySet().toArray()));
+    }
+
+    private void append(String output) throws IOException {
+        Files.write(outputFile.toPath(), output.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * rotates the output file the same way as the task log service by copying it and truncating it
+     */
+    private void rotate() throws IOException {
+        Files.copy(outputFile.toPath(), rotatedFile.toPath());
+        truncate();
+    }
+
+    private void truncate() throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.WRITE)) {
+            fileChannel.truncate(0);
+        }
+    }
+
+    private String repeat(char c, int count) {
+        final char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor.handlers;
+
+import com.cognitree.kronos.executor.handlers.ProcessSupervisor.ProcessResult;
+import com.cognitree.kronos.model.TaskId;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class ProcessSupervisorTest {
+    private static final long TERMINATION_GRACE_PERIOD = 1000;
+
+    private final ProcessSupervisor processSupervisor = new ProcessSupervisor(TERMINATION_GRACE_PERIOD);
+
+    @Before
+    public void setUp() {
+        // process trees are discovered and signalled using the unix tools and the process state is read from /proc
+        Assume.assumeTrue(new File("/proc/self/stat").exists());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final long startedAt = System.currentTimeMillis();
+        final ProcessResult processResult = processSupervisor.supervise(createTaskId(),
+                new ProcessBuilder("sh", "-c", "sleep 30").start(), 300, null).get(10, SECONDS);
+        Assert.assertTrue(processResult.isTimedOut());
+        Assert.assertNotEquals(0, processResult.getExitCode());
+        Assert.assertTrue(processResult.getWallTimeInMs() >= 300);
+        // the process exits on SIGTERM without waiting for the grace period
+        Assert.assertTrue(System.currentTimeMillis() - startedAt < 300 + TERMINATION_GRACE_PERIOD);
+    }
+
+    @Test
+    public void testTimeoutKillsProcessTreeIgnoringTerm() throws Exception {
+        final Path pidFile = Files.createTempFile("child", ".pid");
+        try {
+            // the child inherits the ignored SIGTERM and is only stopped by the SIGKILL sent after the grace period
+            final Process process = new ProcessBuilder("sh", "-c",
+                    "trap '' TERM; sleep 30 & echo $! > " + pidFile + "; wait").start();
+            final long startedAt = System.currentTimeMillis();
+            final CompletableFuture<ProcessResult> future =
+                    processSupervisor.supervise(createTaskId(), process, 300, null);
+            final long childPid = readPid(pidFile);
+            final ProcessResult processResult = future.get(10, SECONDS);
+            Assert.assertTrue(processResult.isTimedOut());
+            Assert.assertTrue(System.currentTimeMillis() - startedAt >= 300 + TERMINATION_GRACE_PERIOD);
+            awaitExit(childPid);
+            Assert.assertFalse(isAlive(childPid));
+        } finally {
+            Files.deleteIfExists(pidFile);
+        }
+    }
+
+    @Test
+    public void testTerminateKillsProcessTree() throws Exception {
+        final Path pidFile = Files.createTempFile("child", ".pid");
+        try {
+            final Process process = new ProcessBuilder("sh", "-c",
+                    "sleep 30 & echo $! > " + pidFile + "; wait").start();
+            final TaskId taskId = createTaskId();
+            final CompletableFuture<ProcessResult> future = processSupervisor.supervise(taskId, process, 0, null);
+            final long childPid = readPid(pidFile);
+            Assert.assertTrue(isAlive(childPid));
+            Assert.assertTrue(processSupervisor.terminate(taskId));
+            final ProcessResult processResult = future.get(10, SECONDS);
+            Assert.assertFalse(processResult.isTimedOut());
+            Assert.assertNotEquals(0, processResult.getExitCode());
+            awaitExit(childPid);
+            Assert.assertFalse(isAlive(childPid));
+            Assert.assertFalse(processSupervisor.terminate(taskId));
+        } finally {
+            Files.deleteIfExists(pidFile);
+        }
+    }
+
+    @Test
+    public void testExitCode() throws Exception {
+        final ProcessResult processResult = processSupervisor.supervise(createTaskId(),
+                new ProcessBuilder("sh", "-c", "exit 3").start(), 0, null).get(10, SECONDS);
+        Assert.assertEquals(3, processResult.getExitCode());
+        Assert.assertFalse(processResult.isTimedOut());
+        Assert.assertTrue(processResult.getContext().isEmpty());
+    }
+
+    private TaskId createTaskId() {
+        return TaskId.build(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+    }
+
+    private long readPid(Path pidFile) throws IOException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + SECONDS.toMillis(5);
+        while (System.currentTimeMillis() < deadline) {
+            final String pid = new String(Files.readAllBytes(pidFile), StandardCharsets.UTF_8).trim();
+            if (!pid.isEmpty()) {
+                return Long.parseLong(pid);
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("process did not write the pid of its child");
+    }
+
+    private void awaitExit(long pid) throws IOException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + SECONDS.toMillis(5);
+        while (isAlive(pid) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * @return false if the process has exited, a process which has exited but is yet to be reaped by its parent is
+     * in zombie state
+     */
+    private boolean isAlive(long pid) throws IOException {
+        final Path stat = Paths.get("/proc", String.valueOf(pid), "stat");
+        if (!Files.exists(stat)) {
+            return false;
+        }
+        try {
+            final String content = new String(Files.readAllBytes(stat), StandardCharsets.UTF_8);
+            return content.charAt(content.lastIndexOf(')') + 2) != 'Z';
+        } catch (IOException e) {
+            // process exited while reading its state
+            return false;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor.handlers;
+
+import com.cognitree.kronos.executor.model.TaskResult;
+import com.cognitree.kronos.model.Task;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class ShellCommandHandlerTest {
+
+    private final ShellCommandHandler shellCommandHandler = new ShellCommandHandler();
+    private Path workingDir;
+
+    @Before
+    public void setUp() throws IOException {
+        // resource usage is sampled from /proc
+        Assume.assumeTrue(new File("/proc/self/stat").exists());
+        workingDir = Files.createTempDirectory("shell-handler");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (workingDir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(workingDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testResourceUsageInContext() throws Exception {
+        final Task task = createTask("i=0; while [ $i -lt 100000 ]; do i=$((i+1)); done; sleep 0.2", null);
+        final TaskResult taskResult = shellCommandHandler.handleAsync(task).get(30, SECONDS);
+        Assert.assertTrue(taskResult.getMessage(), taskResult.isSuccess());
+        final Map<String, Object> context = taskResult.getContext();
+        Assert.assertEquals(0, context.get("exitCode"));
+        Assert.assertTrue(((Number) context.get("wallTimeInMs")).longValue() >= 200);
+        Assert.assertTrue(((Number) context.get("cpuTimeInMs")).longValue() >= 0);
+        Assert.assertTrue(((Number) context.get("peakRssInKb")).longValue() > 0);
+    }
+
+    @Test
+    public void testTimeoutInContext() throws Exception {
+        final Task task = createTask("sleep 30", null);
+        task.setMaxExecutionTimeInMs(300);
+        final TaskResult taskResult = shellCommandHandler.handleAsync(task).get(30, SECONDS);
+        Assert.assertFalse(taskResult.isSuccess());
+        Assert.assertEquals("process exceeded max execution time and was terminated", taskResult.getMessage());
+        Assert.assertTrue(((Number) taskResult.getContext().get("wallTimeInMs")).longValue() >= 300);
+    }
+
+    @Test
+    public void testCaptureContext() throws Exception {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("captureContext", true);
+        final Task task = createTask("echo processing; echo '##kronos:rowCount=42'; echo '##kronos:exitCode=7'; " +
+                "echo '##kronos:wallTimeInMs=-1'", properties);
+        final TaskResult taskResult = shellCommandHandler.handleAsync(task).get(30, SECONDS);
+        Assert.assertTrue(taskResult.getMessage(), taskResult.isSuccess());
+        final Map<String, Object> context = taskResult.getContext();
+        Assert.assertEquals("42", context.get("rowCount"));
+        // exit status and resource usage of the process override the keys captured from the output
+        Assert.assertEquals(0, context.get("exitCode"));
+        Assert.assertTrue(((Number) context.get("wallTimeInMs")).longValue() >= 0);
+    }
+
+    @Test
+    public void testCaptureContextAfterLargeOutput() throws Exception {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("captureContext", true);
+        properties.put("contextMarker", "@@");
+        // output is parsed over several checks, the task completes once the output is parsed up to the end
+        final Task task = createTask("head -c 3000000 /dev/zero | tr '\\0' x; echo; echo '@@key=value'", properties);
+        final TaskResult taskResult = shellCommandHandler.handleAsync(task).get(30, SECONDS);
+        Assert.assertTrue(taskResult.getMessage(), taskResult.isSuccess());
+        Assert.assertEquals("value", taskResult.getContext().get("key"));
+    }
+
+    /**
+     * @param script     script to execute using sh
+     * @param properties additional task properties, can be null
+     */
+    private Task createTask(String script, Map<String, Object> properties) throws IOException {
+        final Path scriptFile = workingDir.resolve(UUID.randomUUID().toString() + ".sh");
+        Files.write(scriptFile, script.getBytes(StandardCharsets.UTF_8));
+        final Task task = new Task();
+        task.setNamespace(UUID.randomUUID().toString());
+        task.setWorkflow(UUID.randomUUID().toString());
+        task.setJob(UUID.randomUUID().toString());
+        task.setName(UUID.randomUUID().toString());
+        task.setType("shellCommand");
+        final Map<String, Object> taskProperties = new HashMap<>();
+        taskProperties.put("cmd", "sh");
+        taskProperties.put("args", scriptFile.toString());
+        taskProperties.put("workingDir", workingDir.toString());
+        taskProperties.put("logDir", workingDir.toString());
+        if (properties != null) {
+            taskProperties.putAll(properties);
+        }
+        task.setProperties(taskProperties);
+        return task;
+    }
+}
@@ -19,6 +19,7 @@ package com.cognitree.kronos.executor.handlers;
 
 import com.cognitree.kronos.executor.model.TaskResult;
 import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
 import com.cognitree.spark.restclient.SparkRestClient;
 import com.cognitree.spark.restclient.model.JobStatusResponse;
 import com.cognitree.spark.restclient.model.JobStatusResponse.DriverState;
@@ -28,85 +29,252 @@ import com.cognitree.spark.restclient.model.KillJobResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.cognitree.spark.restclient.SparkRestClient.ClusterMode;
 import static com.cognitree.spark.restclient.SparkRestClient.builder;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
+/**
+ * A {@link TaskHandler} implementation to submit a Spark job to a Spark cluster and track its status.
+ * <p>
+ * A pooled HTTP client is shared by all the tasks submitted to the same Spark master. Once submitted, the status of
+ * all the Spark jobs is polled from a single thread and the tasks do not hold an executor thread while the job is
+ * running. The status of a job is polled with an adaptive backoff, starting at {@link #MIN_STATUS_POLL_INTERVAL}
+ * and doubling up to the monitoring interval of the task while the state of the driver remains unchanged.
+ * </p>
+ */
 public class SparkHandler implements TaskHandler {
     private static final Logger logger = LoggerFactory.getLogger(SparkHandler.class);
     private static final int STATUS_MONITORING_INTERVAL = 5000;
+    // interval at which a job is polled for status after submission or on a change in state
+    private static final long MIN_STATUS_POLL_INTERVAL = 1000;
+    // interval at which the tracked jobs are checked for a status poll due
+    private static final long STATUS_POLLER_INTERVAL = 100;
+    // consecutive errors polling the job status after which the task is failed
+    private static final int MAX_STATUS_POLL_ERRORS = 3;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_MASTER = 10;
+    private static final int HTTP_TIMEOUT = (int) SECONDS.toMillis(30);
     private static final ObjectMapper MAPPER = new ObjectMapper(new YAMLFactory());
 
+    private static final String CONFIG_MAX_CONNECTIONS_PER_MASTER = "maxConnectionsPerMaster";
+
+    private final Map<TaskId, SparkJob> taskIdToSparkJobMap = new ConcurrentHashMap<>();
+    // pooled http client shared by all the jobs submitted to the same master
+    private final Map<String, HttpClient> masterUrlToHttpClientMap = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService statusPoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "spark-status-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int maxConnectionsPerMaster = DEFAULT_MAX_CONNECTIONS_PER_MASTER;
+
     @Override
     public void init(ObjectNode handlerConfig) {
-
+        if (handlerConfig != null && handlerConfig.hasNonNull(CONFIG_MAX_CONNECTIONS_PER_MASTER)) {
+            maxConnectionsPerMaster = handlerConfig.get(CONFIG_MAX_CONNECTIONS_PER_MASTER).asInt();
+        }
+        statusPoller.scheduleWithFixedDelay(this::pollJobStatus, STATUS_POLLER_INTERVAL,
+                STATUS_POLLER_INTERVAL, MILLISECONDS);
     }
 
     @Override
     public TaskResult handle(Task task) {
+        return handleAsync(task).join();
+    }
+
+    @Override
+    public CompletableFuture<TaskResult> handleAsync(Task task) {
         logger.info("Received request to handle task {}", task);
         final Map<String, Object> taskProperties = task.getProperties();
         final String sparkVersion = (String) taskProperties.get("sparkVersion");
-        final String masterHost = (String) taskProperties.get("masterHost");
-        final Integer masterPort = (Integer) taskProperties.get("masterPort");
+        final String masterHost = (String) taskProperties.getOrDefault("masterHost", "localhost");
+        final Integer masterPort = (Integer) taskProperties.getOrDefault("masterPort", 6066);
         final ClusterMode clusterMode = ClusterMode.valueOf((String) taskProperties.get("clusterMode"));
         final boolean secure = (boolean) taskProperties.getOrDefault("secure", false);
         final Integer monitoringInterval = (Integer) taskProperties.
                 getOrDefault("monitoringInterval", STATUS_MONITORING_INTERVAL);
 
-        final SparkRestClient sparkRestClient = builder()
-                .masterHost(masterHost)
-                .masterPort(masterPort)
-                .sparkVersion(sparkVersion)
-                .clusterMode(clusterMode)
-                .isSecure(secure)
-                .build();
-
         if (!taskProperties.containsKey("submitRequest")) {
             logger.error("Missing Spark job submit request, failing task {}", task);
-            return new TaskResult(false, "missing Spark job submit request");
+            return CompletableFuture.completedFuture(new TaskResult(false, "missing Spark job submit request"));
         }
 
         try {
+            final SparkRestClient sparkRestClient = builder()
+                    .masterHost(masterHost)
+                    .masterPort(masterPort)
+                    .sparkVersion(sparkVersion)
+                    .clusterMode(clusterMode)
+                    .isSecure(secure)
+                    .httpClient(getHttpClient((secure ? "https://" : "http://") + masterHost + ":" + masterPort))
+                    .build();
             final JobSubmitRequest submitRequest =
                     MAPPER.convertValue(taskProperties.get("submitRequest"), JobSubmitRequest.class);
             final JobSubmitResponse jobSubmitResponse = sparkRestClient.submitJob(submitRequest);
             if (!jobSubmitResponse.getSuccess()) {
                 logger.error("Unable to submit Spark job request. Response : {}", jobSubmitResponse);
-                return new TaskResult(false, "Unable to submit Spark job request");
+                return CompletableFuture.completedFuture(new TaskResult(false, "Unable to submit Spark job request"));
             }
+            final SparkJob sparkJob = new SparkJob(task, sparkRestClient, jobSubmitResponse.getSubmissionId(),
+                    Math.min(MIN_STATUS_POLL_INTERVAL, monitoringInterval), monitoringInterval);
+            taskIdToSparkJobMap.put(task.getIdentity(), sparkJob);
+            return sparkJob.future;
+        } catch (Exception e) {
+            logger.error("Error executing task {}", task, e);
+            return CompletableFuture.completedFuture(
+                    new TaskResult(false, "Error executing Spark job task: " + e.getMessage()));
+        }
+    }
 
-            JobStatusResponse statusResponse = sparkRestClient.getJobStatus(jobSubmitResponse.getSubmissionId());
-            long maxExecutionTime = task.getMaxExecutionTimeInMs();
-            while (!statusResponse.getDriverState().isFinal() && maxExecutionTime > 0) {
-                Thread.sleep(monitoringInterval);
-                statusResponse = sparkRestClient.getJobStatus(jobSubmitResponse.getSubmissionId());
-                maxExecutionTime -= monitoringInterval;
-            }
+    private HttpClient getHttpClient(String masterUrl) {
+        return masterUrlToHttpClientMap.computeIfAbsent(masterUrl, url -> {
+            logger.info("Creating pooled HTTP client for Spark master {} with max connections {}",
+                    url, maxConnectionsPerMaster);
+            final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnectionsPerMaster);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerMaster);
+            final RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout(HTTP_TIMEOUT)
+                    .setConnectionRequestTimeout(HTTP_TIMEOUT)
+                    .setSocketTimeout(HTTP_TIMEOUT)
+                    .build();
+            return HttpClientBuilder.create()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig)
+                    .evictIdleConnections(1, MINUTES)
+                    .build();
+        });
+    }
 
-            if (!statusResponse.getDriverState().isFinal() && maxExecutionTime < 0) {
-                logger.error("Task {} exceeded max execution time allowed. Killing job with submission id {}",
-                        task, jobSubmitResponse.getSubmissionId());
-                final KillJobResponse killJobResponse = sparkRestClient.killJob(jobSubmitResponse.getSubmissionId());
-                if (!killJobResponse.getSuccess()) {
-                    logger.error("Unable to kill job with submission id {}, message {}",
-                            jobSubmitResponse.getSubmissionId(), killJobResponse.getMessage());
+    /**
+     * polls the status of the jobs due for a poll and completes the tasks whose job has reached a final state
+     * or exceeded the max execution time of the task.
+     */
+    private void pollJobStatus() {
+        final long currentTimeMillis = System.currentTimeMillis();
+        taskIdToSparkJobMap.forEach((taskId, sparkJob) -> {
+            if (sparkJob.nextPollAt > currentTimeMillis) {
+                return;
+            }
+            try {
+                poll(sparkJob);
+            } catch (Exception e) {
+                logger.error("Error polling status of task {} of Spark job with submission id {}",
+                        taskId, sparkJob.submissionId, e);
+                if (++sparkJob.pollErrors >= MAX_STATUS_POLL_ERRORS) {
+                    complete(sparkJob, new TaskResult(false, "Error executing Spark job task: " + e.getMessage()));
+                    return;
                 }
-                return new TaskResult(false, "Spark job exceeded max execution time");
+                backoff(sparkJob);
             }
+        });
+    }
 
-            logger.info("Task {} finished execution with state {}", task, statusResponse.getDriverState());
-            if (statusResponse.getDriverState() != DriverState.FINISHED) {
-                return new TaskResult(false, "Spark job finished execution with failure state " + statusResponse.getDriverState());
+    private void poll(SparkJob sparkJob) throws Exception {
+        final JobStatusResponse statusResponse = sparkJob.sparkRestClient.getJobStatus(sparkJob.submissionId);
+        sparkJob.pollErrors = 0;
+        final DriverState driverState = statusResponse.getDriverState();
+        if (driverState != null && driverState.isFinal()) {
+            logger.info("Task {} finished execution with state {}", sparkJob.task, driverState);
+            if (driverState != DriverState.FINISHED) {
+                complete(sparkJob, new TaskResult(false, "Spark job finished execution with failure state " + driverState));
+            } else {
+                complete(sparkJob, TaskResult.SUCCESS);
+            }
+            return;
+        }
+        final long maxExecutionTime = sparkJob.task.getMaxExecutionTimeInMs();
+        if (maxExecutionTime > 0 && System.currentTimeMillis() - sparkJob.submittedAt >= maxExecutionTime) {
+            logger.error("Task {} exceeded max execution time allowed. Killing job with submission id {}",
+                    sparkJob.task, sparkJob.submissionId);
+            kill(sparkJob);
+            complete(sparkJob, new TaskResult(false, "Spark job exceeded max execution time"));
+            return;
+        }
+        if (driverState != sparkJob.driverState) {
+            // poll again soon after a change in state
+            sparkJob.driverState = driverState;
+            sparkJob.pollInterval = sparkJob.minPollInterval;
+            sparkJob.nextPollAt = System.currentTimeMillis() + sparkJob.pollInterval;
+        } else {
+            backoff(sparkJob);
+        }
+    }
+
+    private void backoff(SparkJob sparkJob) {
+        sparkJob.pollInterval = Math.min(sparkJob.pollInterval * 2, sparkJob.maxPollInterval);
+        sparkJob.nextPollAt = System.currentTimeMillis() + sparkJob.pollInterval;
+    }
+
+    private void complete(SparkJob sparkJob, TaskResult taskResult) {
+        taskIdToSparkJobMap.remove(sparkJob.task.getIdentity());
+        sparkJob.future.complete(taskResult);
+    }
+
+    private void kill(SparkJob sparkJob) {
+        try {
+            final KillJobResponse killJobResponse = sparkJob.sparkRestClient.killJob(sparkJob.submissionId);
+            if (!killJobResponse.getSuccess()) {
+                logger.error("Unable to kill job with submission id {}, message {}",
+                        sparkJob.submissionId, killJobResponse.getMessage());
             }
         } catch (Exception e) {
-            logger.error("Error executing task {}", task, e);
-            return new TaskResult(false, "Error executing Spark job task: " + e.getMessage());
+            logger.error("Error killing job with submission id {}", sparkJob.submissionId, e);
+        }
+    }
+
+    @Override
+    public void cancel(TaskId taskId) {
+        final SparkJob sparkJob = taskIdToSparkJobMap.get(taskId);
+        if (sparkJob == null) {
+            logger.info("No Spark job found to cancel for task {}", taskId);
+            return;
+        }
+        logger.info("Received request to cancel task {}, killing job with submission id {}",
+                taskId, sparkJob.submissionId);
+        kill(sparkJob);
+        // the task is completed once the killed state of the job is polled
+        sparkJob.pollInterval = sparkJob.minPollInterval;
+        sparkJob.nextPollAt = 0;
+    }
+
+    private static final class SparkJob {
+        private final Task task;
+        private final SparkRestClient sparkRestClient;
+        private final String submissionId;
+        private final long submittedAt = System.currentTimeMillis();
+        private final long minPollInterval;
+        private final long maxPollInterval;
+        private final CompletableFuture<TaskResult> future = new CompletableFuture<>();
+        // accessed only by the status poller thread, except on cancel
+        private volatile long nextPollAt;
+        private volatile long pollInterval;
+        private DriverState driverState;
+        private int pollErrors;
+
+        SparkJob(Task task, SparkRestClient sparkRestClient, String submissionId,
+                 long minPollInterval, long maxPollInterval) {
+            this.task = task;
+            this.sparkRestClient = sparkRestClient;
+            this.submissionId = submissionId;
+            this.minPollInterval = minPollInterval;
+            this.maxPollInterval = maxPollInterval;
+            this.pollInterval = minPollInterval;
+            this.nextPollAt = submittedAt + minPollInterval;
         }
-        return TaskResult.SUCCESS;
     }
 }
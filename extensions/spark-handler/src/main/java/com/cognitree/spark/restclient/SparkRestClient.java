@@ -176,9 +176,8 @@ public class SparkRestClient {
         private boolean secure = false;
         private ClusterMode clusterMode = ClusterMode.spark;
 
-        private HttpClient client = HttpClientBuilder.create()
-                .setConnectionManager(new BasicHttpClientConnectionManager())
-                .build();
+        // defaults to a client with a single connection, created on build if not set
+        private HttpClient client;
 
         private SparkRestClientBuilder() {
         }
@@ -230,8 +229,9 @@ public class SparkRestClient {
                 throw new IllegalArgumentException("master host must be set.");
             }
             if (client == null) {
-                logger.error("HTTP client is not set");
-                throw new IllegalArgumentException("HTTP client cannot be null.");
+                client = HttpClientBuilder.create()
+                        .setConnectionManager(new BasicHttpClientConnectionManager())
+                        .build();
             }
             if (sparkVersion == null || sparkVersion.isEmpty()) {
                 logger.error("Spark client version is not set");
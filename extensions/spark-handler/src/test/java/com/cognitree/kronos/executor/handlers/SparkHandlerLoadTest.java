@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.executor.handlers;
+
+import com.cognitree.kronos.executor.ExecutorApp;
+import com.cognitree.kronos.executor.TaskExecutionService;
+import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.TaskId;
+import com.cognitree.kronos.model.TaskUpdate;
+import com.cognitree.kronos.queue.consumer.RAMConsumer;
+import com.cognitree.kronos.queue.producer.RAMProducer;
+import com.cognitree.spark.restclient.FakeSparkRestServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.cognitree.kronos.model.Task.Status.FAILED;
+import static com.cognitree.kronos.model.Task.Status.SCHEDULED;
+import static com.cognitree.kronos.model.Task.Status.SUCCESSFUL;
+import static com.cognitree.spark.restclient.model.JobStatusResponse.DriverState.FINISHED;
+import static com.cognitree.spark.restclient.model.JobStatusResponse.DriverState.KILLED;
+import static java.lang.Thread.sleep;
+
+/**
+ * runs simulated Spark tasks through the {@link TaskExecutionService} against a {@link FakeSparkRestServer}.
+ * <p>
+ * The load test is skipped unless the system property {@code benchmark} is set to true. The load can be tuned using
+ * the system properties {@code spark.loadtest.tasks}, {@code spark.loadtest.minDurationInMs},
+ * {@code spark.loadtest.maxDurationInMs} and {@code spark.loadtest.failureRate}, e.g.
+ * {@code mvn test -pl extensions/spark-handler -Dbenchmark=true -Dspark.loadtest.tasks=5000}.
+ * </p>
+ */
+public class SparkHandlerLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(SparkHandlerLoadTest.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String TASK_TYPE_SPARK = "spark";
+    private static final int TASKS = Integer.getInteger("spark.loadtest.tasks", 1000);
+    private static final long MIN_DURATION = Long.getLong("spark.loadtest.minDurationInMs", 200);
+    private static final long MAX_DURATION = Long.getLong("spark.loadtest.maxDurationInMs", 2000);
+    private static final double FAILURE_RATE = Double.parseDouble(System.getProperty("spark.loadtest.failureRate", "0.1"));
+    // status polls per task are bounded by the adaptive backoff irrespective of the number of tasks
+    private static final int MAX_STATUS_REQUESTS_PER_TASK = 5;
+
+    private static final RAMConsumer CONSUMER = new RAMConsumer();
+    private static final RAMProducer PRODUCER = new RAMProducer();
+    private static final FakeSparkRestServer SPARK_REST_SERVER =
+            new FakeSparkRestServer(MIN_DURATION, MAX_DURATION, FAILURE_RATE, 42);
+    private static final ExecutorApp EXECUTOR_APP = new ExecutorApp();
+    private static int sparkMasterPort;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        sparkMasterPort = SPARK_REST_SERVER.start();
+        EXECUTOR_APP.start();
+    }
+
+    @AfterClass
+    public static void stop() {
+        EXECUTOR_APP.stop();
+        SPARK_REST_SERVER.stop();
+    }
+
+    @Test
+    public void testSparkTasksUnderLoad() throws Exception {
+        Assume.assumeTrue("load test is run only if the system property benchmark is set to true",
+                Boolean.getBoolean("benchmark"));
+        final long statusRequestsBefore = SPARK_REST_SERVER.getStatusRequests();
+        final long finishedBefore = SPARK_REST_SERVER.getDriverCount(FINISHED);
+        final Map<TaskId, Task> tasksMap = new HashMap<>();
+        final long startedAt = System.currentTimeMillis();
+        for (int i = 0; i < TASKS; i++) {
+            final Task task = createTask(null, 60000);
+            tasksMap.put(task.getIdentity(), task);
+            PRODUCER.send(TASK_TYPE_SPARK, MAPPER.writeValueAsString(task));
+        }
+        waitForCompletion(tasksMap, startedAt + 60000 + TASKS * 50L);
+        final long elapsed = System.currentTimeMillis() - startedAt;
+
+        final long successful = tasksMap.values().stream().filter(task -> task.getStatus() == SUCCESSFUL).count();
+        final long failed = tasksMap.values().stream().filter(task -> task.getStatus() == FAILED).count();
+        final long statusRequests = SPARK_REST_SERVER.getStatusRequests() - statusRequestsBefore;
+        logger.info(String.format("Executed %d Spark tasks (%d successful, %d failed) in %d ms, %d status requests " +
+                        "(%.2f per task, %.1f per second)", TASKS, successful, failed, elapsed, statusRequests,
+                (double) statusRequests / TASKS, statusRequests * 1000.0 / elapsed));
+        Assert.assertEquals(TASKS, successful + failed);
+        Assert.assertEquals(SPARK_REST_SERVER.getDriverCount(FINISHED) - finishedBefore, successful);
+        Assert.assertTrue(statusRequests <= (long) TASKS * MAX_STATUS_REQUESTS_PER_TASK);
+    }
+
+    @Test
+    public void testKillOnMaxExecutionTime() throws Exception {
+        final long killedBefore = SPARK_REST_SERVER.getDriverCount(KILLED);
+        final Map<TaskId, Task> tasksMap = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            final Task task = createTask(60000L, 1500);
+            tasksMap.put(task.getIdentity(), task);
+            PRODUCER.send(TASK_TYPE_SPARK, MAPPER.writeValueAsString(task));
+        }
+        waitForCompletion(tasksMap, System.currentTimeMillis() + 30000);
+        for (Task task : tasksMap.values()) {
+            Assert.assertEquals(FAILED, task.getStatus());
+            Assert.assertEquals("Spark job exceeded max execution time", task.getStatusMessage());
+        }
+        Assert.assertEquals(5, SPARK_REST_SERVER.getDriverCount(KILLED) - killedBefore);
+    }
+
+    private Task createTask(Long durationInMs, long maxExecutionTimeInMs) {
+        final Map<String, Object> sparkProperties = new HashMap<>();
+        sparkProperties.put("spark.app.name", "load-test");
+        final Map<String, Object> submitRequest = new HashMap<>();
+        submitRequest.put("appResource", "file:/spark-examples.jar");
+        submitRequest.put("mainClass", "org.apache.spark.examples.SparkPi");
+        submitRequest.put("sparkProperties", sparkProperties);
+        if (durationInMs != null) {
+            submitRequest.put("environmentVariables",
+                    Collections.singletonMap(FakeSparkRestServer.DURATION_ENV_VARIABLE, durationInMs.toString()));
+        }
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("sparkVersion", "2.3.1");
+        properties.put("masterHost", "localhost");
+        properties.put("masterPort", sparkMasterPort);
+        properties.put("clusterMode", "spark");
+        properties.put("submitRequest", submitRequest);
+
+        final Task task = new Task();
+        task.setName(UUID.randomUUID().toString());
+        task.setJob(UUID.randomUUID().toString());
+        task.setWorkflow("workflow");
+        task.setNamespace("namespace");
+        task.setType(TASK_TYPE_SPARK);
+        task.setMaxExecutionTimeInMs(maxExecutionTimeInMs);
+        task.setProperties(properties);
+        task.setStatus(SCHEDULED);
+        task.setCreatedAt(System.currentTimeMillis());
+        return task;
+    }
+
+    private void waitForCompletion(Map<TaskId, Task> tasksMap, long deadline) throws Exception {
+        while (System.currentTimeMillis() < deadline) {
+            consumeTaskStatus(tasksMap);
+            if (tasksMap.values().stream().allMatch(task -> task.getStatus().isFinal())) {
+                return;
+            }
+            sleep(100);
+        }
+        Assert.fail("Spark tasks did not complete in time");
+    }
+
+    private void consumeTaskStatus(Map<TaskId, Task> tasksMap) throws IOException {
+        for (String taskStatus : CONSUMER.poll("taskstatus")) {
+            final TaskUpdate taskUpdate = MAPPER.readValue(taskStatus, TaskUpdate.class);
+            final Task task = tasksMap.get(taskUpdate.getTaskId());
+            if (task == null) {
+                // status update of the tasks submitted by other tests
+                continue;
+            }
+            task.setStatus(taskUpdate.getStatus());
+            task.setStatusMessage(taskUpdate.getStatusMessage());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.spark.restclient;
+
+import com.cognitree.spark.restclient.model.JobStatusResponse.DriverState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An embeddable stand-in for the REST server of a Spark standalone master implementing the submit, status and kill
+ * endpoints used by the {@link SparkRestClient}.
+ * <p>
+ * A submitted driver stays in state SUBMITTED for the first tenth of its duration, RUNNING till its duration elapses
+ * and then moves to FINISHED, or FAILED as per the configured failure rate. The duration of a driver is picked
+ * uniformly between the configured min and max duration and can be overridden per submission by setting the
+ * environment variable {@value #DURATION_ENV_VARIABLE} in the submit request.
+ * </p>
+ */
+public class FakeSparkRestServer {
+    public static final String DURATION_ENV_VARIABLE = "FAKE_SPARK_DRIVER_DURATION_MS";
+    private static final String SERVER_SPARK_VERSION = "2.3.1";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final long minDurationInMs;
+    private final long maxDurationInMs;
+    private final double failureRate;
+    private final Random random;
+    private final Map<String, FakeDriver> submissionIdToDriverMap = new ConcurrentHashMap<>();
+    private final AtomicLong submissionCounter = new AtomicLong();
+    private final AtomicLong submitRequests = new AtomicLong();
+    private final AtomicLong statusRequests = new AtomicLong();
+    private final AtomicLong killRequests = new AtomicLong();
+    private HttpServer httpServer;
+    private ExecutorService httpServerThreadPool;
+
+    /**
+     * @param minDurationInMs min duration of a driver
+     * @param maxDurationInMs max duration of a driver
+     * @param failureRate     fraction of the drivers to fail, between 0 and 1
+     * @param seed            seed used to pick the duration and the final state of the drivers
+     */
+    public FakeSparkRestServer(long minDurationInMs, long maxDurationInMs, double failureRate, long seed) {
+        this.minDurationInMs = minDurationInMs;
+        this.maxDurationInMs = maxDurationInMs;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * starts the server on an ephemeral port on the loopback address.
+     *
+     * @return port the server is listening on
+     */
+    public int start() throws IOException {
+        // responses are written as separate header and body writes, avoid the delayed ack stall on keep-alive
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/v1/submissions/create", this::submit);
+        httpServer.createContext("/v1/submissions/status/", this::status);
+        httpServer.createContext("/v1/submissions/kill/", this::kill);
+        httpServerThreadPool = Executors.newFixedThreadPool(8);
+        httpServer.setExecutor(httpServerThreadPool);
+        httpServer.start();
+        return httpServer.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServerThreadPool.shutdownNow();
+        }
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        submitRequests.incrementAndGet();
+        final JsonNode submitRequest = MAPPER.readTree(exchange.getRequestBody());
+        final JsonNode durationOverride = submitRequest.path("environmentVariables").path(DURATION_ENV_VARIABLE);
+        final long durationInMs;
+        final boolean failed;
+        synchronized (random) {
+            durationInMs = durationOverride.isMissingNode() ? minDurationInMs +
+                    (long) (random.nextDouble() * (maxDurationInMs - minDurationInMs)) : durationOverride.asLong();
+            failed = random.nextDouble() < failureRate;
+        }
+        final String submissionId = "driver-" + submissionCounter.incrementAndGet();
+        submissionIdToDriverMap.put(submissionId, new FakeDriver(durationInMs, failed));
+        final ObjectNode response = createResponse("CreateSubmissionResponse", submissionId, true);
+        response.put("message", "Driver successfully submitted as " + submissionId);
+        send(exchange, response);
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        statusRequests.incrementAndGet();
+        final String submissionId = getSubmissionId(exchange);
+        final FakeDriver fakeDriver = submissionIdToDriverMap.get(submissionId);
+        final ObjectNode response = createResponse("SubmissionStatusResponse", submissionId, fakeDriver != null);
+        if (fakeDriver != null) {
+            response.put("driverState", fakeDriver.getState().name());
+        }
+        send(exchange, response);
+    }
+
+    private void kill(HttpExchange exchange) throws IOException {
+        killRequests.incrementAndGet();
+        final String submissionId = getSubmissionId(exchange);
+        final FakeDriver fakeDriver = submissionIdToDriverMap.get(submissionId);
+        final boolean killed = fakeDriver != null && fakeDriver.kill();
+        final ObjectNode response = createResponse("KillSubmissionResponse", submissionId, killed);
+        response.put("message", killed ? "Kill request for " + submissionId + " submitted" :
+                "Driver " + submissionId + " has already finished or does not exist");
+        send(exchange, response);
+    }
+
+    private String getSubmissionId(HttpExchange exchange) {
+        final String path = exchange.getRequestURI().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private ObjectNode createResponse(String action, String submissionId, boolean success) {
+        final ObjectNode response = MAPPER.createObjectNode();
+        response.put("action", action);
+        response.put("serverSparkVersion", SERVER_SPARK_VERSION);
+        response.put("submissionId", submissionId);
+        response.put("success", success);
+        return response;
+    }
+
+    private void send(HttpExchange exchange, ObjectNode response) throws IOException {
+        final byte[] responseBytes = MAPPER.writeValueAsString(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, responseBytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(responseBytes);
+        }
+    }
+
+    public long getSubmitRequests() {
+        return submitRequests.get();
+    }
+
+    public long getStatusRequests() {
+        return statusRequests.get();
+    }
+
+    public long getKillRequests() {
+        return killRequests.get();
+    }
+
+    /**
+     * @return number of drivers currently in the given state
+     */
+    public long getDriverCount(DriverState driverState) {
+        return submissionIdToDriverMap.values().stream()
+                .filter(fakeDriver -> fakeDriver.getState() == driverState).count();
+    }
+
+    private static final class FakeDriver {
+        private final long submittedAt = System.currentTimeMillis();
+        private final long durationInMs;
+        private final boolean failed;
+        private volatile boolean killed;
+
+        FakeDriver(long durationInMs, boolean failed) {
+            this.durationInMs = durationInMs;
+            this.failed = failed;
+        }
+
+        synchronized boolean kill() {
+            if (getState().isFinal()) {
+                return false;
+            }
+            killed = true;
+            return true;
+        }
+
+        DriverState getState() {
+            if (killed) {
+                return DriverState.KILLED;
+            }
+            final long elapsed = System.currentTimeMillis() - submittedAt;
+            if (elapsed < durationInMs / 10) {
+                return DriverState.SUBMITTED;
+            }
+            if (elapsed < durationInMs) {
+                return DriverState.RUNNING;
+            }
+            return failed ? DriverState.FAILED : DriverState.FINISHED;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.scheduler;
+
+import com.cognitree.kronos.Service;
+import com.cognitree.kronos.ServiceProvider;
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.queue.QueueConfig;
+import com.cognitree.kronos.queue.codec.MessageCodecs;
+import com.cognitree.kronos.queue.consumer.Consumer;
+import com.cognitree.kronos.queue.consumer.ConsumerConfig;
+import com.cognitree.kronos.queue.producer.Producer;
+import com.cognitree.kronos.queue.producer.ProducerConfig;
+import com.cognitree.kronos.scheduler.store.DeadLetterStore;
+import com.cognitree.kronos.scheduler.store.StoreException;
+import com.cognitree.kronos.scheduler.store.StoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A dead letter service collects the messages the scheduler and executors could not consume from the dead letter
+ * queue ({@link QueueConfig#getDeadLetterQueue()}) and lets them be inspected and replayed to the topic they were
+ * consumed from once the cause is fixed.
+ * <p>
+ * Dead letters are persisted in the {@link DeadLetterStore} and kept until replayed or discarded, while the count of
+ * dead letters received from each topic covers all of them received since start.
+ * </p>
+ */
+public class DeadLetterService implements Service {
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+
+    private final ProducerConfig producerConfig;
+    private final ConsumerConfig consumerConfig;
+    private final String deadLetterQueue;
+    private final Map<String, AtomicLong> topicToDeadLetterCount = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+    // dead letters received but yet to be stored, in the order received
+    private final List<DeadLetter> unstoredDeadLetters = new ArrayList<>();
+    private DeadLetterStore deadLetterStore;
+    private Producer producer;
+    private Consumer consumer;
+
+    public DeadLetterService(QueueConfig queueConfig) {
+        this.producerConfig = queueConfig.getProducerConfig();
+        this.consumerConfig = queueConfig.getConsumerConfig();
+        this.deadLetterQueue = queueConfig.getDeadLetterQueue();
+    }
+
+    public static DeadLetterService getService() {
+        return (DeadLetterService) ServiceProvider.getService(DeadLetterService.class.getSimpleName());
+    }
+
+    @Override
+    public void init() throws Exception {
+        logger.info("Initializing dead letter service");
+        if (deadLetterQueue == null) {
+            logger.info("No dead letter queue configured, messages which could not be consumed are only logged");
+            return;
+        }
+        producer = (Producer) Class.forName(producerConfig.getProducerClass())
+                .getConstructor()
+                .newInstance();
+        producer.init(producerConfig.getConfig());
+        consumer = (Consumer) Class.forName(consumerConfig.getConsumerClass())
+                .getConstructor()
+                .newInstance();
+        consumer.init(consumerConfig.getConfig());
+    }
+
+    @Override
+    public void start() {
+        logger.info("Starting dead letter service");
+        StoreService storeService = (StoreService) ServiceProvider.getService(StoreService.class.getSimpleName());
+        deadLetterStore = storeService.getDeadLetterStore();
+        if (deadLetterQueue != null) {
+            final long pollInterval = consumerConfig.getPollIntervalInMs();
+            scheduledExecutorService.scheduleAtFixedRate(this::consumeDeadLetters, pollInterval, pollInterval,
+                    MILLISECONDS);
+        }
+        ServiceProvider.registerService(this);
+    }
+
+    /**
+     * stores the dead letters received from the dead letter queue. The queue is not polled again until all the dead
+     * letters received are stored, as polling again hands over the dead letters polled before, the ones which could
+     * not be stored are retried on the next run instead.
+     */
+    private void consumeDeadLetters() {
+        if (!storeDeadLetters()) {
+            return;
+        }
+        final List<DeadLetter> received = consumer.poll(deadLetterQueue, Integer.MAX_VALUE, DeadLetter.class,
+                deadLetter -> logger.error("Error parsing dead letter {}: {}",
+                        deadLetter.getPayload(), deadLetter.getError()));
+        for (DeadLetter deadLetter : received) {
+            logger.debug("Received dead letter {}", deadLetter);
+            topicToDeadLetterCount.computeIfAbsent(deadLetter.getTopic(), topic -> new AtomicLong()).incrementAndGet();
+        }
+        unstoredDeadLetters.addAll(received);
+        storeDeadLetters();
+    }
+
+    /**
+     * @return true if all the dead letters received are stored
+     */
+    private boolean storeDeadLetters() {
+        final Iterator<DeadLetter> iterator = unstoredDeadLetters.iterator();
+        while (iterator.hasNext()) {
+            final DeadLetter deadLetter = iterator.next();
+            try {
+                deadLetterStore.store(deadLetter);
+                iterator.remove();
+            } catch (StoreException e) {
+                logger.error("Error storing dead letter {}, will be retried", deadLetter, e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param topic topic the messages were consumed from, all dead letters are returned if null
+     * @return dead letters in the order received
+     */
+    public List<DeadLetter> get(String topic) throws ServiceException {
+        try {
+            return deadLetterStore.loadByTopic(topic);
+        } catch (StoreException e) {
+            logger.error("unable to get dead letters of topic {}", topic, e);
+            throw new ServiceException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of dead letters received since start by the topic the messages were consumed from
+     */
+    public Map<String, Long> getCounts() {
+        final Map<String, Long> counts = new HashMap<>();
+        topicToDeadLetterCount.forEach((topic, count) -> counts.put(topic, count.get()));
+        return counts;
+    }
+
+    /**
+     * discards the dead letter
+     *
+     * @param id id of the dead letter
+     * @return the dead letter discarded, null if no such dead letter exists
+     */
+    public synchronized DeadLetter delete(String id) throws ServiceException {
+        try {
+            final DeadLetter deadLetter = deadLetterStore.load(id);
+            if (deadLetter != null) {
+                deadLetterStore.delete(id);
+            }
+            return deadLetter;
+        } catch (StoreException e) {
+            logger.error("unable to delete dead letter with id {}", id, e);
+            throw new ServiceException(e.getMessage());
+        }
+    }
+
+    /**
+     * sends the payload of the dead letter back to the topic it was consumed from and discards the dead letter.
+     *
+     * @param id id of the dead letter
+     * @return the dead letter replayed, null if no such dead letter exists or it could not be replayed
+     */
+    public synchronized DeadLetter replay(String id) throws ServiceException {
+        try {
+            final DeadLetter deadLetter = deadLetterStore.load(id);
+            if (deadLetter == null || !send(deadLetter)) {
+                return null;
+            }
+            deadLetterStore.delete(id);
+            return deadLetter;
+        } catch (StoreException e) {
+            logger.error("unable to replay dead letter with id {}", id, e);
+            throw new ServiceException(e.getMessage());
+        }
+    }
+
+    /**
+     * sends the payload of all the dead letters of the topic back to the topic and discards them. Dead letters
+     * which could not be replayed are kept.
+     *
+     * @param topic topic the messages were consumed from, all dead letters are replayed if null
+     * @return dead letters replayed
+     */
+    public synchronized List<DeadLetter> replayAll(String topic) throws ServiceException {
+        try {
+            final List<DeadLetter> replayed = new ArrayList<>();
+            for (DeadLetter deadLetter : deadLetterStore.loadByTopic(topic)) {
+                if (send(deadLetter)) {
+                    deadLetterStore.delete(deadLetter.getId());
+                    replayed.add(deadLetter);
+                }
+            }
+            return replayed;
+        } catch (StoreException e) {
+            logger.error("unable to replay dead letters of topic {}", topic, e);
+            throw new ServiceException(e.getMessage());
+        }
+    }
+
+    /**
+     * sends the payload as is, encoded with the codec it was received with. The payload is not decoded as the dead
+     * letter is often a record which could not be decoded in the first place.
+     */
+    private boolean send(DeadLetter deadLetter) {
+        logger.info("Replaying dead letter {} to topic {}", deadLetter.getId(), deadLetter.getTopic());
+        try {
+            if (MessageCodecs.JSON.equals(deadLetter.getCodec())) {
+                producer.send(deadLetter.getTopic(), deadLetter.getPayload());
+            } else {
+                producer.send(deadLetter.getTopic(), deadLetter.getCodec(),
+                        Base64.getDecoder().decode(deadLetter.getPayload()));
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Error replaying dead letter {} to topic {}", deadLetter.getId(), deadLetter.getTopic(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void stop() {
+        logger.info("Stopping dead letter service");
+        if (consumer != null) {
+            consumer.close();
+        }
+        try {
+            scheduledExecutorService.shutdown();
+            scheduledExecutorService.awaitTermination(10, SECONDS);
+        } catch (InterruptedException e) {
+            logger.error("Error stopping thread pool", e);
+        }
+        if (producer != null) {
+            producer.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.scheduler;
+
+import com.cognitree.kronos.model.ExecutorHeartbeat;
+import com.cognitree.kronos.model.TaskId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Executor lease manager tracks the tasks held by each executor as advertised in its heartbeats.
+ * <p>
+ * Each heartbeat renews the lease of the executor over the tasks listed in it. An executor not sending
+ * a heartbeat within the lease timeout is considered lost and the tasks it was holding are released. The tasks are
+ * also released if the executor restarts within the lease timeout, which is known from the change of incarnation id
+ * in its heartbeat, as the restarted executor no longer holds them.
+ * </p>
+ * <p>
+ * The capacity advertised by all the executors holding a lease is used by the scheduler to limit the number
+ * of tasks dispatched to the queue.
+ * </p>
+ */
+final class ExecutorLeaseManager {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorLeaseManager.class);
+
+    private final long leaseTimeoutInMs;
+    // source of the local time of the scheduler in millisecond
+    private final LongSupplier clock;
+    private final Map<String, ExecutorLease> executorIdToLeaseMap = new HashMap<>();
+    // tasks held by executors which have restarted, released on the next call to expire
+    private final List<TaskId> releasedTasks = new ArrayList<>();
+
+    ExecutorLeaseManager(long leaseTimeoutInMs) {
+        this(leaseTimeoutInMs, System::currentTimeMillis);
+    }
+
+    // used in junit
+    ExecutorLeaseManager(long leaseTimeoutInMs, LongSupplier clock) {
+        this.leaseTimeoutInMs = leaseTimeoutInMs;
+        this.clock = clock;
+    }
+
+    /**
+     * renews the lease of the executor sending the heartbeat, the lease is renewed using the local time
+     * of the scheduler to be immune to clock skew across executors.
+     *
+     * @param heartbeat heartbeat received from the executor
+     */
+    synchronized void renew(ExecutorHeartbeat heartbeat) {
+        final ExecutorLease lease = executorIdToLeaseMap.get(heartbeat.getExecutorId());
+        if (lease == null) {
+            logger.info("Received first heartbeat from executor {}", heartbeat.getExecutorId());
+            executorIdToLeaseMap.put(heartbeat.getExecutorId(), new ExecutorLease(heartbeat.getIncarnationId(),
+                    heartbeat.getTasks(), heartbeat.getCapacity(), clock.getAsLong()));
+        } else if (lease.incarnationId != null && !lease.incarnationId.equals(heartbeat.getIncarnationId())) {
+            logger.warn("Executor {} has restarted, releasing the tasks held by its previous incarnation {}",
+                    heartbeat.getExecutorId(), lease.incarnationId);
+            releasedTasks.addAll(lease.tasks);
+            executorIdToLeaseMap.put(heartbeat.getExecutorId(), new ExecutorLease(heartbeat.getIncarnationId(),
+                    heartbeat.getTasks(), heartbeat.getCapacity(), clock.getAsLong()));
+        } else {
+            lease.renew(heartbeat.getTasks(), heartbeat.getCapacity(), clock.getAsLong());
+        }
+    }
+
+    /**
+     * adds the task to the tasks held by the executor ahead of its next heartbeat, e.g. on receiving an update of the
+     * task from the executor. The task is ignored if the executor does not hold a lease.
+     *
+     * @param taskId     id of the task
+     * @param executorId id of the executor holding the task
+     */
+    synchronized void assign(TaskId taskId, String executorId) {
+        final ExecutorLease lease = executorIdToLeaseMap.get(executorId);
+        if (lease == null || lease.tasks.contains(taskId)) {
+            return;
+        }
+        final List<TaskId> tasks = new ArrayList<>(lease.tasks);
+        tasks.add(taskId);
+        lease.tasks = tasks;
+    }
+
+    /**
+     * removes the leases of all executors which have not sent a heartbeat within the lease timeout.
+     *
+     * @return tasks held by the executors whose lease has expired or by the previous incarnation of the executors
+     * which have restarted
+     */
+    synchronized List<TaskId> expire() {
+        final List<TaskId> tasks = new ArrayList<>(releasedTasks);
+        releasedTasks.clear();
+        final long expiryTimestamp = clock.getAsLong() - leaseTimeoutInMs;
+        final Iterator<Map.Entry<String, ExecutorLease>> iterator = executorIdToLeaseMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, ExecutorLease> executorLeaseEntry = iterator.next();
+            final ExecutorLease lease = executorLeaseEntry.getValue();
+            if (lease.renewedAt < expiryTimestamp) {
+                logger.warn("Lease of executor {} has expired, last heartbeat received at {}",
+                        executorLeaseEntry.getKey(), lease.renewedAt);
+                tasks.addAll(lease.tasks);
+                iterator.remove();
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * @return aggregate capacity advertised by all the executors holding a lease, keyed by task type
+     */
+    synchronized Map<String, Integer> getCapacity() {
+        final Map<String, Integer> taskTypeToCapacity = new HashMap<>();
+        executorIdToLeaseMap.values().forEach(lease ->
+                lease.capacity.forEach((taskType, slots) -> taskTypeToCapacity.merge(taskType, slots, Integer::sum)));
+        return taskTypeToCapacity;
+    }
+
+    /**
+     * @param taskId id of the task
+     * @return id of the executor holding the task as per its last heartbeat or null if the task is not held by
+     * any executor
+     */
+    synchronized String getExecutor(TaskId taskId) {
+        for (Map.Entry<String, ExecutorLease> executorLeaseEntry : executorIdToLeaseMap.entrySet()) {
+            if (executorLeaseEntry.getValue().tasks.contains(taskId)) {
+                return executorLeaseEntry.getKey();
+            }
+        }
+        return null;
+    }
+
+    // used in junit
+    synchronized boolean isAlive(String executorId) {
+        return executorIdToLeaseMap.containsKey(executorId);
+    }
+
+    private static final class ExecutorLease {
+        // null for executors not advertising an incarnation id
+        private final String incarnationId;
+        private long renewedAt;
+        private List<TaskId> tasks;
+        private Map<String, Integer> capacity;
+
+        ExecutorLease(String incarnationId, List<TaskId> tasks, Map<String, Integer> capacity, long renewedAt) {
+            this.incarnationId = incarnationId;
+            renew(tasks, capacity, renewedAt);
+        }
+
+        void renew(List<TaskId> tasks, Map<String, Integer> capacity, long renewedAt) {
+            this.renewedAt = renewedAt;
+            this.tasks = tasks != null ? tasks : Collections.emptyList();
+            this.capacity = capacity != null ? capacity : Collections.emptyMap();
+        }
+    }
+}
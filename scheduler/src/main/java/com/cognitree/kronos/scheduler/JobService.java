@@ -290,6 +290,28 @@ public class JobService implements Service {
         }
     }
 
+    /**
+     * aborts a running job, all the tasks of the job yet to complete are marked as failed and the tasks
+     * being executed are cancelled.
+     *
+     * @param jobId id of the job to abort
+     * @throws ServiceException
+     * @throws ValidationException
+     */
+    public void abort(JobId jobId) throws ServiceException, ValidationException {
+        logger.debug("Received request to abort job {}", jobId);
+        validateWorkflow(jobId.getNamespace(), jobId.getWorkflow());
+        final Job job = get(jobId);
+        if (job == null) {
+            throw JOB_NOT_FOUND.createException(jobId.getId(), jobId.getWorkflow(), jobId.getNamespace());
+        }
+        if (job.getStatus() != null && job.getStatus().isFinal()) {
+            logger.info("Job {} is already in final state {}, ignoring request to abort", jobId, job.getStatus());
+            return;
+        }
+        TaskSchedulerService.getService().abort(jobId);
+    }
+
     private void notifyListeners(Job job, Job.Status from, Job.Status to) {
         statusChangeListeners.forEach(listener -> {
             try {
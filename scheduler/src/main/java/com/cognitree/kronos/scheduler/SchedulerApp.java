@@ -68,7 +68,8 @@ public class SchedulerApp {
         WorkflowTriggerService workflowTriggerService = new WorkflowTriggerService();
         MailService mailService = new MailService(schedulerConfig.getMailConfig());
         WorkflowSchedulerService workflowSchedulerService = new WorkflowSchedulerService();
-        TaskSchedulerService taskSchedulerService = new TaskSchedulerService(queueConfig);
+        TaskSchedulerService taskSchedulerService = new TaskSchedulerService(schedulerConfig, queueConfig);
+        DeadLetterService deadLetterService = new DeadLetterService(queueConfig);
 
         logger.info("Initializing scheduler app");
         // initialize all service
@@ -81,6 +82,7 @@ public class SchedulerApp {
         mailService.init();
         workflowSchedulerService.init();
         taskSchedulerService.init();
+        deadLetterService.init();
 
         logger.info("Starting scheduler app");
         // start all service
@@ -93,11 +95,15 @@ public class SchedulerApp {
         mailService.start();
         workflowSchedulerService.start();
         taskSchedulerService.start();
+        deadLetterService.start();
     }
 
     public void stop() {
         logger.info("Stopping scheduler app");
         // stop services in the reverse order
+        if (DeadLetterService.getService() != null) {
+            DeadLetterService.getService().stop();
+        }
         if (WorkflowSchedulerService.getService() != null) {
             WorkflowSchedulerService.getService().stop();
         }
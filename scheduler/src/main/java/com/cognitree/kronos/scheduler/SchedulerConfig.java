@@ -21,6 +21,7 @@ import com.cognitree.kronos.scheduler.store.StoreService;
 import com.cognitree.kronos.scheduler.store.StoreServiceConfig;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * defines configurations for scheduler.
@@ -38,6 +39,19 @@ public class SchedulerConfig {
      */
     private MailConfig mailConfig;
 
+    /**
+     * time duration in millisecond after which an executor not sending heartbeats is considered lost and
+     * the tasks it was holding are marked as failed, defaults to 15000ms.
+     */
+    private long executorLeaseTimeoutInMs = TimeUnit.SECONDS.toMillis(15);
+
+    /**
+     * time duration in millisecond a task ready for execution waits for an executor to advertise capacity for its
+     * task type, and affinity label if any, before it is marked as failed, defaults to 300000ms. Applies only if
+     * executor heartbeats are enabled.
+     */
+    private long executorWaitTimeoutInMs = TimeUnit.MINUTES.toMillis(5);
+
     public StoreServiceConfig getStoreServiceConfig() {
         return storeServiceConfig;
     }
@@ -54,19 +68,37 @@ public class SchedulerConfig {
         this.mailConfig = mailConfig;
     }
 
+    public long getExecutorLeaseTimeoutInMs() {
+        return executorLeaseTimeoutInMs;
+    }
+
+    public void setExecutorLeaseTimeoutInMs(long executorLeaseTimeoutInMs) {
+        this.executorLeaseTimeoutInMs = executorLeaseTimeoutInMs;
+    }
+
+    public long getExecutorWaitTimeoutInMs() {
+        return executorWaitTimeoutInMs;
+    }
+
+    public void setExecutorWaitTimeoutInMs(long executorWaitTimeoutInMs) {
+        this.executorWaitTimeoutInMs = executorWaitTimeoutInMs;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof SchedulerConfig)) return false;
         SchedulerConfig that = (SchedulerConfig) o;
-        return Objects.equals(storeServiceConfig, that.storeServiceConfig) &&
+        return executorLeaseTimeoutInMs == that.executorLeaseTimeoutInMs &&
+                executorWaitTimeoutInMs == that.executorWaitTimeoutInMs &&
+                Objects.equals(storeServiceConfig, that.storeServiceConfig) &&
                 Objects.equals(mailConfig, that.mailConfig);
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(storeServiceConfig, mailConfig);
+        return Objects.hash(storeServiceConfig, mailConfig, executorLeaseTimeoutInMs, executorWaitTimeoutInMs);
     }
 
     @Override
@@ -74,6 +106,8 @@ public class SchedulerConfig {
         return "SchedulerConfig{" +
                 "storeServiceConfig=" + storeServiceConfig +
                 ", mailConfig=" + mailConfig +
+                ", executorLeaseTimeoutInMs=" + executorLeaseTimeoutInMs +
+                ", executorWaitTimeoutInMs=" + executorWaitTimeoutInMs +
                 '}';
     }
 }
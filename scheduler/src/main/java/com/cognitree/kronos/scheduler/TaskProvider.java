@@ -28,9 +28,11 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -48,14 +50,46 @@ import static com.cognitree.kronos.model.Task.Status.WAITING;
  * ready-to-execute state.
  * <p>
  * Internally, task provider is backed by a directed acyclic graph to manage dependencies across these tasks.
+ * <p>
+ * Tasks are indexed by id and the shards of a sharded task by the name of the task they are expanded from, so that
+ * resolving a dependency on a task with a large number of shards does not scan the graph for each shard.
  */
 final class TaskProvider {
     private static final Logger logger = LoggerFactory.getLogger(TaskProvider.class);
 
     private final MutableGraph<Task> graph = GraphBuilder.directed().build();
+    private final Map<TaskId, Task> taskIdToTaskMap = new HashMap<>();
+    // shards keyed by the id of the sharded task they are expanded from
+    private final Map<TaskId, List<Task>> taskIdToShardsMap = new HashMap<>();
 
     synchronized boolean add(Task task) {
-        return graph.addNode(task);
+        final boolean isAdded = graph.addNode(task);
+        if (isAdded) {
+            taskIdToTaskMap.put(task.getIdentity(), task);
+            if (task.getShardOf() != null) {
+                taskIdToShardsMap.computeIfAbsent(getShardOfId(task), taskId -> new ArrayList<>()).add(task);
+            }
+        }
+        return isAdded;
+    }
+
+    private TaskId getShardOfId(Task task) {
+        return TaskId.build(task.getNamespace(), task.getShardOf(), task.getJob(), task.getWorkflow());
+    }
+
+    private void remove(Task task) {
+        graph.removeNode(task);
+        taskIdToTaskMap.remove(task.getIdentity());
+        if (task.getShardOf() != null) {
+            final TaskId shardOfId = getShardOfId(task);
+            final List<Task> shards = taskIdToShardsMap.get(shardOfId);
+            if (shards != null) {
+                shards.remove(task);
+                if (shards.isEmpty()) {
+                    taskIdToShardsMap.remove(shardOfId);
+                }
+            }
+        }
     }
 
     /**
@@ -71,17 +105,18 @@ final class TaskProvider {
             for (String dependentTaskName : dependsOn) {
                 TaskId dependentTaskId = TaskId.build(task.getNamespace(), dependentTaskName, task.getJob(),
                         task.getWorkflow());
-                Task dependentTask = getTask(dependentTaskId);
-                if (dependentTask == null) {
+                final List<Task> tasks = getTaskOrShards(dependentTaskId);
+                if (tasks.isEmpty()) {
                     logger.error("No dependent task with id {} not found", dependentTaskId);
                     return false;
                 }
-
-                if (dependentTask.getStatus() == FAILED) {
-                    logger.error("Dependent task with id {} is in failed state", dependentTaskId);
-                    return false;
+                for (Task dependentTask : tasks) {
+                    if (dependentTask.getStatus() == FAILED) {
+                        logger.error("Dependent task with id {} is in failed state", dependentTask.getIdentity());
+                        return false;
+                    }
+                    dependentTasks.add(dependentTask);
                 }
-                dependentTasks.add(dependentTask);
             }
             dependentTasks.forEach(dependentTask -> addDependency(dependentTask, task));
         }
@@ -89,12 +124,19 @@ final class TaskProvider {
     }
 
     synchronized Task getTask(TaskId taskId) {
-        for (Task task : graph.nodes()) {
-            if (task.getIdentity().equals(taskId)) {
-                return task;
-            }
+        return taskIdToTaskMap.get(taskId);
+    }
+
+    /**
+     * @return the task with the given id or all of its shards if the task is sharded, empty if none found
+     */
+    synchronized List<Task> getTaskOrShards(TaskId taskId) {
+        final Task task = taskIdToTaskMap.get(taskId);
+        if (task != null) {
+            return Collections.singletonList(task);
         }
-        return null;
+        final List<Task> shards = taskIdToShardsMap.get(taskId);
+        return shards == null ? Collections.emptyList() : new ArrayList<>(shards);
     }
 
     /**
@@ -120,6 +162,14 @@ final class TaskProvider {
         return new ArrayList<>(graph.successors(task));
     }
 
+    /**
+     * @return shards of the task with the given id in the order they are added, empty if the task is not sharded
+     */
+    synchronized List<Task> getShards(TaskId taskId) {
+        final List<Task> shards = taskIdToShardsMap.get(taskId);
+        return shards == null ? Collections.emptyList() : new ArrayList<>(shards);
+    }
+
     @SafeVarargs
     synchronized final List<Task> getTasks(List<Status> statuses, Predicate<Task>... predicates) {
         final Predicate<Task> statusPredicate = task -> statuses.contains(task.getStatus());
@@ -162,7 +212,7 @@ final class TaskProvider {
         }
 
         logger.debug("Cleaning up tasks from memory {}", tasksToDelete);
-        tasksToDelete.forEach(graph::removeNode);
+        tasksToDelete.forEach(this::remove);
     }
 
     /**
@@ -19,37 +19,56 @@ package com.cognitree.kronos.scheduler;
 
 import com.cognitree.kronos.Service;
 import com.cognitree.kronos.ServiceProvider;
+import com.cognitree.kronos.model.ControlMessage;
+import com.cognitree.kronos.model.ExecutorHeartbeat;
 import com.cognitree.kronos.model.Task;
 import com.cognitree.kronos.model.Task.Status;
 import com.cognitree.kronos.model.TaskId;
 import com.cognitree.kronos.model.TaskUpdate;
 import com.cognitree.kronos.queue.QueueConfig;
+import com.cognitree.kronos.queue.QueueMetrics;
 import com.cognitree.kronos.queue.consumer.Consumer;
 import com.cognitree.kronos.queue.consumer.ConsumerConfig;
+import com.cognitree.kronos.queue.consumer.QueueDeadLetterHandler;
 import com.cognitree.kronos.queue.producer.Producer;
 import com.cognitree.kronos.queue.producer.ProducerConfig;
+import com.cognitree.kronos.scheduler.model.JobId;
 import com.cognitree.kronos.scheduler.model.Namespace;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cognitree.kronos.scheduler.store.StoreException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 
+import static com.cognitree.kronos.model.ControlMessage.Action.CANCEL;
 import static com.cognitree.kronos.model.Task.Status.CREATED;
 import static com.cognitree.kronos.model.Task.Status.FAILED;
+import static com.cognitree.kronos.model.Task.Status.RUNNING;
 import static com.cognitree.kronos.model.Task.Status.SCHEDULED;
+import static com.cognitree.kronos.model.Task.Status.SUBMITTED;
+import static com.cognitree.kronos.model.Task.Status.SUCCESSFUL;
 import static com.cognitree.kronos.model.Task.Status.WAITING;
+import static com.cognitree.kronos.scheduler.model.Messages.ABORTED;
+import static com.cognitree.kronos.scheduler.model.Messages.EXECUTOR_LOST;
 import static com.cognitree.kronos.scheduler.model.Messages.FAILED_TO_RESOLVE_DEPENDENCY;
+import static com.cognitree.kronos.scheduler.model.Messages.INVALID_SHARDS_FROM;
+import static com.cognitree.kronos.scheduler.model.Messages.MAP_TASK_FAILED;
+import static com.cognitree.kronos.scheduler.model.Messages.NO_EXECUTOR_AVAILABLE;
+import static com.cognitree.kronos.scheduler.model.Messages.SHARD_FAILED;
 import static com.cognitree.kronos.scheduler.model.Messages.TASK_SUBMISSION_FAILED;
 import static com.cognitree.kronos.scheduler.model.Messages.TIMED_OUT;
 import static java.util.Comparator.comparing;
@@ -64,15 +83,21 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * A task scheduler service acts as an producer of task to the queue and consumer of task status
  * from the queue
  * </p>
+ * <p>
+ * A map task, a task with the property {@link Task#PROP_SHARDS_FROM}, is not submitted to the queue. Once ready, it
+ * is expanded into one shard per element of the list it refers to in the context of a dependent task and completes
+ * once all of its shards complete, acting as the join for the tasks depending on it.
+ * </p>
  */
 public final class TaskSchedulerService implements Service {
     private static final Logger logger = LoggerFactory.getLogger(TaskSchedulerService.class);
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
     // Periodically, tasks older than the specified interval and status of workflow (job)
     // it belongs to in one of the final state are purged from memory to prevent the system from going OOM.
     // task purge interval in hour
     private static final int TASK_PURGE_INTERVAL = 1;
+    // interval in millisecond at which executor leases are checked for expiry
+    private static final long EXECUTOR_LEASE_CHECK_INTERVAL = SECONDS.toMillis(1);
     private static final List<Status> NON_FINAL_TASK_STATUS_LIST = new ArrayList<>();
 
     static {
@@ -86,18 +111,40 @@ public final class TaskSchedulerService implements Service {
     private final ProducerConfig producerConfig;
     private final ConsumerConfig consumerConfig;
     private final String statusQueue;
+    private final String heartbeatQueue;
+    private final String controlQueue;
+    private final String deadLetterQueue;
+    private final ExecutorLeaseManager executorLeaseManager;
+    private final TaskUpdateTracker taskUpdateTracker;
     private final Map<String, ScheduledFuture<?>> taskTimeoutHandlersMap = new HashMap<>();
+    // tasks to cancel held by an executor yet to be known, keyed by task id with the time the cancel was requested at
+    private final Map<TaskId, Long> pendingCancelsMap = new LinkedHashMap<>();
+    private final long executorLeaseTimeoutInMs;
+    // ready tasks no executor advertises capacity for, keyed by task id with the time first held back at
+    private final Map<TaskId, Long> unservedTasksMap = new HashMap<>();
+    private final long executorWaitTimeoutInMs;
     // used by internal tasks for printing the dag/ delete stale tasks/ executing timeout tasks
     private final ScheduledExecutorService scheduledExecutorService =
             Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+    // sends the scheduled tasks to the queue in the order scheduled, off the scheduler lock as sending to a full
+    // queue blocks till the queue frees up
+    private final ExecutorService taskDispatcher = Executors.newSingleThreadExecutor();
     private Producer producer;
+    private QueueDeadLetterHandler deadLetterHandler;
     private Consumer consumer;
     private TaskProvider taskProvider;
 
-    public TaskSchedulerService(QueueConfig queueConfig) {
+    public TaskSchedulerService(SchedulerConfig schedulerConfig, QueueConfig queueConfig) {
         this.producerConfig = queueConfig.getProducerConfig();
         this.consumerConfig = queueConfig.getConsumerConfig();
         this.statusQueue = queueConfig.getTaskStatusQueue();
+        this.heartbeatQueue = queueConfig.getExecutorHeartbeatQueue();
+        this.controlQueue = queueConfig.getTaskControlQueue();
+        this.deadLetterQueue = queueConfig.getDeadLetterQueue();
+        this.executorLeaseTimeoutInMs = schedulerConfig.getExecutorLeaseTimeoutInMs();
+        this.executorWaitTimeoutInMs = schedulerConfig.getExecutorWaitTimeoutInMs();
+        this.executorLeaseManager = new ExecutorLeaseManager(executorLeaseTimeoutInMs);
+        this.taskUpdateTracker = new TaskUpdateTracker(QueueMetrics.get(statusQueue));
     }
 
     public static TaskSchedulerService getService() {
@@ -118,6 +165,7 @@ public final class TaskSchedulerService implements Service {
                 .getConstructor()
                 .newInstance();
         producer.init(producerConfig.getConfig());
+        deadLetterHandler = new QueueDeadLetterHandler(producer, deadLetterQueue);
     }
 
     private void initConsumer() throws Exception {
@@ -134,8 +182,9 @@ public final class TaskSchedulerService implements Service {
      * <pre>
      * 1) Initialize task provider
      * 2) Subscribe for task status update
-     * 3) Initialize configured timeout policies
-     * 4) Initialize timeout task for all the active tasks
+     * 3) Subscribe for executor heartbeats
+     * 4) Initialize configured timeout policies
+     * 5) Initialize timeout task for all the active tasks
      * </pre>
      */
     @Override
@@ -143,23 +192,39 @@ public final class TaskSchedulerService implements Service {
         logger.info("Starting task scheduler service");
         reInitTaskProvider();
         startConsumer();
+        startExecutorLeaseTracking();
         startTimeoutTasks();
         resolveCreatedTasks();
         scheduledExecutorService.scheduleAtFixedRate(this::deleteStaleTasks, TASK_PURGE_INTERVAL, TASK_PURGE_INTERVAL, HOURS);
         ServiceProvider.registerService(this);
     }
 
+    /**
+     * loads all the tasks of the jobs having non final tasks, including the completed ones for the dependencies and
+     * the shards of a sharded task to be resolved. Only the dependency graph is rebuilt here, the tasks in
+     * {@link Status#CREATED} state are moved to {@link Status#WAITING} once the service is started.
+     */
     private void reInitTaskProvider() throws ServiceException, ValidationException {
         logger.info("Initializing task provider from task store");
         final List<Namespace> namespaces = NamespaceService.getService().get();
-        final List<Task> tasks = new ArrayList<>();
+        final Set<JobId> jobIds = new LinkedHashSet<>();
         for (Namespace namespace : namespaces) {
-            TaskService.getService().get(namespace.getName(), NON_FINAL_TASK_STATUS_LIST);
+            for (Task task : TaskService.getService().get(namespace.getName(), NON_FINAL_TASK_STATUS_LIST)) {
+                jobIds.add(JobId.build(task.getNamespace(), task.getJob(), task.getWorkflow()));
+            }
+        }
+        final List<Task> tasks = new ArrayList<>();
+        for (JobId jobId : jobIds) {
+            tasks.addAll(TaskService.getService().get(jobId.getNamespace(), jobId.getId(), jobId.getWorkflow()));
         }
         if (!tasks.isEmpty()) {
             tasks.sort(Comparator.comparing(Task::getCreatedAt));
             tasks.forEach(taskProvider::add);
-            tasks.forEach(this::resolve);
+            tasks.forEach(task -> {
+                if (!taskProvider.resolve(task)) {
+                    logger.error("Unable to resolve dependency for task {} loaded from task store", task);
+                }
+            });
         }
     }
 
@@ -169,11 +234,27 @@ public final class TaskSchedulerService implements Service {
         scheduledExecutorService.scheduleAtFixedRate(this::consumeTaskStatus, pollInterval, pollInterval, MILLISECONDS);
     }
 
+    private void startExecutorLeaseTracking() {
+        if (heartbeatQueue == null) {
+            logger.info("Executor heartbeat queue is not configured, executor leases will not be tracked");
+            return;
+        }
+        final long pollInterval = consumerConfig.getPollIntervalInMs();
+        scheduledExecutorService.scheduleAtFixedRate(this::consumeExecutorHeartbeats, 0, pollInterval, MILLISECONDS);
+        scheduledExecutorService.scheduleAtFixedRate(this::expireExecutorLeases, EXECUTOR_LEASE_CHECK_INTERVAL,
+                EXECUTOR_LEASE_CHECK_INTERVAL, MILLISECONDS);
+        scheduledExecutorService.scheduleAtFixedRate(this::failUnservedTasks, EXECUTOR_LEASE_CHECK_INTERVAL,
+                EXECUTOR_LEASE_CHECK_INTERVAL, MILLISECONDS);
+    }
+
     /**
-     * create timeout tasks for all the active tasks
+     * create timeout tasks for all the active tasks submitted to an executor or, for map tasks, expanded into shards.
+     * Tasks yet to be picked by an executor have no submission time and are timed once submitted.
      */
     private void startTimeoutTasks() {
-        taskProvider.getActiveTasks().forEach(this::createTimeoutTask);
+        taskProvider.getActiveTasks().stream()
+                .filter(task -> task.getSubmittedAt() != null && task.getSubmittedAt() > 0)
+                .forEach(this::createTimeoutTask);
     }
 
     private void createTimeoutTask(Task task) {
@@ -203,15 +284,113 @@ public final class TaskSchedulerService implements Service {
         tasks.forEach(this::resolve);
     }
 
+    /**
+     * applies the task updates received from the executors. Duplicate and stale updates are discarded by the
+     * {@link TaskUpdateTracker} before touching the store. Updates which could not be decoded or applied, including
+     * the ones failed to be written to the store, are sent to the dead letter queue instead of being dropped, a failure
+     * to apply an update does not hold back the others.
+     */
     private void consumeTaskStatus() {
-        final List<String> tasksStatus = consumer.poll(statusQueue);
-        for (String taskStatusAsString : tasksStatus) {
+        final List<TaskUpdate> taskUpdates =
+                consumer.poll(statusQueue, Integer.MAX_VALUE, TaskUpdate.class, deadLetterHandler);
+        for (TaskUpdate taskUpdate : taskUpdates) {
+            if (taskUpdate.getTaskId() == null || taskUpdate.getStatus() == null) {
+                deadLetterHandler.handle(statusQueue, taskUpdate,
+                        new IllegalArgumentException("missing task id or status"));
+                continue;
+            }
             try {
-                final TaskUpdate taskUpdate = MAPPER.readValue(taskStatusAsString, TaskUpdate.class);
-                updateStatus(taskUpdate.getTaskId(), taskUpdate.getStatus(),
-                        taskUpdate.getStatusMessage(), taskUpdate.getContext());
-            } catch (IOException e) {
-                logger.error("Error parsing task status message {}", taskStatusAsString, e);
+                if (isCancelled(taskUpdate)) {
+                    continue;
+                }
+                final Task task = taskProvider.getTask(taskUpdate.getTaskId());
+                if (taskUpdateTracker.accept(taskUpdate, task)) {
+                    apply(taskUpdate, task);
+                }
+            } catch (RuntimeException | ServiceException e) {
+                deadLetterHandler.handle(statusQueue, taskUpdate, e);
+            }
+        }
+    }
+
+    /**
+     * applies the task update and records it with the {@link TaskUpdateTracker} once applied. An update which is
+     * not valid for the task is logged and discarded.
+     *
+     * @throws ServiceException if the update could not be written to the store
+     */
+    private void apply(TaskUpdate taskUpdate, Task task) throws ServiceException {
+        logger.info("Received request to update status of task {} to {} with status message {}",
+                taskUpdate.getTaskId(), taskUpdate.getStatus(), taskUpdate.getStatusMessage());
+        if (task == null) {
+            logger.error("No task found with id {}", taskUpdate.getTaskId());
+            return;
+        }
+        try {
+            TaskService.getService().updateStatus(task, taskUpdate.getStatus(), taskUpdate.getStatusMessage(),
+                    taskUpdate.getContext());
+        } catch (ServiceException e) {
+            if (e.getCause() instanceof StoreException) {
+                throw e;
+            }
+            logger.error("Error applying update {} to task {}", taskUpdate, task, e);
+            return;
+        } catch (ValidationException e) {
+            logger.error("Error applying update {} to task {}", taskUpdate, task, e);
+            return;
+        }
+        handleTaskStatusChange(task, taskUpdate.getStatus());
+        taskUpdateTracker.applied(taskUpdate);
+        if (taskUpdate.getExecutorId() != null && !taskUpdate.getStatus().isFinal()) {
+            executorLeaseManager.assign(taskUpdate.getTaskId(), taskUpdate.getExecutorId());
+        }
+    }
+
+    /**
+     * checks if the task update is received from an executor which picked up a task already failed, typically a task
+     * aborted or timed out before the executor received the cancel request, and sends the cancel request again.
+     *
+     * @param taskUpdate task update received from the executor
+     * @return true if the task is cancelled and the update is to be discarded
+     */
+    private boolean isCancelled(TaskUpdate taskUpdate) {
+        if (taskUpdate.getStatus() != SUBMITTED && taskUpdate.getStatus() != RUNNING) {
+            return false;
+        }
+        final Task task = taskProvider.getTask(taskUpdate.getTaskId());
+        if (task == null || task.getStatus() != FAILED) {
+            return false;
+        }
+        logger.info("Received status {} for task {} already in {} state, cancelling the task",
+                taskUpdate.getStatus(), task.getName(), task.getStatus());
+        if (taskUpdate.getExecutorId() != null && controlQueue != null) {
+            sendCancel(task, controlQueue + "." + taskUpdate.getExecutorId());
+        } else {
+            cancel(task);
+        }
+        return true;
+    }
+
+    private void consumeExecutorHeartbeats() {
+        final List<ExecutorHeartbeat> heartbeats =
+                consumer.poll(heartbeatQueue, Integer.MAX_VALUE, ExecutorHeartbeat.class, deadLetterHandler);
+        heartbeats.forEach(executorLeaseManager::renew);
+        sendPendingCancels();
+        if (!heartbeats.isEmpty()) {
+            // executor capacity might have changed, proceed to schedule the tasks held back for lack of capacity
+            scheduleReadyTasks();
+        }
+    }
+
+    /**
+     * marks all the tasks held by executors whose lease has expired as failed
+     */
+    private void expireExecutorLeases() {
+        for (TaskId taskId : executorLeaseManager.expire()) {
+            final Task task = taskProvider.getTask(taskId);
+            if (task != null && !task.getStatus().isFinal()) {
+                logger.info("Executor holding task {} is lost, marking task as failed", taskId);
+                updateStatus(task, FAILED, EXECUTOR_LOST);
             }
         }
     }
@@ -221,6 +400,93 @@ public final class TaskSchedulerService implements Service {
      */
     void deleteStaleTasks() {
         taskProvider.removeStaleTasks(HOURS.toMillis(TASK_PURGE_INTERVAL));
+        logger.info("Discarded {} stale and {} duplicate task updates since start",
+                taskUpdateTracker.getStaleUpdates(), taskUpdateTracker.getDuplicateUpdates());
+        logger.info("Metrics of task status queue {}: {}", statusQueue, QueueMetrics.get(statusQueue));
+    }
+
+    /**
+     * aborts the job by marking all its tasks yet to complete as failed and cancelling the tasks
+     * submitted to the executors.
+     *
+     * @param jobId id of the job to abort
+     */
+    synchronized void abort(JobId jobId) {
+        logger.info("Received request to abort job {}", jobId);
+        final List<Task> tasks = taskProvider.getTasks(NON_FINAL_TASK_STATUS_LIST);
+        tasks.sort(comparing(Task::getCreatedAt));
+        for (Task task : tasks) {
+            // a task might already be marked as failed on failure of the task it depends on
+            if (!task.getJob().equals(jobId.getId()) || !task.getNamespace().equals(jobId.getNamespace())
+                    || task.getStatus().isFinal()) {
+                continue;
+            }
+            final boolean isSubmitted = task.getStatus() == SCHEDULED || task.getStatus() == SUBMITTED
+                    || task.getStatus() == RUNNING;
+            updateStatus(task, FAILED, ABORTED);
+            if (isSubmitted && !isMapTask(task)) {
+                cancel(task);
+            }
+        }
+    }
+
+    /**
+     * sends a request to cancel the task to the control queue of the executor holding the task. If the executor
+     * holding the task is not known yet, e.g. the task is picked but the executor is yet to send an update or a
+     * heartbeat listing the task, the request is held back and sent once an executor lists the task in its heartbeat.
+     * A request is only sent to the control queue shared by all the executors if heartbeats are not configured, in
+     * which case it is received by a single executor.
+     *
+     * @param task task to cancel
+     */
+    private void cancel(Task task) {
+        if (controlQueue == null) {
+            logger.warn("Task control queue is not configured, task {} will not be cancelled", task.getName());
+            return;
+        }
+        final String executorId = executorLeaseManager.getExecutor(task);
+        if (executorId == null && heartbeatQueue != null) {
+            logger.info("Executor holding task {} is not known, request to cancel the task is held back until an " +
+                    "executor reports the task", task.getName());
+            synchronized (pendingCancelsMap) {
+                pendingCancelsMap.put(task.getIdentity(), System.currentTimeMillis());
+            }
+            return;
+        }
+        sendCancel(task, executorId != null ? controlQueue + "." + executorId : controlQueue);
+    }
+
+    private void sendCancel(Task task, String queue) {
+        try {
+            logger.info("Sending request to cancel task {} to queue {}", task.getName(), queue);
+            producer.send(queue, task.getJob(), ControlMessage.build(task.getIdentity(), CANCEL));
+        } catch (Exception e) {
+            logger.error("Error sending request to cancel task {} to queue {}", task, queue, e);
+        }
+    }
+
+    /**
+     * sends the requests to cancel the tasks held back to the executors now known to hold the tasks. A request is
+     * dropped if no executor reports the task within the lease timeout as the task is yet to be picked from the
+     * queue, such a task is cancelled once the executor picking it sends its first update.
+     */
+    private void sendPendingCancels() {
+        synchronized (pendingCancelsMap) {
+            final long expiryTimestamp = System.currentTimeMillis() - executorLeaseTimeoutInMs;
+            final Iterator<Map.Entry<TaskId, Long>> iterator = pendingCancelsMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<TaskId, Long> pendingCancel = iterator.next();
+                final Task task = taskProvider.getTask(pendingCancel.getKey());
+                final String executorId = executorLeaseManager.getExecutor(pendingCancel.getKey());
+                if (task != null && executorId != null) {
+                    sendCancel(task, controlQueue + "." + executorId);
+                    iterator.remove();
+                } else if (task == null || pendingCancel.getValue() < expiryTimestamp) {
+                    logger.debug("No executor reported task {}, dropping request to cancel it", pendingCancel.getKey());
+                    iterator.remove();
+                }
+            }
+        }
     }
 
     synchronized void schedule(Task task) {
@@ -277,12 +543,19 @@ public final class TaskSchedulerService implements Service {
                 break;
             case FAILED:
                 markDependentTasksAsFailed(task);
+                if (isMapTask(task)) {
+                    markShardsAsFailed(task);
+                }
                 // do not break
             case SUCCESSFUL:
+                taskUpdateTracker.remove(task.getIdentity());
                 final ScheduledFuture<?> taskTimeoutFuture = taskTimeoutHandlersMap.remove(task.getName());
                 if (taskTimeoutFuture != null) {
                     taskTimeoutFuture.cancel(false);
                 }
+                if (task.getShardOf() != null) {
+                    completeMapTask(task);
+                }
                 // If the task is finished (reached terminal state), proceed to schedule the next set of tasks
                 scheduleReadyTasks();
                 break;
@@ -295,22 +568,359 @@ public final class TaskSchedulerService implements Service {
         }
     }
 
+    private boolean isMapTask(Task task) {
+        return task.getProperties() != null && task.getProperties().containsKey(Task.PROP_SHARDS_FROM);
+    }
+
+    /**
+     * marks the shards of a failed map task yet to complete as failed and cancels the shards already submitted.
+     */
+    private void markShardsAsFailed(Task mapTask) {
+        for (Task shard : taskProvider.getShards(mapTask.getIdentity())) {
+            if (shard.getStatus().isFinal()) {
+                continue;
+            }
+            final boolean isSubmitted = shard.getStatus() == SCHEDULED || shard.getStatus() == SUBMITTED
+                    || shard.getStatus() == RUNNING;
+            updateStatus(shard, FAILED, MAP_TASK_FAILED);
+            if (isSubmitted) {
+                cancel(shard);
+            }
+        }
+    }
+
+    /**
+     * completes the map task the shard is created from, if any, once all of its shards are complete. The map task
+     * fails on failure of any of its shards, on success its context holds the list of values of each key in the
+     * context of the shards in the order of shards.
+     *
+     * @param shard shard which reached a final state
+     */
+    private void completeMapTask(Task shard) {
+        final TaskId mapTaskId = TaskId.build(shard.getNamespace(), shard.getShardOf(), shard.getJob(),
+                shard.getWorkflow());
+        final Task mapTask = taskProvider.getTask(mapTaskId);
+        if (mapTask == null || mapTask.getStatus().isFinal()) {
+            // shard of a statically sharded task or the map task is already complete
+            return;
+        }
+        if (shard.getStatus() == FAILED) {
+            updateStatus(mapTask, FAILED, SHARD_FAILED);
+            return;
+        }
+        final List<Task> shards = taskProvider.getShards(mapTaskId);
+        if (!shards.stream().allMatch(t -> t.getStatus() == SUCCESSFUL)) {
+            return;
+        }
+        final Map<String, List<Object>> context = new LinkedHashMap<>();
+        for (Task completedShard : shards) {
+            if (completedShard.getContext() != null) {
+                completedShard.getContext().forEach((key, value) ->
+                        context.computeIfAbsent(key, k -> new ArrayList<>()).add(value));
+            }
+        }
+        updateStatus(mapTask, SUCCESSFUL, null, new LinkedHashMap<>(context));
+    }
+
+    /**
+     * expands a map task ready for execution into one shard per element of the list it refers to and schedules the
+     * shards. A map task referring to an empty list completes right away.
+     *
+     * @param mapTask map task to expand
+     */
+    private void expandMapTask(Task mapTask) {
+        final Object shardsFrom = mapTask.getProperties().get(Task.PROP_SHARDS_FROM);
+        final Map<String, Object> dependentTaskContext = getDependentTaskContext(mapTask);
+        final String contextKey = String.valueOf(shardsFrom).replaceAll("^\\$\\{(.*)}$", "$1");
+        final Object shardValues = dependentTaskContext.get(contextKey);
+        if (!(shardValues instanceof List)) {
+            logger.error("Shards from {} of map task {} does not refer to a list in the context {} of dependent tasks",
+                    shardsFrom, mapTask.getName(), dependentTaskContext);
+            updateStatus(mapTask, FAILED, INVALID_SHARDS_FROM);
+            return;
+        }
+        logger.info("Expanding map task {} into {} shards", mapTask.getName(), ((List<?>) shardValues).size());
+        final List<Task> shards;
+        try {
+            shards = TaskService.getService().createShards(mapTask, (List<?>) shardValues);
+        } catch (ServiceException e) {
+            logger.error("Error creating shards of map task {}", mapTask, e);
+            updateStatus(mapTask, FAILED, TASK_SUBMISSION_FAILED);
+            return;
+        }
+        // the map task is timed from its expansion as no executor ever submits it
+        mapTask.setSubmittedAt(System.currentTimeMillis());
+        updateStatus(mapTask, SCHEDULED, null);
+        createTimeoutTask(mapTask);
+        shards.forEach(this::schedule);
+        if (shards.isEmpty()) {
+            updateStatus(mapTask, SUCCESSFUL, null, Collections.emptyMap());
+        }
+    }
+
     /**
      * submit tasks ready for execution to queue
+     * <p>
+     * If executor heartbeats are enabled, the number of tasks submitted for each task type is limited by the
+     * capacity advertised by the executors. Tasks in excess of the capacity remain in {@link Status#WAITING} state
+     * and are submitted in the order of their creation as and when the capacity is available. A task no executor
+     * advertises capacity for is logged and marked as failed if none does within the executor wait timeout, see
+     * {@link #failUnservedTasks()}.
+     * </p>
+     * <p>
+     * A task with an affinity is submitted to the queue qualified by its affinity label and is limited by the
+     * capacity advertised by the executors configured with the label.
+     * </p>
+     * <p>
+     * The shards of a task limiting the shards executed in parallel remain in {@link Status#WAITING} state while the
+     * limit is reached. Map tasks ready for execution are expanded once the ready tasks are submitted.
+     * </p>
+     * <p>
+     * Tasks are marked as scheduled holding the scheduler lock and are sent to the queue in the same order by the task
+     * dispatcher, see {@link #dispatch(Task, String, Task)}, so that a full queue does not block the scheduler.
+     * </p>
      */
     private synchronized void scheduleReadyTasks() {
         final List<Task> readyTasks = taskProvider.getReadyTasks();
+        readyTasks.sort(comparing(Task::getCreatedAt));
+        final Map<String, Integer> taskTypeToAvailableSlots = getAvailableSlots();
+        final Map<TaskId, Integer> shardOfToActiveShards = new HashMap<>();
+        final List<Task> mapTasks = new ArrayList<>();
         for (Task task : readyTasks) {
+            if (isMapTask(task)) {
+                mapTasks.add(task);
+                continue;
+            }
+            final TaskId shardOfId = getMaxParallelShards(task) > 0 ? TaskId.build(task.getNamespace(),
+                    task.getShardOf(), task.getJob(), task.getWorkflow()) : null;
+            if (shardOfId != null) {
+                final int activeShards = shardOfToActiveShards.computeIfAbsent(shardOfId, this::getActiveShards);
+                if (activeShards >= getMaxParallelShards(task)) {
+                    logger.debug("Max parallel shards of task {} running, shard {} remains waiting",
+                            task.getShardOf(), task.getName());
+                    continue;
+                }
+                shardOfToActiveShards.put(shardOfId, activeShards + 1);
+            }
+            final String taskQueue = getTaskQueue(task);
+            if (taskTypeToAvailableSlots != null && !acquireSlot(taskTypeToAvailableSlots, task)) {
+                if (isServed(taskTypeToAvailableSlots, task)) {
+                    logger.debug("No executor capacity available to schedule task {} to queue {}",
+                            task.getName(), taskQueue);
+                    unservedTasksMap.remove(task.getIdentity());
+                } else if (unservedTasksMap.putIfAbsent(task.getIdentity(), System.currentTimeMillis()) == null) {
+                    logger.warn("No executor advertises capacity for queue {}, task {} remains waiting and is " +
+                            "marked as failed if none does within {} ms", taskQueue, task.getName(),
+                            executorWaitTimeoutInMs);
+                }
+                continue;
+            }
+            unservedTasksMap.remove(task.getIdentity());
             try {
                 // update task context from the tasks it depends on before scheduling
                 updateTaskContext(task);
-                producer.send(task.getType(), MAPPER.writeValueAsString(task));
+                task.setAttempt(task.getAttempt() + 1);
+                final Task snapshot = snapshot(task);
+                // the task counts against the executor capacity once scheduled, ahead of being sent to the queue
                 updateStatus(task, SCHEDULED, null);
+                taskDispatcher.execute(() -> dispatch(task, taskQueue, snapshot));
             } catch (Exception e) {
                 logger.error("Error submitting task {} to queue", task, e);
                 updateStatus(task, FAILED, TASK_SUBMISSION_FAILED);
             }
         }
+        // expanding a map task schedules its shards which in turn schedules the ready tasks
+        mapTasks.forEach(this::expandMapTask);
+    }
+
+    /**
+     * sends the snapshot of the task to the queue unless the task is no longer scheduled, e.g. its job is aborted
+     * meanwhile. The task is marked as failed if it could not be sent.
+     */
+    private void dispatch(Task task, String taskQueue, Task snapshot) {
+        if (task.getStatus() != SCHEDULED) {
+            logger.info("Task {} is no longer scheduled, skipping submission to queue", task.getName());
+            return;
+        }
+        try {
+            // tasks are sent unkeyed to spread the tasks of a job across all the executors consuming the queue
+            producer.send(taskQueue, snapshot);
+        } catch (Exception e) {
+            logger.error("Error submitting task {} to queue", task, e);
+            updateStatus(task, FAILED, TASK_SUBMISSION_FAILED);
+        }
+    }
+
+    /**
+     * @return max number of shards of the sharded task the given task is a shard of to execute in parallel,
+     * 0 if not limited
+     */
+    private int getMaxParallelShards(Task task) {
+        if (task.getShardOf() == null) {
+            return 0;
+        }
+        final Object maxParallelShards = task.getProperties().get(Task.PROP_MAX_PARALLEL_SHARDS);
+        try {
+            return maxParallelShards == null ? 0 : Integer.parseInt(String.valueOf(maxParallelShards));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid value {} for max parallel shards of task {}", maxParallelShards,
+                    task.getName());
+            return 0;
+        }
+    }
+
+    private int getActiveShards(TaskId shardOfId) {
+        return (int) taskProvider.getShards(shardOfId).stream()
+                .filter(shard -> shard.getStatus() == SCHEDULED || shard.getStatus() == SUBMITTED
+                        || shard.getStatus() == RUNNING)
+                .count();
+    }
+
+    /**
+     * computes the number of tasks of each type which can be submitted to the queue as the capacity advertised
+     * by the executors less the tasks already submitted and yet to complete. A task pinned to a label counts against
+     * both its queue and its task type, see {@link #acquireSlot(Map, Task)}.
+     *
+     * @return available slots keyed by task queue or null if the executor capacity is not tracked
+     */
+    private Map<String, Integer> getAvailableSlots() {
+        if (heartbeatQueue == null) {
+            return null;
+        }
+        final Map<String, Integer> taskTypeToAvailableSlots = executorLeaseManager.getCapacity();
+        for (Task activeTask : taskProvider.getActiveTasks()) {
+            if (isMapTask(activeTask)) {
+                // map task is not submitted to the queue
+                continue;
+            }
+            final String taskQueue = getTaskQueue(activeTask);
+            taskTypeToAvailableSlots.computeIfPresent(taskQueue, (queue, slots) -> slots - 1);
+            if (!taskQueue.equals(activeTask.getType())) {
+                taskTypeToAvailableSlots.computeIfPresent(activeTask.getType(), (taskType, slots) -> slots - 1);
+            }
+        }
+        return taskTypeToAvailableSlots;
+    }
+
+    /**
+     * takes a slot for the task from the available slots. The capacity an executor advertises for a task type
+     * qualified by each of its labels is shared with the capacity it advertises for the task type, so a task pinned
+     * to a label takes a slot of both its queue and its task type, the latter bounding the tasks of a type across all
+     * its queues to the parallelism of the executors.
+     *
+     * @return true if a slot is available for the task
+     */
+    private boolean acquireSlot(Map<String, Integer> taskTypeToAvailableSlots, Task task) {
+        final String taskQueue = getTaskQueue(task);
+        if (taskTypeToAvailableSlots.getOrDefault(taskQueue, 0) <= 0
+                || taskTypeToAvailableSlots.getOrDefault(task.getType(), 0) <= 0) {
+            return false;
+        }
+        taskTypeToAvailableSlots.merge(taskQueue, -1, Integer::sum);
+        if (!taskQueue.equals(task.getType())) {
+            taskTypeToAvailableSlots.merge(task.getType(), -1, Integer::sum);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if any executor advertises capacity for both the queue and the type of the task
+     */
+    private boolean isServed(Map<String, Integer> taskTypeToAvailableSlots, Task task) {
+        return taskTypeToAvailableSlots.containsKey(getTaskQueue(task))
+                && taskTypeToAvailableSlots.containsKey(task.getType());
+    }
+
+    /**
+     * marks the tasks held back as no executor advertises capacity for them as failed once held back longer than the
+     * executor wait timeout. A task is spared if an executor has since advertised capacity for it.
+     */
+    private synchronized void failUnservedTasks() {
+        if (unservedTasksMap.isEmpty()) {
+            return;
+        }
+        final long expiryTimestamp = System.currentTimeMillis() - executorWaitTimeoutInMs;
+        final List<TaskId> expiredTaskIds = new ArrayList<>();
+        final Iterator<Map.Entry<TaskId, Long>> iterator = unservedTasksMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<TaskId, Long> unservedTaskEntry = iterator.next();
+            if (unservedTaskEntry.getValue() < expiryTimestamp) {
+                expiredTaskIds.add(unservedTaskEntry.getKey());
+                iterator.remove();
+            }
+        }
+        final Map<String, Integer> capacity = executorLeaseManager.getCapacity();
+        // failing a task schedules the ready tasks which in turn updates the unserved tasks
+        for (TaskId taskId : expiredTaskIds) {
+            final Task task = taskProvider.getTask(taskId);
+            if (task == null || task.getStatus() != WAITING || isServed(capacity, task)) {
+                continue;
+            }
+            logger.error("No executor advertised capacity for queue {} within {} ms, marking task {} as failed",
+                    getTaskQueue(task), executorWaitTimeoutInMs, task.getName());
+            updateStatus(task, FAILED, NO_EXECUTOR_AVAILABLE);
+        }
+    }
+
+    /**
+     * the task is updated by the scheduler once submitted, a snapshot of the task is sent to the queue instead of the
+     * task itself as in-process queues hand over the message to the executor without serializing it. The properties
+     * and context of the task are copied along with the maps and lists nested in them.
+     */
+    private Task snapshot(Task task) {
+        final Task snapshot = new Task();
+        snapshot.setNamespace(task.getNamespace());
+        snapshot.setName(task.getName());
+        snapshot.setJob(task.getJob());
+        snapshot.setWorkflow(task.getWorkflow());
+        snapshot.setType(task.getType());
+        snapshot.setMaxExecutionTimeInMs(task.getMaxExecutionTimeInMs());
+        snapshot.setDependsOn(task.getDependsOn() == null ? null : new ArrayList<>(task.getDependsOn()));
+        snapshot.setProperties(copy(task.getProperties()));
+        snapshot.setContext(copy(task.getContext()));
+        snapshot.setStatus(task.getStatus());
+        snapshot.setStatusMessage(task.getStatusMessage());
+        snapshot.setCreatedAt(task.getCreatedAt());
+        snapshot.setSubmittedAt(task.getSubmittedAt());
+        snapshot.setCompletedAt(task.getCompletedAt());
+        snapshot.setAttempt(task.getAttempt());
+        return snapshot;
+    }
+
+    /**
+     * @return copy of the map with the maps and lists nested in it copied, null if the map is null
+     */
+    private static Map<String, Object> copy(Map<String, Object> map) {
+        if (map == null) {
+            return null;
+        }
+        final Map<String, Object> copy = new LinkedHashMap<>();
+        map.forEach((key, value) -> copy.put(key, copyValue(value)));
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            final Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<Object, Object>) value).forEach((key, nestedValue) -> copy.put(key, copyValue(nestedValue)));
+            return copy;
+        }
+        if (value instanceof Collection) {
+            final List<Object> copy = new ArrayList<>();
+            ((Collection<Object>) value).forEach(nestedValue -> copy.add(copyValue(nestedValue)));
+            return copy;
+        }
+        // strings, numbers and booleans are immutable
+        return value;
+    }
+
+    /**
+     * @return queue to submit the task to, the task type qualified by the affinity label if the task has one
+     */
+    private String getTaskQueue(Task task) {
+        final String affinity = task.getAffinity();
+        return affinity == null ? task.getType() : task.getType() + "." + affinity;
     }
 
     /**
@@ -319,20 +929,27 @@ public final class TaskSchedulerService implements Service {
      * @param task
      */
     private void updateTaskContext(Task task) {
+        updateTaskProperties(task, getDependentTaskContext(task));
+    }
+
+    /**
+     * @return context of the tasks the given task depends on keyed by {@code <dependentTaskName>.<key>}
+     */
+    private Map<String, Object> getDependentTaskContext(Task task) {
         final List<String> dependsOn = task.getDependsOn();
         final Map<String, Object> dependentTaskContext = new LinkedHashMap<>();
         for (String dependentTaskName : dependsOn) {
             // sort the tasks based on creation time and update the context from the latest task
             TaskId dependentTaskId = TaskId.build(task.getNamespace(), dependentTaskName, task.getJob(), task.getWorkflow());
-            Task dependentTask = taskProvider.getTask(dependentTaskId);
-            if (dependentTask != null) {
+            // context of the shards of a sharded task is merged in the order of shards, the last shard wins on a clash
+            for (Task dependentTask : taskProvider.getTaskOrShards(dependentTaskId)) {
                 if (dependentTask.getContext() != null && !dependentTask.getContext().isEmpty()) {
                     dependentTask.getContext().forEach((key, value) ->
-                            dependentTaskContext.put(dependentTask.getName() + "." + key, value));
+                            dependentTaskContext.put(dependentTaskName + "." + key, value));
                 }
             }
         }
-        updateTaskProperties(task, dependentTaskContext);
+        return dependentTaskContext;
     }
 
     /**
@@ -384,6 +1001,16 @@ public final class TaskSchedulerService implements Service {
         task.setProperties(modifiedTaskProperties);
     }
 
+    // used in junit
+    ExecutorLeaseManager getExecutorLeaseManager() {
+        return executorLeaseManager;
+    }
+
+    // used in junit
+    TaskUpdateTracker getTaskUpdateTracker() {
+        return taskUpdateTracker;
+    }
+
     // used in junit
     TaskProvider getTaskProvider() {
         return taskProvider;
@@ -408,6 +1035,8 @@ public final class TaskSchedulerService implements Service {
         try {
             scheduledExecutorService.shutdown();
             scheduledExecutorService.awaitTermination(10, SECONDS);
+            taskDispatcher.shutdown();
+            taskDispatcher.awaitTermination(10, SECONDS);
         } catch (InterruptedException e) {
             logger.error("Error stopping thread pool", e);
         }
@@ -427,6 +1056,10 @@ public final class TaskSchedulerService implements Service {
         public void run() {
             logger.info("Task {} has timed out, marking task as failed", task);
             updateStatus(task, FAILED, TIMED_OUT);
+            // a map task is not held by any executor, its shards are cancelled on failure of the map task
+            if (!isMapTask(task)) {
+                cancel(task);
+            }
         }
     }
 }
@@ -27,6 +27,7 @@ import com.cognitree.kronos.scheduler.model.JobId;
 import com.cognitree.kronos.scheduler.model.Namespace;
 import com.cognitree.kronos.scheduler.model.NamespaceId;
 import com.cognitree.kronos.scheduler.model.Workflow;
+import com.cognitree.kronos.scheduler.model.Workflow.ShardSpec;
 import com.cognitree.kronos.scheduler.model.Workflow.WorkflowTask;
 import com.cognitree.kronos.scheduler.model.WorkflowId;
 import com.cognitree.kronos.scheduler.store.StoreException;
@@ -35,7 +36,9 @@ import com.cognitree.kronos.scheduler.store.TaskStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +58,8 @@ import static com.cognitree.kronos.scheduler.ValidationError.WORKFLOW_NOT_FOUND;
 
 public class TaskService implements Service {
     private static final Logger logger = LoggerFactory.getLogger(TaskService.class);
+    // replaced by the shard value in the properties of the tasks created for a sharded workflow task
+    private static final String SHARD_PLACEHOLDER = "${shard}";
 
     private final Set<TaskStatusChangeListener> statusChangeListeners = new HashSet<>();
     private TaskStore taskStore;
@@ -97,6 +102,115 @@ public class TaskService implements Service {
         logger.debug("Received request to create task from workflow task {} for job {}, workflow {} under namespace {}",
                 workflowTask, jobId, workflowName, namespace);
         validateJob(namespace, jobId, workflowName);
+        final Task task = buildTask(namespace, workflowTask, jobId, workflowName);
+        store(task);
+        return task;
+    }
+
+    /**
+     * creates a task for each shard of a sharded workflow task.
+     * <p>
+     * The shards share the dependencies of the workflow task while the tasks depending on the workflow task keep
+     * depending on it by name and are resolved against all of its shards, the dependencies are not expanded per
+     * shard.
+     * </p>
+     *
+     * @return tasks created, one per shard
+     */
+    List<Task> createShards(String namespace, WorkflowTask workflowTask, String jobId, String workflowName)
+            throws ServiceException, ValidationException {
+        logger.debug("Received request to create shards of workflow task {} for job {}, workflow {} under namespace {}",
+                workflowTask, jobId, workflowName, namespace);
+        validateJob(namespace, jobId, workflowName);
+        final Task task = buildTask(namespace, workflowTask, jobId, workflowName);
+        return createShards(task, workflowTask.getShards().getShardValues());
+    }
+
+    /**
+     * creates a task for each of the shard values from the given task, used to expand a map task at runtime.
+     * <p>
+     * Shards already stored by an earlier expansion of the task, e.g. one interrupted by a scheduler crash before
+     * the map task was marked as scheduled, are returned as is instead of being created again.
+     * </p>
+     *
+     * @param task        task to create the shards from
+     * @param shardValues value of each shard
+     * @return tasks created, one per shard
+     */
+    List<Task> createShards(Task task, List<?> shardValues) throws ServiceException {
+        logger.debug("Received request to create {} shards of task {}", shardValues.size(), task);
+        final Map<String, Task> existingShards = getExistingShards(task);
+        final List<Task> shards = new ArrayList<>(shardValues.size());
+        final List<Task> newShards = new ArrayList<>();
+        for (int shardIndex = 0; shardIndex < shardValues.size(); shardIndex++) {
+            final Object shardValue = shardValues.get(shardIndex);
+            final String shardName = getShardName(task.getName(), shardIndex);
+            if (existingShards.containsKey(shardName)) {
+                logger.info("Shard {} of task {} already exists, skipping creation", shardName, task.getName());
+                shards.add(existingShards.get(shardName));
+                continue;
+            }
+            final Task shard = new Task();
+            shard.setName(shardName);
+            shard.setJob(task.getJob());
+            shard.setWorkflow(task.getWorkflow());
+            shard.setNamespace(task.getNamespace());
+            shard.setType(task.getType());
+            shard.setMaxExecutionTimeInMs(task.getMaxExecutionTimeInMs());
+            shard.setDependsOn(task.getDependsOn());
+            final Map<String, Object> properties = new HashMap<>();
+            task.getProperties().forEach((key, value) -> properties.put(key, value instanceof String ?
+                    ((String) value).replace(SHARD_PLACEHOLDER, String.valueOf(shardValue)) : value));
+            properties.remove(Task.PROP_SHARDS_FROM);
+            properties.put(Task.PROP_SHARD, shardValue);
+            properties.put(Task.PROP_SHARD_OF, task.getName());
+            shard.setProperties(properties);
+            shard.setCreatedAt(System.currentTimeMillis());
+            newShards.add(shard);
+            shards.add(shard);
+        }
+        if (!newShards.isEmpty()) {
+            try {
+                // shards are stored in one go instead of one round trip to the store per shard
+                taskStore.store(newShards);
+            } catch (StoreException e) {
+                logger.error("unable to add {} shards of task {}", newShards.size(), task, e);
+                throw new ServiceException(e.getMessage());
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * @return shards of the task already stored keyed by shard name
+     */
+    private Map<String, Task> getExistingShards(Task task) throws ServiceException {
+        final Map<String, Task> existingShards = new HashMap<>();
+        try {
+            final List<Task> tasks =
+                    taskStore.loadByJobIdAndWorkflowName(task.getNamespace(), task.getJob(), task.getWorkflow());
+            if (tasks != null) {
+                for (Task existingTask : tasks) {
+                    if (task.getName().equals(existingTask.getShardOf())) {
+                        existingShards.put(existingTask.getName(), existingTask);
+                    }
+                }
+            }
+        } catch (StoreException e) {
+            logger.error("unable to load shards of task {}", task, e);
+            throw new ServiceException(e.getMessage());
+        }
+        return existingShards;
+    }
+
+    /**
+     * @return name of the task created for the shard at the given index of a sharded workflow task
+     */
+    static String getShardName(String workflowTaskName, int shardIndex) {
+        return workflowTaskName + "-" + shardIndex;
+    }
+
+    private Task buildTask(String namespace, WorkflowTask workflowTask, String jobId, String workflowName) {
         Task task = new Task();
         task.setName(UUID.randomUUID().toString());
         task.setJob(jobId);
@@ -106,18 +220,33 @@ public class TaskService implements Service {
         task.setType(workflowTask.getType());
         task.setMaxExecutionTimeInMs(workflowTask.getMaxExecutionTimeInMs());
         task.setDependsOn(workflowTask.getDependsOn());
-        task.setProperties(workflowTask.getProperties());
+        // affinity and shard spec are kept as task properties to be persisted along with the task
+        final Map<String, Object> properties = workflowTask.getProperties() == null ?
+                new HashMap<>() : new HashMap<>(workflowTask.getProperties());
+        if (workflowTask.getAffinity() != null) {
+            properties.put(Task.PROP_AFFINITY, workflowTask.getAffinity());
+        }
+        final ShardSpec shards = workflowTask.getShards();
+        if (shards != null && shards.getFrom() != null) {
+            properties.put(Task.PROP_SHARDS_FROM, shards.getFrom());
+        }
+        if (shards != null && shards.getMaxParallel() > 0) {
+            properties.put(Task.PROP_MAX_PARALLEL_SHARDS, shards.getMaxParallel());
+        }
+        task.setProperties(properties);
         task.setCreatedAt(System.currentTimeMillis());
+        return task;
+    }
+
+    private void store(Task task) throws ServiceException {
         try {
             taskStore.store(task);
         } catch (StoreException e) {
             logger.error("unable to add task {}", task, e);
             throw new ServiceException(e.getMessage());
         }
-        return task;
     }
 
-
     public List<Task> get(String namespace) throws ServiceException, ValidationException {
         logger.debug("Received request to get all tasks under namespace {}", namespace);
         validateNamespace(namespace);
@@ -197,6 +326,10 @@ public class TaskService implements Service {
         }
     }
 
+    /**
+     * @throws ServiceException if the transition is not valid or, caused by a {@link StoreException}, if the task
+     *                          could not be updated in the store in which case the task is left as is
+     */
     void updateStatus(Task task, Status status, String statusMessage, Map<String, Object> context)
             throws ServiceException, ValidationException {
         try {
@@ -209,6 +342,10 @@ public class TaskService implements Service {
                 logger.error("Invalid state transition for task {} from status {}, to {}", task, currentStatus, status);
                 throw new ServiceException("Invalid state transition from " + currentStatus + " to " + status);
             }
+            final String currentStatusMessage = task.getStatusMessage();
+            final Map<String, Object> currentContext = task.getContext();
+            final Long currentSubmittedAt = task.getSubmittedAt();
+            final Long currentCompletedAt = task.getCompletedAt();
             task.setStatus(status);
             task.setStatusMessage(statusMessage);
             task.setContext(context);
@@ -221,11 +358,21 @@ public class TaskService implements Service {
                     task.setCompletedAt(System.currentTimeMillis());
                     break;
             }
-            taskStore.update(task);
+            try {
+                taskStore.update(task);
+            } catch (StoreException e) {
+                // the task held in memory is left as is for the update to be applied again
+                task.setStatus(currentStatus);
+                task.setStatusMessage(currentStatusMessage);
+                task.setContext(currentContext);
+                task.setSubmittedAt(currentSubmittedAt);
+                task.setCompletedAt(currentCompletedAt);
+                throw e;
+            }
             notifyListeners(task, currentStatus, status);
         } catch (StoreException e) {
             logger.error("unable to update task {}", task, e);
-            throw new ServiceException(e.getMessage());
+            throw new ServiceException(e.getMessage(), e);
         }
     }
 
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.scheduler;
+
+import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.Task.Status;
+import com.cognitree.kronos.model.TaskId;
+import com.cognitree.kronos.model.TaskUpdate;
+import com.cognitree.kronos.queue.QueueMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Task update tracker discards the task updates received from the executors which are not to be applied, using only
+ * the state held in memory by the scheduler and hence without any store access.
+ * <p>
+ * An update is discarded as
+ * <ul>
+ * <li>stale if the task is already in a final state or the update moves a task back to an earlier state, e.g. a
+ * RUNNING received late after the task completed</li>
+ * <li>stale if it is sent for an attempt other than the current attempt of the task, i.e. the task is dispatched
+ * again since, or by an executor other than the one the current attempt is being executed by, e.g. a task
+ * redelivered by the queue and picked by two executors</li>
+ * <li>duplicate if its sequence number is not greater than the last update applied for the same attempt of the
+ * task, e.g. an update redelivered by an at-least-once queue</li>
+ * </ul>
+ * Updates sent by executors not numbering their updates are only checked for staleness of the status. An update is
+ * recorded as applied only once the scheduler has applied it, so an update which failed to apply is accepted again
+ * when redelivered.
+ * </p>
+ */
+final class TaskUpdateTracker {
+    private static final Logger logger = LoggerFactory.getLogger(TaskUpdateTracker.class);
+
+    static final String STALE = "staleUpdates";
+    static final String DUPLICATE = "duplicateUpdates";
+
+    // last update applied for each task yet to complete
+    private final Map<TaskId, TaskUpdate> taskIdToLastUpdateMap = new HashMap<>();
+    private final QueueMetrics queueMetrics;
+    private long staleUpdates;
+    private long duplicateUpdates;
+
+    /**
+     * @param queueMetrics metrics of the task status queue to record the discarded updates in
+     */
+    TaskUpdateTracker(QueueMetrics queueMetrics) {
+        this.queueMetrics = queueMetrics;
+    }
+
+    /**
+     * checks if the update is to be applied, the update is not recorded until {@link #applied(TaskUpdate)}.
+     *
+     * @param taskUpdate update received from the executor
+     * @param task       task held in memory, null if not known in which case the update is left to the scheduler
+     * @return true if the update is to be applied
+     */
+    synchronized boolean accept(TaskUpdate taskUpdate, Task task) {
+        if (task == null) {
+            return true;
+        }
+        if (isStale(task.getStatus(), taskUpdate.getStatus())) {
+            discardStale(taskUpdate, "task in " + task.getStatus() + " state");
+            return false;
+        }
+        if (taskUpdate.getAttempt() <= 0) {
+            return true;
+        }
+        // the current attempt is not known for tasks dispatched before the scheduler restarted
+        if (task.getAttempt() > 0 && taskUpdate.getAttempt() != task.getAttempt()) {
+            discardStale(taskUpdate, "current attempt " + task.getAttempt());
+            return false;
+        }
+        final TaskUpdate lastUpdate = taskIdToLastUpdateMap.get(taskUpdate.getTaskId());
+        if (lastUpdate == null || lastUpdate.getAttempt() != taskUpdate.getAttempt()) {
+            return true;
+        }
+        if (!Objects.equals(lastUpdate.getExecutorId(), taskUpdate.getExecutorId())) {
+            discardStale(taskUpdate, "attempt being executed by executor " + lastUpdate.getExecutorId());
+            return false;
+        }
+        if (taskUpdate.getSequence() <= lastUpdate.getSequence()) {
+            duplicateUpdates++;
+            queueMetrics.recordDiscard(DUPLICATE);
+            logger.debug("Discarding duplicate update {}, last update applied {}", taskUpdate, lastUpdate);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * records the update as the last update applied for the task. Updates moving the task to a final state are not
+     * recorded as the task is no longer tracked.
+     */
+    synchronized void applied(TaskUpdate taskUpdate) {
+        if (taskUpdate.getAttempt() > 0 && !taskUpdate.getStatus().isFinal()) {
+            taskIdToLastUpdateMap.put(taskUpdate.getTaskId(), taskUpdate);
+        }
+    }
+
+    private boolean isStale(Status currentStatus, Status status) {
+        return currentStatus.isFinal() || (!status.isFinal() && status.ordinal() <= currentStatus.ordinal());
+    }
+
+    private void discardStale(TaskUpdate taskUpdate, String reason) {
+        staleUpdates++;
+        queueMetrics.recordDiscard(STALE);
+        logger.debug("Discarding stale update {}, {}", taskUpdate, reason);
+    }
+
+    /**
+     * stops tracking the task, called once the task reaches a final state after which any update is stale.
+     */
+    synchronized void remove(TaskId taskId) {
+        taskIdToLastUpdateMap.remove(taskId);
+    }
+
+    synchronized long getStaleUpdates() {
+        return staleUpdates;
+    }
+
+    synchronized long getDuplicateUpdates() {
+        return duplicateUpdates;
+    }
+
+    // used in junit
+    synchronized int size() {
+        return taskIdToLastUpdateMap.size();
+    }
+}
@@ -25,6 +25,7 @@ public enum ValidationError {
     WORKFLOW_ALREADY_EXISTS(2003, "workflow_already_exists", 409),
     MISSING_TASK_IN_WORKFLOW(2001, "missing_tasks_in_workflow", 400),
     CYCLIC_DEPENDENCY_IN_WORKFLOW(2003, "cyclic_dependency_in_workflow", 400),
+    INVALID_SHARDS_IN_WORKFLOW(2004, "invalid_shards_in_workflow", 400),
 
     WORKFLOW_TRIGGER_NOT_FOUND(3001, "workflow_trigger_not_found", 404),
     INVALID_WORKFLOW_TRIGGER(3002, "invalid_workflow_trigger", 400),
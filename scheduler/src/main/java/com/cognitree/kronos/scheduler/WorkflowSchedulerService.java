@@ -147,7 +147,14 @@ public final class WorkflowSchedulerService implements Service {
                 logger.warn("Workflow task {} is disabled from scheduling", workflowTask);
                 continue;
             }
-            tasks.add(TaskService.getService().create(job.getNamespace(), workflowTask, job.getId(), job.getWorkflow()));
+            // shards of a map task are created at runtime once the task it depends on completes
+            if (workflowTask.getShards() != null && workflowTask.getShards().getFrom() == null) {
+                tasks.addAll(TaskService.getService().createShards(job.getNamespace(), workflowTask, job.getId(),
+                        job.getWorkflow()));
+            } else {
+                tasks.add(TaskService.getService().create(job.getNamespace(), workflowTask, job.getId(),
+                        job.getWorkflow()));
+            }
         }
         tasks.forEach(task -> TaskSchedulerService.getService().schedule(task));
         JobService.getService().updateStatus(job.getIdentity(), RUNNING);
@@ -41,8 +41,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.cognitree.kronos.scheduler.ValidationError.CYCLIC_DEPENDENCY_IN_WORKFLOW;
+import static com.cognitree.kronos.scheduler.ValidationError.INVALID_SHARDS_IN_WORKFLOW;
 import static com.cognitree.kronos.scheduler.ValidationError.MISSING_TASK_IN_WORKFLOW;
 import static com.cognitree.kronos.scheduler.ValidationError.NAMESPACE_NOT_FOUND;
 import static com.cognitree.kronos.scheduler.ValidationError.WORKFLOW_ALREADY_EXISTS;
@@ -50,6 +53,8 @@ import static com.cognitree.kronos.scheduler.ValidationError.WORKFLOW_NOT_FOUND;
 
 public class WorkflowService implements Service {
     private static final Logger logger = LoggerFactory.getLogger(WorkflowService.class);
+    // reference to a key in the context of a dependent task, ${task.key}
+    private static final Pattern SHARDS_FROM_PATTERN = Pattern.compile("\\$\\{([^.]+)\\.(.+)}");
 
     private WorkflowStore workflowStore;
 
@@ -262,6 +267,44 @@ public class WorkflowService implements Service {
         if (!topologicalSort.isDag()) {
             throw CYCLIC_DEPENDENCY_IN_WORKFLOW.createException();
         }
+        for (Workflow.WorkflowTask workflowTask : workflowTasks) {
+            validateShards(workflowTask, workflowTaskMap);
+        }
+    }
+
+    /**
+     * validate the shard spec of a workflow task, the shards are defined by exactly one of count, values or a list in
+     * the context of a task the workflow task depends on and the names of the tasks created for the shards do not
+     * clash with the other workflow tasks.
+     */
+    private void validateShards(Workflow.WorkflowTask workflowTask, Map<String, Workflow.WorkflowTask> workflowTaskMap)
+            throws ValidationException {
+        final Workflow.ShardSpec shards = workflowTask.getShards();
+        if (shards == null) {
+            return;
+        }
+        final boolean hasValues = shards.getValues() != null && !shards.getValues().isEmpty();
+        final boolean hasFrom = shards.getFrom() != null;
+        final int definitions = (shards.getCount() > 0 ? 1 : 0) + (hasValues ? 1 : 0) + (hasFrom ? 1 : 0);
+        if (definitions != 1) {
+            throw INVALID_SHARDS_IN_WORKFLOW.createException(workflowTask.getName(),
+                    "exactly one of shard count, shard values or shards from is to be defined");
+        }
+        if (hasFrom) {
+            final Matcher matcher = SHARDS_FROM_PATTERN.matcher(shards.getFrom());
+            if (!matcher.matches() || workflowTask.getDependsOn() == null
+                    || !workflowTask.getDependsOn().contains(matcher.group(1))) {
+                throw INVALID_SHARDS_IN_WORKFLOW.createException(workflowTask.getName(),
+                        "shards from is to refer to the context of a task it depends on as ${task.key}");
+            }
+        }
+        final Pattern shardNamePattern = Pattern.compile(Pattern.quote(workflowTask.getName()) + "-\\d+");
+        for (String taskName : workflowTaskMap.keySet()) {
+            if (shardNamePattern.matcher(taskName).matches()) {
+                throw INVALID_SHARDS_IN_WORKFLOW.createException(workflowTask.getName(),
+                        "workflow task " + taskName + " clashes with the name of a shard");
+            }
+        }
     }
 
     @Override
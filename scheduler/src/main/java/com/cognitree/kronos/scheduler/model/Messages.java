@@ -21,4 +21,10 @@ public interface Messages {
     String FAILED_TO_RESOLVE_DEPENDENCY = "failed to resolve task dependency";
     String TIMED_OUT = "timed out executing task";
     String TASK_SUBMISSION_FAILED = "error submitting task to queue";
+    String ABORTED = "job aborted by user";
+    String EXECUTOR_LOST = "executor stopped sending heartbeats while executing task";
+    String INVALID_SHARDS_FROM = "shards from does not refer to a list in the context of a dependent task";
+    String SHARD_FAILED = "one or more shards of the task failed";
+    String MAP_TASK_FAILED = "map task the shard is created from failed";
+    String NO_EXECUTOR_AVAILABLE = "no executor available to execute the task type";
 }
@@ -103,6 +103,16 @@ public class Workflow extends WorkflowId {
         private String type;
         private List<String> dependsOn = new ArrayList<>();
         private Map<String, Object> properties = new HashMap<>();
+        /**
+         * optional label of the executor group the task is pinned to. The task is executed only by the executors
+         * configured with the label, used to run tasks of a job on the same host or on a specific hardware pool.
+         */
+        private String affinity;
+        /**
+         * optional shard spec fanning out the task into parallel tasks, one per shard. Tasks depending on a sharded
+         * task wait for all of its shards to complete.
+         */
+        private ShardSpec shards;
 
         private long maxExecutionTimeInMs = TimeUnit.DAYS.toMillis(1);
         private boolean enabled = true;
@@ -139,6 +149,22 @@ public class Workflow extends WorkflowId {
             this.properties = properties;
         }
 
+        public String getAffinity() {
+            return affinity;
+        }
+
+        public void setAffinity(String affinity) {
+            this.affinity = affinity;
+        }
+
+        public ShardSpec getShards() {
+            return shards;
+        }
+
+        public void setShards(ShardSpec shards) {
+            this.shards = shards;
+        }
+
         public long getMaxExecutionTimeInMs() {
             return maxExecutionTimeInMs;
         }
@@ -165,13 +191,15 @@ public class Workflow extends WorkflowId {
                     Objects.equals(type, that.type) &&
                     Objects.equals(dependsOn, that.dependsOn) &&
                     Objects.equals(properties, that.properties) &&
+                    Objects.equals(affinity, that.affinity) &&
+                    Objects.equals(shards, that.shards) &&
                     Objects.equals(maxExecutionTimeInMs, that.maxExecutionTimeInMs);
         }
 
         @Override
         public int hashCode() {
 
-            return Objects.hash(name, type, dependsOn, properties, maxExecutionTimeInMs, enabled);
+            return Objects.hash(name, type, dependsOn, properties, affinity, shards, maxExecutionTimeInMs, enabled);
         }
 
         @Override
@@ -181,9 +209,113 @@ public class Workflow extends WorkflowId {
                     ", type='" + type + '\'' +
                     ", dependsOn=" + dependsOn +
                     ", properties=" + properties +
+                    ", affinity='" + affinity + '\'' +
+                    ", shards=" + shards +
                     ", maxExecutionTimeInMs='" + maxExecutionTimeInMs + '\'' +
                     ", enabled=" + enabled +
                     '}';
         }
     }
+
+    /**
+     * fans out a workflow task into parallel tasks, either a fixed number of shards, one shard per value or one shard
+     * per element of a list in the context of a task it depends on.
+     * <p>
+     * Each shard is created as a task named {@code <name>-<index>} with the task property {@code shard} set to the
+     * shard value, the shard index if the shards are defined by count. Occurrences of {@code ${shard}} in the
+     * task properties are replaced by the shard value.
+     * </p>
+     * <p>
+     * Shards defined by {@link #from} are created at runtime once the task it refers to completes. Till then the
+     * workflow task is tracked as a map task which completes once all of its shards complete, exposing the context
+     * of the shards as a list of values per key to the tasks depending on it.
+     * </p>
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ShardSpec {
+        private int count;
+        private List<String> values;
+        /**
+         * reference to a list in the context of a task the workflow task depends on, of the form {@code ${task.key}}.
+         */
+        private String from;
+        /**
+         * max number of shards to execute in parallel, defaults to 0 meaning no limit.
+         */
+        private int maxParallel;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+
+        public void setValues(List<String> values) {
+            this.values = values;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public void setFrom(String from) {
+            this.from = from;
+        }
+
+        public int getMaxParallel() {
+            return maxParallel;
+        }
+
+        public void setMaxParallel(int maxParallel) {
+            this.maxParallel = maxParallel;
+        }
+
+        /**
+         * @return shard values, the values if defined or the shard indexes
+         */
+        @JsonIgnore
+        public List<String> getShardValues() {
+            if (values != null && !values.isEmpty()) {
+                return values;
+            }
+            final List<String> shardValues = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                shardValues.add(String.valueOf(i));
+            }
+            return shardValues;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ShardSpec)) return false;
+            ShardSpec shardSpec = (ShardSpec) o;
+            return count == shardSpec.count &&
+                    maxParallel == shardSpec.maxParallel &&
+                    Objects.equals(values, shardSpec.values) &&
+                    Objects.equals(from, shardSpec.from);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return Objects.hash(count, values, from, maxParallel);
+        }
+
+        @Override
+        public String toString() {
+            return "ShardSpec{" +
+                    "count=" + count +
+                    ", values=" + values +
+                    ", from='" + from + '\'' +
+                    ", maxParallel=" + maxParallel +
+                    '}';
+        }
+    }
 }
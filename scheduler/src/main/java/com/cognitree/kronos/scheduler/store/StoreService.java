@@ -44,5 +44,6 @@ public abstract class StoreService implements Service {
     public abstract WorkflowTriggerStore getWorkflowTriggerStore();
     public abstract JobStore getJobStore();
     public abstract TaskStore getTaskStore();
+    public abstract DeadLetterStore getDeadLetterStore();
     public abstract org.quartz.spi.JobStore getQuartzJobStore();
 }
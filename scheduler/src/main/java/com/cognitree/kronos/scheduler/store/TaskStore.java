@@ -29,6 +29,12 @@ import java.util.Map;
  */
 public interface TaskStore extends Store<Task, TaskId> {
 
+    /**
+     * stores all the given tasks at once, e.g. the shards of a task. None of the tasks is stored if any of them
+     * could not be stored.
+     */
+    void store(List<Task> tasks) throws StoreException;
+
     List<Task> load(String namespace) throws StoreException;
 
     List<Task> loadByJobIdAndWorkflowName(String namespace, String jobId, String workflowName) throws StoreException;
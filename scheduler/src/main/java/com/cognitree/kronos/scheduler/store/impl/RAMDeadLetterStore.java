@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.scheduler.store.impl;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.scheduler.store.DeadLetterStore;
+import com.cognitree.kronos.scheduler.store.StoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RAMDeadLetterStore implements DeadLetterStore {
+    private static final Logger logger = LoggerFactory.getLogger(RAMDeadLetterStore.class);
+    // dead letters by id in the order created
+    private final Map<String, DeadLetter> deadLetters = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void store(DeadLetter deadLetter) throws StoreException {
+        logger.debug("Received request to store dead letter {}", deadLetter);
+        if (deadLetters.containsKey(deadLetter.getId())) {
+            throw new StoreException("dead letter with id " + deadLetter.getId() + " already exists");
+        }
+        deadLetters.put(deadLetter.getId(), deadLetter);
+    }
+
+    @Override
+    public synchronized List<DeadLetter> loadByTopic(String topic) {
+        logger.debug("Received request to get all dead letters of topic {}", topic);
+        final List<DeadLetter> result = new ArrayList<>();
+        for (DeadLetter deadLetter : deadLetters.values()) {
+            if (topic == null || topic.equals(deadLetter.getTopic())) {
+                result.add(deadLetter);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized DeadLetter load(String id) {
+        logger.debug("Received request to load dead letter with id {}", id);
+        return deadLetters.get(id);
+    }
+
+    @Override
+    public synchronized void update(DeadLetter deadLetter) throws StoreException {
+        logger.debug("Received request to update dead letter to {}", deadLetter);
+        if (!deadLetters.containsKey(deadLetter.getId())) {
+            throw new StoreException("dead letter with id " + deadLetter.getId() + " does not exists");
+        }
+        deadLetters.put(deadLetter.getId(), deadLetter);
+    }
+
+    @Override
+    public synchronized void delete(String id) throws StoreException {
+        logger.debug("Received request to delete dead letter with id {}", id);
+        if (deadLetters.remove(id) == null) {
+            throw new StoreException("dead letter with id " + id + " does not exists");
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package com.cognitree.kronos.scheduler.store.impl;
 
 import com.cognitree.kronos.ServiceProvider;
+import com.cognitree.kronos.scheduler.store.DeadLetterStore;
 import com.cognitree.kronos.scheduler.store.JobStore;
 import com.cognitree.kronos.scheduler.store.NamespaceStore;
 import com.cognitree.kronos.scheduler.store.StoreService;
@@ -36,6 +37,7 @@ public class RAMStoreService extends StoreService {
     private WorkflowTriggerStore workflowTriggerStore;
     private JobStore jobStore;
     private TaskStore taskStore;
+    private DeadLetterStore deadLetterStore;
     private org.quartz.spi.JobStore quartzJobStore;
 
     public RAMStoreService(ObjectNode config) {
@@ -50,6 +52,7 @@ public class RAMStoreService extends StoreService {
         workflowTriggerStore = new RAMWorkflowTriggerStore();
         jobStore = new RAMJobStore();
         taskStore = new RAMTaskStore();
+        deadLetterStore = new RAMDeadLetterStore();
         quartzJobStore = new org.quartz.simpl.RAMJobStore();
     }
 
@@ -84,6 +87,11 @@ public class RAMStoreService extends StoreService {
         return taskStore;
     }
 
+    @Override
+    public DeadLetterStore getDeadLetterStore() {
+        return deadLetterStore;
+    }
+
     @Override
     public org.quartz.spi.JobStore getQuartzJobStore() {
         return quartzJobStore;
@@ -49,6 +49,19 @@ public class RAMTaskStore implements TaskStore {
         tasks.put(taskId, task);
     }
 
+    @Override
+    public void store(List<Task> tasks) throws StoreException {
+        logger.debug("Received request to store {} tasks", tasks.size());
+        for (Task task : tasks) {
+            final TaskId taskId = TaskId.build(task.getNamespace(), task.getName(), task.getJob(), task.getWorkflow());
+            if (this.tasks.containsKey(taskId)) {
+                throw new StoreException("task with id " + taskId + " already exists");
+            }
+        }
+        tasks.forEach(task -> this.tasks.put(TaskId.build(task.getNamespace(), task.getName(), task.getJob(),
+                task.getWorkflow()), task));
+    }
+
     @Override
     public List<Task> load(String namespace) {
         logger.debug("Received request to get all tasks under namespace {}", namespace);
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.scheduler;
+
+import com.cognitree.kronos.model.DeadLetter;
+import com.cognitree.kronos.model.TaskUpdate;
+import com.cognitree.kronos.queue.QueueConfig;
+import com.cognitree.kronos.queue.consumer.ConsumerConfig;
+import com.cognitree.kronos.queue.consumer.RAMConsumer;
+import com.cognitree.kronos.queue.producer.ProducerConfig;
+import com.cognitree.kronos.queue.producer.RAMProducer;
+import com.cognitree.kronos.scheduler.store.DeadLetterStore;
+import com.cognitree.kronos.scheduler.store.StoreException;
+import com.cognitree.kronos.scheduler.store.impl.RAMDeadLetterStore;
+import com.cognitree.kronos.scheduler.store.impl.RAMStoreService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DeadLetterServiceTest {
+
+    @Test
+    public void testDeadLetterAndReplay() throws Exception {
+        final String statusQueue = UUID.randomUUID().toString();
+        final QueueConfig queueConfig = createQueueConfig(UUID.randomUUID().toString());
+        final RAMStoreService storeService = new RAMStoreService(null);
+        storeService.init();
+        storeService.start();
+        final DeadLetterService deadLetterService = new DeadLetterService(queueConfig);
+        deadLetterService.init();
+        deadLetterService.start();
+
+        final RAMProducer producer = new RAMProducer();
+        producer.init(null);
+        final RAMConsumer consumer = new RAMConsumer();
+        consumer.init(null);
+        final String malformedRecord = "{\"taskId\": ";
+        producer.send(statusQueue, malformedRecord);
+        final List<DeadLetter> received = new ArrayList<>();
+        final List<TaskUpdate> taskUpdates =
+                consumer.poll(statusQueue, Integer.MAX_VALUE, TaskUpdate.class, received::add);
+        Assert.assertTrue(taskUpdates.isEmpty());
+        Assert.assertEquals(1, received.size());
+        producer.send(queueConfig.getDeadLetterQueue(), received.get(0));
+
+        Thread.sleep(200);
+        final List<DeadLetter> deadLetters = deadLetterService.get(statusQueue);
+        Assert.assertEquals(1, deadLetters.size());
+        final DeadLetter deadLetter = deadLetters.get(0);
+        Assert.assertEquals(statusQueue, deadLetter.getTopic());
+        Assert.assertEquals(malformedRecord, deadLetter.getPayload());
+        Assert.assertNotNull(deadLetter.getError());
+        Assert.assertEquals(Long.valueOf(1), deadLetterService.getCounts().get(statusQueue));
+        Assert.assertTrue(deadLetterService.get(UUID.randomUUID().toString()).isEmpty());
+
+        Assert.assertEquals(Collections.singletonList(deadLetter), deadLetterService.replayAll(statusQueue));
+        Assert.assertTrue(deadLetterService.get(statusQueue).isEmpty());
+        Assert.assertEquals(Collections.singletonList(malformedRecord), consumer.poll(statusQueue));
+        // count covers the dead letters replayed
+        Assert.assertEquals(Long.valueOf(1), deadLetterService.getCounts().get(statusQueue));
+        deadLetterService.stop();
+        storeService.stop();
+    }
+
+    @Test
+    public void testDeadLetterRetriedOnStoreFailure() throws Exception {
+        final String statusQueue = UUID.randomUUID().toString();
+        final QueueConfig queueConfig = createQueueConfig(UUID.randomUUID().toString());
+        final AtomicBoolean failStore = new AtomicBoolean(true);
+        final DeadLetterStore deadLetterStore = new RAMDeadLetterStore() {
+            @Override
+            public synchronized void store(DeadLetter deadLetter) throws StoreException {
+                if (failStore.get()) {
+                    throw new StoreException("store unavailable");
+                }
+                super.store(deadLetter);
+            }
+        };
+        final RAMStoreService storeService = new RAMStoreService(null) {
+            @Override
+            public DeadLetterStore getDeadLetterStore() {
+                return deadLetterStore;
+            }
+        };
+        storeService.init();
+        storeService.start();
+        final DeadLetterService deadLetterService = new DeadLetterService(queueConfig);
+        deadLetterService.init();
+        deadLetterService.start();
+
+        final RAMProducer producer = new RAMProducer();
+        producer.init(null);
+        final DeadLetter firstDeadLetter = DeadLetter.build(statusQueue, "first", new IOException("malformed"));
+        final DeadLetter secondDeadLetter = DeadLetter.build(statusQueue, "second", new IOException("malformed"));
+        producer.send(queueConfig.getDeadLetterQueue(), firstDeadLetter);
+        Thread.sleep(200);
+        // dead letters which could not be stored are held back and the queue is not polled till they are stored
+        producer.send(queueConfig.getDeadLetterQueue(), secondDeadLetter);
+        Thread.sleep(200);
+        Assert.assertTrue(deadLetterService.get(statusQueue).isEmpty());
+        Assert.assertEquals(Long.valueOf(1), deadLetterService.getCounts().get(statusQueue));
+
+        failStore.set(false);
+        Thread.sleep(200);
+        Assert.assertEquals(Arrays.asList(firstDeadLetter, secondDeadLetter), deadLetterService.get(statusQueue));
+        Assert.assertEquals(Long.valueOf(2), deadLetterService.getCounts().get(statusQueue));
+        deadLetterService.stop();
+        storeService.stop();
+    }
+
+    private QueueConfig createQueueConfig(String deadLetterQueue) {
+        final ProducerConfig producerConfig = new ProducerConfig();
+        producerConfig.setProducerClass(RAMProducer.class.getName());
+        final ConsumerConfig consumerConfig = new ConsumerConfig();
+        consumerConfig.setConsumerClass(RAMConsumer.class.getName());
+        consumerConfig.setPollIntervalInMs(10);
+        final QueueConfig queueConfig = new QueueConfig();
+        queueConfig.setProducerConfig(producerConfig);
+        queueConfig.setConsumerConfig(consumerConfig);
+        queueConfig.setDeadLetterQueue(deadLetterQueue);
+        return queueConfig;
+    }
+}
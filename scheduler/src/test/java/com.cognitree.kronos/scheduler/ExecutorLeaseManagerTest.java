@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.cognitree.kronos.scheduler;
+
+import com.cognitree.kronos.model.ExecutorHeartbeat;
+import com.cognitree.kronos.model.TaskId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ExecutorLeaseManagerTest {
+
+    @Test
+    public void testLeaseExpiry() {
+        final AtomicLong clock = new AtomicLong();
+        final ExecutorLeaseManager executorLeaseManager = new ExecutorLeaseManager(200, clock::get);
+        final TaskId taskId = TaskId.build(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        final ExecutorHeartbeat heartbeat = createHeartbeat("executorOne", taskId);
+        executorLeaseManager.renew(heartbeat);
+        Assert.assertTrue(executorLeaseManager.expire().isEmpty());
+        Assert.assertTrue(executorLeaseManager.isAlive("executorOne"));
+        clock.addAndGet(100);
+        executorLeaseManager.renew(heartbeat);
+        clock.addAndGet(150);
+        Assert.assertTrue(executorLeaseManager.expire().isEmpty());
+        clock.addAndGet(100);
+        final List<TaskId> expiredTasks = executorLeaseManager.expire();
+        Assert.assertEquals(Collections.singletonList(taskId), expiredTasks);
+        Assert.assertFalse(executorLeaseManager.isAlive("executorOne"));
+    }
+
+    @Test
+    public void testLeaseRenewalReplacesTasks() {
+        final AtomicLong clock = new AtomicLong();
+        final ExecutorLeaseManager executorLeaseManager = new ExecutorLeaseManager(100, clock::get);
+        final TaskId taskOne = TaskId.build(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        final TaskId taskTwo = TaskId.build(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        executorLeaseManager.renew(createHeartbeat("executorTwo", taskOne));
+        executorLeaseManager.renew(createHeartbeat("executorTwo", taskTwo));
+        clock.addAndGet(200);
+        Assert.assertEquals(Collections.singletonList(taskTwo), executorLeaseManager.expire());
+    }
+
+    @Test
+    public void testExecutorRestartReleasesTasks() {
+        final AtomicLong clock = new AtomicLong();
+        final ExecutorLeaseManager executorLeaseManager = new ExecutorLeaseManager(100, clock::get);
+        final TaskId taskOne = TaskId.build(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        final TaskId taskTwo = TaskId.build(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        final ExecutorHeartbeat heartbeat = createHeartbeat("executorSix", taskOne);
+        heartbeat.setIncarnationId("incarnationOne");
+        executorLeaseManager.renew(heartbeat);
+        heartbeat.setTasks(Collections.singletonList(taskTwo));
+        executorLeaseManager.renew(heartbeat);
+        Assert.assertTrue(executorLeaseManager.expire().isEmpty());
+
+        // executor restarts within the lease timeout and no longer holds the tasks
+        final ExecutorHeartbeat restartHeartbeat = createHeartbeat("executorSix", null);
+        restartHeartbeat.setIncarnationId("incarnationTwo");
+        clock.addAndGet(50);
+        executorLeaseManager.renew(restartHeartbeat);
+        Assert.assertEquals(Collections.singletonList(taskTwo), executorLeaseManager.expire());
+        Assert.assertTrue(executorLeaseManager.isAlive("executorSix"));
+        Assert.assertNull(executorLeaseManager.getExecutor(taskTwo));
+        executorLeaseManager.renew(restartHeartbeat);
+        Assert.assertTrue(executorLeaseManager.expire().isEmpty());
+    }
+
+    @Test
+    public void testHeartbeatWithoutTasks() {
+        final AtomicLong clock = new AtomicLong();
+        final ExecutorLeaseManager executorLeaseManager = new ExecutorLeaseManager(100, clock::get);
+        final ExecutorHeartbeat heartbeat = createHeartbeat("executorSeven", null);
+        heartbeat.setTasks(null);
+        heartbeat.setCapacity(null);
+        executorLeaseManager.renew(heartbeat);
+        Assert.assertTrue(executorLeaseManager.getCapacity().isEmpty());
+        clock.addAndGet(200);
+        Assert.assertTrue(executorLeaseManager.expire().isEmpty());
+        Assert.assertFalse(executorLeaseManager.isAlive("executorSeven"));
+    }
+
+    @Test
+    public void testAggregateCapacity() {
+        final AtomicLong clock = new AtomicLong();
+        final ExecutorLeaseManager executorLeaseManager = new ExecutorLeaseManager(100, clock::get);
+        final ExecutorHeartbeat heartbeatOne = createHeartbeat("executorThree", null);
+        heartbeatOne.getCapacity().put("typeA", 2);
+        heartbeatOne.getCapacity().put("typeB", 1);
+        executorLeaseManager.renew(heartbeatOne);
+        final ExecutorHeartbeat heartbeatTwo = createHeartbeat("executorFour", null);
+        heartbeatTwo.getCapacity().put("typeA", 3);
+        executorLeaseManager.renew(heartbeatTwo);
+
+        final Map<String, Integer> expectedCapacity = new HashMap<>();
+        expectedCapacity.put("typeA", 5);
+        expectedCapacity.put("typeB", 1);
+        Assert.assertEquals(expectedCapacity, executorLeaseManager.getCapacity());
+
+        clock.addAndGet(150);
+        executorLeaseManager.renew(heartbeatTwo);
+        executorLeaseManager.expire();
+        Assert.assertEquals(Collections.singletonMap("typeA", 3), executorLeaseManager.getCapacity());
+    }
+
+    @Test
+    public void testAssignTask() {
+        final ExecutorLeaseManager executorLeaseManager = new ExecutorLeaseManager(100);
+        final TaskId taskId = TaskId.build("namespace", "taskOne", "job", "workflow");
+        executorLeaseManager.assign(taskId, "executorFive");
+        Assert.assertNull(executorLeaseManager.getExecutor(taskId));
+
+        executorLeaseManager.renew(createHeartbeat("executorFive", null));
+        executorLeaseManager.assign(taskId, "executorFive");
+        Assert.assertEquals("executorFive", executorLeaseManager.getExecutor(taskId));
+        // the next heartbeat lists the tasks held by the executor
+        executorLeaseManager.renew(createHeartbeat("executorFive", null));
+        Assert.assertNull(executorLeaseManager.getExecutor(taskId));
+    }
+
+    private ExecutorHeartbeat createHeartbeat(String executorId, TaskId taskId) {
+        final ExecutorHeartbeat heartbeat = new ExecutorHeartbeat();
+        heartbeat.setExecutorId(executorId);
+        heartbeat.setTimestamp(System.currentTimeMillis());
+        heartbeat.setTasks(taskId == null ? Collections.emptyList() : Collections.singletonList(taskId));
+        return heartbeat;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cognitree.kronos.scheduler;
+
+import com.cognitree.kronos.model.Task;
+import com.cognitree.kronos.model.Task.Status;
+import com.cognitree.kronos.model.TaskUpdate;
+import com.cognitree.kronos.queue.QueueMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static com.cognitree.kronos.model.Task.Status.FAILED;
+import static com.cognitree.kronos.model.Task.Status.RUNNING;
+import static com.cognitree.kronos.model.Task.Status.SCHEDULED;
+import static com.cognitree.kronos.model.Task.Status.SUBMITTED;
+import static com.cognitree.kronos.model.Task.Status.SUCCESSFUL;
+
+public class TaskUpdateTrackerTest {
+    private static final String EXECUTOR = "executor";
+
+    @Test
+    public void testDuplicateUpdates() {
+        final QueueMetrics queueMetrics = QueueMetrics.get(UUID.randomUUID().toString());
+        final TaskUpdateTracker taskUpdateTracker = new TaskUpdateTracker(queueMetrics);
+        final Task task = createTask(SCHEDULED, 1);
+        final TaskUpdate submitted = TaskUpdate.build(task, SUBMITTED, null, null, 1, EXECUTOR, 1);
+        final TaskUpdate running = TaskUpdate.build(task, RUNNING, null, null, 1, EXECUTOR, 2);
+        Assert.assertTrue(taskUpdateTracker.accept(submitted, task));
+        // an update is recorded only once applied, an update failed to apply is accepted again
+        Assert.assertTrue(taskUpdateTracker.accept(submitted, task));
+        taskUpdateTracker.applied(submitted);
+        task.setStatus(SUBMITTED);
+        Assert.assertTrue(taskUpdateTracker.accept(running, task));
+        taskUpdateTracker.applied(running);
+        // redelivered update of the same attempt, the task is yet to move to running
+        Assert.assertFalse(taskUpdateTracker.accept(running, task));
+        Assert.assertEquals(1, taskUpdateTracker.getDuplicateUpdates());
+        Assert.assertEquals(0, taskUpdateTracker.getStaleUpdates());
+        Assert.assertEquals(Long.valueOf(1), queueMetrics.getDiscarded().get(TaskUpdateTracker.DUPLICATE));
+        // update of a task not known to the scheduler is left to the scheduler and not recorded
+        final Task unknownTask = createTask(SCHEDULED, 1);
+        Assert.assertTrue(taskUpdateTracker.accept(
+                TaskUpdate.build(unknownTask, SUBMITTED, null, null, 1, EXECUTOR, 1), null));
+        Assert.assertEquals(1, taskUpdateTracker.size());
+        taskUpdateTracker.remove(task);
+        Assert.assertEquals(0, taskUpdateTracker.size());
+    }
+
+    @Test
+    public void testStaleUpdates() {
+        final QueueMetrics queueMetrics = QueueMetrics.get(UUID.randomUUID().toString());
+        final TaskUpdateTracker taskUpdateTracker = new TaskUpdateTracker(queueMetrics);
+        final Task task = createTask(SUBMITTED, 1);
+        // completion received ahead of the running update
+        Assert.assertTrue(taskUpdateTracker.accept(
+                TaskUpdate.build(task, SUCCESSFUL, null, null, 1, EXECUTOR, 3), task));
+        task.setStatus(SUCCESSFUL);
+        Assert.assertFalse(taskUpdateTracker.accept(
+                TaskUpdate.build(task, RUNNING, null, null, 1, EXECUTOR, 2), task));
+        Assert.assertFalse(taskUpdateTracker.accept(
+                TaskUpdate.build(task, FAILED, null, null, 1, EXECUTOR, 4), task));
+        // updates not numbered are checked for staleness only
+        final Task otherTask = createTask(RUNNING, 1);
+        Assert.assertFalse(taskUpdateTracker.accept(
+                TaskUpdate.build(otherTask, SUBMITTED, null, null, 0, null, 0), otherTask));
+        otherTask.setStatus(SUBMITTED);
+        Assert.assertTrue(taskUpdateTracker.accept(
+                TaskUpdate.build(otherTask, RUNNING, null, null, 0, null, 0), otherTask));
+        Assert.assertEquals(3, taskUpdateTracker.getStaleUpdates());
+        Assert.assertEquals(0, taskUpdateTracker.getDuplicateUpdates());
+        Assert.assertEquals(Long.valueOf(3), queueMetrics.getDiscarded().get(TaskUpdateTracker.STALE));
+    }
+
+    @Test
+    public void testSupersededAttempts() {
+        final TaskUpdateTracker taskUpdateTracker =
+                new TaskUpdateTracker(QueueMetrics.get(UUID.randomUUID().toString()));
+        final Task task = createTask(SCHEDULED, 2);
+        // update of an attempt superseded by a later dispatch of the task
+        Assert.assertFalse(taskUpdateTracker.accept(
+                TaskUpdate.build(task, SUBMITTED, null, null, 1, EXECUTOR, 1), task));
+        final TaskUpdate submitted = TaskUpdate.build(task, SUBMITTED, null, null, 2, EXECUTOR, 1);
+        Assert.assertTrue(taskUpdateTracker.accept(submitted, task));
+        taskUpdateTracker.applied(submitted);
+        task.setStatus(SUBMITTED);
+        // the current attempt redelivered to and executed by another executor
+        Assert.assertFalse(taskUpdateTracker.accept(
+                TaskUpdate.build(task, RUNNING, null, null, 2, "other-executor", 2), task));
+        Assert.assertTrue(taskUpdateTracker.accept(
+                TaskUpdate.build(task, RUNNING, null, null, 2, EXECUTOR, 2), task));
+        Assert.assertEquals(2, taskUpdateTracker.getStaleUpdates());
+        // the current attempt is not known once the scheduler restarts
+        final Task reloadedTask = createTask(SUBMITTED, 0);
+        Assert.assertTrue(taskUpdateTracker.accept(
+                TaskUpdate.build(reloadedTask, RUNNING, null, null, 2, EXECUTOR, 2), reloadedTask));
+    }
+
+    private Task createTask(Status status, int attempt) {
+        final Task task = new Task();
+        task.setNamespace(UUID.randomUUID().toString());
+        task.setName(UUID.randomUUID().toString());
+        task.setJob(UUID.randomUUID().toString());
+        task.setWorkflow(UUID.randomUUID().toString());
+        task.setStatus(status);
+        task.setAttempt(attempt);
+        return task;
+    }
+}